@@ -1,5 +1,12 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.ControlTotalsConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.OutputFilePart;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.InlineXsdValidation;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.OutputValidation;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.XsdValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.BatchStatus;
@@ -9,19 +16,43 @@ import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.validator.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.Assert;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_INCOMPLETE;
 import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_PART_FILE_PATH;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_PARTS;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.SHA_PART_EXTENSION;
 import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_TOTAL_RECORD_COUNT;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_XSD_VALIDATED_INLINE;
 
 public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>, StepExecutionListener {
+	private static final int GZIP_BUFFER_SIZE = 65536;
+	private static final String PART_EXTENSION = ".part";
+	private static final String HEADER_PATCH_OFFSET_KEY = "dynamic.writer.headerPatchOffset";
+	private static final String HEADER_PATCH_LENGTH_KEY = "dynamic.writer.headerPatchLength";
+	private static final String SHA256_ALGORITHM = "SHA-256";
+	private static final int DIGEST_BUFFER_SIZE = 1024 * 1024;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 
 	// Shared state keys
@@ -32,71 +63,682 @@ public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>
 	protected FileOutputStream fileOutputStream;
 	protected ByteTrackingOutputStream byteTrackingStream;
 	protected BufferedOutputStream bufferedOutputStream;
+	// Between the buffer and the byte tracker when the output is compressed
+	private GzipMemberOutputStream gzipStream;
+	private InterfaceConfig.Compression compression = InterfaceConfig.Compression.NONE;
+	private int compressionLevel = InterfaceConfig.DEFAULT_COMPRESSION_LEVEL;
+	private int compressionThreads = 1;
+
+	@Value("${file.generation.compression.block-size:131072}")
+	private int compressionBlockSize;
+
+	// Per writer with compressionThreads > 1; bounds memory to about blocks x block-size
+	@Value("${file.generation.compression.max-in-flight-blocks:0}")
+	private int maxInFlightBlocks;
+
+	// SHA-256 of the bytes on disk computed as they are written, so finalization does not re-read the file
+	@Value("${file.generation.sha.inline:true}")
+	private boolean inlineSha = true;
+
+	@Autowired(required = false)
+	private XsdValidator xsdValidator;
+
+	// Validate XML output against its XSD while writing, instead of parsing the file again afterwards
+	@Value("${validation.xsd.inline:true}")
+	private boolean inlineXsdValidation = true;
+
+	private String inlineXsdSchemaFile;
+	private InlineXsdValidation xsdValidation;
+	// Every file of the output so far was validated inline, and is valid
+	private boolean xsdValidInline;
+	private ExecutionContext jobContext;
+
+	// Creates the output validation of each file; null when the interface has none
+	private Supplier<OutputValidation> outputValidationFactory;
+	private OutputValidation outputValidation;
+	// Where the write in progress started, restored when a violation takes it back
+	private long writeStartOffset;
+	private long writeStartRecordCount;
+	private String writeStartTotals;
+	private MessageDigest writeStartDigest;
+
+	// Digest of the file's first carriedDigestLength bytes, handed over by the file's previous writer
+	private MessageDigest carriedDigest;
+	private long carriedDigestLength;
+
+	// Rolling output: 0 = unlimited
+	private long maxFileBytes;
+	private long maxRecordsPerFile;
+	// Path the parts are numbered from, the current part (1-based, 0 = not rolling) and the parts closed so far
+	private String rollingBasePath;
+	private int partIndex;
+	private long partStartRecordCount;
+	private final List<OutputFilePart> completedParts = new ArrayList<>();
+	// Byte budget of rolling by maxFileBytes: the most bytes per record any chunk took, and the bytes of the last
+	// footer written (-1 until a part has been closed); where the chunk in progress started
+	private long maxBytesPerRecord;
+	private long footerBytes = -1;
+	private long chunkStartBytes = -1;
+	private long chunkStartRecordCount;
+
+	// Control totals of the current file; null when the interface has none
+	private ControlTotalsConfig controlTotalsConfig;
+	protected ControlTotals controlTotals;
+	// Header bytes rewritten with the final totals on close; -1 = none
+	private long headerPatchOffset = -1;
+	private int headerPatchLength;
 
 	protected String outputFilePath;
 	protected String partFilePath;
 	protected String interfaceType;
 	protected long recordCount = 0;
 	protected boolean stepSuccessful = false;
+	// close() could not finish the file: it gets no checksum or XSD verdict, and the job is failed
+	private boolean unfinished = false;
+	// Segment files hold only record bodies; the merge step adds the header/footer once
+	protected boolean segment = false;
 
 	@Override
 	public abstract void write(List<? extends T> items) throws Exception;
 
+	/**
+	 * With GZIP, every checkpoint ends a gzip member, so the saved byte offset (of compressed
+	 * bytes on disk) is always a member boundary and truncate-and-resume keeps the file valid.
+	 * More than one thread compresses the blocks of a member in parallel.
+	 */
+	public void setCompression(InterfaceConfig.Compression compression, int level, int threads) {
+		this.compression = compression != null ? compression : InterfaceConfig.Compression.NONE;
+		this.compressionLevel = level;
+		this.compressionThreads = Math.max(threads, 1);
+	}
+
+	/**
+	 * With a limit set, the output is written as {@code name_0001.ext}, {@code name_0002.ext}, ...,
+	 * each a complete file with its own header and footer. Parts are rolled between chunks,
+	 * so a chunk is never split across two files.
+	 */
+	public void setRollingLimits(long maxFileBytes, long maxRecordsPerFile) {
+		this.maxFileBytes = Math.max(maxFileBytes, 0);
+		this.maxRecordsPerFile = Math.max(maxRecordsPerFile, 0);
+	}
+
+	/**
+	 * Accumulate these totals while writing, for the format's header/footer; set before init()
+	 */
+	public void setControlTotals(ControlTotalsConfig controlTotalsConfig) {
+		this.controlTotalsConfig = controlTotalsConfig;
+	}
+
+	/**
+	 * Validate the output against this XSD while it is written, if the format supports it; set before open()
+	 */
+	public void setInlineXsdSchema(String xsdSchemaFile) {
+		this.inlineXsdSchemaFile = xsdSchemaFile;
+	}
+
+	/**
+	 * Check every file with the validators this creates while it is written; set before open()
+	 */
+	public void setOutputValidation(Supplier<OutputValidation> outputValidation) {
+		this.outputValidationFactory = outputValidation;
+	}
+
+	/**
+	 * Whether the output is one XML document per file, which can be validated as it is written.
+	 */
+	protected boolean supportsInlineXsdValidation() {
+		return false;
+	}
+
 	public void init(String outputFilePath, String interfaceType) throws Exception {
 		Assert.hasText(outputFilePath, "outputFilePath must not be empty");
 		Assert.hasText(interfaceType, "interfaceType must not be empty");
 
 		this.outputFilePath = outputFilePath.trim();
 		this.interfaceType = interfaceType.trim();
-		this.partFilePath = outputFilePath.endsWith(".part")
+		this.partFilePath = outputFilePath.endsWith(PART_EXTENSION)
 				? outputFilePath
-				: outputFilePath + ".part";
+				: outputFilePath + PART_EXTENSION;
+
+		controlTotals = controlTotalsConfig != null ? new ControlTotals(controlTotalsConfig) : null;
+		headerPatchOffset = -1;
+		completedParts.clear();
+		partStartRecordCount = 0;
+		partIndex = 0;
+		if (!segment && (maxFileBytes > 0 || maxRecordsPerFile > 0)) {
+			rollingBasePath = partFilePath.substring(0, partFilePath.length() - PART_EXTENSION.length());
+			selectPart(1);
+		}
 
 		ensureDirectoryExists(outputFilePath);
 		onInit(); // Format-specific initialization
 	}
 
+	/**
+	 * Initialize as a partition worker: records only, no header/footer and
+	 * no promotion of the segment path to the job context.
+	 */
+	public void initSegment(String segmentFilePath, String interfaceType) throws Exception {
+		this.segment = true;
+		init(segmentFilePath, interfaceType);
+	}
+
+	/**
+	 * Builds the final file from partition segments written in key order:
+	 * header, each segment's bytes (copied channel-to-channel), then the footer. The segments'
+	 * control totals, added up, are those of the merged file.
+	 * Empty segments are skipped, so {@link #beforeSegment} only separates segments that hold records.
+	 */
+	public void mergeSegments(List<String> segmentFilePaths, long totalRecords, String segmentTotals) throws Exception {
+		// The segments are appended past the validators
+		inlineXsdSchemaFile = null;
+		outputValidationFactory = null;
+		open(new ExecutionContext());
+		try {
+			int index = 0;
+			for (String segmentFilePath : segmentFilePaths) {
+				Path segmentPath = Paths.get(segmentFilePath);
+				if (Files.size(segmentPath) == 0) {
+					continue;
+				}
+				beforeSegment(index++);
+				// Segments are complete gzip members when compressed; end ours before appending
+				finishBlock();
+				appendFile(segmentPath);
+			}
+			recordCount = totalRecords;
+			if (controlTotals != null) {
+				controlTotals.restore(segmentTotals);
+			}
+			stepSuccessful = true;
+		} finally {
+			close();
+		}
+	}
+
+	private void appendFile(Path source) throws IOException {
+		FileChannel target = fileOutputStream.getChannel();
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+			long size = in.size();
+			if (byteTrackingStream.isDigesting()) {
+				// The segment's bytes pass through the heap once, for the checksum and the copy
+				ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_SIZE);
+				while (in.read(buffer) != -1) {
+					buffer.flip();
+					byteTrackingStream.updateDigest(buffer.array(), 0, buffer.limit());
+					while (buffer.hasRemaining()) {
+						target.write(buffer);
+					}
+					buffer.clear();
+				}
+			} else {
+				long position = 0;
+				while (position < size) {
+					position += in.transferTo(position, size - position, target);
+				}
+			}
+			byteTrackingStream.advance(size);
+		}
+	}
+
+	/**
+	 * Called before the bytes of segment {@code index} are appended. Formats that need
+	 * a delimiter between segments, or must close a pending start tag, override this.
+	 */
+	protected void beforeSegment(int index) throws Exception {
+	}
+
+	public boolean isSegment() {
+		return segment;
+	}
+
 	@Override
 	public void open(ExecutionContext executionContext) throws ItemStreamException {
 		try {
-			File file = new File(partFilePath);
 			long lastByteOffset = 0;
 			boolean isRestart = false;
+			unfinished = false;
+			chunkStartBytes = -1;
+			xsdValidInline = inlineXsdValidation && !segment && xsdValidator != null && supportsInlineXsdValidation() &&
+					inlineXsdSchemaFile != null && !inlineXsdSchemaFile.trim().isEmpty();
 
 			if (executionContext.containsKey(getByteOffsetKey())) {
 				lastByteOffset = executionContext.getLong(getByteOffsetKey(), 0L);
 				recordCount = executionContext.getLong(getRecordCountKey(), 0L);
 				isRestart = true;
 				logger.info("Restart detected at byte offset: {}", lastByteOffset);
-			}
-
-			fileOutputStream = new FileOutputStream(file, isRestart);
-			FileChannel channel = fileOutputStream.getChannel();
-
-			if (isRestart) {
-				if (lastByteOffset < channel.size()) {
-					channel.truncate(lastByteOffset);
+				if (controlTotals != null) {
+					controlTotals.restore(executionContext.getString(ControlTotals.CONTEXT_KEY, ""));
+				}
+				headerPatchOffset = executionContext.getLong(HEADER_PATCH_OFFSET_KEY, -1L);
+				headerPatchLength = executionContext.getInt(HEADER_PATCH_LENGTH_KEY, 0);
+				if (partIndex > 0 && executionContext.containsKey(FILE_GEN_OUTPUT_PARTS)) {
+					// Closed parts are complete; resume the one that was open at the checkpoint
+					completedParts.addAll(OutputFilePart.decode(executionContext.getString(FILE_GEN_OUTPUT_PARTS)));
+					for (OutputFilePart part : completedParts) {
+						partStartRecordCount += part.getRecordCount();
+					}
+					selectPart(completedParts.size() + 1);
+					logger.info("Resuming rolled output at part {}: {}", partIndex, partFilePath);
 				}
 			} else {
-				channel.truncate(0);
 				recordCount = 0;
 			}
 
-			byteTrackingStream = new ByteTrackingOutputStream(fileOutputStream, channel.size());
-			bufferedOutputStream = new BufferedOutputStream(byteTrackingStream);
-
-			openStream(bufferedOutputStream, isRestart);
+			// Records are numbered from the restart point on restart
+			outputValidation = outputValidationFactory != null ? outputValidationFactory.get() : null;
+			openFile(lastByteOffset, isRestart);
 		} catch (Exception e) {
 			closeQuietly();
 			throw new ItemStreamException("Failed to open stream", e);
 		}
 	}
 
+	/**
+	 * Opens the stream stack on {@link #partFilePath}: truncated to {@code lastByteOffset} on restart, emptied otherwise.
+	 */
+	private void openFile(long lastByteOffset, boolean isRestart) throws Exception {
+		File file = new File(partFilePath);
+		fileOutputStream = new FileOutputStream(file, isRestart);
+		FileChannel channel = fileOutputStream.getChannel();
+
+		if (isRestart) {
+			if (lastByteOffset < channel.size()) {
+				channel.truncate(lastByteOffset);
+			}
+		} else {
+			channel.truncate(0);
+		}
+		// A checksum left by an earlier attempt no longer describes the file
+		Files.deleteIfExists(inlineShaPath());
+
+		byteTrackingStream = new ByteTrackingOutputStream(fileOutputStream, channel.size());
+		if (inlineSha && !segment) {
+			long size = channel.size();
+			boolean carried = carriedDigest != null && carriedDigestLength == size;
+			byteTrackingStream.startDigest(carried ? carriedDigest : digestOfPrefix(file.toPath(), size));
+			carriedDigest = null;
+		}
+		if (compression == InterfaceConfig.Compression.GZIP) {
+			if (compressionThreads > 1) {
+				int inFlight = maxInFlightBlocks > 0 ? maxInFlightBlocks : 2 * compressionThreads;
+				gzipStream = new ParallelGzipOutputStream(byteTrackingStream, compressionLevel, compressionThreads,
+						compressionBlockSize, inFlight, "gzip-" + interfaceType + "-");
+			} else {
+				gzipStream = new GzipBlockOutputStream(byteTrackingStream, compressionLevel, GZIP_BUFFER_SIZE);
+			}
+			bufferedOutputStream = new BufferedOutputStream(
+					teeOutputValidation(validateInline(gzipStream, isRestart)), GZIP_BUFFER_SIZE);
+		} else {
+			gzipStream = null;
+			bufferedOutputStream = new BufferedOutputStream(teeOutputValidation(validateInline(byteTrackingStream, isRestart)));
+		}
+
+		openStream(bufferedOutputStream, isRestart);
+	}
+
+	/**
+	 * Called before each chunk: closes the current part and starts the next when the chunk would take
+	 * it past maxRecordsPerFile, or past maxFileBytes. For the byte limit the chunk is budgeted at the
+	 * most bytes per record any chunk has taken so far (never less than the part's average), plus the
+	 * footer: the last one written, or one record's worth before any part was closed.
+	 * A part always gets at least one chunk, so a chunk larger than a limit makes a part of its own;
+	 * a part closed over maxFileBytes is logged.
+	 */
+	public void rollIfNeeded(int chunkSize) throws Exception {
+		if (partIndex == 0 || chunkSize == 0) {
+			return;
+		}
+		// Up to date: the checkpoint after the previous chunk pushed everything to the file
+		long partBytes = byteTrackingStream.getBytesWritten();
+		if (chunkStartBytes >= 0 && recordCount > chunkStartRecordCount && partBytes > chunkStartBytes) {
+			maxBytesPerRecord = Math.max(maxBytesPerRecord,
+					ceilDiv(partBytes - chunkStartBytes, recordCount - chunkStartRecordCount));
+		}
+		long partRecords = recordCount - partStartRecordCount;
+		if (partRecords > 0) {
+			boolean full = maxRecordsPerFile > 0 && partRecords + chunkSize > maxRecordsPerFile;
+			if (!full && maxFileBytes > 0) {
+				long perRecord = Math.max(maxBytesPerRecord, ceilDiv(partBytes, partRecords));
+				long footer = footerBytes >= 0 ? footerBytes : perRecord;
+				full = partBytes + perRecord * chunkSize + footer > maxFileBytes;
+			}
+			if (full) {
+				roll();
+			}
+		}
+		chunkStartBytes = byteTrackingStream.getBytesWritten();
+		chunkStartRecordCount = recordCount;
+	}
+
+	private static long ceilDiv(long bytes, long records) {
+		return (bytes + records - 1) / records;
+	}
+
+	/**
+	 * Warns when a closed part exceeds maxFileBytes: a single chunk larger than the limit, or records far
+	 * longer (or compressing far worse) than any before them.
+	 */
+	private void checkPartSize() {
+		long size = byteTrackingStream.getBytesWritten();
+		if (maxFileBytes > 0 && size > maxFileBytes) {
+			logger.warn("Part {} of {} is {} bytes, over maxFileBytes {}; lower chunkSize to keep parts under the limit",
+					partIndex, interfaceType, size, maxFileBytes);
+		}
+	}
+
+	private void roll() throws Exception {
+		long bytesBeforeFooter = byteTrackingStream.getBytesWritten();
+		writeFooter();
+		patchHeader();
+		fileOutputStream.getChannel().force(false);
+		bufferedOutputStream.close();
+		footerBytes = Math.max(byteTrackingStream.getBytesWritten() - bytesBeforeFooter, 0);
+		checkPartSize();
+		finishXsdValidation(true);
+		finishOutputValidation();
+		writeInlineSha();
+		completedParts.add(new OutputFilePart(partFilePath, recordCount - partStartRecordCount));
+		partStartRecordCount = recordCount;
+		// Totals are per file
+		if (controlTotals != null) {
+			controlTotals.reset();
+		}
+		headerPatchOffset = -1;
+
+		selectPart(partIndex + 1);
+		logger.info("Rolling {} output to part {}: {}", interfaceType, partIndex, partFilePath);
+		// A part file left by a failed attempt is overwritten
+		outputValidation = outputValidationFactory != null ? outputValidationFactory.get() : null;
+		openFile(0, false);
+	}
+
+	private OutputStream teeOutputValidation(OutputStream out) {
+		return outputValidation != null ? outputValidation.tee(out) : out;
+	}
+
+	/**
+	 * Called by the format writer before it writes a chunk's records: pushes what was written before them through
+	 * the output validators, where a violation (in the header) fails the step, and remembers where they start.
+	 */
+	protected void beginWrite() throws Exception {
+		if (outputValidation == null) {
+			return;
+		}
+		finishBlock();
+		List<String> violations = outputValidation.drainViolations();
+		if (!violations.isEmpty()) {
+			throw new IllegalStateException(partFilePath + " failed output validation: " + String.join("; ", violations));
+		}
+		outputValidation.mark();
+		writeStartOffset = byteTrackingStream.getBytesWritten();
+		writeStartRecordCount = recordCount;
+		writeStartTotals = controlTotals != null ? controlTotals.encode() : null;
+		writeStartDigest = byteTrackingStream.copyDigest();
+	}
+
+	/**
+	 * Called by the format writer after it wrote a chunk's records: pushes them through the output validators and,
+	 * on a violation, takes the whole write back and fails it with a {@link ValidationException}, which the step's
+	 * skip policy handles like an invalid record. Spring Batch then writes the chunk's records one at a time, so
+	 * only the offending record is skipped.
+	 */
+	protected void endWrite() throws Exception {
+		if (outputValidation == null) {
+			return;
+		}
+		flushInternal();
+		bufferedOutputStream.flush();
+		List<String> violations = outputValidation.drainViolations();
+		if (violations.isEmpty()) {
+			return;
+		}
+		rollBackWrite();
+		throw new ValidationException(partFilePath + " failed output validation: " + String.join("; ", violations));
+	}
+
+	/**
+	 * Truncates the file to the start of the write in progress and reopens the stream stack there; the bytes after
+	 * it never reach a checkpoint.
+	 */
+	private void rollBackWrite() throws Exception {
+		if (gzipStream != null) {
+			// The member in progress is dropped with the bytes
+			gzipStream.release();
+		}
+		fileOutputStream.close();
+		logger.warn("Rolling {} back to byte offset {} after an output validation failure", partFilePath, writeStartOffset);
+		recordCount = writeStartRecordCount;
+		if (controlTotals != null) {
+			controlTotals.restore(writeStartTotals);
+		}
+		outputValidation.reset();
+		if (writeStartDigest != null) {
+			carryDigest(writeStartDigest, writeStartOffset);
+		}
+		openFile(writeStartOffset, true);
+	}
+
+	/**
+	 * Ends the output validation of a complete file. The trailer is written after the last chunk, so its
+	 * violations can no longer fail one; they are logged.
+	 */
+	private void finishOutputValidation() {
+		OutputValidation validation = outputValidation;
+		outputValidation = null;
+		if (validation == null) {
+			return;
+		}
+		validation.finish();
+		List<String> violations = validation.drainViolations();
+		if (!violations.isEmpty()) {
+			logger.error("{} failed output validation: {}", partFilePath, String.join("; ", violations));
+		}
+	}
+
+	/**
+	 * Routes the uncompressed bytes of a file written from its start through an inline XSD validator.
+	 * A restarted file is not: the validator cannot resume mid-document, so the validation step checks it.
+	 */
+	private OutputStream validateInline(OutputStream out, boolean isRestart) {
+		xsdValidation = null;
+		if (!xsdValidInline) {
+			return out;
+		}
+		if (isRestart) {
+			logger.info("Inline XSD validation cannot resume {}; it is validated after generation", partFilePath);
+			xsdValidInline = false;
+			return out;
+		}
+		xsdValidation = xsdValidator.startInlineValidation(inlineXsdSchemaFile.trim(), partFilePath);
+		if (xsdValidation == null) {
+			xsdValidInline = false;
+			return out;
+		}
+		return xsdValidation.tee(out);
+	}
+
+	/**
+	 * Fails the chunk once the inline validator has found a violation (strict mode); otherwise logs it and
+	 * leaves the file to the validation step.
+	 */
+	private void checkXsdValidation() throws IOException {
+		if (xsdValidation == null) {
+			return;
+		}
+		xsdValidation.checkFailure();
+		if (xsdValidInline && xsdValidation.getFailure() != null) {
+			xsdValidInline = false;
+			logger.warn("{} violates its XSD: {}", partFilePath, xsdValidation.getFailure().getMessage());
+		}
+	}
+
+	/**
+	 * Ends the inline validation of the current file: waits for the verdict on a complete one, drops an incomplete one.
+	 */
+	private void finishXsdValidation(boolean complete) throws IOException {
+		InlineXsdValidation validation = xsdValidation;
+		xsdValidation = null;
+		if (validation == null) {
+			return;
+		}
+		if (!complete) {
+			validation.abort();
+			xsdValidInline = false;
+			return;
+		}
+		try {
+			if (!validation.finish()) {
+				validation.checkFailure();
+				xsdValidInline = false;
+				logger.warn("{} violates its XSD: {}", partFilePath, validation.getFailure().getMessage());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			validation.abort();
+			xsdValidInline = false;
+		}
+	}
+
+	private void selectPart(int index) {
+		partIndex = index;
+		outputFilePath = rolledPartPath(rollingBasePath, index);
+		partFilePath = outputFilePath + PART_EXTENSION;
+	}
+
+	static String rolledPartPath(String basePath, int index) {
+		return insertBeforeExtension(basePath, String.format("_%04d", index));
+	}
+
+	/**
+	 * {@code dir/name.xml.gz}, "_0003" -> {@code dir/name_0003.xml.gz}: the tag goes before the
+	 * format extension, after a compression suffix is set aside.
+	 */
+	static String insertBeforeExtension(String basePath, String tag) {
+		String suffix = "";
+		for (InterfaceConfig.Compression c : InterfaceConfig.Compression.values()) {
+			if (!c.getFileSuffix().isEmpty() && basePath.endsWith(c.getFileSuffix())) {
+				suffix = c.getFileSuffix();
+			}
+		}
+		String path = basePath.substring(0, basePath.length() - suffix.length());
+		int nameStart = Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar)) + 1;
+		int dot = path.lastIndexOf('.');
+		if (dot <= nameStart) {
+			dot = path.length();
+		}
+		return path.substring(0, dot) + tag + path.substring(dot) + suffix;
+	}
+
+	protected ControlTotalsConfig getControlTotalsConfig() {
+		return controlTotalsConfig;
+	}
+
+	/**
+	 * Adds a written record to the control totals, if the interface has any.
+	 */
+	protected void addToControlTotals(DynamicRecord record) {
+		if (controlTotals != null) {
+			controlTotals.add(record);
+		}
+	}
+
+	/**
+	 * The current file's record count and control totals, by name (see {@link ControlTotals#values}).
+	 */
+	protected Map<String, Object> getControlTotalValues() {
+		if (controlTotals == null) {
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put(ControlTotals.RECORD_COUNT, getPartRecordCount());
+			return values;
+		}
+		return controlTotals.values(getPartRecordCount());
+	}
+
+	/**
+	 * Writes header bytes holding totals that are only known at the end, and remembers where they went:
+	 * {@link #patchHeader()} overwrites them with {@link #renderHeaderPatch()}, which must be just as long.
+	 * The format writer flushes its own buffers first. Compressed output cannot be patched in place,
+	 * so there the bytes are written as they are.
+	 */
+	protected void writePatchableHeader(byte[] placeholder) throws IOException {
+		if (gzipStream == null) {
+			bufferedOutputStream.flush();
+			headerPatchOffset = byteTrackingStream.getBytesWritten();
+			headerPatchLength = placeholder.length;
+		}
+		bufferedOutputStream.write(placeholder);
+	}
+
+	/**
+	 * The final bytes for the range written by {@link #writePatchableHeader}.
+	 */
+	protected byte[] renderHeaderPatch() throws Exception {
+		throw new IllegalStateException(getClass().getSimpleName() + " does not back-patch its header");
+	}
+
+	/**
+	 * Rewrites the header placeholder with the final totals through a positional write. Called after the
+	 * footer, with everything flushed; the file is written through its own channel, as a restarted stream
+	 * is in append mode, where positional writes are not reliable.
+	 */
+	protected void patchHeader() throws Exception {
+		finishBlock();
+		if (headerPatchOffset < 0) {
+			return;
+		}
+		byte[] patch = renderCheckedHeaderPatch();
+		// The inline checksum covers the placeholder; finalization hashes the patched file instead
+		byteTrackingStream.stopDigest();
+		try (FileChannel channel = FileChannel.open(Paths.get(partFilePath), StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(patch);
+			long position = headerPatchOffset;
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			channel.force(false);
+		}
+		logger.debug("Back-patched {} header bytes at offset {} of {}", patch.length, headerPatchOffset, partFilePath);
+		headerPatchOffset = -1;
+	}
+
+	/**
+	 * The header patch for the totals so far; fails when it no longer fits the placeholder (a total wider than its
+	 * header positions). Checked at every checkpoint, so the chunk fails instead of the file's close.
+	 */
+	private byte[] renderCheckedHeaderPatch() throws Exception {
+		byte[] patch = renderHeaderPatch();
+		if (patch.length != headerPatchLength) {
+			throw new IllegalStateException("Header of " + partFilePath + " changed length from " + headerPatchLength +
+					" to " + patch.length + " bytes; control totals cannot be back-patched");
+		}
+		return patch;
+	}
+
+	/**
+	 * For a format writer's close(): the footer or header totals could not be written, so the file is incomplete.
+	 * It gets no inline checksum or XSD verdict, and the validation step fails the job.
+	 */
+	protected ItemStreamException unfinished(String message, Exception cause) {
+		unfinished = true;
+		return new ItemStreamException(message, cause);
+	}
+
+	/**
+	 * Records in the current file: all of them unless the output is rolled.
+	 */
+	protected long getPartRecordCount() {
+		return recordCount - partStartRecordCount;
+	}
+
 	@Override
 	public void update(ExecutionContext executionContext) {
 		try {
-			flushInternal();
-			if (bufferedOutputStream != null) bufferedOutputStream.flush();
+			finishBlock();
+			checkXsdValidation();
+			if (headerPatchOffset >= 0) {
+				renderCheckedHeaderPatch();
+			}
 			if (fileOutputStream != null) {
 				fileOutputStream.getChannel().force(false);
 			}
@@ -104,6 +746,15 @@ public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>
 				long currentOffset = byteTrackingStream.getBytesWritten();
 				executionContext.putLong(getByteOffsetKey(), currentOffset);
 				executionContext.putLong(getRecordCountKey(), recordCount);
+				if (controlTotals != null) {
+					executionContext.putString(ControlTotals.CONTEXT_KEY, controlTotals.encode());
+				}
+				// Always written: a rolled part's new header replaces the previous part's offset
+				executionContext.putLong(HEADER_PATCH_OFFSET_KEY, headerPatchOffset);
+				executionContext.putInt(HEADER_PATCH_LENGTH_KEY, headerPatchLength);
+				if (partIndex > 0) {
+					executionContext.putString(FILE_GEN_OUTPUT_PARTS, OutputFilePart.encode(completedParts));
+				}
 				logger.debug("Saved restart state: bytes={}, records={}", currentOffset, recordCount);
 			}
 		} catch (Exception e) {
@@ -123,6 +774,16 @@ public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>
 	protected abstract void writeFooter() throws Exception;
 
 	// Common Utilities
+
+	/**
+	 * Pushes everything written so far to the file; with compression, also ends the gzip member.
+	 */
+	private void finishBlock() throws Exception {
+		flushInternal();
+		if (bufferedOutputStream != null) bufferedOutputStream.flush();
+		if (gzipStream != null) gzipStream.finishBlock();
+	}
+
 	private void ensureDirectoryExists(String path) throws IOException {
 		Path parent = Paths.get(path).toAbsolutePath().getParent();
 		if (parent != null) Files.createDirectories(parent);
@@ -137,23 +798,147 @@ public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>
 			if (fileOutputStream != null) fileOutputStream.close();
 		} catch (Exception ignored) {
 		}
+		boolean complete = stepSuccessful && !unfinished;
+		try {
+			finishXsdValidation(complete && !segment);
+		} catch (Exception e) {
+			xsdValidInline = false;
+			logger.error("Inline XSD validation failed for {}; it is validated again after generation", partFilePath, e);
+		}
+		if (complete) {
+			finishOutputValidation();
+		}
+		outputValidation = null;
+		if (complete && !segment) {
+			writeInlineSha();
+		}
+		if (complete && partIndex > 0 && byteTrackingStream != null) {
+			checkPartSize();
+		}
+		if (jobContext != null) {
+			// Close follows afterStep: the verdict on the footer is only known now
+			jobContext.put(FILE_GEN_XSD_VALIDATED_INLINE, complete && xsdValidInline);
+			if (unfinished) {
+				jobContext.put(FILE_GEN_OUTPUT_INCOMPLETE, true);
+			}
+		}
+	}
+
+	/**
+	 * The bytes already in the file (kept on restart) hashed, so the digest can continue from there.
+	 */
+	private static MessageDigest digestOfPrefix(Path file, long length) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(SHA256_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(SHA256_ALGORITHM + " not available", e);
+		}
+		if (length == 0) {
+			return digest;
+		}
+		try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_SIZE);
+			long remaining = length;
+			while (remaining > 0) {
+				buffer.limit((int) Math.min(buffer.capacity(), remaining));
+				int n = in.read(buffer);
+				if (n < 0) {
+					throw new EOFException("File " + file + " is shorter than its checkpoint offset " + length);
+				}
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+				remaining -= n;
+			}
+		}
+		return digest;
+	}
+
+	private Path inlineShaPath() {
+		return Paths.get(partFilePath.substring(0, partFilePath.length() - PART_EXTENSION.length()) + SHA_PART_EXTENSION);
+	}
+
+	/**
+	 * Writes the checksum of the file just completed as {@code <name>.sha.part}, which finalization takes
+	 * instead of reading the file again. Without one (not tracked, or it could not be written) finalization
+	 * computes the checksum itself.
+	 */
+	private void writeInlineSha() {
+		byte[] hash = byteTrackingStream != null ? byteTrackingStream.finishDigest() : null;
+		if (hash == null) {
+			return;
+		}
+		char[] hex = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+			hex[2 * i + 1] = HEX[hash[i] & 0xf];
+		}
+		Path shaPath = inlineShaPath();
+		String finalFileName = shaPath.getFileName().toString();
+		finalFileName = finalFileName.substring(0, finalFileName.length() - SHA_PART_EXTENSION.length());
+		try {
+			Files.write(shaPath, ("SHA256(" + finalFileName + ")= " + new String(hex)).getBytes(StandardCharsets.US_ASCII));
+		} catch (IOException e) {
+			logger.warn("Could not write inline checksum {}; it will be computed at finalization", shaPath, e);
+		}
 	}
 
 	@Override
 	public void beforeStep(StepExecution stepExecution) {
 		stepSuccessful = false;
+		jobContext = null;
 	}
 
 	@Override
 	public ExitStatus afterStep(StepExecution stepExecution) {
+		stepSuccessful = (stepExecution.getStatus() == BatchStatus.COMPLETED);
+		if (segment) {
+			// Concurrent partition workers must not overwrite the job-level part file
+			return stepExecution.getExitStatus();
+		}
 		// Populate Job Context with metadata for the JobListener to rename/move the file
-		ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+		jobContext = stepExecution.getJobExecution().getExecutionContext();
 		jobContext.putString(FILE_GEN_PART_FILE_PATH, partFilePath);
+		// Set by close(), once the rest of the file has been validated
+		jobContext.put(FILE_GEN_XSD_VALIDATED_INLINE, false);
+		jobContext.put(FILE_GEN_OUTPUT_INCOMPLETE, false);
 		jobContext.putLong(FILE_GEN_TOTAL_RECORD_COUNT, recordCount);
-		stepSuccessful = (stepExecution.getStatus() == BatchStatus.COMPLETED);
+		if (partIndex > 0) {
+			List<OutputFilePart> parts = new ArrayList<>(completedParts);
+			parts.add(new OutputFilePart(partFilePath, getPartRecordCount()));
+			jobContext.putString(FILE_GEN_OUTPUT_PARTS, OutputFilePart.encode(parts));
+		}
 		return stepExecution.getExitStatus();
 	}
 
+	/**
+	 * For a file reopened by a new writer (a shard): the digest its previous writer left, so the retained
+	 * bytes need not be read again. Set before open(); ignored unless it covers the file up to the checkpoint.
+	 */
+	void carryDigest(MessageDigest digest, long length) {
+		this.carriedDigest = digest;
+		this.carriedDigestLength = length;
+	}
+
+	/**
+	 * The digest of an incomplete file after close(), for {@link #carryDigest}; null when not tracked.
+	 */
+	MessageDigest releaseDigest() {
+		return byteTrackingStream != null ? byteTrackingStream.digest : null;
+	}
+
+	long getBytesWritten() {
+		return byteTrackingStream != null ? byteTrackingStream.getBytesWritten() : 0;
+	}
+
+	/**
+	 * For a writer driven by another one (a shard) instead of by the step: whether close() completes the file.
+	 */
+	void setStepSuccessful(boolean stepSuccessful) {
+		this.stepSuccessful = stepSuccessful;
+	}
+
 	public long getRecordCount() {
 		return recordCount;
 	}
@@ -170,6 +955,8 @@ public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>
 	protected static class ByteTrackingOutputStream extends OutputStream {
 		private final OutputStream delegate;
 		private long bytesWritten;
+		// SHA-256 of every byte of the file so far; null when not tracked
+		private MessageDigest digest;
 
 		public ByteTrackingOutputStream(OutputStream delegate, long initialOffset) {
 			this.delegate = delegate;
@@ -180,6 +967,7 @@ public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>
 		public void write(int b) throws IOException {
 			delegate.write(b);
 			bytesWritten++;
+			if (digest != null) digest.update((byte) b);
 		}
 
 		@SuppressWarnings("NullableProblems")
@@ -188,12 +976,69 @@ public abstract class AbstractBaseOutputWriter<T> implements ItemStreamWriter<T>
 			java.util.Objects.requireNonNull(b);
 			delegate.write(b, off, len);
 			bytesWritten += len;
+			if (digest != null) digest.update(b, off, len);
+		}
+
+		/**
+		 * Continue the digest of the file's first {@code bytesWritten} bytes with everything written from now on.
+		 */
+		void startDigest(MessageDigest digest) {
+			this.digest = digest;
+		}
+
+		boolean isDigesting() {
+			return digest != null;
+		}
+
+		/**
+		 * A copy of the digest so far, to continue from after the file is truncated back here; null when not
+		 * tracked, or the digest cannot be copied.
+		 */
+		MessageDigest copyDigest() {
+			if (digest == null) {
+				return null;
+			}
+			try {
+				return (MessageDigest) digest.clone();
+			} catch (CloneNotSupportedException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Account for bytes written to the underlying channel directly, when the digest is tracked.
+		 */
+		void updateDigest(byte[] b, int off, int len) {
+			if (digest != null) digest.update(b, off, len);
+		}
+
+		/**
+		 * The file was changed other than by appending; its digest is no longer known.
+		 */
+		void stopDigest() {
+			digest = null;
+		}
+
+		/**
+		 * The file's SHA-256, once; null when not tracked.
+		 */
+		byte[] finishDigest() {
+			byte[] hash = digest != null ? digest.digest() : null;
+			digest = null;
+			return hash;
 		}
 
 		public long getBytesWritten() {
 			return bytesWritten;
 		}
 
+		/**
+		 * Account for bytes written to the underlying channel directly (e.g. transferTo).
+		 */
+		void advance(long bytes) {
+			bytesWritten += bytes;
+		}
+
 		@Override
 		public void flush() throws IOException {
 			delegate.flush();
@@ -0,0 +1,118 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Tunes JDBC fetch size and page size for one reader from what it observes.
+ * <p>
+ * After each page (or cursor window) the reader reports rows, elapsed time and an approximate
+ * byte size. Fetch size then moves towards the target round-trip time (at most 2x per step,
+ * with a dead band against jitter). Page size is whatever keeps the in-flight pages within
+ * the heap budget. Both stay within the configured bounds, and fetch size never exceeds page size.
+ * <p>
+ * Instances are not shared: one per reader. With prefetch the reader's background thread reports
+ * pages while the step thread reads the sizes, so observations are serialized and the sizes are
+ * published through volatile fields.
+ */
+class AdaptiveFetchController {
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveFetchController.class);
+	private static final double DEAD_BAND = 0.2;
+	private static final double EMA_WEIGHT = 0.3;
+
+	private final String interfaceType;
+	private final AdaptiveFetchPolicy policy;
+	private final int pagesInFlight;
+	private final GaugeService gaugeService;
+
+	private volatile int fetchSize;
+	private volatile int pageSize;
+	private double bytesPerRow = 0;
+	private double lastRoundTripMs = 0;
+
+	AdaptiveFetchController(String interfaceType, AdaptiveFetchPolicy policy, int initialFetchSize,
+							int initialPageSize, int pagesInFlight, GaugeService gaugeService) {
+		this.interfaceType = interfaceType;
+		this.policy = policy;
+		this.pagesInFlight = Math.max(1, pagesInFlight);
+		this.gaugeService = gaugeService;
+		this.pageSize = clamp(initialPageSize, policy.getMinPageSize(), policy.getMaxPageSize());
+		this.fetchSize = clamp(initialFetchSize, policy.getMinFetchSize(), Math.min(policy.getMaxFetchSize(), pageSize));
+		publish();
+	}
+
+	int getFetchSize() {
+		return fetchSize;
+	}
+
+	int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @param rows         rows received in this window
+	 * @param elapsedNanos time spent waiting on the database for them
+	 * @param approxBytes  estimated heap size of those rows
+	 */
+	synchronized void observe(int rows, long elapsedNanos, long approxBytes) {
+		if (rows <= 0) {
+			return;
+		}
+		double rowBytes = Math.max(1.0, (double) approxBytes / rows);
+		bytesPerRow = bytesPerRow == 0 ? rowBytes : (1 - EMA_WEIGHT) * bytesPerRow + EMA_WEIGHT * rowBytes;
+
+		int roundTrips = Math.max(1, (rows + fetchSize - 1) / fetchSize);
+		lastRoundTripMs = elapsedNanos / 1_000_000.0 / roundTrips;
+
+		// Heap: all pages that can be alive at once must fit the budget
+		long heapRows = (long) (policy.getHeapBudgetBytes() / (bytesPerRow * pagesInFlight));
+		int newPageSize = clamp(heapRows, policy.getMinPageSize(), policy.getMaxPageSize());
+
+		// Latency: move fetch size towards the target round-trip time
+		double factor = policy.getTargetRoundTripMs() / Math.max(lastRoundTripMs, 0.1);
+		factor = Math.max(0.5, Math.min(2.0, factor));
+		int newFetchSize = Math.abs(factor - 1.0) > DEAD_BAND ? (int) Math.round(fetchSize * factor) : fetchSize;
+		newFetchSize = clamp(newFetchSize, policy.getMinFetchSize(), Math.min(policy.getMaxFetchSize(), newPageSize));
+
+		if (newFetchSize != fetchSize || newPageSize != pageSize) {
+			logger.info("Adaptive fetch [{}]: fetchSize {} -> {}, pageSize {} -> {} (rows={}, roundTrip={} ms, target={} ms, bytesPerRow={})",
+					interfaceType, fetchSize, newFetchSize, pageSize, newPageSize, rows,
+					Math.round(lastRoundTripMs), policy.getTargetRoundTripMs(), Math.round(bytesPerRow));
+			fetchSize = newFetchSize;
+			pageSize = newPageSize;
+		}
+		publish();
+	}
+
+	/**
+	 * Rough heap footprint of a column value; good enough to size pages, not an exact measure.
+	 */
+	static long estimateBytes(Object value) {
+		if (value == null) return 8;
+		if (value instanceof CharSequence) return 40 + 2L * ((CharSequence) value).length();
+		if (value instanceof byte[]) return 16 + ((byte[]) value).length;
+		if (value instanceof BigDecimal) return 40 + ((BigDecimal) value).precision() / 2;
+		if (value instanceof Number || value instanceof Boolean) return 16;
+		if (value instanceof Date || value instanceof java.time.temporal.Temporal) return 24;
+		return 32;
+	}
+
+	private void publish() {
+		if (gaugeService == null) {
+			return;
+		}
+		String prefix = "filegen.reader." + interfaceType + ".";
+		gaugeService.submit(prefix + "fetchSize", fetchSize);
+		gaugeService.submit(prefix + "pageSize", pageSize);
+		gaugeService.submit(prefix + "bytesPerRow", bytesPerRow);
+		gaugeService.submit(prefix + "roundTripMs", lastRoundTripMs);
+	}
+
+	private static int clamp(long value, int min, int max) {
+		return (int) Math.max(min, Math.min(max, value));
+	}
+}
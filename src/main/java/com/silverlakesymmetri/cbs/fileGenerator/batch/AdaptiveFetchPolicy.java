@@ -0,0 +1,99 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Bounds and targets for adaptive fetch/page sizing (file.generation.reader.adaptive.*).
+ * Creates one AdaptiveFetchController per reader when enabled.
+ */
+@Component
+public class AdaptiveFetchPolicy {
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveFetchPolicy.class);
+
+	@Value("${file.generation.reader.adaptive.enabled:false}")
+	private boolean enabled;
+
+	@Value("${file.generation.reader.adaptive.min-fetch-size:50}")
+	private int minFetchSize;
+
+	@Value("${file.generation.reader.adaptive.max-fetch-size:5000}")
+	private int maxFetchSize;
+
+	@Value("${file.generation.reader.adaptive.min-page-size:100}")
+	private int minPageSize;
+
+	@Value("${file.generation.reader.adaptive.max-page-size:20000}")
+	private int maxPageSize;
+
+	@Value("${file.generation.reader.adaptive.target-round-trip-ms:100}")
+	private long targetRoundTripMs;
+
+	@Value("${file.generation.reader.adaptive.heap-budget-mb:64}")
+	private long heapBudgetMb;
+
+	private GaugeService gaugeService;
+
+	@Autowired(required = false)
+	public void setGaugeService(GaugeService gaugeService) {
+		this.gaugeService = gaugeService;
+	}
+
+	@PostConstruct
+	public void validate() {
+		if (minFetchSize <= 0 || minFetchSize > maxFetchSize) {
+			throw new IllegalStateException("Invalid adaptive fetch-size bounds: " + minFetchSize + ".." + maxFetchSize);
+		}
+		if (minPageSize <= 0 || minPageSize > maxPageSize) {
+			throw new IllegalStateException("Invalid adaptive page-size bounds: " + minPageSize + ".." + maxPageSize);
+		}
+		if (targetRoundTripMs <= 0 || heapBudgetMb <= 0) {
+			throw new IllegalStateException("Adaptive target-round-trip-ms and heap-budget-mb must be > 0");
+		}
+		if (enabled) {
+			logger.info("Adaptive fetch enabled: fetch={}..{}, page={}..{}, targetRoundTrip={} ms, heapBudget={} MB",
+					minFetchSize, maxFetchSize, minPageSize, maxPageSize, targetRoundTripMs, heapBudgetMb);
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param pagesInFlight pages that can be held at once (1 + prefetch queue + page being fetched)
+	 */
+	AdaptiveFetchController newController(String interfaceType, int initialFetchSize, int initialPageSize, int pagesInFlight) {
+		return new AdaptiveFetchController(interfaceType, this, initialFetchSize, initialPageSize, pagesInFlight, gaugeService);
+	}
+
+	int getMinFetchSize() {
+		return minFetchSize;
+	}
+
+	int getMaxFetchSize() {
+		return maxFetchSize;
+	}
+
+	int getMinPageSize() {
+		return minPageSize;
+	}
+
+	int getMaxPageSize() {
+		return maxPageSize;
+	}
+
+	long getTargetRoundTripMs() {
+		return targetRoundTripMs;
+	}
+
+	long getHeapBudgetBytes() {
+		return heapBudgetMb * 1024 * 1024;
+	}
+}
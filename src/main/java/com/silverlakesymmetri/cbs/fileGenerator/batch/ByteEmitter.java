@@ -0,0 +1,381 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.TimeZone;
+
+/**
+ * Base of the byte-level output emitters: a reusable buffer over the writer's stream, and value
+ * rendering straight into it. Values are rendered exactly like their {@code toString()}; integers,
+ * plain-notation decimals, Timestamp and java.sql.Date are formatted digit by digit, without
+ * intermediate Strings. Columnar cells are read from their primitive storage ({@link #writeCell}).
+ * <p>
+ * Subclasses define how text is escaped or quoted ({@link #writeText}, {@link #encodeText}).
+ * Bytes reach the underlying stream on {@link #flush()} or when the buffer fills up, so
+ * callers must flush before reading a byte offset. Not thread-safe.
+ */
+abstract class ByteEmitter {
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+	private static final long MILLIS_PER_DAY = 86_400_000L;
+	// A BMP char takes at most 3 bytes, a surrogate pair 4
+	private static final int MAX_UTF8_BYTES_PER_CHAR = 3;
+
+	protected final OutputStream out;
+	protected final byte[] buffer;
+	protected int position = 0;
+	private final TimeZone timeZone = TimeZone.getDefault();
+	private final byte[] digits = new byte[20];
+	// Each distinct dictionary value is encoded once per emitter
+	private final EncodedValueCache<byte[]> dictionaryText = new EncodedValueCache<>(this::encodeText);
+
+	ByteEmitter(OutputStream out, int bufferSize) {
+		this.out = out;
+		this.buffer = new byte[Math.max(bufferSize, 256)];
+	}
+
+	/**
+	 * Writes a text value with the format's escaping or quoting.
+	 */
+	abstract void writeText(String text) throws IOException;
+
+	/**
+	 * The bytes {@link #writeText} would write, for values that are cached.
+	 */
+	abstract byte[] encodeText(String text);
+
+	/**
+	 * Encodes chars [from, to) of a String into {@code target} at {@code offset}; returns the new offset.
+	 */
+	@FunctionalInterface
+	interface CharEncoder {
+		int encode(String text, int from, int to, byte[] target, int offset);
+	}
+
+	void writeRaw(byte[] bytes) throws IOException {
+		if (bytes.length > buffer.length - position) {
+			flushBuffer();
+			if (bytes.length > buffer.length) {
+				out.write(bytes);
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	/**
+	 * For text known to be ASCII and free of characters the format escapes (numbers, booleans, markup).
+	 */
+	void writeAscii(String text) throws IOException {
+		int length = text.length();
+		for (int i = 0; i < length; ) {
+			if (position == buffer.length) {
+				flushBuffer();
+			}
+			int chunk = Math.min(length - i, buffer.length - position);
+			for (int end = i + chunk; i < end; i++) {
+				buffer[position++] = (byte) text.charAt(i);
+			}
+		}
+	}
+
+	/**
+	 * Plain UTF-8, no escaping.
+	 */
+	void writeUtf8(String text) throws IOException {
+		writeEncoded(text, MAX_UTF8_BYTES_PER_CHAR, ByteEmitter::encodeUtf8);
+	}
+
+	/**
+	 * Writes text through {@code encoder} in chunks that fit the buffer; a surrogate pair is never split.
+	 */
+	protected void writeEncoded(String text, int maxBytesPerChar, CharEncoder encoder) throws IOException {
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			if (buffer.length - position < maxBytesPerChar * 2) {
+				flushBuffer();
+			}
+			// Encode as many chars as are guaranteed to fit
+			int chunk = Math.min(length - i, (buffer.length - position) / maxBytesPerChar - 1);
+			int end = i + chunk;
+			if (end < length && Character.isHighSurrogate(text.charAt(end - 1)) && Character.isLowSurrogate(text.charAt(end))) {
+				end++;
+			}
+			position = encoder.encode(text, i, end, buffer, position);
+			i = end;
+		}
+	}
+
+	/**
+	 * Renders a value the way {@code value.toString()} would; text goes through {@link #writeText}.
+	 */
+	void writeValue(Object value) throws IOException {
+		if (value instanceof String) {
+			writeText((String) value);
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			writeLong(((Number) value).longValue());
+		} else if (value instanceof BigDecimal) {
+			// BigDecimal caches its string form, and it is always ASCII
+			writeAscii(value.toString());
+		} else if (value instanceof Timestamp) {
+			Timestamp timestamp = (Timestamp) value;
+			writeTimestamp(timestamp.getTime(), timestamp.getNanos());
+		} else if (value instanceof java.sql.Date) {
+			writeDate(((java.sql.Date) value).getTime());
+		} else if (value instanceof Boolean) {
+			writeBoolean((Boolean) value);
+		} else {
+			writeText(value.toString());
+		}
+	}
+
+	/**
+	 * Non-null columnar cell rendered from its primitive storage; text is the same as
+	 * {@code batch.getText(row, col)}.
+	 */
+	void writeCell(RecordBatch batch, int row, int col) throws IOException {
+		switch (batch.getEncoding(col)) {
+			case LONG:
+				writeLong(batch.getLong(row, col));
+				return;
+			case SCALED_LONG:
+				writeScaled(batch.getUnscaled(row, col), batch.getScale(row, col));
+				return;
+			case BOOLEAN:
+				writeBoolean(batch.getBoolean(row, col));
+				return;
+			case DICTIONARY:
+				writeRaw(dictionaryText.get(batch.getDictionary(), col, batch.getCode(row, col)));
+				return;
+			case EPOCH_MILLIS: {
+				int nanos = batch.getNanos(row, col);
+				if (nanos >= 0) {
+					writeTimestamp(batch.getEpochMillis(row, col), nanos);
+					return;
+				}
+				if (batch.getValueClass(col) == java.sql.Date.class) {
+					writeDate(batch.getEpochMillis(row, col));
+					return;
+				}
+				writeValue(batch.get(row, col));
+				return;
+			}
+			case DOUBLE:
+				// Digits, sign, '.', 'E', "NaN" or "Infinity"
+				writeAscii(batch.getText(row, col));
+				return;
+			default:
+				writeValue(batch.get(row, col));
+		}
+	}
+
+	void writeBoolean(boolean value) throws IOException {
+		writeRaw(value ? TRUE : FALSE);
+	}
+
+	void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return;
+		}
+		if (buffer.length - position < 20) {
+			flushBuffer();
+		}
+		if (value < 0) {
+			buffer[position++] = '-';
+			value = -value;
+		}
+		int count = digitsOf(value);
+		System.arraycopy(digits, digits.length - count, buffer, position, count);
+		position += count;
+	}
+
+	/**
+	 * Same text as {@code BigDecimal.valueOf(unscaled, scale).toString()}.
+	 */
+	void writeScaled(long unscaled, int scale) throws IOException {
+		if (scale == 0) {
+			writeLong(unscaled);
+			return;
+		}
+		if (scale < 0 || unscaled == Long.MIN_VALUE) {
+			writeAscii(BigDecimal.valueOf(unscaled, scale).toString());
+			return;
+		}
+		int count = digitsOf(Math.abs(unscaled));
+		if (count - 1 - scale < -6) {
+			// toString() switches to exponent notation here
+			writeAscii(BigDecimal.valueOf(unscaled, scale).toString());
+			return;
+		}
+		if (buffer.length - position < 24 + scale) {
+			flushBuffer();
+		}
+		if (unscaled < 0) {
+			buffer[position++] = '-';
+		}
+		int first = digits.length - count;
+		if (count > scale) {
+			int integerDigits = count - scale;
+			System.arraycopy(digits, first, buffer, position, integerDigits);
+			position += integerDigits;
+			buffer[position++] = '.';
+			System.arraycopy(digits, first + integerDigits, buffer, position, scale);
+			position += scale;
+		} else {
+			buffer[position++] = '0';
+			buffer[position++] = '.';
+			for (int i = count; i < scale; i++) {
+				buffer[position++] = '0';
+			}
+			System.arraycopy(digits, first, buffer, position, count);
+			position += count;
+		}
+	}
+
+	/**
+	 * Same text as {@code Timestamp.toString()}: yyyy-mm-dd hh:mm:ss.f (nanos without trailing zeros).
+	 */
+	void writeTimestamp(long epochMillis, int nanos) throws IOException {
+		long local = epochMillis + timeZone.getOffset(epochMillis);
+		long days = Math.floorDiv(local, MILLIS_PER_DAY);
+		if (!writeCivilDate(days, epochMillis, nanos, true)) {
+			return;
+		}
+		int secondOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 1000);
+		buffer[position++] = ' ';
+		writeTwoDigits(secondOfDay / 3600);
+		buffer[position++] = ':';
+		writeTwoDigits(secondOfDay / 60 % 60);
+		buffer[position++] = ':';
+		writeTwoDigits(secondOfDay % 60);
+		buffer[position++] = '.';
+		if (nanos == 0) {
+			buffer[position++] = '0';
+			return;
+		}
+		int width = 9;
+		while (nanos % 10 == 0) {
+			nanos /= 10;
+			width--;
+		}
+		for (int i = width - 1; i >= 0; i--) {
+			buffer[position + i] = (byte) ('0' + nanos % 10);
+			nanos /= 10;
+		}
+		position += width;
+	}
+
+	/**
+	 * Same text as {@code java.sql.Date.toString()}: yyyy-mm-dd.
+	 */
+	void writeDate(long epochMillis) throws IOException {
+		long local = epochMillis + timeZone.getOffset(epochMillis);
+		writeCivilDate(Math.floorDiv(local, MILLIS_PER_DAY), epochMillis, 0, false);
+	}
+
+	void flush() throws IOException {
+		flushBuffer();
+	}
+
+	protected void flushBuffer() throws IOException {
+		if (position > 0) {
+			out.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	/**
+	 * Writes yyyy-mm-dd for the given local epoch day (proleptic Gregorian).
+	 * Years the fast path cannot reproduce exactly (Julian calendar, 5+ digits) go through toString().
+	 *
+	 * @return false when the whole value was written by the fallback
+	 */
+	private boolean writeCivilDate(long epochDay, long epochMillis, int nanos, boolean timestamp) throws IOException {
+		long z = epochDay + 719_468;
+		long era = Math.floorDiv(z, 146_097);
+		long dayOfEra = z - era * 146_097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+		int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		if (year < 1583 || year > 9999) {
+			if (timestamp) {
+				Timestamp value = new Timestamp(epochMillis);
+				value.setNanos(nanos);
+				writeAscii(value.toString());
+			} else {
+				writeAscii(new java.sql.Date(epochMillis).toString());
+			}
+			return false;
+		}
+		if (buffer.length - position < 32) {
+			flushBuffer();
+		}
+		writeTwoDigits((int) (year / 100));
+		writeTwoDigits((int) (year % 100));
+		buffer[position++] = '-';
+		writeTwoDigits(month);
+		buffer[position++] = '-';
+		writeTwoDigits(day);
+		return true;
+	}
+
+	private void writeTwoDigits(int value) {
+		buffer[position++] = (byte) ('0' + value / 10);
+		buffer[position++] = (byte) ('0' + value % 10);
+	}
+
+	/**
+	 * Fills the tail of {@code digits} with the decimal digits of a non-negative value.
+	 *
+	 * @return number of digits
+	 */
+	private int digitsOf(long value) {
+		int index = digits.length;
+		do {
+			digits[--index] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		return digits.length - index;
+	}
+
+	/**
+	 * Plain UTF-8 encoding; an unpaired surrogate becomes '?', as with the JDK encoder.
+	 */
+	static int encodeUtf8(String text, int from, int to, byte[] target, int offset) {
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				target[offset++] = (byte) c;
+			} else if (c < 0x800) {
+				target[offset++] = (byte) (0xC0 | (c >> 6));
+				target[offset++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, text.charAt(++i));
+					target[offset++] = (byte) (0xF0 | (codePoint >> 18));
+					target[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					target[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					target[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+				} else {
+					target[offset++] = '?';
+				}
+			} else {
+				target[offset++] = (byte) (0xE0 | (c >> 12));
+				target[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				target[offset++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return offset;
+	}
+}
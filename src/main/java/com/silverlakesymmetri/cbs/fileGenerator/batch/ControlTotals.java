@@ -0,0 +1,249 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.ControlTotalsConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running control totals of one file (see {@link ControlTotalsConfig}), updated record by record.
+ * <p>
+ * Integral values are summed in a long and folded into the BigDecimal total only on overflow, so
+ * the common case costs no allocation. The totals are saved in the checkpoint ExecutionContext as
+ * a string ({@link #encode()}) and restored on restart; partition segments' totals are added up
+ * with {@link #merge(String)}.
+ */
+public final class ControlTotals {
+	public static final String CONTEXT_KEY = "dynamic.writer.controlTotals";
+	public static final String RECORD_COUNT = "recordCount";
+	public static final String SUM_PREFIX = "sum_";
+	public static final String HASH_PREFIX = "hash_";
+
+	// Widths of the zero-padded values in a back-patched header, so the final values fit the placeholder
+	private static final int COUNT_WIDTH = 18;
+	private static final int SUM_WIDTH = 24;
+	private static final int HASH_WIDTH = 18;
+	private static final long HASH_MODULUS = 1_000_000_000_000_000_000L;
+	private static final long HASH_DIGITS_KEPT = HASH_MODULUS / 10;
+
+	private final String[] sumColumns;
+	private final String[] hashColumns;
+	private final long[] longSums;
+	private final BigDecimal[] decimalSums;
+	private final long[] hashes;
+
+	// Column positions in the last schema seen
+	private RecordSchema schema;
+	private int[] sumIndexes;
+	private int[] hashIndexes;
+
+	public ControlTotals(ControlTotalsConfig config) {
+		this.sumColumns = trimmed(config.getSumColumns());
+		this.hashColumns = trimmed(config.getHashColumns());
+		this.longSums = new long[sumColumns.length];
+		this.decimalSums = new BigDecimal[sumColumns.length];
+		this.hashes = new long[hashColumns.length];
+		reset();
+	}
+
+	private static String[] trimmed(List<String> columns) {
+		List<String> list = columns != null ? columns : Collections.emptyList();
+		String[] names = new String[list.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = list.get(i).trim();
+		}
+		return names;
+	}
+
+	public void reset() {
+		for (int i = 0; i < sumColumns.length; i++) {
+			longSums[i] = 0;
+			decimalSums[i] = BigDecimal.ZERO;
+		}
+		for (int i = 0; i < hashColumns.length; i++) {
+			hashes[i] = 0;
+		}
+	}
+
+	public void add(DynamicRecord record) {
+		if (record.getSchema() != schema) {
+			schema = record.getSchema();
+			sumIndexes = indexes(sumColumns);
+			hashIndexes = indexes(hashColumns);
+		}
+		for (int i = 0; i < sumIndexes.length; i++) {
+			Object value = record.getValue(sumIndexes[i]);
+			if (value != null) {
+				addToSum(i, value);
+			}
+		}
+		for (int i = 0; i < hashIndexes.length; i++) {
+			Object value = record.getValue(hashIndexes[i]);
+			if (value != null) {
+				hashes[i] = (hashes[i] + hashOf(value)) % HASH_MODULUS;
+			}
+		}
+	}
+
+	private int[] indexes(String[] columns) {
+		int[] indexes = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			indexes[i] = schema.getIndex(columns[i]);
+			if (indexes[i] == -1) {
+				throw new IllegalStateException("Control total column '" + columns[i] + "' is not in the SQL results " +
+						schema.getKeySet());
+			}
+		}
+		return indexes;
+	}
+
+	private void addToSum(int i, Object value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			long v = ((Number) value).longValue();
+			long sum = longSums[i] + v;
+			// Overflow iff both operands have the sign opposite to the result
+			if (((longSums[i] ^ sum) & (v ^ sum)) < 0) {
+				decimalSums[i] = decimalSums[i].add(BigDecimal.valueOf(longSums[i])).add(BigDecimal.valueOf(v));
+				longSums[i] = 0;
+			} else {
+				longSums[i] = sum;
+			}
+			return;
+		}
+		decimalSums[i] = decimalSums[i].add(toDecimal(sumColumns[i], value));
+	}
+
+	private static BigDecimal toDecimal(String column, Object value) {
+		if (value instanceof BigDecimal) {
+			return (BigDecimal) value;
+		}
+		if (value instanceof BigInteger) {
+			return new BigDecimal((BigInteger) value);
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return BigDecimal.valueOf(((Number) value).doubleValue());
+		}
+		try {
+			return new BigDecimal(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException("Control total column '" + column + "' has a non-numeric value: " + value, e);
+		}
+	}
+
+	/**
+	 * The value's digits read as one number, keeping the last 18.
+	 */
+	private static long hashOf(Object value) {
+		String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+		long hash = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				hash = (hash % HASH_DIGITS_KEPT) * 10 + (c - '0');
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * {@code recordCount}, then {@code sum_<COLUMN>} (BigDecimal) and {@code hash_<COLUMN>} (Long) in configured order.
+	 */
+	public Map<String, Object> values(long recordCount) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put(RECORD_COUNT, recordCount);
+		for (int i = 0; i < sumColumns.length; i++) {
+			values.put(SUM_PREFIX + sumColumns[i], sum(i));
+		}
+		for (int i = 0; i < hashColumns.length; i++) {
+			values.put(HASH_PREFIX + hashColumns[i], hashes[i]);
+		}
+		return values;
+	}
+
+	/**
+	 * As {@link #values(long)}, zero-padded to fixed widths: the placeholder written into a header
+	 * (all zeros) and the final values patched over it have the same length.
+	 */
+	public Map<String, String> paddedValues(long recordCount) {
+		Map<String, String> values = new LinkedHashMap<>();
+		values.put(RECORD_COUNT, pad(BigDecimal.valueOf(recordCount), COUNT_WIDTH, RECORD_COUNT));
+		for (int i = 0; i < sumColumns.length; i++) {
+			values.put(SUM_PREFIX + sumColumns[i], pad(sum(i), SUM_WIDTH, SUM_PREFIX + sumColumns[i]));
+		}
+		for (int i = 0; i < hashColumns.length; i++) {
+			values.put(HASH_PREFIX + hashColumns[i], pad(BigDecimal.valueOf(hashes[i]), HASH_WIDTH, HASH_PREFIX + hashColumns[i]));
+		}
+		return values;
+	}
+
+	private static String pad(BigDecimal value, int width, String name) {
+		String digits = value.abs().toPlainString();
+		String sign = value.signum() < 0 ? "-" : "";
+		int zeros = width - sign.length() - digits.length();
+		if (zeros < 0) {
+			throw new IllegalStateException("Control total " + name + " = " + value + " is wider than its " + width +
+					" header positions");
+		}
+		StringBuilder sb = new StringBuilder(width).append(sign);
+		for (int i = 0; i < zeros; i++) {
+			sb.append('0');
+		}
+		return sb.append(digits).toString();
+	}
+
+	private BigDecimal sum(int i) {
+		return decimalSums[i].add(BigDecimal.valueOf(longSums[i]));
+	}
+
+	/**
+	 * {@code sum_A=12.50;hash_B=991}: the totals without the record count, which writers keep themselves.
+	 */
+	public String encode() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < sumColumns.length; i++) {
+			sb.append(SUM_PREFIX).append(sumColumns[i]).append('=').append(sum(i).toPlainString()).append(';');
+		}
+		for (int i = 0; i < hashColumns.length; i++) {
+			sb.append(HASH_PREFIX).append(hashColumns[i]).append('=').append(hashes[i]).append(';');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Adds encoded totals to these; names not configured here are ignored.
+	 */
+	public void merge(String encoded) {
+		if (encoded == null || encoded.isEmpty()) {
+			return;
+		}
+		for (String entry : encoded.split(";")) {
+			int eq = entry.lastIndexOf('=');
+			if (eq < 0) {
+				continue;
+			}
+			String name = entry.substring(0, eq);
+			String value = entry.substring(eq + 1);
+			for (int i = 0; i < sumColumns.length; i++) {
+				if (name.equals(SUM_PREFIX + sumColumns[i])) {
+					decimalSums[i] = decimalSums[i].add(new BigDecimal(value));
+				}
+			}
+			for (int i = 0; i < hashColumns.length; i++) {
+				if (name.equals(HASH_PREFIX + hashColumns[i])) {
+					hashes[i] = (hashes[i] + Long.parseLong(value)) % HASH_MODULUS;
+				}
+			}
+		}
+	}
+
+	public void restore(String encoded) {
+		reset();
+		merge(encoded);
+	}
+}
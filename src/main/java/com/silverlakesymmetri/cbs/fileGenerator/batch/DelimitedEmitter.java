@@ -0,0 +1,110 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.DelimitedConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 delimited (CSV/PSV/TSV) emitter. Text is quoted only when it has to be: it contains the
+ * delimiter, the quote or escape character or a line break, or it equals the null token
+ * (so an empty string stays distinguishable from null). Quote characters inside a quoted
+ * value are doubled, or prefixed with the escape character when one is configured.
+ */
+final class DelimitedEmitter extends ByteEmitter {
+	// Worst case per char: escape character plus the character itself, 3 bytes each
+	private static final int MAX_BYTES_PER_CHAR = 6;
+
+	private final char delimiter;
+	private final char quote;
+	private final char escape;
+	private final String nullValue;
+	private final boolean alwaysQuote;
+	private final byte[] delimiterBytes;
+	private final byte[] quoteBytes;
+	private final byte[] escapeBytes;
+	private final byte[] nullBytes;
+	private final byte[] lineSeparatorBytes;
+	private final CharEncoder quotedEncoder = this::encodeQuoted;
+
+	DelimitedEmitter(OutputStream out, int bufferSize, DelimitedConfig config) {
+		super(out, bufferSize);
+		this.delimiter = config.getDelimiter().charAt(0);
+		this.quote = config.getQuote().charAt(0);
+		// Without an escape character, quotes are escaped by doubling them
+		this.escape = config.getEscape() == null || config.getEscape().isEmpty() ? quote : config.getEscape().charAt(0);
+		this.nullValue = config.getNullValue() == null ? "" : config.getNullValue();
+		this.alwaysQuote = config.isAlwaysQuote();
+		this.delimiterBytes = String.valueOf(delimiter).getBytes(StandardCharsets.UTF_8);
+		this.quoteBytes = String.valueOf(quote).getBytes(StandardCharsets.UTF_8);
+		this.escapeBytes = String.valueOf(escape).getBytes(StandardCharsets.UTF_8);
+		this.nullBytes = nullValue.getBytes(StandardCharsets.UTF_8);
+		this.lineSeparatorBytes = config.getLineSeparator().getBytes(StandardCharsets.UTF_8);
+	}
+
+	void writeDelimiter() throws IOException {
+		writeRaw(delimiterBytes);
+	}
+
+	void writeNull() throws IOException {
+		writeRaw(nullBytes);
+	}
+
+	void writeLineSeparator() throws IOException {
+		writeRaw(lineSeparatorBytes);
+	}
+
+	@Override
+	void writeText(String text) throws IOException {
+		if (!alwaysQuote && !needsQuoting(text)) {
+			writeUtf8(text);
+			return;
+		}
+		writeRaw(quoteBytes);
+		writeEncoded(text, MAX_BYTES_PER_CHAR, quotedEncoder);
+		writeRaw(quoteBytes);
+	}
+
+	@Override
+	byte[] encodeText(String text) {
+		if (!alwaysQuote && !needsQuoting(text)) {
+			return text.getBytes(StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[text.length() * MAX_BYTES_PER_CHAR + quoteBytes.length * 2];
+		System.arraycopy(quoteBytes, 0, bytes, 0, quoteBytes.length);
+		int length = encodeQuoted(text, 0, text.length(), bytes, quoteBytes.length);
+		System.arraycopy(quoteBytes, 0, bytes, length, quoteBytes.length);
+		length += quoteBytes.length;
+		byte[] result = new byte[length];
+		System.arraycopy(bytes, 0, result, 0, length);
+		return result;
+	}
+
+	private boolean needsQuoting(String text) {
+		if (text.equals(nullValue)) {
+			return true;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == delimiter || c == quote || c == escape || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int encodeQuoted(String text, int from, int to, byte[] target, int offset) {
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (c == quote || c == escape) {
+				System.arraycopy(escapeBytes, 0, target, offset, escapeBytes.length);
+				offset += escapeBytes.length;
+			}
+			int end = Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1)) ? i + 2 : i + 1;
+			offset = encodeUtf8(text, i, end, target, offset);
+			i = end - 1;
+		}
+		return offset;
+	}
+}
@@ -2,22 +2,33 @@ package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
 import com.silverlakesymmetri.cbs.fileGenerator.batch.listeners.FileGenerationJobListener;
 import com.silverlakesymmetri.cbs.fileGenerator.batch.listeners.FileGenerationStepListener;
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
 import com.silverlakesymmetri.cbs.fileGenerator.service.FileGenerationService;
 import com.silverlakesymmetri.cbs.fileGenerator.tasklets.BatchCleanupTasklet;
 import com.silverlakesymmetri.cbs.fileGenerator.tasklets.FileValidationTasklet;
+import com.silverlakesymmetri.cbs.fileGenerator.tasklets.SegmentMergeTasklet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
 import org.springframework.batch.item.validator.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DeadlockLoserDataAccessException;
 import org.springframework.dao.TransientDataAccessException;
@@ -36,6 +47,11 @@ public class DynamicBatchConfig {
 	private final DynamicItemWriter dynamicItemWriter;
 	private final FileValidationTasklet fileValidationTasklet;
 	private final BatchCleanupTasklet batchCleanupTasklet;
+	private final DynamicKeyRangePartitioner dynamicKeyRangePartitioner;
+	private final DynamicExtractionModeDecider dynamicExtractionModeDecider;
+	private final SegmentMergeTasklet segmentMergeTasklet;
+	private final TaskExecutor partitionTaskExecutor;
+	private final InterfaceConfigLoader interfaceConfigLoader;
 
 	@Value("${file.generation.chunk-size:1000}")
 	private int chunkSize;
@@ -49,7 +65,12 @@ public class DynamicBatchConfig {
 			DynamicItemProcessor dynamicItemProcessor,
 			DynamicItemWriter dynamicItemWriter,
 			FileValidationTasklet fileValidationTasklet,
-			BatchCleanupTasklet batchCleanupTasklet
+			BatchCleanupTasklet batchCleanupTasklet,
+			DynamicKeyRangePartitioner dynamicKeyRangePartitioner,
+			DynamicExtractionModeDecider dynamicExtractionModeDecider,
+			SegmentMergeTasklet segmentMergeTasklet,
+			@Qualifier("partitionTaskExecutor") TaskExecutor partitionTaskExecutor,
+			InterfaceConfigLoader interfaceConfigLoader
 	) {
 		this.jobBuilderFactory = jobBuilderFactory;
 		this.stepBuilderFactory = stepBuilderFactory;
@@ -59,6 +80,11 @@ public class DynamicBatchConfig {
 		this.dynamicItemWriter = dynamicItemWriter;
 		this.fileValidationTasklet = fileValidationTasklet;
 		this.batchCleanupTasklet = batchCleanupTasklet;
+		this.dynamicKeyRangePartitioner = dynamicKeyRangePartitioner;
+		this.dynamicExtractionModeDecider = dynamicExtractionModeDecider;
+		this.segmentMergeTasklet = segmentMergeTasklet;
+		this.partitionTaskExecutor = partitionTaskExecutor;
+		this.interfaceConfigLoader = interfaceConfigLoader;
 		logger.info("Configuring FileGeneration with chunk size {}", chunkSize);
 	}
 
@@ -67,6 +93,15 @@ public class DynamicBatchConfig {
 		return new FileGenerationStepListener(fileGenerationService);
 	}
 
+	/**
+	 * Wraps the processor; runs it on 'processingThreads' workers when the interface asks for it.
+	 */
+	@Bean
+	@StepScope
+	public ParallelItemProcessor<DynamicRecord, DynamicRecord> dynamicParallelItemProcessor() {
+		return new ParallelItemProcessor<>(dynamicItemProcessor, interfaceConfigLoader);
+	}
+
 	@Bean
 	public Step dynamicFileValidationStep() {
 		return stepBuilderFactory.get("dynamicFileValidationStep")
@@ -76,28 +111,73 @@ public class DynamicBatchConfig {
 
 	@Bean
 	public Job dynamicFileGenerationJob(FileGenerationJobListener sharedJobListener) {
-		return jobBuilderFactory.get("dynamicFileGenerationJob")
-				.incrementer(new RunIdIncrementer())
-				.listener(sharedJobListener)
-				.start(dynamicFileGenerationStep())
-				.on("COMPLETED").to(dynamicFileValidationStep())
+		// Interfaces with partitionCount > 1 extract key ranges in parallel, then merge the segments
+		Flow flow = new FlowBuilder<Flow>("dynamicFileGenerationFlow")
+				.start(dynamicExtractionModeDecider)
+				.on(DynamicExtractionModeDecider.PARTITIONED).to(dynamicPartitionedGenerationStep())
+				.from(dynamicExtractionModeDecider).on("*").to(dynamicFileGenerationStep())
 				// If Generation fails, go to cleanup, then FAIL the job
+				.from(dynamicFileGenerationStep()).on("COMPLETED").to(dynamicFileValidationStep())
 				.from(dynamicFileGenerationStep()).on("*").to(dynamicCleanupStep())
-				.on("*").fail()
+				.from(dynamicPartitionedGenerationStep()).on("COMPLETED").to(dynamicSegmentMergeStep())
+				.from(dynamicPartitionedGenerationStep()).on("*").to(dynamicCleanupStep())
+				.from(dynamicSegmentMergeStep()).on("COMPLETED").to(dynamicFileValidationStep())
+				.from(dynamicSegmentMergeStep()).on("*").to(dynamicCleanupStep())
 				// If Validation fails, go to cleanup, then FAIL the job
 				.from(dynamicFileValidationStep()).on("FAILED").to(dynamicCleanupStep())
-				.on("*").fail()
 				.from(dynamicFileValidationStep()).on("COMPLETED").end()
+				.from(dynamicCleanupStep()).on("*").fail()
+				.build();
+
+		return jobBuilderFactory.get("dynamicFileGenerationJob")
+				.incrementer(new RunIdIncrementer())
+				.listener(sharedJobListener)
+				.start(flow)
 				.end()
 				.build();
 	}
 
 	@Bean
 	public Step dynamicFileGenerationStep() {
-		return stepBuilderFactory.get("dynamicFileGenerationStep")
+		return chunkStep("dynamicFileGenerationStep")
+				// --- Listeners ---
+				.listener(dynamicStepExecutionListener())
+				.allowStartIfComplete(true)
+				.build();
+	}
+
+	/**
+	 * Manager step: one worker per key range. Workers keep their own restart state,
+	 * so on restart only incomplete partitions run again.
+	 */
+	@Bean
+	public Step dynamicPartitionedGenerationStep() {
+		return stepBuilderFactory.get("dynamicPartitionedGenerationStep")
+				.partitioner(SegmentMergeTasklet.WORKER_STEP_NAME, dynamicKeyRangePartitioner)
+				.step(dynamicPartitionWorkerStep())
+				.taskExecutor(partitionTaskExecutor)
+				.listener(dynamicStepExecutionListener())
+				.build();
+	}
+
+	@Bean
+	public Step dynamicPartitionWorkerStep() {
+		return chunkStep(SegmentMergeTasklet.WORKER_STEP_NAME).build();
+	}
+
+	@Bean
+	public Step dynamicSegmentMergeStep() {
+		return stepBuilderFactory.get("dynamicSegmentMergeStep")
+				.tasklet(segmentMergeTasklet)
+				.build();
+	}
+
+	private FaultTolerantStepBuilder<DynamicRecord, DynamicRecord> chunkStep(String stepName) {
+		ParallelItemProcessor<DynamicRecord, DynamicRecord> processor = dynamicParallelItemProcessor();
+		FaultTolerantStepBuilder<DynamicRecord, DynamicRecord> builder = stepBuilderFactory.get(stepName)
 				.<DynamicRecord, DynamicRecord>chunk(chunkSize)
 				.reader(dynamicItemReader)
-				.processor(dynamicItemProcessor)
+				.processor(processor)
 				.writer(dynamicItemWriter)
 
 				// --- Fault Tolerance Configuration ---
@@ -111,12 +191,11 @@ public class DynamicBatchConfig {
 				// Skip Logic (skip bad data rows, but crash on system errors)
 				.skip(ValidationException.class)
 				.skip(DataIntegrityViolationException.class)
-				.skipLimit(100)
-
-				// --- Listeners ---
-				.listener(dynamicStepExecutionListener())
-				.allowStartIfComplete(true)
-				.build();
+				.skipLimit(100);
+		builder.listener((ItemReadListener<DynamicRecord>) processor);
+		builder.listener((ChunkListener) processor);
+		builder.listener((StepExecutionListener) processor);
+		return builder;
 	}
 
 	@Bean
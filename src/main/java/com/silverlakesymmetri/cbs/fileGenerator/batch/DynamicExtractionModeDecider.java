@@ -0,0 +1,44 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes dynamicFileGenerationJob to the serial step or to the partitioned step,
+ * based on the interface's 'partitionCount'.
+ */
+@Component
+public class DynamicExtractionModeDecider implements JobExecutionDecider {
+	private static final Logger logger = LoggerFactory.getLogger(DynamicExtractionModeDecider.class);
+
+	public static final String PARTITIONED = "PARTITIONED";
+	public static final String SERIAL = "SERIAL";
+
+	private final InterfaceConfigLoader interfaceConfigLoader;
+
+	@Autowired
+	public DynamicExtractionModeDecider(InterfaceConfigLoader interfaceConfigLoader) {
+		this.interfaceConfigLoader = interfaceConfigLoader;
+	}
+
+	@Override
+	public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
+		String interfaceType = jobExecution.getJobParameters().getString("interfaceType");
+		InterfaceConfig config = interfaceConfigLoader.getConfig(interfaceType);
+
+		if (config.isPartitioned()) {
+			logger.info("Interface [{}] runs partitioned extraction with up to {} partitions",
+					interfaceType, config.getPartitionCount());
+			return new FlowExecutionStatus(PARTITIONED);
+		}
+		return new FlowExecutionStatus(SERIAL);
+	}
+}
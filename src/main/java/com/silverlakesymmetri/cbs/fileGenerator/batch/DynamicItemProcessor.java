@@ -1,21 +1,59 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.TransformConfig;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.validator.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.util.List;
+
 @Component
 @StepScope
 public class DynamicItemProcessor implements ItemProcessor<DynamicRecord, DynamicRecord> {
 	private static final Logger logger = LoggerFactory.getLogger(DynamicItemProcessor.class);
 
+	private final InterfaceConfigLoader interfaceConfigLoader;
+	private String interfaceType;
+	private List<TransformConfig> transforms;
+	private boolean passThrough;
+
+	// Compiled on the first record, once the reader has built the schema
+	private volatile TransformPipeline pipeline;
+
+	@Autowired
+	public DynamicItemProcessor(InterfaceConfigLoader interfaceConfigLoader) {
+		this.interfaceConfigLoader = interfaceConfigLoader;
+	}
+
+	@Value("#{jobParameters['interfaceType']}")
+	public void setInterfaceType(String interfaceType) {
+		this.interfaceType = interfaceType;
+	}
+
+	@PostConstruct
+	public void init() {
+		InterfaceConfig config = interfaceConfigLoader.getConfig(interfaceType);
+		transforms = config.getTransforms() != null ? config.getTransforms() : TransformPipeline.DEFAULT_TRANSFORMS;
+		// "transforms": [] means records go to the writer untouched
+		passThrough = transforms.isEmpty();
+		logger.info("DynamicItemProcessor initialized for interface: {} ({} transform(s){})",
+				interfaceType, transforms.size(), passThrough ? ", pass-through" : "");
+	}
+
 	@Override
 	public DynamicRecord process(DynamicRecord record) throws Exception {
+		if (passThrough) {
+			return record;
+		}
 		if (record == null || record.isEmpty()) {
 			logger.debug("Filtering empty or null record");
 			return null;
@@ -23,14 +61,15 @@ public class DynamicItemProcessor implements ItemProcessor<DynamicRecord, Dynami
 
 		try {
 			// 2. Data Transformation (Sanitization)
-			applyTransformations(record);
+			// The input record is left as read: the step may process it again on retry or rollback
+			DynamicRecord output = applyTransformations(record);
 
 			// 3. Validation
 			// For dynamic records, this might check for mandatory columns
-			validateDynamicContent(record);
+			validateDynamicContent(output);
 
 			logger.debug("Successfully processed dynamic record");
-			return record;
+			return output;
 
 		} catch (ValidationException ve) {
 			// This triggers 'processSkipCount' and the skipLimit in BatchConfig
@@ -44,15 +83,23 @@ public class DynamicItemProcessor implements ItemProcessor<DynamicRecord, Dynami
 	}
 
 	/**
-	 * Iterates through all columns and trims String values.
+	 * Runs the interface's compiled transforms (by default: trim every text column) on a copy of the record.
 	 */
-	private void applyTransformations(DynamicRecord record) {
-		record.keySet().forEach(columnName -> {
-			Object value = record.get(columnName);
-			if (value instanceof String) {
-				record.setValue(columnName, StringUtils.trim((String) value));
-			}
-		});
+	private DynamicRecord applyTransformations(DynamicRecord record) {
+		TransformPipeline compiled = pipeline;
+		if (compiled == null) {
+			compiled = compile(record);
+		}
+		return compiled.apply(record);
+	}
+
+	private synchronized TransformPipeline compile(DynamicRecord record) {
+		if (pipeline == null) {
+			pipeline = TransformPipeline.compile(transforms, record.getSchema());
+			logger.info("Compiled {} transform(s) into {} column operation(s) for interface [{}]",
+					transforms.size(), pipeline.size(), interfaceType);
+		}
+		return pipeline;
 	}
 
 	/**
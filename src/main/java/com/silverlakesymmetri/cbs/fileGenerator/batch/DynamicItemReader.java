@@ -1,10 +1,13 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
 import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.SqlQueryLoader;
 import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.ColumnType;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.StringDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
@@ -13,22 +16,24 @@ import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.NonTransientResourceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.*;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import javax.sql.DataSource;
+import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Collectors;
+
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.*;
 
 @Component
 @StepScope
@@ -36,36 +41,75 @@ import java.util.stream.Collectors;
 public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 	private static final Logger logger = LoggerFactory.getLogger(DynamicItemReader.class);
 	private static final String CONTEXT_KEY_TOTAL = "dynamic.reader.totalProcessed";
-	private static final String CONTEXT_KEY_LAST_ID = "dynamic.reader.lastProcessedId";
 
 	private final int pageSize;
 	private String interfaceType;
 	private String queryString;
-	private String keySetColumnName;
+	private KeySetPosition keySet;
 	private final EntityManager entityManager;
+	private final DataSource dataSource;
 	private final InterfaceConfigLoader interfaceConfigLoader;
+	private final SqlQueryLoader sqlQueryLoader;
+	private final AdaptiveFetchPolicy adaptiveFetchPolicy;
 	private RecordSchema sharedSchema;
 	private List<Tuple> currentPage;
+	// Columnar layout: the current page (PAGED) or the last batch filled from the cursor (CURSOR)
+	private boolean columnar;
+	private RecordBatch currentBatch;
+
+	// Shared instances for repeated String values (columnar pages and CURSOR mode); null when disabled
+	@Value("${file.generation.reader.dictionary.max-entries:1024}")
+	private int dictionaryMaxEntries;
+	@Value("${file.generation.reader.dictionary.sample-size:1000}")
+	private int dictionarySampleSize;
+	private StringDictionary dictionary;
 
 	private int currentIndex = 0;
 	private boolean endReached = false;
 
-	private String lastProcessedId = null;
+	private String[] lastProcessedKey = null;
 	private long totalProcessed = 0;
-	private ColumnType keyColumnType;
-	private int keySetColumnIndex = -1;
-
-	@Value("${file.generation.external.sql-dir:classpath:sql}")
-	private Resource resource;
+	private boolean duplicateKeyWarned = false;
+
+	// Set only when running as a partition worker
+	private String partitionLowerBound;
+	private String partitionUpperBound;
+	private boolean partitionKeyNumeric;
+
+	// CURSOR mode: one forward-only statement held open for the whole step
+	private boolean cursorMode;
+	private boolean cursorDrained;
+	private Connection cursorConnection;
+	private boolean cursorRestoreAutoCommit;
+	private PreparedStatement cursorStatement;
+	private ResultSet cursorResultSet;
+
+	// PAGED mode with prefetch: pages are fetched ahead on a background thread
+	private int prefetchPages;
+	private PagePrefetcher<Tuple> prefetcher;
+	private String[] prefetchLastKey;
+
+	// Adaptive fetch/page sizing (null when disabled)
+	private static final int ROW_SIZE_SAMPLE = 32;
+	private AdaptiveFetchController adaptiveFetch;
+	private int cursorWindowRows;
+	private long cursorWindowNanos;
+	private long cursorWindowBytes;
 
 	@Autowired
 	public DynamicItemReader(
 			InterfaceConfigLoader interfaceConfigLoader,
+			SqlQueryLoader sqlQueryLoader,
 			EntityManager entityManager,
+			DataSource dataSource,
+			AdaptiveFetchPolicy adaptiveFetchPolicy,
 			@Value("${file.generation.chunk-size:1000}") int pageSize
 	) {
 		this.interfaceConfigLoader = interfaceConfigLoader;
+		this.sqlQueryLoader = sqlQueryLoader;
 		this.entityManager = entityManager;
+		this.dataSource = dataSource;
+		this.adaptiveFetchPolicy = adaptiveFetchPolicy;
 		this.pageSize = pageSize;
 		if (pageSize <= 0) {
 			throw new IllegalArgumentException("pageSize must be > 0");
@@ -77,6 +121,21 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 		this.interfaceType = interfaceType;
 	}
 
+	@Value("#{stepExecutionContext['" + PARTITION_LOWER_BOUND + "']}")
+	public void setPartitionLowerBound(String partitionLowerBound) {
+		this.partitionLowerBound = partitionLowerBound;
+	}
+
+	@Value("#{stepExecutionContext['" + PARTITION_UPPER_BOUND + "']}")
+	public void setPartitionUpperBound(String partitionUpperBound) {
+		this.partitionUpperBound = partitionUpperBound;
+	}
+
+	@Value("#{stepExecutionContext['" + PARTITION_KEY_NUMERIC + "']}")
+	public void setPartitionKeyNumeric(String partitionKeyNumeric) {
+		this.partitionKeyNumeric = Boolean.parseBoolean(partitionKeyNumeric);
+	}
+
 	@PostConstruct
 	public void init() {
 		interfaceType = interfaceType == null ? "" : interfaceType.trim();
@@ -90,62 +149,45 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 			throw new IllegalArgumentException("Interface configuration not found for: " + interfaceType);
 		}
 
-		String queryFile = config.getQueryFile();
-		if (queryFile == null || queryFile.trim().isEmpty()) {
-			throw new IllegalArgumentException("Data source query file must be defined for " + interfaceType);
-		}
-
-		queryFile = queryFile.trim();
+		queryString = sqlQueryLoader.loadQuery(interfaceType, config.getQueryFile());
 
-		// Try loading SQL file from external directory first, then classpath fallback
-		InputStream sqlInputStream = null;
-		try {
-			// 1. Attempt external directory
-			Resource externalResource = resource.createRelative(queryFile);
-			if (externalResource.exists() && externalResource.isReadable()) {
-				sqlInputStream = externalResource.getInputStream();
-				logger.info("Loaded SQL query file [{}] from external directory for interface [{}]",
-						queryFile, interfaceType);
-			} else {
-				// 2. Fallback to classpath
-				Resource classpathResource = new ClassPathResource("sql/" + queryFile);
-				if (!classpathResource.exists() || !classpathResource.isReadable()) {
-					throw new IllegalStateException(String.format(
-							"SQL query file [%s] not found in external directory or classpath for interface [%s]",
-							queryFile, interfaceType));
+		// VALIDATION: Check for infinite loop risk
+		List<String> keyColumns = config.getKeyColumns();
+		if (!keyColumns.isEmpty()) {
+			keySet = new KeySetPosition(keyColumns);
+			for (int i = 0; i < keySet.size(); i++) {
+				if (!queryString.contains(":" + keySet.paramName(i))) {
+					throw new IllegalArgumentException(String.format(
+							"Configuration Error for [%s]: keyset columns are defined as %s, but SQL query is missing ':%s'.",
+							interfaceType, keyColumns, keySet.paramName(i)
+					));
 				}
-				sqlInputStream = classpathResource.getInputStream();
-				logger.info("Loaded SQL query file [{}] from classpath for interface [{}]",
-						queryFile, interfaceType);
 			}
-
-			// Read file content safely
-			try (BufferedReader reader = new BufferedReader(new InputStreamReader(sqlInputStream, StandardCharsets.UTF_8))) {
-				queryString = reader.lines().collect(Collectors.joining(System.lineSeparator())).trim();
-			}
-
-			if (queryString.isEmpty()) {
-				throw new IllegalStateException(
-						String.format("SQL query file [%s] is empty for interface [%s]", queryFile, interfaceType)
-				);
-			}
-
-		} catch (IOException e) {
-			logger.error("Unable to read data source query file: {}", queryFile, e);
-			throw new IllegalStateException(
-					String.format("Failed to read SQL file [%s] for interface [%s]", queryFile, interfaceType), e);
 		}
 
-		// VALIDATION: Check for infinite loop risk
-		keySetColumnName = config.getKeySetColumn();
-		if (keySetColumnName != null && !queryString.contains(":lastId")) {
-			throw new IllegalArgumentException(String.format(
-					"Configuration Error for [%s]: 'keySetColumn' is defined as '%s', but SQL query is missing ':lastId'.",
-					interfaceType, keySetColumnName
-			));
+		// Partitioned worker: restrict the query to this partition's key range
+		if (partitionLowerBound != null || partitionUpperBound != null) {
+			queryString = DynamicKeyRangePartitioner.boundedQuery(queryString, keyColumns,
+					partitionLowerBound != null, partitionUpperBound != null);
+			logger.info("Partition bounds for interface [{}]: ({}, {}]", interfaceType,
+					partitionLowerBound != null ? partitionLowerBound : "-inf",
+					partitionUpperBound != null ? partitionUpperBound : "+inf");
 		}
 
-		logger.info("DynamicItemReader initialized for interface: {}", interfaceType);
+		cursorMode = config.getReaderMode() == InterfaceConfig.ReaderMode.CURSOR;
+		columnar = config.isColumnar();
+		prefetchPages = config.getPrefetchPages();
+		if (prefetchPages > 0 && (cursorMode || keySet == null)) {
+			logger.warn("Interface [{}]: 'prefetchPages' needs PAGED mode with a keySetColumn; prefetch disabled", interfaceType);
+			prefetchPages = 0;
+		}
+		if (adaptiveFetchPolicy.isEnabled()) {
+			// Pages alive at once: the one being read, the queued ones and the one being fetched
+			int pagesInFlight = cursorMode ? 1 : (prefetchPages > 0 ? prefetchPages + 2 : 1);
+			adaptiveFetch = adaptiveFetchPolicy.newController(interfaceType, fetchSize(), pageSize, pagesInFlight);
+		}
+		logger.info("DynamicItemReader initialized for interface: {} (mode={}, columnar={}, adaptiveFetch={})",
+				interfaceType, config.getReaderMode(), columnar, adaptiveFetch != null);
 	}
 
 	@Override
@@ -154,18 +196,24 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 			if (endReached) {
 				return null;
 			}
-			if (currentPage == null || currentIndex >= currentPage.size()) {
+			if (cursorMode) {
+				return readFromCursor();
+			}
+			if (isPageExhausted()) {
 				fetchNextPage();
 			}
 			if (endReached) {
 				return null;
 			}
+			if (currentBatch != null) {
+				return readFromBatch();
+			}
 			Tuple row = currentPage.get(currentIndex++);
 			if (sharedSchema == null) {
 				initializeSchemaFromTuple(row);
 			}
-			if (keySetColumnIndex != -1) {
-				lastProcessedId = parseLastProcessedId(row.get(keySetColumnIndex));
+			if (keySet != null) {
+				advanceKey(keySet.capture(row::get));
 			}
 			totalProcessed++;
 			return convertRowToRecord(row);
@@ -176,12 +224,370 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 		} catch (PersistenceException e) {
 			logger.error("Persistence error while reading interface {}", interfaceType, e);
 			throw new NonTransientResourceException("Persistence error reading interface " + interfaceType, e);
+		} catch (SQLException e) {
+			logger.error("JDBC error while reading interface {}", interfaceType, e);
+			throw new NonTransientResourceException("JDBC error reading interface " + interfaceType, e);
+		}
+	}
+
+	private boolean isPageExhausted() {
+		if (currentBatch != null) {
+			return currentIndex >= currentBatch.size();
+		}
+		return currentPage == null || currentIndex >= currentPage.size();
+	}
+
+	private DynamicRecord readFromBatch() {
+		RecordBatch batch = currentBatch;
+		int row = currentIndex++;
+		if (keySet != null) {
+			advanceKey(keySet.capture(col -> batch.get(row, col)));
+		}
+		totalProcessed++;
+		return batch.row(row);
+	}
+
+	/**
+	 * Copies a page into columnar storage so the Tuples and their boxed values can be
+	 * collected right away; only primitive arrays stay alive while the page is written.
+	 */
+	private RecordBatch toBatch(List<Tuple> tuples) {
+		RecordBatch batch = new RecordBatch(sharedSchema, tuples.size(), dictionary);
+		int columnCount = sharedSchema.size();
+		for (Tuple tuple : tuples) {
+			int row = batch.addRow();
+			for (int col = 0; col < columnCount; col++) {
+				batch.set(row, col, tuple.get(col));
+			}
+		}
+		return batch;
+	}
+
+	/* ================= CURSOR mode ================= */
+
+	private DynamicRecord readFromCursor() throws SQLException {
+		if (columnar) {
+			if (currentBatch == null || currentIndex >= currentBatch.size()) {
+				fillCursorBatch();
+			}
+			if (currentBatch == null) {
+				endReached = true;
+				return null;
+			}
+			return readFromBatch();
+		}
+
+		Object[] values = nextCursorRow();
+		if (values == null) {
+			endReached = true;
+			return null;
+		}
+		DynamicRecord record = new DynamicRecord(sharedSchema);
+		for (int i = 0; i < values.length; i++) {
+			record.setValue(i, intern(i, values[i]));
+		}
+		if (keySet != null) {
+			advanceKey(keySet.capture(i -> values[i]));
+		}
+		totalProcessed++;
+		return record;
+	}
+
+	/**
+	 * Fills a whole batch before any of its rows is handed out, so a batch is never written
+	 * while parallel processors read it. Leaves currentBatch null once the cursor is drained.
+	 */
+	private void fillCursorBatch() throws SQLException {
+		currentBatch = null;
+		currentIndex = 0;
+		RecordBatch batch = null;
+		Object[] values;
+		while ((batch == null || !batch.isFull()) && (values = nextCursorRow()) != null) {
+			if (batch == null) {
+				batch = new RecordBatch(sharedSchema,
+						adaptiveFetch != null ? adaptiveFetch.getPageSize() : pageSize, dictionary);
+			}
+			batch.addRow(values);
+		}
+		currentBatch = batch;
+	}
+
+	/**
+	 * Next row's values, or null once the cursor is drained (the cursor is then closed).
+	 */
+	private Object[] nextCursorRow() throws SQLException {
+		if (cursorDrained) {
+			return null;
+		}
+		if (cursorResultSet == null) {
+			openCursor();
+		}
+		long start = adaptiveFetch != null ? System.nanoTime() : 0L;
+		boolean hasRow = cursorResultSet.next();
+		if (adaptiveFetch != null) {
+			cursorWindowNanos += System.nanoTime() - start;
+		}
+		if (!hasRow) {
+			cursorDrained = true;
+			closeCursor();
+			return null;
+		}
+
+		Object[] values = new Object[sharedSchema.size()];
+		for (int i = 0; i < values.length; i++) {
+			// JdbcUtils normalizes vendor types (e.g. oracle.sql.TIMESTAMP, CLOB) to standard Java types
+			values[i] = JdbcUtils.getResultSetValue(cursorResultSet, i + 1);
+		}
+		if (adaptiveFetch != null) {
+			observeCursorRow(values);
+		}
+		return values;
+	}
+
+	private Object intern(int col, Object value) {
+		return dictionary != null && value instanceof String ? dictionary.intern(col, (String) value) : value;
+	}
+
+	/**
+	 * One observation window = one fetch size worth of rows. The new fetch size applies
+	 * to the following round trips of the same open cursor.
+	 */
+	private void observeCursorRow(Object[] values) throws SQLException {
+		if (cursorWindowRows++ < ROW_SIZE_SAMPLE) {
+			cursorWindowBytes += estimateRowBytes(values);
+		}
+		if (cursorWindowRows >= adaptiveFetch.getFetchSize()) {
+			long bytes = cursorWindowBytes * cursorWindowRows / Math.min(cursorWindowRows, ROW_SIZE_SAMPLE);
+			int before = adaptiveFetch.getFetchSize();
+			adaptiveFetch.observe(cursorWindowRows, cursorWindowNanos, bytes);
+			if (adaptiveFetch.getFetchSize() != before) {
+				cursorResultSet.setFetchSize(adaptiveFetch.getFetchSize());
+			}
+			cursorWindowRows = 0;
+			cursorWindowNanos = 0;
+			cursorWindowBytes = 0;
+		}
+	}
+
+	/**
+	 * Runs the query once, bypassing Hibernate. ':lastId' is bound to the restored
+	 * checkpoint (NULL on a fresh run), so a restart resumes after the last committed key.
+	 */
+	private void openCursor() throws SQLException {
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		if (keySet != null) {
+			params.addValues(keySet.parameters(lastProcessedKey));
+		}
+		if (partitionLowerBound != null) {
+			params.addValue(DynamicKeyRangePartitioner.PARAM_LOWER_BOUND,
+					DynamicKeyRangePartitioner.boundValue(partitionLowerBound, partitionKeyNumeric));
+		}
+		if (partitionUpperBound != null) {
+			params.addValue(DynamicKeyRangePartitioner.PARAM_UPPER_BOUND,
+					DynamicKeyRangePartitioner.boundValue(partitionUpperBound, partitionKeyNumeric));
+		}
+
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(queryString);
+		String jdbcSql = NamedParameterUtils.substituteNamedParameters(parsedSql, params);
+		Object[] args = NamedParameterUtils.buildValueArray(parsedSql, params, null);
+
+		// Own connection (not the chunk transaction's) so the cursor survives chunk commits
+		cursorConnection = dataSource.getConnection();
+		// PgJDBC ignores the fetch size under autocommit and buffers the whole result set
+		if (cursorConnection.getAutoCommit()) {
+			cursorConnection.setAutoCommit(false);
+			cursorRestoreAutoCommit = true;
+		}
+		cursorStatement = cursorConnection.prepareStatement(jdbcSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		cursorStatement.setFetchSize(fetchSize());
+		new ArgumentPreparedStatementSetter(args).setValues(cursorStatement);
+		cursorResultSet = cursorStatement.executeQuery();
+
+		if (sharedSchema == null) {
+			initializeSchemaFromMetaData(cursorResultSet.getMetaData());
+		}
+		logger.info("Opened JDBC cursor for interface [{}] after lastProcessedId={} (fetchSize={})",
+				interfaceType, KeySetPosition.format(lastProcessedKey), fetchSize());
+	}
+
+	private void initializeSchemaFromMetaData(ResultSetMetaData metaData) throws SQLException {
+		int columnCount = metaData.getColumnCount();
+		List<String> names = new ArrayList<>(columnCount);
+		List<ColumnType> types = new ArrayList<>(columnCount);
+
+		for (int i = 1; i <= columnCount; i++) {
+			String label = JdbcUtils.lookupColumnName(metaData, i);
+			if (label == null || label.trim().isEmpty()) {
+				label = "column_" + (i - 1);
+			}
+			names.add(label.toLowerCase(Locale.ROOT));
+			types.add(ColumnType.fromSqlType(metaData.getColumnType(i)));
+		}
+
+		sharedSchema = new RecordSchema(names, types);
+		resolveKeySetColumn();
+		initializeDictionary();
+
+		logger.info("Successfully initialized shared schema for interface [{}] with {} columns from ResultSetMetaData",
+				interfaceType, sharedSchema.size());
+	}
+
+	private void closeCursor() {
+		JdbcUtils.closeResultSet(cursorResultSet);
+		JdbcUtils.closeStatement(cursorStatement);
+		if (cursorConnection != null) {
+			// Return the pooled connection as it was handed out: no open transaction, original autocommit
+			try {
+				cursorConnection.rollback();
+				if (cursorRestoreAutoCommit) {
+					cursorConnection.setAutoCommit(true);
+				}
+			} catch (SQLException e) {
+				logger.warn("Interface [{}]: could not reset cursor connection before release: {}", interfaceType, e.getMessage());
+			}
 		}
+		JdbcUtils.closeConnection(cursorConnection);
+		cursorResultSet = null;
+		cursorStatement = null;
+		cursorConnection = null;
+		cursorRestoreAutoCommit = false;
 	}
 
+	/* ================= PAGED mode ================= */
+
 	private void fetchNextPage() {
+		List<Tuple> tuples;
+		if (prefetchPages > 0) {
+			if (prefetcher == null) {
+				startPrefetcher();
+			}
+			// Schema and key index are initialized by the prefetch thread before the first page is queued
+			tuples = prefetcher.nextPage();
+		} else {
+			tuples = queryPage(lastProcessedKey);
+		}
+
+		if (tuples == null || tuples.isEmpty()) {
+			endReached = true;
+			currentPage = null;
+			currentBatch = null;
+			return;
+		}
+
+		// Initialize schema once, thread-safely
+		if (sharedSchema == null) {
+			initializeSchemaFromTuple(tuples.get(0));
+		}
+
+		if (columnar) {
+			currentBatch = toBatch(tuples);
+			currentPage = null;
+		} else {
+			currentPage = tuples;
+		}
+		currentIndex = 0;
+		logger.debug("Fetched {} rows after lastProcessedId={}", tuples.size(), KeySetPosition.format(lastProcessedKey));
+	}
+
+	/**
+	 * Page N+1 is queried while page N is being processed and written. The prefetch thread
+	 * follows its own keyset cursor (prefetchLastKey); lastProcessedKey, which is what gets
+	 * checkpointed, still only advances as rows are handed out by read().
+	 */
+	private void startPrefetcher() {
+		prefetchLastKey = lastProcessedKey;
+		prefetcher = new PagePrefetcher<>("prefetch-" + interfaceType, prefetchPages, () -> {
+			List<Tuple> page = queryPage(prefetchLastKey);
+			if (!page.isEmpty()) {
+				if (sharedSchema == null) {
+					initializeSchemaFromTuple(page.get(0));
+				}
+				prefetchLastKey = keySet.capture(page.get(page.size() - 1)::get);
+			}
+			return page;
+		});
+		prefetcher.start();
+		logger.info("Prefetching up to {} page(s) ahead for interface [{}]", prefetchPages, interfaceType);
+	}
+
+	private List<Tuple> queryPage(String[] afterKey) {
 		Query query = entityManager.createNativeQuery(queryString, Tuple.class);
 
+		query.setHint("javax.persistence.jdbc.fetch_size", fetchSize());
+		int limit = adaptiveFetch != null ? adaptiveFetch.getPageSize() : pageSize;
+		// One row past the page shows whether the page ends inside a group of equal keys
+		query.setMaxResults(keySet != null ? limit + 1 : limit);
+
+		// Handle Parameter Binding
+		if (keySet != null) {
+			// If lastProcessedKey is null, we bind NULLs (First Page)
+			keySet.parameters(afterKey).forEach(query::setParameter);
+		}
+
+		if (partitionLowerBound != null) {
+			query.setParameter(DynamicKeyRangePartitioner.PARAM_LOWER_BOUND,
+					DynamicKeyRangePartitioner.boundValue(partitionLowerBound, partitionKeyNumeric));
+		}
+		if (partitionUpperBound != null) {
+			query.setParameter(DynamicKeyRangePartitioner.PARAM_UPPER_BOUND,
+					DynamicKeyRangePartitioner.boundValue(partitionUpperBound, partitionKeyNumeric));
+		}
+
+		long start = System.nanoTime();
+		@SuppressWarnings("unchecked")
+		List<Tuple> tuples = query.getResultList();
+		if (tuples == null) {
+			return new ArrayList<>();
+		}
+		if (adaptiveFetch != null) {
+			adaptiveFetch.observe(tuples.size(), System.nanoTime() - start, estimatePageBytes(tuples));
+		}
+		if (keySet != null && tuples.size() > limit) {
+			checkPageBoundary(tuples, limit);
+		}
+		return tuples;
+	}
+
+	/**
+	 * Drops the look-ahead row of a full page. The next page asks for "key > last key of this page",
+	 * so a look-ahead row with that same key is a group the page boundary would cut: its remaining
+	 * rows would never be read.
+	 */
+	private void checkPageBoundary(List<Tuple> tuples, int limit) {
+		Tuple lookAhead = tuples.remove(limit);
+		if (sharedSchema == null) {
+			initializeSchemaFromTuple(tuples.get(0));
+		}
+		String[] lastKey = keySet.capture(tuples.get(limit - 1)::get);
+		if (Arrays.equals(keySet.capture(lookAhead::get), lastKey)) {
+			throw duplicateKey(lastKey);
+		}
+	}
+
+	private static long estimatePageBytes(List<Tuple> tuples) {
+		int sample = Math.min(tuples.size(), ROW_SIZE_SAMPLE);
+		if (sample == 0) {
+			return 0;
+		}
+		long bytes = 0;
+		for (int r = 0; r < sample; r++) {
+			bytes += estimateRowBytes(tuples.get(r).toArray());
+		}
+		return bytes * tuples.size() / sample;
+	}
+
+	private static long estimateRowBytes(Object[] values) {
+		long bytes = 16;
+		for (Object value : values) {
+			bytes += AdaptiveFetchController.estimateBytes(value);
+		}
+		return bytes;
+	}
+
+	private int fetchSize() {
+		if (adaptiveFetch != null) {
+			return adaptiveFetch.getFetchSize();
+		}
 		/*
 		 * Configure JDBC fetch size independently of page size to optimize memory
 		 * usage and network performance when querying Oracle.
@@ -204,47 +610,11 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 		 *   - setMaxResults() limits the total number of rows returned.
 		 *   - Values are tuned based on typical Oracle performance recommendations
 		 *     (100–500 rows per fetch).
+		 *   - In CURSOR mode there is no page limit; fetch size alone bounds each round-trip.
+		 *   - With file.generation.reader.adaptive.enabled, this is only the starting point;
+		 *     AdaptiveFetchController tunes fetch and page size from observed latency and row width.
 		 */
-		int fetchSize = Math.max(100, Math.min(pageSize / 5, 500));
-		query.setHint("javax.persistence.jdbc.fetch_size", fetchSize);
-		query.setMaxResults(pageSize);
-
-		// Handle Parameter Binding
-		if (queryString.contains(":lastId")) {
-			Object param = null;
-
-			if (lastProcessedId != null) {
-				param = lastProcessedId;
-				// Convert to Long if the schema detected it as a Number previously
-				if (keyColumnType != null && keyColumnType == ColumnType.DECIMAL) {
-					try {
-						param = new java.math.BigDecimal(lastProcessedId);
-					} catch (NumberFormatException e) {
-						throw new NonTransientResourceException("Invalid numeric lastProcessedId=" + lastProcessedId, e);
-					}
-				}
-			}
-			// If lastProcessedId is null, we bind NULL (First Page)
-			query.setParameter("lastId", param);
-		}
-
-		@SuppressWarnings("unchecked")
-		List<Tuple> tuples = query.getResultList();
-
-		if (tuples == null || tuples.isEmpty()) {
-			endReached = true;
-			currentPage = null;
-			return;
-		}
-
-		// Initialize schema once, thread-safely
-		if (sharedSchema == null) {
-			initializeSchemaFromTuple(tuples.get(0));
-		}
-
-		currentPage = tuples;
-		currentIndex = 0;
-		logger.debug("Fetched {} rows after lastProcessedId={}", currentPage.size(), lastProcessedId);
+		return Math.max(100, Math.min(pageSize / 5, 500));
 	}
 
 	private void initializeSchemaFromTuple(Tuple tuple) {
@@ -275,50 +645,70 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 		sharedSchema = new RecordSchema(names, types);
 
 		// 3. Resolve KeySet Configuration (The most important part for Paging)
-		if (keySetColumnName != null) {
-			// Lookup the index based on the JSON configuration name
-			int idx = sharedSchema.getIndex(keySetColumnName);
-
-			if (idx != -1) {
-				keySetColumnIndex = idx;
-				// We capture the ACTUAL case-sensitive alias used by Hibernate/DB
-				// This ensures tuple.get(actualKeySetColumnName) works every time.
-				String actualKeySetColumnName = elements.get(idx).getAlias();
-
-				// Fallback for null aliases
-				if (actualKeySetColumnName == null || actualKeySetColumnName.trim().isEmpty()) {
-					actualKeySetColumnName = "column_" + idx;
-				}
-
-				keySetColumnName = actualKeySetColumnName;
-				// Identify the type, so we know how to bind the ":lastId" parameter
-				keyColumnType = sharedSchema.getType(idx);
-
-				logger.info("KeySet Column Resolved - Configuration: [{}], Database Alias: [{}], Index: [{}], Type: [{}]",
-						keySetColumnName, actualKeySetColumnName, idx, keyColumnType);
-			} else {
-				// If this happens, the batch will loop infinitely on the first page!
-				logger.error("CRITICAL CONFIGURATION ERROR: KeySet column '{}' not found in SQL results for interface '{}'. " +
-								"Verify that your SELECT statement includes this column.",
-						keySetColumnName, interfaceType);
-				throw new IllegalStateException("KeySet column '" + keySetColumnName +
-						"' not found in SQL results for interface '" + interfaceType + "'.");
-			}
-		}
+		resolveKeySetColumn();
+		initializeDictionary();
 
 		logger.info("Successfully initialized shared schema for interface [{}] with {} columns",
 				interfaceType, sharedSchema.size());
 	}
 
 	/**
-	 * Safely parse lastProcessedId from the row value.
-	 * Supports Number -> Long and String -> String/Long.
+	 * PAGED row mode keeps the driver's Tuples (and their Strings) alive for the whole page,
+	 * so interning would not free anything there.
+	 */
+	private void initializeDictionary() {
+		if (dictionaryMaxEntries > 0 && (columnar || cursorMode)) {
+			dictionary = new StringDictionary(sharedSchema, dictionaryMaxEntries, dictionarySampleSize);
+		}
+	}
+
+	private void resolveKeySetColumn() {
+		if (keySet == null) {
+			return;
+		}
+		try {
+			// Lookup the indexes based on the JSON configuration names
+			keySet.resolve(sharedSchema);
+		} catch (IllegalStateException e) {
+			// If this happens, the batch will loop infinitely on the first page!
+			logger.error("CRITICAL CONFIGURATION ERROR: {} Interface '{}'. " +
+					"Verify that your SELECT statement includes all keyset columns.", e.getMessage(), interfaceType);
+			throw new IllegalStateException(e.getMessage() + " Interface: '" + interfaceType + "'.", e);
+		}
+
+		for (int i = 0; i < keySet.size(); i++) {
+			logger.info("KeySet Column Resolved - Configuration: [{}], Column: [{}], Index: [{}], Numeric: [{}], Param: [:{}]",
+					keySet.getColumns().get(i), sharedSchema.getName(keySet.index(i)), keySet.index(i),
+					keySet.isNumeric(i), keySet.paramName(i));
+		}
+	}
+
+	/**
+	 * Keyset paging assumes strictly increasing keys. Two consecutive rows with the same key
+	 * mean the configured columns are not unique, so PAGED mode fails fast: within a page here,
+	 * across a page boundary in {@link #checkPageBoundary}.
+	 * <p>
+	 * CURSOR mode reads the whole result in one query and only logs it; a restart resumes after
+	 * the checkpointed key and skips the rest of its group.
 	 */
-	private String parseLastProcessedId(Object idValue) {
-		if (idValue == null) return null;
-		if (idValue instanceof Number) return String.valueOf(((Number) idValue).longValue());
-		String s = idValue.toString().trim();
-		return s.isEmpty() ? null : s;
+	private void advanceKey(String[] key) {
+		if (lastProcessedKey != null && Arrays.equals(key, lastProcessedKey)) {
+			if (!cursorMode) {
+				throw duplicateKey(key);
+			}
+			if (!duplicateKeyWarned) {
+				duplicateKeyWarned = true;
+				logger.warn("Interface [{}]: keyset {} is not unique (duplicate {}); a restart may skip rows",
+						interfaceType, keySet.getColumns(), KeySetPosition.format(key));
+			}
+		}
+		lastProcessedKey = key;
+	}
+
+	private NonTransientResourceException duplicateKey(String[] key) {
+		return new NonTransientResourceException("Duplicate keyset value " + KeySetPosition.format(key) +
+				" for interface " + interfaceType + ": keySetColumns " + keySet.getColumns() +
+				" are not unique. Add a tiebreaker column to 'keySetColumns'.");
 	}
 
 	private DynamicRecord convertRowToRecord(Tuple tuple) {
@@ -337,17 +727,12 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 		// Restore total processed
 		totalProcessed = executionContext.getLong(CONTEXT_KEY_TOTAL, 0L);
 
-		// Restore lastProcessedId safely
-		if (executionContext.containsKey(CONTEXT_KEY_LAST_ID)) {
-			Object lastId = executionContext.get(CONTEXT_KEY_LAST_ID);
-			lastProcessedId = parseLastProcessedId(lastId); // Use centralized parser
-		} else {
-			lastProcessedId = null;
-		}
+		// Restore the full key tuple safely
+		lastProcessedKey = keySet != null ? keySet.restore(executionContext) : null;
 
 		logger.info("Opening DynamicItemReader. Restart={}, lastProcessedId={}, totalProcessed={}",
-				executionContext.containsKey(CONTEXT_KEY_LAST_ID),
-				lastProcessedId,
+				lastProcessedKey != null,
+				KeySetPosition.format(lastProcessedKey),
 				totalProcessed);
 	}
 
@@ -355,13 +740,18 @@ public class DynamicItemReader implements ItemStreamReader<DynamicRecord> {
 	public void update(ExecutionContext executionContext) {
 		executionContext.putLong(CONTEXT_KEY_TOTAL, totalProcessed);
 
-		if (lastProcessedId != null) {
-			executionContext.putString(CONTEXT_KEY_LAST_ID, lastProcessedId);
+		if (keySet != null) {
+			keySet.save(executionContext, lastProcessedKey);
 		}
 	}
 
 	@Override
 	public void close() {
+		closeCursor();
+		if (prefetcher != null) {
+			prefetcher.close();
+			prefetcher = null;
+		}
 		logger.info("DynamicItemReader closed. Total records read: {}", totalProcessed);
 	}
 }
@@ -18,20 +18,20 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 
-import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_PART_FILE_PATH;
-import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_TOTAL_RECORD_COUNT;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.*;
 
 @Component
 @StepScope
 public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepExecutionListener {
 	private static final Logger logger = LoggerFactory.getLogger(DynamicItemWriter.class);
-	private static final String CONTEXT_KEY_RECORD_COUNT = "dynamic.writer.recordCount";
+	public static final String CONTEXT_KEY_RECORD_COUNT = "dynamic.writer.recordCount";
 	private static final String CONTEXT_KEY_SKIPPED_COUNT = "dynamic.writer.skippedCount";
 	private final OutputFormatWriterFactory writerFactory;
 
 	private OutputFormatWriter delegateWriter;
 	private String interfaceType;
 	private String outputFilePath;
+	private String segmentFilePath;
 
 	@Autowired
 	public DynamicItemWriter(OutputFormatWriterFactory writerFactory) {
@@ -43,6 +43,11 @@ public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepE
 
 		ensureDelegateInitialized();
 
+		if (segmentFilePath != null) {
+			openSegment(executionContext);
+			return;
+		}
+
 		try {
 			// RESTORE STATE: ExecutionContext is the source of truth for restarts
 			String existingPartFile = executionContext.getString(FILE_GEN_PART_FILE_PATH);
@@ -50,9 +55,8 @@ public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepE
 				logger.warn("Expected part file not found: {}", existingPartFile);
 			}
 
-			String pathToUse = (existingPartFile != null) ? existingPartFile : outputFilePath;
-
-			delegateWriter.init(pathToUse, interfaceType);
+			// Same JobInstance, same outputFilePath: the writer derives the part file (and rolled part names) from it
+			delegateWriter.init(outputFilePath, interfaceType);
 			delegateWriter.open(executionContext);
 
 			if (existingPartFile != null) {
@@ -65,12 +69,29 @@ public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepE
 		}
 	}
 
+	/**
+	 * Partition worker: write records only into this partition's segment file.
+	 * Byte offset and record count live in the worker's own step context, so each
+	 * partition truncates and resumes its segment independently on restart.
+	 */
+	private void openSegment(ExecutionContext executionContext) {
+		try {
+			delegateWriter.initSegment(segmentFilePath, interfaceType);
+			delegateWriter.open(executionContext);
+			logger.info("Partition worker for [{}] writing segment: {}", interfaceType, segmentFilePath);
+		} catch (Exception e) {
+			throw new ItemStreamException("Failed to initialize segment writer during open()", e);
+		}
+	}
+
 	@Override
 	public void update(ExecutionContext executionContext) {
 		// Periodically called by Spring Batch to save the current progress
 		if (delegateWriter != null) {
 			delegateWriter.update(executionContext);
-			executionContext.putString(FILE_GEN_PART_FILE_PATH, delegateWriter.getPartFilePath());
+			if (segmentFilePath == null) {
+				executionContext.putString(FILE_GEN_PART_FILE_PATH, delegateWriter.getPartFilePath());
+			}
 			executionContext.putLong(CONTEXT_KEY_RECORD_COUNT, delegateWriter.getRecordCount());
 			executionContext.putLong(CONTEXT_KEY_SKIPPED_COUNT, delegateWriter.getSkippedCount());
 		}
@@ -81,8 +102,10 @@ public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepE
 		if (delegateWriter != null) {
 			try {
 				delegateWriter.close();
-			} catch (Exception e) {
+			} catch (RuntimeException e) {
+				// Rethrown: an output the writer could not finish must not pass as complete
 				logger.error("Error closing delegate writer", e);
+				throw e;
 			}
 		}
 	}
@@ -92,6 +115,9 @@ public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepE
 		if (delegateWriter == null) {
 			throw new IllegalStateException("Delegate writer not initialized. open() may have failed.");
 		}
+		if (segmentFilePath == null) {
+			delegateWriter.rollIfNeeded(items.size());
+		}
 		delegateWriter.write(items);
 	}
 
@@ -105,6 +131,12 @@ public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepE
 
 	@Override
 	public ExitStatus afterStep(StepExecution stepExecution) {
+		if (segmentFilePath != null) {
+			// Segments are merged into the job's part file by the merge step
+			return delegateWriter instanceof StepExecutionListener
+					? ((StepExecutionListener) delegateWriter).afterStep(stepExecution)
+					: stepExecution.getExitStatus();
+		}
 		// Populate Job Context with metadata for the JobListener to rename/move the file
 		ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
 		jobContext.putString(FILE_GEN_PART_FILE_PATH, delegateWriter.getPartFilePath());
@@ -127,6 +159,11 @@ public class DynamicItemWriter implements ItemStreamWriter<DynamicRecord>, StepE
 		this.outputFilePath = outputFilePath;
 	}
 
+	@Value("#{stepExecutionContext['" + PARTITION_SEGMENT_FILE_PATH + "']}")
+	public void setSegmentFilePath(String segmentFilePath) {
+		this.segmentFilePath = segmentFilePath;
+	}
+
 	private void ensureDelegateInitialized() {
 		ensureParametersPresent();
 		if (this.delegateWriter == null) {
@@ -0,0 +1,246 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.SqlQueryLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.*;
+
+/**
+ * Splits the keyset range of a dynamic interface into N slices for parallel extraction.
+ * <p>
+ * Each slice is described by an exclusive lower bound and an inclusive upper bound
+ * (the first slice has no lower bound, the last has no upper bound, so no row can fall
+ * between slices). Every worker writes its rows to its own segment file, which the
+ * merge step later concatenates in partition (= key) order.
+ */
+@Component
+@StepScope
+public class DynamicKeyRangePartitioner implements Partitioner {
+	private static final Logger logger = LoggerFactory.getLogger(DynamicKeyRangePartitioner.class);
+	private static final Pattern SAFE_IDENTIFIER = Pattern.compile("^[A-Za-z_][A-Za-z0-9_$#]*$");
+	private static final String PART_EXTENSION = ".part";
+	private static final Pattern LAST_ID_PARAM = Pattern.compile(":(lastId(?:_\\d+)?)\\b");
+
+	public static final String PARTITION_NAME_PREFIX = "partition";
+	public static final String PARAM_LOWER_BOUND = "partitionLowerBound";
+	public static final String PARAM_UPPER_BOUND = "partitionUpperBound";
+
+	private final InterfaceConfigLoader interfaceConfigLoader;
+	private final SqlQueryLoader sqlQueryLoader;
+	private final EntityManager entityManager;
+
+	private String interfaceType;
+	private String outputFilePath;
+
+	@Autowired
+	public DynamicKeyRangePartitioner(InterfaceConfigLoader interfaceConfigLoader,
+									  SqlQueryLoader sqlQueryLoader,
+									  EntityManager entityManager) {
+		this.interfaceConfigLoader = interfaceConfigLoader;
+		this.sqlQueryLoader = sqlQueryLoader;
+		this.entityManager = entityManager;
+	}
+
+	@Value("#{jobParameters['interfaceType']}")
+	public void setInterfaceType(String interfaceType) {
+		this.interfaceType = interfaceType;
+	}
+
+	@Value("#{jobParameters['outputFilePath']}")
+	public void setOutputFilePath(String outputFilePath) {
+		this.outputFilePath = outputFilePath;
+	}
+
+	/**
+	 * @param gridSize ignored; the partition count comes from the interface configuration
+	 */
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		InterfaceConfig config = interfaceConfigLoader.getConfig(interfaceType);
+		// Ranges are cut on the leading keyset column; the remaining columns only order rows within a range
+		String keyColumn = requireSafeIdentifier(config.getKeyColumns().get(0));
+		String baseQuery = sqlQueryLoader.loadQuery(interfaceType, config.getQueryFile());
+		int requested = Math.max(1, config.getPartitionCount());
+
+		List<Object> boundaries = config.getPartitionStrategy() == InterfaceConfig.PartitionStrategy.MIN_MAX
+				? minMaxBoundaries(baseQuery, keyColumn, requested)
+				: quantileBoundaries(baseQuery, keyColumn, requested);
+
+		boolean numeric = !boundaries.isEmpty() && boundaries.get(0) instanceof BigDecimal;
+
+		// N-1 inner boundaries produce N partitions
+		Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+		int count = boundaries.size() + 1;
+		for (int i = 0; i < count; i++) {
+			ExecutionContext context = new ExecutionContext();
+			context.putInt(PARTITION_INDEX, i);
+			context.putString(PARTITION_KEY_NUMERIC, String.valueOf(numeric));
+			context.putString(PARTITION_SEGMENT_FILE_PATH, segmentFilePath(outputFilePath, i));
+			if (i > 0) {
+				context.putString(PARTITION_LOWER_BOUND, boundaryToString(boundaries.get(i - 1)));
+			}
+			if (i < count - 1) {
+				context.putString(PARTITION_UPPER_BOUND, boundaryToString(boundaries.get(i)));
+			}
+			partitions.put(partitionName(i), context);
+		}
+
+		logger.info("Interface [{}] split into {} partition(s) on [{}] using {} (requested {})",
+				interfaceType, count, keyColumn, config.getPartitionStrategy(), requested);
+		return partitions;
+	}
+
+	/* ================= Boundary Strategies ================= */
+
+	private List<Object> minMaxBoundaries(String baseQuery, String keyColumn, int partitions) {
+		String sql = "SELECT MIN(dyn_src." + keyColumn + "), MAX(dyn_src." + keyColumn + ") FROM (" + baseQuery + ") dyn_src";
+		Object[] row = (Object[]) bindLastIdIfPresent(entityManager.createNativeQuery(sql), baseQuery).getSingleResult();
+		Object min = row[0];
+		Object max = row[1];
+
+		if (min == null || max == null) {
+			logger.info("Interface [{}] has no rows; running a single partition", interfaceType);
+			return Collections.emptyList();
+		}
+
+		if (!(min instanceof Number) || !(max instanceof Number)) {
+			logger.warn("Interface [{}]: MIN_MAX needs a numeric key, got {}. Falling back to QUANTILE, which " +
+							"scans and sorts the whole query once; set partitionStrategy QUANTILE to make that explicit.",
+					interfaceType, min.getClass().getSimpleName());
+			return quantileBoundaries(baseQuery, keyColumn, partitions);
+		}
+
+		BigDecimal low = toBigDecimal(min);
+		BigDecimal high = toBigDecimal(max);
+		int scale = Math.max(low.scale(), high.scale());
+		BigDecimal width = high.subtract(low).divide(BigDecimal.valueOf(partitions), scale, RoundingMode.FLOOR);
+
+		// TreeSet removes duplicate cut points when the range is narrower than the partition count
+		TreeSet<BigDecimal> cuts = new TreeSet<>();
+		for (int i = 1; i < partitions; i++) {
+			BigDecimal cut = low.add(width.multiply(BigDecimal.valueOf(i)));
+			if (cut.compareTo(low) >= 0 && cut.compareTo(high) < 0) {
+				cuts.add(cut);
+			}
+		}
+		return new ArrayList<>(cuts);
+	}
+
+	/**
+	 * Exact NTILE quantiles: ranks every row of the query, so this costs a full scan and sort before
+	 * any worker starts. An inline view cannot be table-sampled, hence no cheaper estimate.
+	 */
+	private List<Object> quantileBoundaries(String baseQuery, String keyColumn, int partitions) {
+		String sql = "SELECT MAX(dyn_tile.k) FROM (" +
+				"SELECT dyn_src." + keyColumn + " k, NTILE(" + partitions + ") OVER (ORDER BY dyn_src." + keyColumn + ") b" +
+				" FROM (" + baseQuery + ") dyn_src) dyn_tile GROUP BY dyn_tile.b ORDER BY 1";
+
+		@SuppressWarnings("unchecked")
+		List<Object> tiles = bindLastIdIfPresent(entityManager.createNativeQuery(sql), baseQuery).getResultList();
+
+		List<Object> cuts = new ArrayList<>();
+		Object previous = null;
+		// The last tile maximum is the overall MAX: it is not a cut point
+		for (int i = 0; i < tiles.size() - 1; i++) {
+			Object value = tiles.get(i);
+			if (value == null) continue;
+			Object normalized = value instanceof Number ? toBigDecimal(value) : value.toString();
+			if (!normalized.equals(previous)) {
+				cuts.add(normalized);
+				previous = normalized;
+			}
+		}
+		return cuts;
+	}
+
+	/* ================= Shared Helpers ================= */
+
+	/**
+	 * Wraps the interface query so it only returns rows of one partition.
+	 * Bounds apply to the leading key column; the ORDER BY (all key columns) is repeated
+	 * on the outside because keyset paging relies on it.
+	 */
+	public static String boundedQuery(String baseQuery, List<String> keyColumns, boolean hasLower, boolean hasUpper) {
+		if (!hasLower && !hasUpper) {
+			return baseQuery;
+		}
+		String column = "dyn_part." + requireSafeIdentifier(keyColumns.get(0));
+		StringBuilder sql = new StringBuilder("SELECT * FROM (").append(baseQuery).append(") dyn_part WHERE ");
+		if (hasLower) {
+			sql.append(column).append(" > :").append(PARAM_LOWER_BOUND);
+		}
+		if (hasUpper) {
+			if (hasLower) sql.append(" AND ");
+			sql.append(column).append(" <= :").append(PARAM_UPPER_BOUND);
+		}
+		sql.append(" ORDER BY ");
+		for (int i = 0; i < keyColumns.size(); i++) {
+			sql.append(i > 0 ? ", " : "").append("dyn_part.").append(requireSafeIdentifier(keyColumns.get(i)));
+		}
+		return sql.toString();
+	}
+
+	public static Object boundValue(String bound, boolean numeric) {
+		if (bound == null) return null;
+		return numeric ? new BigDecimal(bound) : bound;
+	}
+
+	public static String partitionName(int index) {
+		return String.format("%s%04d", PARTITION_NAME_PREFIX, index);
+	}
+
+	/**
+	 * X_uuid.xml.part -> X_uuid.xml.seg0003.part
+	 */
+	public static String segmentFilePath(String outputFilePath, int index) {
+		String base = outputFilePath.endsWith(PART_EXTENSION)
+				? outputFilePath.substring(0, outputFilePath.length() - PART_EXTENSION.length())
+				: outputFilePath;
+		return String.format("%s.seg%04d%s", base, index, PART_EXTENSION);
+	}
+
+	private static String requireSafeIdentifier(String column) {
+		String trimmed = column == null ? "" : column.trim();
+		if (!SAFE_IDENTIFIER.matcher(trimmed).matches()) {
+			throw new IllegalArgumentException("Invalid keySetColumn for partitioning: '" + column + "'");
+		}
+		return trimmed;
+	}
+
+	private static Query bindLastIdIfPresent(Query query, String baseQuery) {
+		// Boundaries are computed over the whole range, i.e. as for the first page
+		Matcher matcher = LAST_ID_PARAM.matcher(baseQuery);
+		Set<String> bound = new HashSet<>();
+		while (matcher.find()) {
+			if (bound.add(matcher.group(1))) {
+				query.setParameter(matcher.group(1), null);
+			}
+		}
+		return query;
+	}
+
+	private static BigDecimal toBigDecimal(Object value) {
+		return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+	}
+
+	private static String boundaryToString(Object value) {
+		return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+	}
+}
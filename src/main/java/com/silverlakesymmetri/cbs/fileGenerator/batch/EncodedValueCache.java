@@ -0,0 +1,44 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.dto.StringDictionary;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Writer-side cache of the encoded (escaped, quoted, converted...) form of dictionary values,
+ * indexed by column and dictionary code. Each distinct value is encoded once per step
+ * instead of once per row; size is bounded by the dictionary cap.
+ * <p>
+ * Bound to one StringDictionary at a time and reset when a different one shows up.
+ * Not thread-safe: one per writer.
+ */
+class EncodedValueCache<T> {
+	private final Function<String, T> encoder;
+	private StringDictionary dictionary;
+	private Object[][] entries;
+
+	EncodedValueCache(Function<String, T> encoder) {
+		this.encoder = encoder;
+	}
+
+	@SuppressWarnings("unchecked")
+	T get(StringDictionary dictionary, int col, int code) {
+		if (dictionary != this.dictionary) {
+			this.dictionary = dictionary;
+			this.entries = new Object[dictionary.getSchema().size()][];
+		}
+		Object[] column = entries[col];
+		if (column == null || code >= column.length) {
+			int size = Math.min(Math.max(16, code * 2), dictionary.getMaxEntries());
+			column = column == null ? new Object[size] : Arrays.copyOf(column, size);
+			entries[col] = column;
+		}
+		Object encoded = column[code];
+		if (encoded == null) {
+			encoded = encoder.apply(dictionary.decode(col, code));
+			column[code] = encoded;
+		}
+		return (T) encoded;
+	}
+}
@@ -0,0 +1,458 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.FixedWidthField;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.CobolPicture;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * One fixed-width record type compiled to a byte template: every field pre-filled with its padding
+ * (pictures with zeros, sign and decimal point), constants and the line separator already in place.
+ * Rendering a row copies the template and overwrites only the slices of non-null values.
+ * <p>
+ * Numeric pictures are written from the long (or columnar unscaled value) through lookup tables:
+ * DISPLAY digit by digit in the output charset, with a separate or zoned (overpunched) sign, and
+ * COMP-3 two digits per byte. Text whose characters all map to single bytes (ASCII, Latin-1, EBCDIC)
+ * goes through the codec's character table; dictionary values are encoded once per distinct value.
+ * Not thread-safe: one per writer.
+ */
+final class FixedWidthLayout {
+	private static final long[] POW10 = {
+			1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+			10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+			1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+	// COMP-3 byte of two digits, indexed by their value 0..99
+	private static final byte[] PACKED_PAIRS = new byte[100];
+
+	static {
+		for (int i = 0; i < PACKED_PAIRS.length; i++) {
+			PACKED_PAIRS[i] = (byte) ((i / 10) << 4 | (i % 10));
+		}
+	}
+
+	private final String recordType;
+	private final Codec codec;
+	private final byte[] template;
+	private final Field[] fields;
+	private final EncodedValueCache<byte[]> dictionaryBytes;
+
+	private FixedWidthLayout(String recordType, Codec codec, byte[] template, Field[] fields) {
+		this.recordType = recordType;
+		this.codec = codec;
+		this.template = template;
+		this.fields = fields;
+		this.dictionaryBytes = new EncodedValueCache<>(codec::encodeToArray);
+	}
+
+	/**
+	 * @param columns resolves a field's 'column' to the index rendered values are looked up by;
+	 *                throws IllegalStateException for unknown columns
+	 */
+	static FixedWidthLayout compile(String recordType, List<FixedWidthField> configs, int recordLength,
+	                                String lineSeparator, Codec codec, ToIntFunction<String> columns) {
+		byte[] separator = codec.encodeToArray(lineSeparator == null ? "" : lineSeparator);
+		byte[] template = new byte[recordLength + separator.length];
+		Arrays.fill(template, 0, recordLength, codec.space);
+		System.arraycopy(separator, 0, template, recordLength, separator.length);
+
+		FixedWidthLayout layout = new FixedWidthLayout(recordType, codec, template, null);
+		List<Field> fields = new ArrayList<>();
+		for (FixedWidthField config : configs) {
+			Field field = new Field(config, codec);
+			field.fill(template, codec);
+			if (config.getValue() != null) {
+				// Constants are rendered into the template once
+				layout.writeValue(template, field, config.getValue());
+				continue;
+			}
+			field.column = columns.applyAsInt(config.getColumn().trim());
+			fields.add(field);
+		}
+		return new FixedWidthLayout(recordType, codec, template, fields.toArray(new Field[0]));
+	}
+
+	/**
+	 * Bytes of one rendered record, line separator included.
+	 */
+	int size() {
+		return template.length;
+	}
+
+	void render(DynamicRecord record, byte[] row) {
+		System.arraycopy(template, 0, row, 0, template.length);
+		RecordBatch batch = record.getBatch();
+		if (batch == null) {
+			for (Field field : fields) {
+				Object value = record.getValue(field.column);
+				if (value != null) {
+					writeValue(row, field, value);
+				}
+			}
+			return;
+		}
+		int r = record.getRowIndex();
+		for (Field field : fields) {
+			int col = field.column;
+			if (batch.isNull(r, col)) {
+				continue;
+			}
+			RecordBatch.Encoding encoding = batch.getEncoding(col);
+			if (field.picture != null && encoding == RecordBatch.Encoding.LONG) {
+				writeNumber(row, field, batch.getLong(r, col), 0);
+			} else if (field.picture != null && encoding == RecordBatch.Encoding.SCALED_LONG) {
+				writeNumber(row, field, batch.getUnscaled(r, col), batch.getScale(r, col));
+			} else if (field.picture == null && field.formatter == null && encoding == RecordBatch.Encoding.DICTIONARY) {
+				byte[] bytes = dictionaryBytes.get(batch.getDictionary(), col, batch.getCode(r, col));
+				writeBytes(row, field, bytes, bytes.length);
+			} else {
+				writeValue(row, field, batch.get(r, col));
+			}
+		}
+	}
+
+	/**
+	 * Header/trailer rendering; {@code values} is indexed like the column resolver passed to compile.
+	 */
+	void render(Object[] values, byte[] row) {
+		System.arraycopy(template, 0, row, 0, template.length);
+		for (Field field : fields) {
+			Object value = values[field.column];
+			if (value != null) {
+				writeValue(row, field, value);
+			}
+		}
+	}
+
+	private void writeValue(byte[] row, Field field, Object value) {
+		if (field.picture != null) {
+			writeNumber(row, field, value);
+			return;
+		}
+		if (field.formatter != null) {
+			value = TransformPipeline.formatDate(field.formatter, value);
+		}
+		writeText(row, field, value instanceof String ? (String) value : value.toString());
+	}
+
+	private void writeText(byte[] row, Field field, String text) {
+		if (codec.isSingleByte(text)) {
+			int count = fit(field, text.length(), null);
+			int start = field.right ? field.offset + field.length - count : field.offset;
+			for (int i = 0; i < count; i++) {
+				row[start + i] = codec.map(text.charAt(i));
+			}
+			return;
+		}
+		byte[] bytes = codec.encode(text);
+		writeBytes(row, field, bytes, codec.encodedLength);
+	}
+
+	private void writeBytes(byte[] row, Field field, byte[] bytes, int length) {
+		int count = fit(field, length, bytes);
+		int start = field.right ? field.offset + field.length - count : field.offset;
+		System.arraycopy(bytes, 0, row, start, count);
+	}
+
+	/**
+	 * Bytes of the value that go into the field: all of them, or the first 'length' when truncating.
+	 */
+	private int fit(Field field, int length, byte[] bytes) {
+		if (length <= field.length) {
+			return length;
+		}
+		if (!field.truncate) {
+			throw new IllegalStateException(recordType + " field '" + field.name + "' is " + field.length +
+					" bytes but the value needs " + length);
+		}
+		int count = field.length;
+		if (bytes != null && codec.utf8) {
+			// Do not cut a multi-byte character
+			while (count > 0 && (bytes[count] & 0xC0) == 0x80) {
+				count--;
+			}
+		}
+		return count;
+	}
+
+	private void writeNumber(byte[] row, Field field, Object value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			writeNumber(row, field, ((Number) value).longValue(), 0);
+			return;
+		}
+		BigDecimal decimal;
+		if (value instanceof BigDecimal) {
+			decimal = (BigDecimal) value;
+		} else {
+			try {
+				decimal = new BigDecimal(value.toString().trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalStateException(recordType + " field '" + field.name + "' has picture " + field.picture +
+						" but the value '" + value + "' is not numeric", e);
+			}
+		}
+		long unscaled;
+		try {
+			unscaled = decimal.setScale(field.picture.getScale(), RoundingMode.HALF_UP).unscaledValue().longValueExact();
+		} catch (ArithmeticException e) {
+			throw overflow(field, value);
+		}
+		writeDigits(row, field, unscaled, value);
+	}
+
+	private void writeNumber(byte[] row, Field field, long unscaled, int scale) {
+		int target = field.picture.getScale();
+		if (scale == target) {
+			writeDigits(row, field, unscaled, unscaled);
+		} else if (scale < target && target - scale < POW10.length) {
+			try {
+				writeDigits(row, field, Math.multiplyExact(unscaled, POW10[target - scale]), unscaled);
+			} catch (ArithmeticException e) {
+				throw overflow(field, BigDecimal.valueOf(unscaled, scale));
+			}
+		} else {
+			// Fewer decimals than the value has: round
+			writeNumber(row, field, BigDecimal.valueOf(unscaled, scale));
+		}
+	}
+
+	private void writeDigits(byte[] row, Field field, long unscaled, Object value) {
+		boolean negative = unscaled < 0;
+		if (negative && !field.picture.isSigned()) {
+			throw new IllegalStateException(recordType + " field '" + field.name + "' has unsigned picture " +
+					field.picture + " but the value " + value + " is negative");
+		}
+		long remaining = negative ? -unscaled : unscaled;
+		// Also catches Long.MIN_VALUE, which stays negative
+		if (remaining < 0 || remaining >= POW10[field.picture.getDigits()]) {
+			throw overflow(field, value);
+		}
+		if (field.picture.isPacked()) {
+			int last = field.offset + field.length - 1;
+			int sign = !field.picture.isSigned() ? 0x0F : negative ? 0x0D : 0x0C;
+			row[last] = (byte) ((remaining % 10) << 4 | sign);
+			remaining /= 10;
+			for (int position = last - 1; position >= field.offset; position--) {
+				row[position] = PACKED_PAIRS[(int) (remaining % 100)];
+				remaining /= 100;
+			}
+			return;
+		}
+		int[] digitOffsets = field.digitOffsets;
+		int zonedDigit = 0;
+		for (int i = digitOffsets.length - 1; i >= 0; i--) {
+			int digit = (int) (remaining % 10);
+			if (i == field.zonedIndex) {
+				zonedDigit = digit;
+			}
+			row[field.offset + digitOffsets[i]] = codec.digits[digit];
+			remaining /= 10;
+		}
+		if (field.signOffset >= 0) {
+			row[field.offset + field.signOffset] = negative ? codec.minus : codec.plus;
+		} else if (field.zonedIndex >= 0) {
+			row[field.offset + digitOffsets[field.zonedIndex]] =
+					negative ? codec.negativeZoned[zonedDigit] : codec.positiveZoned[zonedDigit];
+		}
+	}
+
+	private IllegalStateException overflow(Field field, Object value) {
+		return new IllegalStateException(recordType + " field '" + field.name + "': value " + value +
+				" does not fit picture " + field.picture);
+	}
+
+	/* ================= Field ================= */
+
+	private static final class Field {
+		private final String name;
+		private final int offset;
+		private final int length;
+		private final boolean right;
+		private final boolean truncate;
+		private final byte pad;
+		// Numeric pictures only; alphanumeric pictures are plain text fields
+		private final CobolPicture picture;
+		private final DateTimeFormatter formatter;
+		// DISPLAY picture layout, relative to offset; digits most significant first
+		private final int[] digitOffsets;
+		private final int signOffset;
+		// Index into digitOffsets of the digit carrying a zoned sign
+		private final int zonedIndex;
+		private final int pointOffset;
+		private int column = -1;
+
+		private Field(FixedWidthField config, Codec codec) {
+			this.name = config.getColumn() != null ? config.getColumn().trim() : "value '" + config.getValue() + "'";
+			this.offset = config.getOffset();
+			this.length = config.getLength();
+			this.right = config.getAlign() == FixedWidthField.Align.RIGHT;
+			this.truncate = config.isTruncate();
+			this.pad = codec.single(config.getPadChar());
+			CobolPicture parsed = config.getPicture() != null ? CobolPicture.parse(config.getPicture()) : null;
+			this.picture = parsed != null && !parsed.isAlphanumeric() ? parsed : null;
+			this.formatter = config.getPattern() != null ? DateTimeFormatter.ofPattern(config.getPattern()) : null;
+			if (picture == null || picture.isPacked()) {
+				this.digitOffsets = null;
+				this.signOffset = -1;
+				this.zonedIndex = -1;
+				this.pointOffset = -1;
+				return;
+			}
+			FixedWidthField.Sign sign = config.getSign();
+			boolean separate = picture.isSigned() && sign.isSeparate();
+			int position = 0;
+			int leadingSign = separate && sign == FixedWidthField.Sign.LEADING_SEPARATE ? position++ : -1;
+			this.digitOffsets = new int[picture.getDigits()];
+			int digit = 0;
+			for (int i = 0; i < picture.getIntegerDigits(); i++) {
+				digitOffsets[digit++] = position++;
+			}
+			this.pointOffset = picture.hasDecimalPoint() ? position++ : -1;
+			for (int i = 0; i < picture.getScale(); i++) {
+				digitOffsets[digit++] = position++;
+			}
+			this.signOffset = separate && sign == FixedWidthField.Sign.TRAILING_SEPARATE ? position : leadingSign;
+			if (!picture.isSigned() || separate) {
+				this.zonedIndex = -1;
+			} else {
+				this.zonedIndex = sign == FixedWidthField.Sign.LEADING ? 0 : digitOffsets.length - 1;
+			}
+		}
+
+		/**
+		 * Blank state of the field in the template: padding, or zero for pictures.
+		 */
+		private void fill(byte[] template, Codec codec) {
+			Arrays.fill(template, offset, offset + length, pad);
+			if (picture == null) {
+				return;
+			}
+			if (picture.isPacked()) {
+				Arrays.fill(template, offset, offset + length, (byte) 0);
+				template[offset + length - 1] = (byte) (picture.isSigned() ? 0x0C : 0x0F);
+				return;
+			}
+			for (int digitOffset : digitOffsets) {
+				template[offset + digitOffset] = codec.digits[0];
+			}
+			if (signOffset >= 0) {
+				template[offset + signOffset] = codec.plus;
+			}
+			if (zonedIndex >= 0) {
+				template[offset + digitOffsets[zonedIndex]] = codec.positiveZoned[0];
+			}
+			if (pointOffset >= 0) {
+				template[offset + pointOffset] = codec.point;
+			}
+		}
+	}
+
+	/* ================= Codec ================= */
+
+	/**
+	 * The output charset: encoder, a lookup table of the characters U+0000..U+00FF that encode to a
+	 * single byte, the bytes of digits, signs and zoned (overpunched) digits, and a reusable scratch
+	 * buffer. Shared by the record types of one writer.
+	 */
+	static final class Codec {
+		// Zoned digits 0-9 with a positive/negative sign; map to zones C/D in EBCDIC
+		private static final String POSITIVE_ZONED = "{ABCDEFGHI";
+		private static final String NEGATIVE_ZONED = "}JKLMNOPQR";
+
+		private final CharsetEncoder encoder;
+		private final boolean utf8;
+		// Byte of each char below 256, or -1 when it is unmappable or multi-byte
+		private final short[] table = new short[256];
+		private final byte[] digits = new byte[10];
+		private final byte[] positiveZoned = new byte[10];
+		private final byte[] negativeZoned = new byte[10];
+		private final byte plus;
+		private final byte minus;
+		private final byte point;
+		private final byte space;
+		private byte[] scratch = new byte[256];
+		private int encodedLength;
+
+		Codec(Charset charset) {
+			this.encoder = charset.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.utf8 = charset.equals(StandardCharsets.UTF_8);
+			for (char c = 0; c < table.length; c++) {
+				byte[] bytes = encoder.canEncode(c) ? encodeToArray(String.valueOf(c)) : null;
+				table[c] = bytes != null && bytes.length == 1 ? (short) (bytes[0] & 0xFF) : -1;
+			}
+			for (int d = 0; d < 10; d++) {
+				digits[d] = single(String.valueOf((char) ('0' + d)));
+				positiveZoned[d] = single(POSITIVE_ZONED.substring(d, d + 1));
+				negativeZoned[d] = single(NEGATIVE_ZONED.substring(d, d + 1));
+			}
+			this.plus = single("+");
+			this.minus = single("-");
+			this.point = single(".");
+			this.space = single(" ");
+		}
+
+		/**
+		 * True if every char of the text is in the single-byte table, so bytes == chars.
+		 */
+		boolean isSingleByte(String text) {
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c >= table.length || table[c] < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		byte map(char c) {
+			return (byte) table[c];
+		}
+
+		/**
+		 * The byte of a character that must encode to exactly one byte (padding, digits, signs).
+		 */
+		byte single(String character) {
+			byte[] bytes = encodeToArray(character);
+			if (character.length() != 1 || bytes.length != 1 || !encoder.canEncode(character.charAt(0))) {
+				throw new IllegalStateException("'" + character + "' is not a single-byte character in " + encoder.charset());
+			}
+			return bytes[0];
+		}
+
+		/**
+		 * Encodes into the scratch buffer (valid until the next call); length in {@code encodedLength}.
+		 */
+		private byte[] encode(String text) {
+			int capacity = (int) Math.ceil(text.length() * (double) encoder.maxBytesPerChar());
+			if (scratch.length < capacity) {
+				scratch = new byte[capacity];
+			}
+			ByteBuffer out = ByteBuffer.wrap(scratch);
+			encoder.reset();
+			encoder.encode(CharBuffer.wrap(text), out, true);
+			encoder.flush(out);
+			encodedLength = out.position();
+			return scratch;
+		}
+
+		byte[] encodeToArray(String text) {
+			encode(text);
+			return Arrays.copyOf(scratch, encodedLength);
+		}
+	}
+}
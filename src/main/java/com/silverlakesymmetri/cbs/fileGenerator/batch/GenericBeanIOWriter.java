@@ -21,12 +21,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * BeanIO output for CSV/TXT/FIXED interfaces with a 'beanIoMappingFile'.
+ * <p>
+ * With control totals the mapping's header record (placement HEADER, zero-padded strings back-patched
+ * at close) and/or trailer record (placement TRAILER) are written with the totals as a map
+ * ({@code recordCount}, {@code sum_<COLUMN>}, {@code hash_<COLUMN>}).
+ */
 @Component
 @StepScope
 public class GenericBeanIOWriter extends AbstractBaseOutputWriter<DynamicRecord> implements OutputFormatWriter {
 
 	private static final Map<String, StreamFactory> FACTORY_CACHE = new ConcurrentHashMap<>();
 	private final InterfaceConfigLoader interfaceConfigLoader;
+	private StreamFactory factory;
 	private BeanWriter beanWriter;
 	private InterfaceConfig config;
 
@@ -54,14 +62,14 @@ public class GenericBeanIOWriter extends AbstractBaseOutputWriter<DynamicRecord>
 	}
 
 	@Override
-	protected void openStream(OutputStream os, boolean isRestart) {
-		StreamFactory factory = getOrCreateFactory(config.getBeanIoMappingFile());
+	protected void openStream(OutputStream os, boolean isRestart) throws Exception {
+		this.factory = getOrCreateFactory(config.getBeanIoMappingFile());
 
 		// Wrap the tracked/buffered stream with BeanIO's writer
 		this.beanWriter = factory.createWriter(config.getStreamName(),
 				new OutputStreamWriter(os, StandardCharsets.UTF_8));
 
-		if (!isRestart) {
+		if (!isRestart && !segment) {
 			writeHeader();
 		}
 	}
@@ -71,11 +79,13 @@ public class GenericBeanIOWriter extends AbstractBaseOutputWriter<DynamicRecord>
 		if (beanWriter == null) {
 			throw new IllegalStateException("BeanWriter is not initialized");
 		}
+		beginWrite();
 
 		for (DynamicRecord record : items) {
 			if (record != null) {
 				try {
 					beanWriter.write(record.asMap());
+					addToControlTotals(record);
 					recordCount++;
 				} catch (Exception e) {
 					logger.error("Failed writing record: {}", record, e);
@@ -83,6 +93,7 @@ public class GenericBeanIOWriter extends AbstractBaseOutputWriter<DynamicRecord>
 				}
 			}
 		}
+		endWrite();
 	}
 
 	@Override
@@ -94,28 +105,50 @@ public class GenericBeanIOWriter extends AbstractBaseOutputWriter<DynamicRecord>
 	}
 
 	@Override
-	protected void writeHeader() {
-		// Implement if the BeanIO mapping doesn't handle headers automatically
+	protected void writeHeader() throws Exception {
+		if (controlTotals != null && getControlTotalsConfig().getPlacement().inHeader()) {
+			beanWriter.flush();
+			writePatchableHeader(renderHeaderPatch());
+		}
+	}
+
+	/**
+	 * The header record rendered on its own, with zero-padded totals so the final values fit the placeholder.
+	 */
+	@Override
+	protected byte[] renderHeaderPatch() {
+		StringWriter header = new StringWriter();
+		BeanWriter headerWriter = factory.createWriter(config.getStreamName(), header);
+		try {
+			headerWriter.write(getControlTotalsConfig().getHeaderRecord(), controlTotals.paddedValues(getPartRecordCount()));
+			headerWriter.flush();
+		} finally {
+			headerWriter.close();
+		}
+		return header.toString().getBytes(StandardCharsets.UTF_8);
 	}
 
 	@Override
 	protected void writeFooter() {
-		// Implement if the BeanIO mapping doesn't handle footers automatically
+		if (controlTotals != null && getControlTotalsConfig().getPlacement().inTrailer()) {
+			beanWriter.write(getControlTotalsConfig().getTrailerRecord(), getControlTotalValues());
+		}
 	}
 
 	@Override
 	public void close() {
 		try {
 			if (beanWriter != null) {
-				if (stepSuccessful) {
+				if (stepSuccessful && !segment) {
 					writeFooter();
+					patchHeader();
 				}
 				beanWriter.flush();
 				beanWriter.close();
 				beanWriter = null;
 			}
 		} catch (Exception e) {
-			logger.warn("Failed to close BeanIO Writer correctly for {}", interfaceType, e);
+			throw unfinished("Failed to finish BeanIO output of " + interfaceType, e);
 		} finally {
 			super.closeQuietly();
 		}
@@ -0,0 +1,238 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.FixedWidthConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.FixedWidthField;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native writer for outputFormat FIXED_WIDTH, configured by the interface's 'fixedWidth' section.
+ * <p>
+ * Each record type (detail, header, trailer) is compiled once into a {@link FixedWidthLayout}: a
+ * pre-padded byte template plus field slices. Writing a record copies the template and overwrites
+ * only the slices holding values, by column position; nothing is padded or formatted per row
+ * through String.format or BeanIO.
+ * <p>
+ * The header is written when the file is started and the trailer on successful close, both from
+ * job metadata (see {@link FixedWidthConfig}); partition segments hold detail records only.
+ * Metadata includes the control totals ({@code sum_<COLUMN>}, {@code hash_<COLUMN>}) when configured.
+ * A header with the record count or totals is back-patched at close, as it is a fixed-length record:
+ * uncompressed files get the final values in place, compressed ones keep what was known at the start.
+ */
+@Component
+@StepScope
+public class GenericFixedWidthWriter extends AbstractBaseOutputWriter<DynamicRecord> implements OutputFormatWriter {
+	private static final String INTERFACE_TYPE = "interfaceType";
+	private static final String FILE_NAME = "fileName";
+	private static final String RUN_DATE = "runDate";
+	private static final String RECORD_COUNT = "recordCount";
+
+	private final InterfaceConfigLoader interfaceConfigLoader;
+
+	private FixedWidthConfig fixedWidth;
+	private FixedWidthLayout.Codec codec;
+	private int recordLength;
+	private List<String> metadataNames;
+	private FixedWidthLayout headerLayout;
+	private FixedWidthLayout trailerLayout;
+	// Whether the header shows values only known at close
+	private boolean headerHasTotals;
+
+	// Detail layout of the last schema seen
+	private RecordSchema layoutSchema;
+	private FixedWidthLayout layout;
+	private byte[] row;
+
+	@Autowired
+	public GenericFixedWidthWriter(InterfaceConfigLoader interfaceConfigLoader) {
+		this.interfaceConfigLoader = interfaceConfigLoader;
+	}
+
+	@Override
+	protected String getByteOffsetKey() {
+		return "fixedwidth.writer.byteOffset";
+	}
+
+	@Override
+	protected String getRecordCountKey() {
+		return "fixedwidth.writer.recordCount";
+	}
+
+	@Override
+	protected void onInit() {
+		InterfaceConfig config = interfaceConfigLoader.getConfig(interfaceType);
+		if (config == null) {
+			throw new IllegalArgumentException("No configuration found for interface type: " + interfaceType);
+		}
+		this.fixedWidth = config.getFixedWidth();
+		if (fixedWidth == null || fixedWidth.getFields() == null || fixedWidth.getFields().isEmpty()) {
+			throw new IllegalStateException("FIXED_WIDTH interface " + interfaceType + " has no 'fixedWidth' fields");
+		}
+		this.codec = new FixedWidthLayout.Codec(Charset.forName(fixedWidth.getEncoding()));
+		this.recordLength = fixedWidth.getEffectiveRecordLength();
+
+		this.metadataNames = new ArrayList<>(metadata().keySet());
+		this.headerLayout = compileMetadataLayout("header", fixedWidth.getHeader());
+		this.trailerLayout = compileMetadataLayout("trailer", fixedWidth.getTrailer());
+		this.headerHasTotals = headerLayout != null && fixedWidth.getHeader().stream()
+				.map(FixedWidthField::getColumn)
+				.filter(column -> column != null)
+				.map(String::trim)
+				.anyMatch(column -> RECORD_COUNT.equals(column)
+						|| column.startsWith(ControlTotals.SUM_PREFIX) || column.startsWith(ControlTotals.HASH_PREFIX));
+		this.layoutSchema = null;
+		this.layout = null;
+	}
+
+	private FixedWidthLayout compileMetadataLayout(String recordType, List<FixedWidthField> fields) {
+		if (fields == null || fields.isEmpty()) {
+			return null;
+		}
+		return FixedWidthLayout.compile(interfaceType + " " + recordType, fields, recordLength,
+				fixedWidth.getLineSeparator(), codec, name -> {
+					int index = metadataNames.indexOf(name);
+					if (index == -1) {
+						throw new IllegalStateException("Fixed-width " + recordType + " column '" + name + "' of " +
+								interfaceType + " is not job metadata " + metadataNames);
+					}
+					return index;
+				});
+	}
+
+	@Override
+	protected void openStream(OutputStream os, boolean isRestart) throws Exception {
+		// Decided by what is already in the file, so a restart before the first chunk still gets it
+		if (!segment && byteTrackingStream.getBytesWritten() == 0) {
+			writeHeader();
+		}
+	}
+
+	@Override
+	public void write(List<? extends DynamicRecord> items) throws Exception {
+		if (bufferedOutputStream == null) throw new IllegalStateException("Fixed-width Writer not opened");
+		beginWrite();
+
+		for (DynamicRecord record : items) {
+			if (record == null) {
+				continue;
+			}
+			FixedWidthLayout detail = layoutFor(record.getSchema());
+			detail.render(record, row);
+			bufferedOutputStream.write(row, 0, detail.size());
+			addToControlTotals(record);
+			recordCount++;
+		}
+		endWrite();
+	}
+
+	private FixedWidthLayout layoutFor(RecordSchema schema) {
+		if (schema == layoutSchema) {
+			return layout;
+		}
+		layout = FixedWidthLayout.compile(interfaceType + " detail", fixedWidth.getFields(), recordLength,
+				fixedWidth.getLineSeparator(), codec, name -> {
+					int index = schema.getIndex(name);
+					if (index == -1) {
+						throw new IllegalStateException("Fixed-width column '" + name + "' of " + interfaceType +
+								" is not in the SQL results " + schema.getKeySet());
+					}
+					return index;
+				});
+		layoutSchema = schema;
+		row = new byte[layout.size()];
+		return layout;
+	}
+
+	/**
+	 * Header/trailer values: every job parameter, plus interfaceType, fileName, runDate, recordCount and the
+	 * control totals (of this part when rolled).
+	 */
+	private Map<String, Object> metadata() {
+		Map<String, Object> metadata = new LinkedHashMap<>();
+		// Looked up rather than injected, so shard writers created outside the step scope get them too
+		StepContext stepContext = StepSynchronizationManager.getContext();
+		if (stepContext != null) {
+			metadata.putAll(stepContext.getJobParameters());
+		}
+		metadata.put(INTERFACE_TYPE, interfaceType);
+		String fileName = Paths.get(outputFilePath).getFileName().toString();
+		metadata.put(FILE_NAME, fileName.endsWith(".part") ? fileName.substring(0, fileName.length() - 5) : fileName);
+		Object timestamp = metadata.get("timestamp");
+		metadata.put(RUN_DATE, new Timestamp(timestamp instanceof Long ? (Long) timestamp : System.currentTimeMillis()));
+		metadata.putAll(getControlTotalValues());
+		return metadata;
+	}
+
+	private byte[] renderMetadataRecord(FixedWidthLayout metadataLayout) {
+		Map<String, Object> metadata = metadata();
+		Object[] values = new Object[metadataNames.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = metadata.get(metadataNames.get(i));
+		}
+		byte[] bytes = new byte[metadataLayout.size()];
+		metadataLayout.render(values, bytes);
+		return bytes;
+	}
+
+	@Override
+	protected void flushInternal() {
+		// Records go straight to the buffered stream
+	}
+
+	@Override
+	protected void writeHeader() throws Exception {
+		if (headerLayout == null) {
+			return;
+		}
+		if (headerHasTotals) {
+			writePatchableHeader(renderMetadataRecord(headerLayout));
+		} else {
+			bufferedOutputStream.write(renderMetadataRecord(headerLayout));
+		}
+	}
+
+	/**
+	 * The header again, now with the file's final record count and totals; same layout, same length.
+	 */
+	@Override
+	protected byte[] renderHeaderPatch() {
+		return renderMetadataRecord(headerLayout);
+	}
+
+	@Override
+	protected void writeFooter() throws Exception {
+		if (trailerLayout != null) {
+			bufferedOutputStream.write(renderMetadataRecord(trailerLayout));
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			if (bufferedOutputStream != null && stepSuccessful && !segment) {
+				writeFooter();
+				patchHeader();
+			}
+		} catch (Exception e) {
+			throw unfinished("Failed to finish fixed-width output of " + interfaceType, e);
+		} finally {
+			super.closeQuietly();
+		}
+	}
+}
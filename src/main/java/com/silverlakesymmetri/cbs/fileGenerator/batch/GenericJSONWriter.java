@@ -1,22 +1,54 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
+/**
+ * JSON output, one object per record, in the layout selected by the interface's 'outputFormat':
+ * <ul>
+ * <li>JSON: pretty-printed objects separated by a space (no enclosing array)</li>
+ * <li>JSON_COMPACT: a single compact array {@code [{...},{...}]}</li>
+ * <li>NDJSON: one compact object per line, no header or footer</li>
+ * </ul>
+ * Records go straight to a JsonGenerator through {@link DynamicRecordSerializer}; separators are
+ * written by this class, so every layout resumes exactly at the saved byte offset on restart.
+ */
 @Component
 @StepScope
 public class GenericJSONWriter extends AbstractBaseOutputWriter<DynamicRecord> implements OutputFormatWriter {
 
-	private SequenceWriter sequenceWriter;
-	private final ObjectMapper mapper = new ObjectMapper();
+	private final InterfaceConfigLoader interfaceConfigLoader;
+	// The generator is flushed by update(), not after every record
+	private final ObjectMapper mapper = new ObjectMapper()
+			.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+			.registerModule(new SimpleModule().addSerializer(DynamicRecord.class, new DynamicRecordSerializer()));
+	private InterfaceConfig.OutputFormat format = InterfaceConfig.OutputFormat.JSON;
+	private JsonGenerator generator;
+
+	@Autowired
+	public GenericJSONWriter(InterfaceConfigLoader interfaceConfigLoader) {
+		this.interfaceConfigLoader = interfaceConfigLoader;
+	}
 
 	@Override
 	protected String getByteOffsetKey() { return "json.writer.byteOffset"; }
@@ -26,53 +58,166 @@ public class GenericJSONWriter extends AbstractBaseOutputWriter<DynamicRecord> i
 
 	@Override
 	protected void onInit() {
-		// Initialization if needed
+		InterfaceConfig config = interfaceConfigLoader.getConfig(interfaceType);
+		if (config != null && isJsonFormat(config.getOutputFormat())) {
+			this.format = config.getOutputFormat();
+		}
+	}
+
+	static boolean isJsonFormat(InterfaceConfig.OutputFormat format) {
+		return format == InterfaceConfig.OutputFormat.JSON
+				|| format == InterfaceConfig.OutputFormat.JSON_COMPACT
+				|| format == InterfaceConfig.OutputFormat.NDJSON;
 	}
 
 	@Override
 	protected void openStream(OutputStream os, boolean isRestart) throws Exception {
-		ObjectWriter writer = mapper.writer(new DefaultPrettyPrinter());
-
-		// SequenceWriter allows writing elements one by one into a JSON Array []
-		this.sequenceWriter = writer.writeValues(os);
+		generator = mapper.getFactory().createGenerator(os, JsonEncoding.UTF8);
+		// The base writer owns the stream
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		if (format == InterfaceConfig.OutputFormat.JSON) {
+			// Same output as the former pretty SequenceWriter: root values separated by a space
+			generator.setPrettyPrinter(new DefaultPrettyPrinter());
+		} else {
+			// Separators are written explicitly, so they survive a restart or a segment merge
+			generator.setRootValueSeparator(null);
+		}
 
-		if (!isRestart) {
-			writeHeader(); // Starts the array
+		if (!isRestart && !segment) {
+			writeHeader();
 		}
 	}
 
 	@Override
 	public void write(List<? extends DynamicRecord> items) throws Exception {
+		if (generator == null) throw new IllegalStateException("JSON Writer not opened");
+		beginWrite();
+
 		for (DynamicRecord record : items) {
-			sequenceWriter.write(record.asMap());
+			if (format == InterfaceConfig.OutputFormat.JSON_COMPACT && getPartRecordCount() > 0) {
+				generator.writeRaw(',');
+			}
+			mapper.writeValue(generator, record);
+			if (format == InterfaceConfig.OutputFormat.NDJSON) {
+				generator.writeRaw('\n');
+			}
 			recordCount++;
 		}
+		endWrite();
 	}
 
 	@Override
 	protected void flushInternal() throws Exception {
-		if (sequenceWriter != null) sequenceWriter.flush();
+		if (generator != null) generator.flush();
 	}
 
-	@Override protected void writeHeader() {
-		/* Handled by SequenceWriter */
+	@Override
+	protected void beforeSegment(int index) throws Exception {
+		if (index == 0) {
+			return;
+		}
+		if (format == InterfaceConfig.OutputFormat.JSON) {
+			// Same root-value separator the pretty printer puts between records
+			bufferedOutputStream.write(' ');
+		} else if (format == InterfaceConfig.OutputFormat.JSON_COMPACT) {
+			bufferedOutputStream.write(',');
+		}
+		// NDJSON segments already end with a newline
 	}
 
 	@Override
-	protected void writeFooter() {
-		// SequenceWriter handles closing the JSON array structure automatically on close
+	protected void writeHeader() throws Exception {
+		if (format == InterfaceConfig.OutputFormat.JSON_COMPACT) {
+			generator.writeRaw('[');
+		}
+	}
+
+	@Override
+	protected void writeFooter() throws Exception {
+		if (format == InterfaceConfig.OutputFormat.JSON_COMPACT) {
+			generator.writeRaw(']');
+		}
 	}
 
 	@Override
 	public void close() {
 		try {
-			if (sequenceWriter != null) {
-				sequenceWriter.close();
+			if (generator != null) {
+				if (stepSuccessful && !segment) {
+					writeFooter();
+				}
+				generator.close();
 			}
 		} catch (Exception e) {
-			logger.error("Error closing JSON writer", e);
+			throw unfinished("Failed to finish JSON output of " + interfaceType, e);
 		} finally {
 			super.closeQuietly();
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Writes a record exactly as Jackson's Map serializer would, by column position and with
+	 * field names pre-quoted in the schema. Columnar rows are read straight from the RecordBatch:
+	 * integer, scale-0 decimal and boolean columns are emitted from primitives without boxing,
+	 * and dictionary strings reuse their quoted bytes.
+	 */
+	private static final class DynamicRecordSerializer extends StdSerializer<DynamicRecord> {
+		// SerializedString caches its quoted UTF-8 form after the first write
+		private final EncodedValueCache<SerializedString> dictionaryStrings = new EncodedValueCache<>(SerializedString::new);
+
+		private DynamicRecordSerializer() {
+			super(DynamicRecord.class);
+		}
+
+		@Override
+		public void serialize(DynamicRecord record, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject();
+			RecordSchema schema = record.getSchema();
+			RecordBatch batch = record.getBatch();
+			if (batch == null) {
+				for (int col = 0; col < schema.size(); col++) {
+					gen.writeFieldName(schema.getJsonName(col));
+					Object value = record.getValue(col);
+					if (value == null) {
+						gen.writeNull();
+					} else {
+						provider.defaultSerializeValue(value, gen);
+					}
+				}
+				gen.writeEndObject();
+				return;
+			}
+
+			int row = record.getRowIndex();
+			for (int col = 0; col < schema.size(); col++) {
+				gen.writeFieldName(schema.getJsonName(col));
+				if (batch.isNull(row, col)) {
+					gen.writeNull();
+					continue;
+				}
+				switch (batch.getEncoding(col)) {
+					case LONG:
+						gen.writeNumber(batch.getLong(row, col));
+						break;
+					case SCALED_LONG:
+						int scale = batch.getScale(row, col);
+						if (scale == 0) {
+							gen.writeNumber(batch.getUnscaled(row, col));
+						} else {
+							gen.writeNumber(BigDecimal.valueOf(batch.getUnscaled(row, col), scale));
+						}
+						break;
+					case BOOLEAN:
+						gen.writeBoolean(batch.getBoolean(row, col));
+						break;
+					case DICTIONARY:
+						gen.writeString(dictionaryStrings.get(batch.getDictionary(), col, batch.getCode(row, col)));
+						break;
+					default:
+						provider.defaultSerializeValue(batch.get(row, col), gen);
+				}
+			}
+			gen.writeEndObject();
+		}
+	}
+}
@@ -1,25 +1,59 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
 import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
+/**
+ * Generic XML output: {@code <root><records><rootItem>...</rootItem>...</records><totalRecords>N</totalRecords></root>}.
+ * <p>
+ * With control totals a {@code <controlTotals>} element follows {@code <totalRecords>} (placement TRAILER) and/or
+ * precedes {@code <records>} (placement HEADER, zero-padded values back-patched at close).
+ * <p>
+ * By default records are written by {@link Utf8XmlEmitter}, straight to UTF-8 bytes with pre-encoded
+ * tags per column. 'file.generation.xml.emitter=STAX' switches back to the StAX writer; both produce
+ * the same document.
+ */
 @Component
 @StepScope
 public class GenericXMLWriter extends AbstractBaseOutputWriter<DynamicRecord> implements OutputFormatWriter {
+	private static final String EMITTER_STAX = "STAX";
+
+	// Factories are thread-safe once configured; creating one per file means a service lookup each time
+	private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+	@Value("${file.generation.xml.emitter:BYTES}")
+	private String emitterType;
+
+	@Value("${file.generation.xml.buffer-size:65536}")
+	private int bufferSize;
+
 	private XMLStreamWriter xmlStreamWriter;
+	private Utf8XmlEmitter emitter;
 	private String rootElement;
 	private String itemElement;
 
+	// Pre-encoded tags of the last schema seen: [2 * col] = "<name>", [2 * col + 1] = "</name>"
+	private RecordSchema tagSchema;
+	private byte[][] columnTags;
+	private byte[] itemStartTag;
+	private byte[] itemEndTag;
+
 	public GenericXMLWriter() {
 	}
 
@@ -33,6 +67,11 @@ public class GenericXMLWriter extends AbstractBaseOutputWriter<DynamicRecord> im
 		return "xml.writer.recordCount"; //
 	}
 
+	@Override
+	protected boolean supportsInlineXsdValidation() {
+		return true;
+	}
+
 	@Override
 	protected void onInit() {
 		// Resolve XML specific naming conventions
@@ -43,23 +82,33 @@ public class GenericXMLWriter extends AbstractBaseOutputWriter<DynamicRecord> im
 
 	@Override
 	protected void openStream(OutputStream os, boolean isRestart) throws Exception {
-		// Initialize the StAX writer wrapping the shared tracking stream
-		xmlStreamWriter = XMLOutputFactory.newInstance()
-				.createXMLStreamWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+		if (EMITTER_STAX.equalsIgnoreCase(emitterType)) {
+			// Initialize the StAX writer wrapping the shared tracking stream
+			xmlStreamWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+		} else {
+			emitter = new Utf8XmlEmitter(os, bufferSize);
+			itemStartTag = Utf8XmlEmitter.startTag(itemElement);
+			itemEndTag = Utf8XmlEmitter.endTag(itemElement);
+		}
 
-		if (!isRestart) {
+		if (!isRestart && !segment) {
 			writeHeader();
 		}
 	}
 
 	@Override
 	public void write(List<? extends DynamicRecord> items) throws Exception {
-		if (xmlStreamWriter == null) throw new IllegalStateException("XML Writer not opened");
+		if (xmlStreamWriter == null && emitter == null) throw new IllegalStateException("XML Writer not opened");
 
 		for (DynamicRecord record : items) {
 			if (record != null) {
 				try {
-					writeRecordXml(record);
+					addToControlTotals(record);
+					if (emitter != null) {
+						writeRecordBytes(record);
+					} else {
+						writeRecordXml(record);
+					}
 					recordCount++; //
 				} catch (Exception e) {
 					logger.error("Failed writing record: {}", record, e);
@@ -71,19 +120,76 @@ public class GenericXMLWriter extends AbstractBaseOutputWriter<DynamicRecord> im
 
 	private void writeRecordXml(DynamicRecord record) throws XMLStreamException {
 		xmlStreamWriter.writeStartElement(itemElement);
-		for (String column : record.keySet()) {
-			Object value = record.get(column);
-			if (value != null) {
-				xmlStreamWriter.writeStartElement(sanitizeElementName(column));
-				xmlStreamWriter.writeCharacters(value.toString());
-				xmlStreamWriter.writeEndElement();
+		RecordSchema schema = record.getSchema();
+		RecordBatch batch = record.getBatch();
+		if (batch != null) {
+			// Columnar row: numeric/boolean columns are rendered from primitives, no boxing
+			int row = record.getRowIndex();
+			for (int col = 0; col < schema.size(); col++) {
+				String text = batch.getText(row, col);
+				if (text != null) {
+					xmlStreamWriter.writeStartElement(schema.getElementName(col));
+					xmlStreamWriter.writeCharacters(text);
+					xmlStreamWriter.writeEndElement();
+				}
 			}
+			xmlStreamWriter.writeEndElement(); // itemElement
+			return;
 		}
+		record.forEachNonNull((col, value) -> {
+			xmlStreamWriter.writeStartElement(schema.getElementName(col));
+			xmlStreamWriter.writeCharacters(value.toString());
+			xmlStreamWriter.writeEndElement();
+		});
 		xmlStreamWriter.writeEndElement(); // itemElement
 	}
 
+	private void writeRecordBytes(DynamicRecord record) throws IOException {
+		RecordSchema schema = record.getSchema();
+		if (schema != tagSchema) {
+			columnTags = new byte[schema.size() * 2][];
+			for (int col = 0; col < schema.size(); col++) {
+				columnTags[2 * col] = Utf8XmlEmitter.startTag(schema.getElementName(col));
+				columnTags[2 * col + 1] = Utf8XmlEmitter.endTag(schema.getElementName(col));
+			}
+			tagSchema = schema;
+		}
+		emitter.writeRaw(itemStartTag);
+		RecordBatch batch = record.getBatch();
+		if (batch != null) {
+			int row = record.getRowIndex();
+			for (int col = 0; col < schema.size(); col++) {
+				if (batch.isNull(row, col)) {
+					continue;
+				}
+				emitter.writeRaw(columnTags[2 * col]);
+				emitter.writeCell(batch, row, col);
+				emitter.writeRaw(columnTags[2 * col + 1]);
+			}
+		} else {
+			record.forEachNonNull((col, value) -> {
+				emitter.writeRaw(columnTags[2 * col]);
+				emitter.writeValue(value);
+				emitter.writeRaw(columnTags[2 * col + 1]);
+			});
+		}
+		emitter.writeRaw(itemEndTag);
+	}
+
+	@Override
+	protected void beforeSegment(int index) throws Exception {
+		if (index == 0 && xmlStreamWriter != null) {
+			// StAX keeps "<records" open until the next event; close it before raw bytes follow
+			xmlStreamWriter.writeCharacters("");
+		}
+	}
+
 	@Override
 	protected void flushInternal() throws Exception {
+		if (emitter != null) {
+			// Byte offsets saved by update() must include everything written so far
+			emitter.flush();
+		}
 		if (xmlStreamWriter != null) {
 			xmlStreamWriter.flush(); //
 		}
@@ -91,45 +197,109 @@ public class GenericXMLWriter extends AbstractBaseOutputWriter<DynamicRecord> im
 
 	@Override
 	protected void writeHeader() throws Exception {
+		boolean headerTotals = controlTotals != null && getControlTotalsConfig().getPlacement().inHeader();
+		if (emitter != null) {
+			emitter.writeDeclaration();
+			emitter.writeRaw(Utf8XmlEmitter.startTag(rootElement));
+			if (headerTotals) {
+				emitter.flush();
+				writePatchableHeader(renderHeaderPatch());
+			}
+			emitter.writeAscii("<records>");
+			emitter.flush();
+			return;
+		}
 		xmlStreamWriter.writeStartDocument("UTF-8", "1.0");
 		xmlStreamWriter.writeStartElement(rootElement);
+		if (headerTotals) {
+			// Close the root start tag before raw bytes follow
+			xmlStreamWriter.writeCharacters("");
+			xmlStreamWriter.flush();
+			writePatchableHeader(renderHeaderPatch());
+		}
 		xmlStreamWriter.writeStartElement("records");
 		xmlStreamWriter.flush(); //
 	}
 
+	/**
+	 * The header's totals element; its zero-padded values keep the same length from placeholder to final.
+	 */
+	@Override
+	protected byte[] renderHeaderPatch() {
+		return controlTotalsElement(controlTotals.paddedValues(getPartRecordCount())).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static String controlTotalsElement(Map<String, ?> values) {
+		StringBuilder sb = new StringBuilder("<controlTotals>");
+		for (Map.Entry<String, ?> entry : values.entrySet()) {
+			String name = entry.getKey();
+			Object value = entry.getValue();
+			String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : String.valueOf(value);
+			if (name.startsWith(ControlTotals.SUM_PREFIX)) {
+				appendTotal(sb, "sum", name.substring(ControlTotals.SUM_PREFIX.length()), text);
+			} else if (name.startsWith(ControlTotals.HASH_PREFIX)) {
+				appendTotal(sb, "hash", name.substring(ControlTotals.HASH_PREFIX.length()), text);
+			} else {
+				sb.append('<').append(name).append('>').append(text).append("</").append(name).append('>');
+			}
+		}
+		return sb.append("</controlTotals>").toString();
+	}
+
+	private static void appendTotal(StringBuilder sb, String element, String column, String text) {
+		sb.append('<').append(element).append(" column=\"").append(column).append("\">").append(text).append("</").append(element).append('>');
+	}
+
 	@Override
 	protected void writeFooter() throws Exception {
+		if (emitter != null) {
+			emitter.writeAscii("</records><totalRecords>");
+			emitter.writeLong(getPartRecordCount());
+			emitter.writeAscii("</totalRecords>");
+			if (trailerTotals()) {
+				emitter.writeUtf8(controlTotalsElement(getControlTotalValues()));
+			}
+			emitter.writeRaw(Utf8XmlEmitter.endTag(rootElement));
+			emitter.flush();
+			return;
+		}
 		xmlStreamWriter.writeEndElement(); // close "records"
 		xmlStreamWriter.writeStartElement("totalRecords");
-		xmlStreamWriter.writeCharacters(String.valueOf(recordCount));
+		xmlStreamWriter.writeCharacters(String.valueOf(getPartRecordCount()));
 		xmlStreamWriter.writeEndElement();
+		if (trailerTotals()) {
+			xmlStreamWriter.flush();
+			bufferedOutputStream.write(controlTotalsElement(getControlTotalValues()).getBytes(StandardCharsets.UTF_8));
+		}
 		xmlStreamWriter.writeEndElement(); // close root element
 		xmlStreamWriter.writeEndDocument();
 		xmlStreamWriter.flush(); //
 	}
 
+	private boolean trailerTotals() {
+		return controlTotals != null && getControlTotalsConfig().getPlacement().inTrailer();
+	}
+
 	@Override
 	public void close() {
 		try {
-			if (xmlStreamWriter != null) {
-				if (stepSuccessful) {
+			if (emitter != null) {
+				if (stepSuccessful && !segment) {
+					writeFooter();
+					patchHeader();
+				}
+				emitter.flush();
+			} else if (xmlStreamWriter != null) {
+				if (stepSuccessful && !segment) {
 					writeFooter(); //
+					patchHeader();
 				}
 				xmlStreamWriter.close();
 			}
 		} catch (Exception e) {
-			logger.error("Error closing XML stream for {}", interfaceType, e);
+			throw unfinished("Failed to finish XML output of " + interfaceType, e);
 		} finally {
 			super.closeQuietly(); //
 		}
 	}
-
-	private String sanitizeElementName(String name) {
-		if (name == null || name.trim().isEmpty()) return "field";
-		String sanitized = name.replaceAll("[^a-zA-Z0-9_]", "_");
-		if (Character.isDigit(sanitized.charAt(0))) {
-			return "_" + sanitized;
-		}
-		return sanitized; //
-	}
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Single-threaded {@link GzipMemberOutputStream}: one Deflater, reused for every member.
+ */
+final class GzipBlockOutputStream extends GzipMemberOutputStream {
+	private final Deflater deflater;
+	private final byte[] buffer;
+
+	GzipBlockOutputStream(OutputStream out, int level, int bufferSize) {
+		super(out);
+		this.deflater = new Deflater(level, true);
+		this.buffer = new byte[Math.max(bufferSize, 512)];
+	}
+
+	@Override
+	protected void compress(byte[] b, int off, int len) throws IOException {
+		deflater.setInput(b, off, len);
+		while (!deflater.needsInput()) {
+			deflate();
+		}
+	}
+
+	@Override
+	protected void finishDeflate() throws IOException {
+		deflater.finish();
+		while (!deflater.finished()) {
+			deflate();
+		}
+		deflater.reset();
+	}
+
+	private void deflate() throws IOException {
+		int n = deflater.deflate(buffer, 0, buffer.length);
+		if (n > 0) {
+			out.write(buffer, 0, n);
+		}
+	}
+
+	@Override
+	protected void release() {
+		deflater.end();
+	}
+}
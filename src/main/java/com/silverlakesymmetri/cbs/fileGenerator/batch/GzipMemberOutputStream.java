@@ -0,0 +1,113 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output written as a sequence of independent members (RFC 1952 allows concatenation;
+ * gunzip, zcat and GZIPInputStream read them as one stream).
+ * <p>
+ * {@link #finishBlock()} ends the current member, so the bytes written so far are a complete
+ * gzip file: truncating the output there (restart) or appending other members after it
+ * (segment merge) keeps it valid. The next write starts a new member.
+ */
+abstract class GzipMemberOutputStream extends OutputStream {
+	private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+	protected final OutputStream out;
+	// Of the uncompressed bytes of the current member
+	protected final CRC32 crc = new CRC32();
+	protected long memberBytes;
+	private boolean inMember;
+	private boolean closed;
+
+	GzipMemberOutputStream(OutputStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[]{(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (len == 0) {
+			return;
+		}
+		if (!inMember) {
+			out.write(HEADER);
+			inMember = true;
+		}
+		crc.update(b, off, len);
+		memberBytes += len;
+		compress(b, off, len);
+	}
+
+	/**
+	 * Ends the current member, if any data was written since the last one.
+	 */
+	void finishBlock() throws IOException {
+		if (!inMember) {
+			return;
+		}
+		finishDeflate();
+		byte[] trailer = new byte[8];
+		putInt(trailer, 0, (int) crc.getValue());
+		putInt(trailer, 4, (int) memberBytes);
+		out.write(trailer);
+		crc.reset();
+		memberBytes = 0;
+		inMember = false;
+	}
+
+	/**
+	 * Deflates the bytes of the current member; output may be written now or by {@link #finishDeflate()}.
+	 */
+	protected abstract void compress(byte[] b, int off, int len) throws IOException;
+
+	/**
+	 * Writes the rest of the member's deflate stream, ending with its final block.
+	 */
+	protected abstract void finishDeflate() throws IOException;
+
+	/**
+	 * Releases compression resources once the stream is done.
+	 */
+	protected abstract void release();
+
+	private static void putInt(byte[] b, int offset, int value) {
+		b[offset] = (byte) value;
+		b[offset + 1] = (byte) (value >>> 8);
+		b[offset + 2] = (byte) (value >>> 16);
+		b[offset + 3] = (byte) (value >>> 24);
+	}
+
+	/**
+	 * Flushes what is already compressed; pending input stays in the compressor until the block ends.
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			finishBlock();
+			out.flush();
+		} finally {
+			closed = true;
+			release();
+			out.close();
+		}
+	}
+}
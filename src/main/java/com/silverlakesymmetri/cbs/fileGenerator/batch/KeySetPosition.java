@@ -0,0 +1,166 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.NonTransientResourceException;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Ordered keyset (one or more columns) used by DynamicItemReader for paging and restart.
+ * <p>
+ * A single column binds ':lastId' (unchanged from earlier releases). Composite keys bind
+ * ':lastId_1' ... ':lastId_N' in configuration order, for a row-value comparison such as
+ * {@code (BRANCH_CODE, ACCOUNT_NO, SEQ) > (:lastId_1, :lastId_2, :lastId_3)}.
+ * <p>
+ * Key values are kept as strings, numbers in plain BigDecimal notation so DECIMAL keys
+ * are never truncated, and re-typed from the column type when bound.
+ */
+final class KeySetPosition {
+	static final String SINGLE_PARAM = "lastId";
+	static final String CONTEXT_KEY_LAST_ID = "dynamic.reader.lastProcessedId";
+	static final String CONTEXT_KEY_LAST_ID_NUMERIC = "dynamic.reader.lastProcessedIdNumeric";
+
+	private final List<String> columns;
+	private final boolean[] numeric;
+	private int[] indexes;
+
+	KeySetPosition(List<String> columns) {
+		if (columns == null || columns.isEmpty()) {
+			throw new IllegalArgumentException("At least one keyset column is required");
+		}
+		this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+		this.numeric = new boolean[columns.size()];
+	}
+
+	List<String> getColumns() {
+		return columns;
+	}
+
+	int size() {
+		return columns.size();
+	}
+
+	String paramName(int i) {
+		return columns.size() == 1 ? SINGLE_PARAM : SINGLE_PARAM + "_" + (i + 1);
+	}
+
+	/**
+	 * Resolves column positions and types from the first row's schema.
+	 */
+	void resolve(RecordSchema schema) {
+		int[] resolved = new int[columns.size()];
+		for (int i = 0; i < resolved.length; i++) {
+			int idx = schema.getIndex(columns.get(i));
+			if (idx == -1) {
+				throw new IllegalStateException("KeySet column '" + columns.get(i) + "' not found in SQL results.");
+			}
+			resolved[i] = idx;
+			numeric[i] = schema.getType(idx).isNumeric();
+		}
+		this.indexes = resolved;
+	}
+
+	boolean isResolved() {
+		return indexes != null;
+	}
+
+	int index(int i) {
+		return indexes[i];
+	}
+
+	boolean isNumeric(int i) {
+		return numeric[i];
+	}
+
+	/**
+	 * Reads the key of one row. {@code valueAt} maps a schema column index to the row value.
+	 */
+	String[] capture(IntFunction<Object> valueAt) {
+		String[] key = new String[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			key[i] = toKeyString(valueAt.apply(indexes[i]));
+			if (key[i] == null) {
+				// A NULL key would rebind as "first page" and loop forever
+				throw new NonTransientResourceException("KeySet column '" + columns.get(i) + "' is NULL; keyset columns must be NOT NULL");
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * Bind values for the given key, or NULLs for the first page.
+	 */
+	Map<String, Object> parameters(String[] key) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		for (int i = 0; i < columns.size(); i++) {
+			Object value = null;
+			if (key != null) {
+				value = key[i];
+				if (numeric[i]) {
+					try {
+						value = new BigDecimal(key[i]);
+					} catch (NumberFormatException e) {
+						throw new NonTransientResourceException("Invalid numeric lastProcessedId=" + key[i], e);
+					}
+				}
+			}
+			params.put(paramName(i), value);
+		}
+		return params;
+	}
+
+	/**
+	 * The first component keeps the original context key, so restarts of executions
+	 * checkpointed by a single-column reader still resume.
+	 */
+	void save(ExecutionContext context, String[] key) {
+		if (key == null) {
+			return;
+		}
+		StringBuilder flags = new StringBuilder();
+		for (int i = 0; i < key.length; i++) {
+			context.putString(contextKey(i), key[i]);
+			flags.append(i > 0 ? "," : "").append(numeric[i]);
+		}
+		context.putString(CONTEXT_KEY_LAST_ID_NUMERIC, flags.toString());
+	}
+
+	String[] restore(ExecutionContext context) {
+		if (!context.containsKey(CONTEXT_KEY_LAST_ID)) {
+			return null;
+		}
+		String[] key = new String[columns.size()];
+		for (int i = 0; i < key.length; i++) {
+			if (!context.containsKey(contextKey(i))) {
+				throw new IllegalStateException("Checkpoint has no value for keyset column '" + columns.get(i) +
+						"'; keySetColumns changed since the failed run");
+			}
+			key[i] = toKeyString(context.get(contextKey(i)));
+		}
+		// The schema is unknown until the first row, but the first query already binds the key
+		String[] flags = context.getString(CONTEXT_KEY_LAST_ID_NUMERIC, "").split(",");
+		for (int i = 0; i < key.length && i < flags.length; i++) {
+			numeric[i] = Boolean.parseBoolean(flags[i].trim());
+		}
+		return key;
+	}
+
+	static String format(String[] key) {
+		return key == null ? null : String.join(",", key);
+	}
+
+	private static String contextKey(int i) {
+		return i == 0 ? CONTEXT_KEY_LAST_ID : CONTEXT_KEY_LAST_ID + "_" + (i + 1);
+	}
+
+	private static String toKeyString(Object value) {
+		if (value == null) return null;
+		if (value instanceof BigDecimal) return ((BigDecimal) value).toPlainString();
+		if (value instanceof Number) return new BigDecimal(value.toString()).toPlainString();
+		String s = value.toString().trim();
+		return s.isEmpty() ? null : s;
+	}
+}
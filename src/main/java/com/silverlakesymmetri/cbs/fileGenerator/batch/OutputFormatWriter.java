@@ -1,20 +1,67 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.ControlTotalsConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.OutputValidation;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemStreamWriter;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 /**
  * Interface for pluggable output format writers.
  * Supports multiple formats: XML, CSV, Fixed-Length, Delimited, etc.
  */
 public interface OutputFormatWriter extends ItemStreamWriter<DynamicRecord> {
 
+	/**
+	 * Compress the output in independently decodable blocks on the given number of threads; set before open()
+	 */
+	void setCompression(InterfaceConfig.Compression compression, int level, int threads);
+
+	/**
+	 * Split the output into numbered part files of at most this many bytes / records (0 = unlimited); set before open()
+	 */
+	void setRollingLimits(long maxFileBytes, long maxRecordsPerFile);
+
+	/**
+	 * Called before each chunk is written; starts the next part file if the chunk would exceed a rolling limit
+	 */
+	void rollIfNeeded(int chunkSize) throws Exception;
+
+	/**
+	 * Accumulate control totals (count, sums, hash totals) for the header/footer while writing; null for none; set before init()
+	 */
+	void setControlTotals(ControlTotalsConfig controlTotals);
+
+	/**
+	 * Validate XML output against this XSD while writing, so the validation step need not parse the file again; null for none; set before init()
+	 */
+	void setInlineXsdSchema(String xsdSchemaFile);
+
+	/**
+	 * Check the output with these validators while writing; called for every file started; null for none; set before open()
+	 */
+	void setOutputValidation(Supplier<OutputValidation> outputValidation);
+
 	/**
 	 * Initialize writer with output file path and configuration
 	 */
 	void init(String outputFilePath, String interfaceType) throws Exception;
 
+	/**
+	 * Initialize writer for one partition segment (records only, no header/footer)
+	 */
+	void initSegment(String segmentFilePath, String interfaceType) throws Exception;
+
+	/**
+	 * Write header, the given segments in order, and footer into the output file;
+	 * segmentTotals are the segments' encoded control totals added up
+	 */
+	void mergeSegments(List<String> segmentFilePaths, long totalRecords, String segmentTotals) throws Exception;
+
 	/**
 	 * Close and finalize output file
 	 */
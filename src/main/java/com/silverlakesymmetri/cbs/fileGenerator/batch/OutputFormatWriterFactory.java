@@ -2,13 +2,18 @@ package com.silverlakesymmetri.cbs.fileGenerator.batch;
 
 import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
 import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.OutputValidation;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.OutputValidatorProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
+
 @Component
 public class OutputFormatWriterFactory {
 	private static final Logger logger = LoggerFactory.getLogger(OutputFormatWriterFactory.class);
@@ -16,6 +21,13 @@ public class OutputFormatWriterFactory {
 	private final InterfaceConfigLoader interfaceConfigLoader;
 	private final ApplicationContext applicationContext;
 
+	// Shard files a sharded writer keeps open at once
+	@Value("${file.generation.shard.max-open-files:64}")
+	private int maxOpenShards;
+
+	@Autowired(required = false)
+	private List<OutputValidatorProvider> outputValidatorProviders;
+
 	@Autowired
 	public OutputFormatWriterFactory(
 			InterfaceConfigLoader interfaceConfigLoader,
@@ -36,33 +48,55 @@ public class OutputFormatWriterFactory {
 		logger.info("Interface: {} | Format: {} | Writer: {}",
 				interfaceType, config.getOutputFormat(), writerClass.getSimpleName());
 
-		try {
-			return applicationContext.getBean(writerClass);
-		} catch (Exception e) {
-			logger.error("Failed to instantiate {}. Falling back to XML.", writerClass.getName(), e);
-			return applicationContext.getBean(GenericXMLWriter.class);
+		OutputFormatWriter writer;
+		if (config.isSharded()) {
+			// A step holds one instance of a step-scoped writer; every shard needs its own
+			writer = new ShardedOutputWriter(config.getShardColumn().trim(), maxOpenShards,
+					() -> applicationContext.getAutowireCapableBeanFactory().createBean(writerClass));
+		} else {
+			try {
+				writer = applicationContext.getBean(writerClass);
+			} catch (Exception e) {
+				logger.error("Failed to instantiate {}. Falling back to XML.", writerClass.getName(), e);
+				writer = applicationContext.getBean(GenericXMLWriter.class);
+			}
 		}
+		writer.setCompression(config.getCompression(), config.getCompressionLevel(), config.getCompressionThreads());
+		writer.setRollingLimits(config.getMaxFileBytes(), config.getMaxRecordsPerFile());
+		writer.setControlTotals(config.getControlTotals());
+		writer.setInlineXsdSchema(config.getXsdSchemaFile());
+		writer.setOutputValidation(config.getOutputValidation() != null
+				? () -> OutputValidation.create(outputValidatorProviders, config) : null);
+		return writer;
 	}
 
 	private Class<? extends OutputFormatWriter> determineWriterClass(InterfaceConfig config) {
 		String format = config.getOutputFormat().name();
 
-		// 1. Explicit JSON Check
-		if ("JSON".equalsIgnoreCase(format)) {
+		// 1. Explicit JSON Check (pretty, compact array or newline-delimited)
+		if (GenericJSONWriter.isJsonFormat(config.getOutputFormat())) {
 			return GenericJSONWriter.class;
 		}
 
-		// 2. Explicit XML Check
+		// 2. Native delimited / fixed-width writers
+		if (config.getOutputFormat() == InterfaceConfig.OutputFormat.DELIMITED) {
+			return GenericDelimitedWriter.class;
+		}
+		if (config.getOutputFormat() == InterfaceConfig.OutputFormat.FIXED_WIDTH) {
+			return GenericFixedWidthWriter.class;
+		}
+
+		// 3. Explicit XML Check
 		if ("XML".equalsIgnoreCase(format)) {
 			return GenericXMLWriter.class;
 		}
 
-		// 3. BeanIO Fallback (CSV/Fixed-Length)
+		// 4. BeanIO Fallback (CSV/Fixed-Length)
 		if (StringUtils.hasText(config.getBeanIoMappingFile())) {
 			return GenericBeanIOWriter.class;
 		}
 
-		// 4. Ultimate Fallback
+		// 5. Ultimate Fallback
 		return GenericXMLWriter.class;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.MdcTaskDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.NonTransientResourceException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+
+/**
+ * Fetches pages on a background thread while the step consumes earlier ones.
+ * <p>
+ * At most {@code maxPages} fetched pages wait in the queue, so heap usage is bounded to
+ * maxPages + 2 pages (queued + the one being handed out + the one being fetched).
+ * The page source keeps its own keyset cursor; the consumer's checkpoint is unaffected.
+ * An empty page marks the end of the data.
+ */
+class PagePrefetcher<T> {
+	private static final Logger logger = LoggerFactory.getLogger(PagePrefetcher.class);
+
+	private final BlockingQueue<Page<T>> queue;
+	private final Callable<List<T>> pageSource;
+	private final Thread thread;
+	private volatile boolean stopped = false;
+
+	PagePrefetcher(String name, int maxPages, Callable<List<T>> pageSource) {
+		if (maxPages <= 0) {
+			throw new IllegalArgumentException("maxPages must be > 0");
+		}
+		this.queue = new ArrayBlockingQueue<>(maxPages);
+		this.pageSource = pageSource;
+		this.thread = new Thread(new MdcTaskDecorator().decorate(this::produce), name);
+		this.thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	/**
+	 * Blocks until the next page is available. Returns an empty list once the source is exhausted.
+	 */
+	List<T> nextPage() {
+		Page<T> page;
+		long start = System.nanoTime();
+		try {
+			page = queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new NonTransientResourceException("Interrupted while waiting for prefetched page", e);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Waited {} ms for prefetched page ({} queued)", (System.nanoTime() - start) / 1_000_000, queue.size());
+		}
+		if (page.error != null) {
+			throw new NonTransientResourceException("Background page fetch failed", page.error);
+		}
+		return page.rows;
+	}
+
+	void close() {
+		stopped = true;
+		thread.interrupt();
+		queue.clear();
+	}
+
+	private void produce() {
+		try {
+			while (!stopped) {
+				List<T> rows = pageSource.call();
+				boolean last = rows == null || rows.isEmpty();
+				queue.put(new Page<>(last ? Collections.<T>emptyList() : rows, null));
+				if (last) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			if (stopped) {
+				return;
+			}
+			logger.error("Background page fetch failed", e);
+			try {
+				queue.put(new Page<>(Collections.<T>emptyList(), e));
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static final class Page<T> {
+		private final List<T> rows;
+		private final Exception error;
+
+		private Page(List<T> rows, Exception error) {
+			this.rows = rows;
+			this.error = error;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * pigz-style {@link GzipMemberOutputStream}: the bytes of a member are cut into fixed-size blocks
+ * deflated concurrently, each primed with the last 32 KiB of the block before it, and written
+ * back in order as one deflate stream. Every block but the member's last ends with a sync flush,
+ * so the pieces concatenate byte-aligned; the last one carries the final-block bit.
+ * <p>
+ * The CRC is computed on the caller's thread and the caller writes all output, so the byte
+ * tracker below sees one ordered stream and checkpoint offsets fall on member boundaries as with
+ * {@link GzipBlockOutputStream}. At most {@code maxInFlight} blocks are queued or compressing;
+ * past that the caller waits for the oldest.
+ */
+final class ParallelGzipOutputStream extends GzipMemberOutputStream {
+	private static final int WINDOW = 32 * 1024;
+	private static final int MIN_BLOCK_SIZE = 2 * WINDOW;
+
+	private final int level;
+	private final int blockSize;
+	private final int maxInFlight;
+	private final ThreadPoolTaskExecutor executor;
+	private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+	private byte[] block;
+	private int position;
+	// Last WINDOW bytes of the previous block of this member; null at a member's start
+	private byte[] dictionary;
+
+	ParallelGzipOutputStream(OutputStream out, int level, int threads, int blockSize, int maxInFlight, String threadNamePrefix) {
+		super(out);
+		this.level = level;
+		this.blockSize = Math.max(blockSize, MIN_BLOCK_SIZE);
+		this.maxInFlight = Math.max(maxInFlight, threads);
+		this.block = new byte[this.blockSize];
+		this.executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setThreadNamePrefix(threadNamePrefix);
+		executor.initialize();
+	}
+
+	@Override
+	protected void compress(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int n = Math.min(len, blockSize - position);
+			System.arraycopy(b, off, block, position, n);
+			position += n;
+			off += n;
+			len -= n;
+			if (position == blockSize) {
+				submit(false);
+			}
+		}
+	}
+
+	@Override
+	protected void finishDeflate() throws IOException {
+		submit(true);
+		while (!inFlight.isEmpty()) {
+			writeOldest();
+		}
+		dictionary = null;
+	}
+
+	private void submit(boolean last) throws IOException {
+		byte[] input = block;
+		int length = position;
+		byte[] primer = dictionary;
+		inFlight.add(executor.submit(() -> deflate(input, length, primer, last)));
+
+		dictionary = last ? null : Arrays.copyOfRange(input, length - WINDOW, length);
+		block = new byte[blockSize];
+		position = 0;
+		while (inFlight.size() >= maxInFlight) {
+			writeOldest();
+		}
+	}
+
+	private byte[] deflate(byte[] input, int length, byte[] primer, boolean last) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			if (primer != null) {
+				deflater.setDictionary(primer);
+			}
+			deflater.setInput(input, 0, length);
+			byte[] output = new byte[length + (length >> 3) + 64];
+			int size = 0;
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					if (size == output.length) {
+						output = Arrays.copyOf(output, output.length * 2);
+					}
+					size += deflater.deflate(output, size, output.length - size);
+				}
+			} else {
+				// Until the output buffer is left with room, the flush has not completed
+				do {
+					if (size == output.length) {
+						output = Arrays.copyOf(output, output.length * 2);
+					}
+					size += deflater.deflate(output, size, output.length - size, Deflater.SYNC_FLUSH);
+				} while (size == output.length);
+			}
+			return Arrays.copyOf(output, size);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeOldest() throws IOException {
+		Future<byte[]> oldest = inFlight.poll();
+		try {
+			out.write(oldest.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a compressed block");
+		} catch (ExecutionException e) {
+			throw new IOException("Block compression failed", e.getCause());
+		}
+	}
+
+	@Override
+	protected void release() {
+		for (Future<byte[]> future : inFlight) {
+			future.cancel(true);
+		}
+		inFlight.clear();
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,147 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.MdcTaskDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the delegate processor on a bounded worker pool while the chunk is still being read.
+ * <p>
+ * Each item is submitted from {@code afterRead}; {@code process} is still called by the step
+ * for every item in order and only waits for that item's result, so the writer receives items
+ * in their original order. Exceptions are rethrown from {@code process} unchanged, which keeps
+ * skip/retry handling and the step's process-skip counts exactly as in serial mode. Items processed
+ * again on retry or after a rollback (no pending result) run inline.
+ * <p>
+ * The pool size is the interface's 'processingThreads'; with 1 (the default) everything runs
+ * inline and no pool is created. The delegate must be thread-safe.
+ * Register as ItemReadListener, ChunkListener and StepExecutionListener on the step.
+ */
+public class ParallelItemProcessor<I, O> implements ItemProcessor<I, O>, ItemReadListener<I>,
+		ChunkListener, StepExecutionListener {
+	private static final Logger logger = LoggerFactory.getLogger(ParallelItemProcessor.class);
+
+	private final ItemProcessor<I, O> delegate;
+	private final InterfaceConfigLoader interfaceConfigLoader;
+
+	// Pending results of the current chunk, by item identity (records compare by content)
+	private final Map<I, Future<O>> pending = new IdentityHashMap<>();
+	private ThreadPoolTaskExecutor executor;
+	private StepExecution stepExecution;
+
+	public ParallelItemProcessor(ItemProcessor<I, O> delegate, InterfaceConfigLoader interfaceConfigLoader) {
+		this.delegate = delegate;
+		this.interfaceConfigLoader = interfaceConfigLoader;
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		this.stepExecution = stepExecution;
+		String interfaceType = stepExecution.getJobParameters().getString("interfaceType");
+		int threads = interfaceType == null ? 1 : interfaceConfigLoader.getConfig(interfaceType).getProcessingThreads();
+		if (threads > 1) {
+			executor = new ThreadPoolTaskExecutor();
+			executor.setCorePoolSize(threads);
+			executor.setMaxPoolSize(threads);
+			executor.setThreadNamePrefix("process-" + stepExecution.getStepName() + "-");
+			executor.setTaskDecorator(new MdcTaskDecorator());
+			executor.initialize();
+			logger.info("Parallel processing enabled for step [{}] with {} threads", stepExecution.getStepName(), threads);
+		}
+	}
+
+	@Override
+	public void afterRead(I item) {
+		if (executor == null || item == null) {
+			return;
+		}
+		pending.put(item, executor.submit(() -> {
+			// Step-scoped delegates resolve their target through the submitting step's context
+			StepSynchronizationManager.register(stepExecution);
+			try {
+				return delegate.process(item);
+			} finally {
+				// close(), not release(): release() would run the step's destruction callbacks after every item
+				StepSynchronizationManager.close();
+			}
+		}));
+	}
+
+	@Override
+	public O process(I item) throws Exception {
+		Future<O> future = executor == null ? null : pending.remove(item);
+		if (future == null) {
+			return delegate.process(item);
+		}
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw (Error) cause;
+		}
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		discardPending();
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+		discardPending();
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		discardPending();
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		return null;
+	}
+
+	@Override
+	public void beforeRead() {
+	}
+
+	@Override
+	public void onReadError(Exception ex) {
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+	}
+
+	/**
+	 * Results the step never asked for (chunk failed or was rolled back) are dropped;
+	 * the items will be read or processed again.
+	 */
+	private void discardPending() {
+		if (!pending.isEmpty()) {
+			pending.values().forEach(future -> future.cancel(true));
+			pending.clear();
+		}
+	}
+}
@@ -0,0 +1,412 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.ControlTotalsConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.OutputFilePart;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.OutputValidation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_INCOMPLETE;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_PARTS;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_XSD_VALIDATED_INLINE;
+
+/**
+ * Value-based sharding: each record goes to {@code name_<value>.ext} by its shard column, so one scan
+ * writes one file per distinct value. Every shard is a complete file (header, records, footer) written
+ * by its own instance of the interface's format writer.
+ * <p>
+ * At most {@code maxOpenShards} shard writers hold a file open. To open another, the least recently
+ * written one is checkpointed and closed; when it is needed again it is reopened through the writers'
+ * restart path (truncate to its checkpoint, no second header). The checkpoint of every shard is kept in
+ * the step context under {@code dynamic.shard.<name>/}, so a restarted step resumes each shard where the
+ * last committed chunk left it.
+ * <p>
+ * Values are made file-name safe (anything but letters, digits, '.', '-' and '_' becomes '_'). A value
+ * that had to be changed, or that reads like the NULL/EMPTY shards, also gets a hash of its raw text
+ * ({@code A/1} becomes {@code A_1_<crc32>}), so distinct values never share a file. Two values whose
+ * names differ only in case would still share one on a case-insensitive filesystem; the step fails
+ * instead of mixing them.
+ */
+class ShardedOutputWriter implements OutputFormatWriter, StepExecutionListener {
+	private static final Logger logger = LoggerFactory.getLogger(ShardedOutputWriter.class);
+	private static final String CONTEXT_PREFIX = "dynamic.shard.";
+	private static final char CONTEXT_SEPARATOR = '/';
+	// Kept next to the writer's own keys, so a restored shard's count is known before it is reopened
+	private static final String RECORD_COUNT_KEY = "shard.recordCount";
+	// The raw value behind the shard's name, so a restarted step still detects names that collide
+	private static final String SHARD_VALUE_KEY = "shard.value";
+	private static final String NULL_VALUE = "(null)";
+	private static final String NULL_SHARD = "NULL";
+	private static final String EMPTY_SHARD = "EMPTY";
+
+	private final String shardColumn;
+	private final int maxOpenShards;
+	private final Supplier<OutputFormatWriter> writerSupplier;
+
+	private InterfaceConfig.Compression compression;
+	private int compressionLevel;
+	private int compressionThreads;
+	private ControlTotalsConfig controlTotals;
+
+	// Every shard of this step by name, open or not
+	private final Map<String, Shard> shards = new TreeMap<>();
+	// Raw value of every shard by lower-cased name
+	private final Map<String, String> shardValues = new HashMap<>();
+	// Open shards, least recently written first
+	private final LinkedHashMap<String, Shard> openShards = new LinkedHashMap<>(16, 0.75f, true);
+
+	private String outputFilePath;
+	private String interfaceType;
+	private boolean stepSuccessful = false;
+	private ExecutionContext jobContext;
+
+	// Shard column position in the last schema seen
+	private RecordSchema shardSchema;
+	private int shardIndex;
+
+	ShardedOutputWriter(String shardColumn, int maxOpenShards, Supplier<OutputFormatWriter> writerSupplier) {
+		this.shardColumn = shardColumn;
+		this.maxOpenShards = Math.max(maxOpenShards, 1);
+		this.writerSupplier = writerSupplier;
+	}
+
+	@Override
+	public void setCompression(InterfaceConfig.Compression compression, int level, int threads) {
+		this.compression = compression;
+		this.compressionLevel = level;
+		this.compressionThreads = threads;
+	}
+
+	/**
+	 * Each shard file gets its own totals.
+	 */
+	@Override
+	public void setControlTotals(ControlTotalsConfig controlTotals) {
+		this.controlTotals = controlTotals;
+	}
+
+	/**
+	 * Not done inline: every shard is a document of its own. The validation step checks each shard file
+	 * listed under FILE_GEN_OUTPUT_PARTS.
+	 */
+	@Override
+	public void setInlineXsdSchema(String xsdSchemaFile) {
+	}
+
+	@Override
+	public void setOutputValidation(Supplier<OutputValidation> outputValidation) {
+		if (outputValidation != null) {
+			throw new IllegalStateException("Sharded output of " + interfaceType + " cannot be validated while written");
+		}
+	}
+
+	@Override
+	public void setRollingLimits(long maxFileBytes, long maxRecordsPerFile) {
+		if (maxFileBytes > 0 || maxRecordsPerFile > 0) {
+			throw new IllegalStateException("Sharded output of " + interfaceType + " cannot be rolled");
+		}
+	}
+
+	@Override
+	public void rollIfNeeded(int chunkSize) {
+		// Shards are never rolled
+	}
+
+	@Override
+	public void init(String outputFilePath, String interfaceType) {
+		this.outputFilePath = outputFilePath.trim();
+		this.interfaceType = interfaceType.trim();
+	}
+
+	@Override
+	public void initSegment(String segmentFilePath, String interfaceType) {
+		throw new IllegalStateException("Sharded output of " + interfaceType + " cannot be partitioned");
+	}
+
+	@Override
+	public void mergeSegments(List<String> segmentFilePaths, long totalRecords, String segmentTotals) {
+		throw new IllegalStateException("Sharded output of " + interfaceType + " cannot be partitioned");
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		shards.clear();
+		openShards.clear();
+		shardValues.clear();
+		for (Map.Entry<String, Object> entry : executionContext.entrySet()) {
+			String key = entry.getKey();
+			int separator = key.indexOf(CONTEXT_SEPARATOR, CONTEXT_PREFIX.length());
+			if (key.startsWith(CONTEXT_PREFIX) && separator > 0) {
+				String name = key.substring(CONTEXT_PREFIX.length(), separator);
+				shards.computeIfAbsent(name, Shard::new).context.put(key.substring(separator + 1), entry.getValue());
+			}
+		}
+		for (Shard shard : shards.values()) {
+			shard.recordCount = shard.context.getLong(RECORD_COUNT_KEY, 0L);
+			if (shard.context.containsKey(SHARD_VALUE_KEY)) {
+				shardValues.put(shard.name.toLowerCase(Locale.ROOT), shard.context.getString(SHARD_VALUE_KEY));
+			}
+		}
+		if (!shards.isEmpty()) {
+			logger.info("Restart detected. Resuming {} shards of [{}]", shards.size(), interfaceType);
+		}
+	}
+
+	@Override
+	public void write(List<? extends DynamicRecord> items) throws Exception {
+		// One write per shard per chunk, records in chunk order
+		Map<String, List<DynamicRecord>> byShard = new LinkedHashMap<>();
+		for (DynamicRecord record : items) {
+			if (record != null) {
+				byShard.computeIfAbsent(shardName(record), k -> new ArrayList<>()).add(record);
+			}
+		}
+		for (Map.Entry<String, List<DynamicRecord>> entry : byShard.entrySet()) {
+			Shard shard = openShard(entry.getKey());
+			shard.writer.write(entry.getValue());
+			shard.recordCount = shard.writer.getRecordCount();
+		}
+	}
+
+	private String shardName(DynamicRecord record) {
+		RecordSchema schema = record.getSchema();
+		if (schema != shardSchema) {
+			shardIndex = schema.getIndex(shardColumn);
+			if (shardIndex == -1) {
+				throw new IllegalStateException("Shard column '" + shardColumn + "' of " + interfaceType +
+						" is not in the SQL results " + schema.getKeySet());
+			}
+			shardSchema = schema;
+		}
+		Object value = record.getValue(shardIndex);
+		if (value == null) {
+			return claim(NULL_SHARD, NULL_VALUE);
+		}
+		String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString().trim();
+		if (text.isEmpty()) {
+			return claim(EMPTY_SHARD, text);
+		}
+		StringBuilder name = new StringBuilder(text.length() + 9);
+		boolean changed = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			boolean safe = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+					|| c == '.' || c == '-' || c == '_';
+			name.append(safe ? c : '_');
+			changed |= !safe;
+		}
+		if (changed || text.equalsIgnoreCase(NULL_SHARD) || text.equalsIgnoreCase(EMPTY_SHARD)) {
+			CRC32 crc = new CRC32();
+			crc.update(text.getBytes(StandardCharsets.UTF_8));
+			name.append('_').append(String.format("%08x", crc.getValue()));
+		}
+		return claim(name.toString(), text);
+	}
+
+	/**
+	 * Records the raw value behind a shard name; fails when another value already has the name,
+	 * ignoring case (the files would be one on a case-insensitive filesystem).
+	 */
+	private String claim(String name, String value) {
+		String claimed = shardValues.putIfAbsent(name.toLowerCase(Locale.ROOT), value);
+		if (claimed != null && !claimed.equals(value)) {
+			throw new IllegalStateException("Shard values '" + claimed + "' and '" + value + "' of " + interfaceType +
+					" would share the file of shard " + name + "; shard column '" + shardColumn +
+					"' must not have values that differ only in case");
+		}
+		return name;
+	}
+
+	private Shard openShard(String name) throws Exception {
+		Shard shard = openShards.get(name);
+		if (shard != null) {
+			return shard;
+		}
+		if (openShards.size() >= maxOpenShards) {
+			Iterator<Shard> eldest = openShards.values().iterator();
+			Shard evicted = eldest.next();
+			eldest.remove();
+			closeShard(evicted);
+		}
+		shard = shards.computeIfAbsent(name, Shard::new);
+		shard.context.putString(SHARD_VALUE_KEY, shardValues.get(name.toLowerCase(Locale.ROOT)));
+		shard.writer = writerSupplier.get();
+		shard.writer.setCompression(compression, compressionLevel, compressionThreads);
+		shard.writer.setControlTotals(controlTotals);
+		shard.writer.init(shardFilePath(name), interfaceType);
+		if (shard.digest != null) {
+			((AbstractBaseOutputWriter<?>) shard.writer).carryDigest(shard.digest, shard.digestLength);
+		}
+		// A shard with a checkpoint resumes at it; a new one starts an empty file
+		shard.writer.open(shard.context);
+		openShards.put(name, shard);
+		return shard;
+	}
+
+	private void checkpoint(Shard shard) {
+		shard.writer.update(shard.context);
+		shard.recordCount = shard.writer.getRecordCount();
+		shard.context.putLong(RECORD_COUNT_KEY, shard.recordCount);
+	}
+
+	/**
+	 * Checkpoints the shard and releases its file; after a completed step its close() also writes the footer.
+	 */
+	private void closeShard(Shard shard) {
+		try {
+			checkpoint(shard);
+			if (shard.writer instanceof AbstractBaseOutputWriter) {
+				((AbstractBaseOutputWriter<?>) shard.writer).setStepSuccessful(stepSuccessful);
+			}
+			shard.complete = stepSuccessful;
+		} finally {
+			shard.writer.close();
+			if (shard.writer instanceof AbstractBaseOutputWriter && !shard.complete) {
+				// Its checksum so far, so reopening does not read the file again
+				AbstractBaseOutputWriter<?> writer = (AbstractBaseOutputWriter<?>) shard.writer;
+				shard.digest = writer.releaseDigest();
+				shard.digestLength = writer.getBytesWritten();
+			}
+			shard.writer = null;
+		}
+	}
+
+	private String shardFilePath(String name) {
+		return AbstractBaseOutputWriter.insertBeforeExtension(outputFilePath, "_" + name);
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) {
+		for (Shard shard : openShards.values()) {
+			checkpoint(shard);
+		}
+		for (Shard shard : shards.values()) {
+			for (Map.Entry<String, Object> entry : shard.context.entrySet()) {
+				executionContext.put(CONTEXT_PREFIX + shard.name + CONTEXT_SEPARATOR + entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Closes every shard. After a completed step each one is (re)opened in turn to write its footer,
+	 * so the files are complete before the job listener finalizes them.
+	 */
+	@Override
+	public void close() throws ItemStreamException {
+		try {
+			closeShards();
+		} catch (RuntimeException e) {
+			// Shard writers have no job context of their own; a shard left without its footer fails the job
+			if (jobContext != null) {
+				jobContext.put(FILE_GEN_OUTPUT_INCOMPLETE, true);
+			}
+			throw e;
+		}
+	}
+
+	private void closeShards() {
+		List<Shard> open = new ArrayList<>(openShards.values());
+		openShards.clear();
+		for (Shard shard : open) {
+			closeShard(shard);
+		}
+		if (!stepSuccessful) {
+			return;
+		}
+		for (Shard shard : shards.values()) {
+			if (shard.complete) {
+				continue;
+			}
+			try {
+				openShard(shard.name);
+			} catch (Exception e) {
+				throw new ItemStreamException("Failed to reopen shard " + shard.name + " of " + interfaceType, e);
+			}
+			openShards.remove(shard.name);
+			closeShard(shard);
+		}
+	}
+
+	@Override
+	public long getRecordCount() {
+		long total = 0;
+		for (Shard shard : shards.values()) {
+			total += shard.writer != null ? shard.writer.getRecordCount() : shard.recordCount;
+		}
+		return total;
+	}
+
+	@Override
+	public long getSkippedCount() {
+		return 0;
+	}
+
+	/**
+	 * The unsharded part path; no file is written there. The shard files are listed under
+	 * FILE_GEN_OUTPUT_PARTS in the job context.
+	 */
+	@Override
+	public String getPartFilePath() {
+		return outputFilePath + ".part";
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		stepSuccessful = false;
+		jobContext = null;
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		stepSuccessful = (stepExecution.getStatus() == BatchStatus.COMPLETED);
+		List<OutputFilePart> parts = new ArrayList<>(shards.size());
+		for (Shard shard : shards.values()) {
+			long records = shard.writer != null ? shard.writer.getRecordCount() : shard.recordCount;
+			parts.add(new OutputFilePart(shardFilePath(shard.name) + ".part", records));
+		}
+		jobContext = stepExecution.getJobExecution().getExecutionContext();
+		jobContext.putString(FILE_GEN_OUTPUT_PARTS, OutputFilePart.encode(parts));
+		// No shard was validated inline; a verdict left by an earlier execution must not skip the validation step
+		jobContext.put(FILE_GEN_XSD_VALIDATED_INLINE, false);
+		jobContext.put(FILE_GEN_OUTPUT_INCOMPLETE, false);
+		return stepExecution.getExitStatus();
+	}
+
+	private static final class Shard {
+		private final String name;
+		// The shard writer's restart state, kept while it is closed
+		private final ExecutionContext context = new ExecutionContext();
+		private OutputFormatWriter writer;
+		private long recordCount;
+		private boolean complete;
+		private MessageDigest digest;
+		private long digestLength;
+
+		private Shard(String name) {
+			this.name = name;
+		}
+	}
+}
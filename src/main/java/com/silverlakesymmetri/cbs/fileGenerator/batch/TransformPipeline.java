@@ -0,0 +1,228 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.TransformConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ColumnType;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An interface's 'transforms' compiled against its RecordSchema: a flat array of
+ * (column index, operation) pairs. Applying it to a record is a loop over that array,
+ * with no name lookups, parsing or reflection per row.
+ * <p>
+ * Operations keep no per-row state, so one pipeline can be shared by concurrent processors.
+ */
+final class TransformPipeline {
+
+	/**
+	 * Used when an interface has no 'transforms' section: trim every text column, as before transforms existed.
+	 */
+	static final List<TransformConfig> DEFAULT_TRANSFORMS;
+
+	static {
+		TransformConfig trimAll = new TransformConfig();
+		trimAll.setColumn(TransformConfig.ALL_COLUMNS);
+		trimAll.setType(TransformConfig.Type.TRIM);
+		DEFAULT_TRANSFORMS = Collections.singletonList(trimAll);
+	}
+
+	private final int[] columns;
+	private final ColumnOperation[] operations;
+
+	private TransformPipeline(int[] columns, ColumnOperation[] operations) {
+		this.columns = columns;
+		this.operations = operations;
+	}
+
+	static TransformPipeline compile(List<TransformConfig> transforms, RecordSchema schema) {
+		List<Integer> columns = new ArrayList<>();
+		List<ColumnOperation> operations = new ArrayList<>();
+		for (TransformConfig transform : transforms) {
+			ColumnOperation operation = operation(transform);
+			if (TransformConfig.ALL_COLUMNS.equals(transform.getColumn().trim())) {
+				for (int col = 0; col < schema.size(); col++) {
+					if (schema.getType(col) == ColumnType.STRING) {
+						columns.add(col);
+						operations.add(operation);
+					}
+				}
+				continue;
+			}
+			int col = schema.getIndex(transform.getColumn().trim());
+			if (col == -1) {
+				throw new IllegalStateException("Transform " + transform.getType() + " refers to column '" +
+						transform.getColumn() + "', which is not in the SQL results " + schema.getKeySet());
+			}
+			columns.add(col);
+			operations.add(operation);
+		}
+		int[] columnArray = new int[columns.size()];
+		for (int i = 0; i < columnArray.length; i++) {
+			columnArray[i] = columns.get(i);
+		}
+		return new TransformPipeline(columnArray, operations.toArray(new ColumnOperation[0]));
+	}
+
+	int size() {
+		return operations.length;
+	}
+
+	/**
+	 * The transformed record. The input is never modified: the first changed value moves the results to a
+	 * {@link DynamicRecord#copy() copy}, so processing a record again (retry, scan, rollback) starts from
+	 * the values read. A record no operation changes is returned as is.
+	 */
+	DynamicRecord apply(DynamicRecord record) {
+		DynamicRecord output = record;
+		for (int i = 0; i < operations.length; i++) {
+			int col = columns[i];
+			ColumnOperation operation = operations[i];
+			RecordBatch batch = output.getBatch();
+			if (batch != null && operation.textOnly()) {
+				// Primitive columns cannot hold Strings; skip them without boxing
+				RecordBatch.Encoding encoding = batch.getEncoding(col);
+				if (encoding != RecordBatch.Encoding.OBJECT && encoding != RecordBatch.Encoding.DICTIONARY) {
+					continue;
+				}
+			}
+			Object value = output.getValue(col);
+			Object result = operation.apply(value);
+			// Unchanged values keep their shared (dictionary) instance
+			if (result != value) {
+				if (output == record) {
+					output = record.copy();
+				}
+				output.setValue(col, result);
+			}
+		}
+		return output;
+	}
+
+	/* ================= Operations ================= */
+
+	interface ColumnOperation {
+		Object apply(Object value);
+
+		/**
+		 * True when the operation only ever changes String values.
+		 */
+		default boolean textOnly() {
+			return false;
+		}
+	}
+
+	private interface TextOperation extends ColumnOperation {
+		String applyText(String value);
+
+		@Override
+		default Object apply(Object value) {
+			return value instanceof String ? applyText((String) value) : value;
+		}
+
+		@Override
+		default boolean textOnly() {
+			return true;
+		}
+	}
+
+	/**
+	 * Builds the operation for one transform. Parameters are validated when the configuration is loaded.
+	 */
+	static ColumnOperation operation(TransformConfig transform) {
+		switch (transform.getType()) {
+			case TRIM:
+				return (TextOperation) StringUtils::trim;
+			case UPPER:
+				return (TextOperation) value -> value.toUpperCase(Locale.ROOT);
+			case PAD_LEFT: {
+				int length = transform.getLength();
+				String pad = transform.getPadChar();
+				return value -> value == null ? null : StringUtils.leftPad(value.toString(), length, pad);
+			}
+			case PAD_RIGHT: {
+				int length = transform.getLength();
+				String pad = transform.getPadChar();
+				return value -> value == null ? null : StringUtils.rightPad(value.toString(), length, pad);
+			}
+			case SUBSTRING: {
+				int start = transform.getStart();
+				int end = transform.getLength() != null ? start + transform.getLength() : Integer.MAX_VALUE;
+				return value -> value == null ? null : StringUtils.substring(value.toString(), start, end);
+			}
+			case DEFAULT_IF_NULL: {
+				String defaultValue = transform.getValue();
+				return value -> value == null ? defaultValue : value;
+			}
+			case CONSTANT: {
+				String constant = transform.getValue();
+				return value -> constant;
+			}
+			case FORMAT_NUMBER: {
+				// DecimalFormat is not thread-safe; one copy per thread. Output must not depend on the
+				// server's locale, and amounts round half up as they do everywhere else in the files
+				String pattern = transform.getPattern();
+				ThreadLocal<DecimalFormat> format = ThreadLocal.withInitial(() -> {
+					DecimalFormat decimalFormat = new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.ROOT));
+					decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
+					return decimalFormat;
+				});
+				return value -> value instanceof Number ? format.get().format(value) : value;
+			}
+			case FORMAT_DATE: {
+				DateTimeFormatter formatter = DateTimeFormatter.ofPattern(transform.getPattern());
+				return value -> formatDate(formatter, value);
+			}
+			case MASK: {
+				int keepFirst = transform.getKeepFirst();
+				int keepLast = transform.getKeepLast();
+				char mask = transform.getMaskChar().charAt(0);
+				return value -> value == null ? null : mask(value.toString(), keepFirst, keepLast, mask);
+			}
+			default:
+				throw new IllegalArgumentException("Unsupported transform type: " + transform.getType());
+		}
+	}
+
+	static Object formatDate(DateTimeFormatter formatter, Object value) {
+		if (value instanceof Timestamp) {
+			return formatter.format(((Timestamp) value).toLocalDateTime());
+		}
+		if (value instanceof java.sql.Date) {
+			return formatter.format(((java.sql.Date) value).toLocalDate());
+		}
+		if (value instanceof Date) {
+			return formatter.format(((Date) value).toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+		}
+		if (value instanceof TemporalAccessor) {
+			return formatter.format((TemporalAccessor) value);
+		}
+		return value;
+	}
+
+	private static String mask(String value, int keepFirst, int keepLast, char mask) {
+		int length = value.length();
+		if (keepFirst + keepLast >= length) {
+			return value;
+		}
+		char[] chars = value.toCharArray();
+		for (int i = keepFirst; i < length - keepLast; i++) {
+			chars[i] = mask;
+		}
+		return new String(chars);
+	}
+}
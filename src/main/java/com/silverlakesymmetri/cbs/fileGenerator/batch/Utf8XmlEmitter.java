@@ -0,0 +1,111 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming XML emitter that writes UTF-8 bytes straight into a reusable buffer.
+ * <p>
+ * Output matches what the JDK StAX writer produced for GenericXMLWriter: text escapes
+ * {@code < > &}, characters outside the BMP (and unpaired surrogates) become character
+ * references, and values are rendered exactly like their {@code toString()}.
+ * <p>
+ * Tag bytes are prepared by the caller ({@link #startTag}, {@link #endTag}) and copied as is.
+ */
+final class Utf8XmlEmitter extends ByteEmitter {
+	private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+	// Worst case per char: an unpaired surrogate written as "&#xd800;"; a pair takes at most 10 bytes
+	private static final int MAX_BYTES_PER_CHAR = 8;
+
+	Utf8XmlEmitter(OutputStream out, int bufferSize) {
+		super(out, bufferSize);
+	}
+
+	static byte[] startTag(String name) {
+		return ("<" + name + ">").getBytes(StandardCharsets.UTF_8);
+	}
+
+	static byte[] endTag(String name) {
+		return ("</" + name + ">").getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Escaped UTF-8 form of a text value, for callers that cache it.
+	 */
+	static byte[] escape(String text) {
+		byte[] bytes = new byte[text.length() * MAX_BYTES_PER_CHAR];
+		int length = encode(text, 0, text.length(), bytes, 0);
+		byte[] result = new byte[length];
+		System.arraycopy(bytes, 0, result, 0, length);
+		return result;
+	}
+
+	void writeDeclaration() throws IOException {
+		writeAscii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+	}
+
+	@Override
+	void writeText(String text) throws IOException {
+		writeEncoded(text, MAX_BYTES_PER_CHAR, Utf8XmlEmitter::encode);
+	}
+
+	@Override
+	byte[] encodeText(String text) {
+		return escape(text);
+	}
+
+	private static int encode(String text, int from, int to, byte[] target, int offset) {
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				switch (c) {
+					case '<':
+						target[offset++] = '&';
+						target[offset++] = 'l';
+						target[offset++] = 't';
+						target[offset++] = ';';
+						break;
+					case '>':
+						target[offset++] = '&';
+						target[offset++] = 'g';
+						target[offset++] = 't';
+						target[offset++] = ';';
+						break;
+					case '&':
+						target[offset++] = '&';
+						target[offset++] = 'a';
+						target[offset++] = 'm';
+						target[offset++] = 'p';
+						target[offset++] = ';';
+						break;
+					default:
+						target[offset++] = (byte) c;
+				}
+			} else if (c < 0x800) {
+				target[offset++] = (byte) (0xC0 | (c >> 6));
+				target[offset++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// The StAX writer checks encodability char by char, so it never emits 4-byte sequences:
+				// pairs become a reference to the code point, unpaired surrogates a reference to themselves
+				int codePoint = c;
+				if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+					codePoint = Character.toCodePoint(c, text.charAt(++i));
+				}
+				target[offset++] = '&';
+				target[offset++] = '#';
+				target[offset++] = 'x';
+				int shift = codePoint > 0xFFFF ? (codePoint > 0xFFFFF ? 20 : 16) : 12;
+				for (; shift >= 0; shift -= 4) {
+					target[offset++] = HEX[(codePoint >> shift) & 0xF];
+				}
+				target[offset++] = ';';
+			} else {
+				target[offset++] = (byte) (0xE0 | (c >> 12));
+				target[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				target[offset++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return offset;
+	}
+}
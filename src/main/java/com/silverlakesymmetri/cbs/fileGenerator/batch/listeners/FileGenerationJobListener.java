@@ -1,6 +1,7 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch.listeners;
 
 import com.silverlakesymmetri.cbs.fileGenerator.constants.FinalizationResult;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.OutputFilePart;
 import com.silverlakesymmetri.cbs.fileGenerator.service.FileFinalizationService;
 import com.silverlakesymmetri.cbs.fileGenerator.service.FileGenerationService;
 import org.slf4j.Logger;
@@ -10,18 +11,23 @@ import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.item.NonTransientResourceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Objects;
 
 import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_PART_FILE_PATH;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_PARTS;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.MANIFEST_EXTENSION;
 
 /**
  * Job listener for safe finalization of .part files after batch completion.
  * Features:
  * - Atomic rename (.part -> final)
- * - SHA256 checksum verification
+ * - SHA256 checksum file (computed while writing); re-reading the file to verify it is optional
  * - Restart-safe behavior
+ * - Rolled or sharded output: all files, their checksums and a manifest listing them published together or not at all
  * - Backward-compatible constructors
  */
 @Component
@@ -30,6 +36,10 @@ public class FileGenerationJobListener implements JobExecutionListener {
 	private final FileFinalizationService fileFinalizationService;
 	private final FileGenerationService fileGenerationService;
 
+	// Reads every finalized file once more against its .sha; integrity audits can run separately instead
+	@Value("${file.generation.sha.verify-after-finalize:false}")
+	private boolean verifyAfterFinalize;
+
 	@Autowired
 	public FileGenerationJobListener(FileFinalizationService fileFinalizationService, FileGenerationService fileGenerationService) {
 		this.fileFinalizationService = fileFinalizationService;
@@ -72,6 +82,12 @@ public class FileGenerationJobListener implements JobExecutionListener {
 			return;
 		}
 
+		if (jobExecution.getExecutionContext().containsKey(FILE_GEN_OUTPUT_PARTS)) {
+			finalizeParts(jobId, jobExecution,
+					OutputFilePart.decode(jobExecution.getExecutionContext().getString(FILE_GEN_OUTPUT_PARTS)));
+			return;
+		}
+
 		try {
 			logger.info("Finalizing part file: {}", partFilePath);
 
@@ -85,7 +101,7 @@ public class FileGenerationJobListener implements JobExecutionListener {
 
 			currentPath = finalFilePath;
 			// SHA256 verification
-			boolean verified = fileFinalizationService.verifyShaFile(finalFilePath);
+			boolean verified = !verifyAfterFinalize || fileFinalizationService.verifyShaFile(finalFilePath);
 
 			if (!verified) {
 				String msg = "SHA256 checksum mismatch for " + finalFilePath;
@@ -95,7 +111,7 @@ public class FileGenerationJobListener implements JobExecutionListener {
 
 			// Only mark as COMPLETED if all file operations succeeded
 			fileGenerationService.markCompleted(jobId);
-			logger.info("File finalized and verified successfully: {}", finalFilePath);
+			logger.info("File finalized successfully{}: {}", verifyAfterFinalize ? " and verified" : "", finalFilePath);
 		} catch (Exception e) {
 			logger.error("Finalization failed for JobId: {}", jobId, e);
 			// Update DB to FAILED if post-processing fails
@@ -105,6 +121,36 @@ public class FileGenerationJobListener implements JobExecutionListener {
 		}
 	}
 
+	/**
+	 * Rolled parts or shard files: finalizes all of them and the manifest ({@code <outputFilePath>.manifest}) as one
+	 * unit, verifying them first when configured. The job is COMPLETED only when every file and the manifest exist.
+	 */
+	private void finalizeParts(String jobId, JobExecution jobExecution, List<OutputFilePart> parts) {
+		FinalizationResult result = null;
+		try {
+			String manifestFilePath = jobExecution.getJobParameters().getString("outputFilePath").trim() + MANIFEST_EXTENSION;
+			logger.info("Finalizing {} part files with manifest: {}", parts.size(), manifestFilePath);
+			result = fileFinalizationService.finalizeParts(manifestFilePath, parts, verifyAfterFinalize);
+			if (!FinalizationResult.SUCCESS.equals(result)) {
+				throw new NonTransientResourceException("Finalization failed for " + manifestFilePath +
+						". Reason - " + result.toString());
+			}
+
+			fileGenerationService.markCompleted(jobId);
+			logger.info("{} part files finalized{}, manifest: {}", parts.size(), verifyAfterFinalize ? " and verified" : "",
+					manifestFilePath);
+		} catch (Exception e) {
+			logger.error("Finalization failed for JobId: {}", jobId, e);
+			fileGenerationService.markFailed(jobId, "Post-processing error: " + e.getMessage());
+			// Nothing was published; keep the .part files when finalizing them again may succeed
+			if (result == null || !result.isRetryable()) {
+				for (OutputFilePart part : parts) {
+					fileFinalizationService.cleanupPartFile(part.getPartFilePath());
+				}
+			}
+		}
+	}
+
 	private void handleJobFailure(String jobId, JobExecution jobExecution) {
 		try {
 			fileGenerationService.markFailed(jobId, "Batch execution status: " + jobExecution.getStatus());
@@ -68,9 +68,10 @@ public class FileGenerationStepListener implements StepExecutionListener {
 
 		// Ensure the Writer's partFilePath is promoted to the Job level
 		// so the JobListener can see it for finalization.
-		String partFilePath = stepExecution.getExecutionContext().getString(FILE_GEN_PART_FILE_PATH);
-		if (partFilePath != null) {
-			jobContext.putString(FILE_GEN_PART_FILE_PATH, partFilePath);
+		// (A partitioned manager step has no part file of its own; the merge step promotes it.)
+		ExecutionContext stepContext = stepExecution.getExecutionContext();
+		if (stepContext.containsKey(FILE_GEN_PART_FILE_PATH)) {
+			jobContext.putString(FILE_GEN_PART_FILE_PATH, stepContext.getString(FILE_GEN_PART_FILE_PATH));
 		}
 
 		if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
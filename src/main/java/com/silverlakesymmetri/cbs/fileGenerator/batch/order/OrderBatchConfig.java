@@ -1,17 +1,23 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch.order;
 
+import com.silverlakesymmetri.cbs.fileGenerator.batch.ParallelItemProcessor;
 import com.silverlakesymmetri.cbs.fileGenerator.batch.listeners.FileGenerationJobListener;
 import com.silverlakesymmetri.cbs.fileGenerator.batch.listeners.FileGenerationStepListener;
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.order.OrderDto;
 import com.silverlakesymmetri.cbs.fileGenerator.service.FileGenerationService;
 import com.silverlakesymmetri.cbs.fileGenerator.tasklets.BatchCleanupTasklet;
 import com.silverlakesymmetri.cbs.fileGenerator.tasklets.FileValidationTasklet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.item.validator.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +44,7 @@ public class OrderBatchConfig {
 	private final OrderItemWriter orderItemWriter;
 	private final FileValidationTasklet fileValidationTasklet;
 	private final BatchCleanupTasklet batchCleanupTasklet;
+	private final InterfaceConfigLoader interfaceConfigLoader;
 
 	@Value("${file.generation.chunk-size:1000}")
 	private int chunkSize;
@@ -51,7 +58,8 @@ public class OrderBatchConfig {
 			OrderItemProcessor orderItemProcessor,
 			OrderItemWriter orderItemWriter,
 			FileValidationTasklet fileValidationTasklet,
-			BatchCleanupTasklet batchCleanupTasklet
+			BatchCleanupTasklet batchCleanupTasklet,
+			InterfaceConfigLoader interfaceConfigLoader
 	) {
 		this.jobBuilderFactory = jobBuilderFactory;
 		this.stepBuilderFactory = stepBuilderFactory;
@@ -61,6 +69,7 @@ public class OrderBatchConfig {
 		this.orderItemWriter = orderItemWriter;
 		this.fileValidationTasklet = fileValidationTasklet;
 		this.batchCleanupTasklet = batchCleanupTasklet;
+		this.interfaceConfigLoader = interfaceConfigLoader;
 		logger.info("Configuring Order FileGeneration with chunk size {}", chunkSize);
 	}
 
@@ -69,6 +78,12 @@ public class OrderBatchConfig {
 		return new FileGenerationStepListener(fileGenerationService);
 	}
 
+	@Bean
+	@StepScope
+	public ParallelItemProcessor<OrderDto, OrderDto> orderParallelItemProcessor() {
+		return new ParallelItemProcessor<>(orderItemProcessor, interfaceConfigLoader);
+	}
+
 	@Bean
 	public Step orderFileValidationStep() {
 		return stepBuilderFactory.get("orderFileValidationStep")
@@ -99,7 +114,7 @@ public class OrderBatchConfig {
 		return stepBuilderFactory.get("orderFileGenerationStep")
 				.<OrderDto, OrderDto>chunk(chunkSize)
 				.reader(orderItemReader)
-				.processor(orderItemProcessor)
+				.processor(orderParallelItemProcessor())
 				.writer(orderItemWriter)
 
 				// --- Fault Tolerance Configuration ---
@@ -116,6 +131,9 @@ public class OrderBatchConfig {
 				.skipLimit(100)
 
 				// --- Listeners ---
+				.listener((ItemReadListener<OrderDto>) orderParallelItemProcessor())
+				.listener((ChunkListener) orderParallelItemProcessor())
+				.listener((StepExecutionListener) orderParallelItemProcessor())
 				.listener(orderStepExecutionListener())
 				.allowStartIfComplete(true)
 				.build();
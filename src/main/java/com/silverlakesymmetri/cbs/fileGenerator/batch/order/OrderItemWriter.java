@@ -1,6 +1,8 @@
 package com.silverlakesymmetri.cbs.fileGenerator.batch.order;
 
 import com.silverlakesymmetri.cbs.fileGenerator.batch.AbstractBaseOutputWriter;
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.order.OrderDto;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.StepExecution;
@@ -37,11 +39,21 @@ public class OrderItemWriter extends AbstractBaseOutputWriter<OrderDto> {
 	private XMLStreamWriter xmlStreamWriter;
 
 	@Autowired
-	public OrderItemWriter(@Value("#{jobParameters['outputFilePath']}") String outputFilePath) throws Exception {
+	public OrderItemWriter(@Value("#{jobParameters['outputFilePath']}") String outputFilePath,
+						   InterfaceConfigLoader interfaceConfigLoader) throws Exception {
+		InterfaceConfig config = interfaceConfigLoader.getConfig("ORDER_INTERFACE");
+		if (config != null) {
+			setInlineXsdSchema(config.getXsdSchemaFile());
+		}
 		// Initialize the base class with path and interface type
 		super.init(outputFilePath, "ORDER_INTERFACE");
 	}
 
+	@Override
+	protected boolean supportsInlineXsdValidation() {
+		return true;
+	}
+
 	@Override
 	protected String getByteOffsetKey() {
 		return "order.writer.byteOffset";
@@ -40,14 +40,21 @@ public class BatchInfrastructureConfig {
 	@Value("${spring.task.execution.thread-name-prefix:batch-exec-}")
 	private String threadNamePrefix;
 
+	@Value("${file.generation.partition.max-threads:8}")
+	private int partitionMaxThreads;
+
+	// 0 = one per available processor
+	@Value("${file.generation.hash.threads:0}")
+	private int hashThreads;
+
 	@Value("${spring.batch.table-prefix:BATCH_}")
 	private String tablePrefix;
 
 	@PostConstruct
 	public void logConfig() {
 		logger.info(
-				"Batch infra initialized: tablePrefix={}, core={}, max={}, queue={}",
-				tablePrefix, corePoolSize, maxPoolSize, queueCapacity
+				"Batch infra initialized: tablePrefix={}, core={}, max={}, queue={}, partitionThreads={}",
+				tablePrefix, corePoolSize, maxPoolSize, queueCapacity, partitionMaxThreads
 		);
 	}
 
@@ -75,6 +82,39 @@ public class BatchInfrastructureConfig {
 		return executor;
 	}
 
+	/**
+	 * Runs the workers of partitioned dynamic steps. Kept apart from batchTaskExecutor so
+	 * that partition workers can never starve job launches (and vice versa).
+	 */
+	@Bean
+	public TaskExecutor partitionTaskExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(partitionMaxThreads);
+		executor.setMaxPoolSize(partitionMaxThreads);
+		executor.setThreadNamePrefix("partition-exec-");
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(60);
+		executor.setTaskDecorator(new MdcTaskDecorator());
+		executor.initialize();
+		return executor;
+	}
+
+	/**
+	 * Hashes file segments for FileHashService (finalization fallback, verification and audits);
+	 * kept apart so a long integrity sweep never delays batch or partition work.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor hashTaskExecutor() {
+		int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setThreadNamePrefix("hash-exec-");
+		executor.setWaitForTasksToCompleteOnShutdown(false);
+		executor.initialize();
+		return executor;
+	}
+
 	@Bean
 	public FileGenerationJobListener sharedJobListener(
 			FileFinalizationService finalizationService,
@@ -0,0 +1,43 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Async request processing for file downloads: a streamed response body is written on these threads
+ * instead of a Tomcat request thread, so long transfers to slow counterparties do not starve the API.
+ */
+@Configuration
+public class DownloadConfig extends WebMvcConfigurerAdapter {
+	@Value("${file.generation.download.threads:16}")
+	private int downloadThreads;
+
+	// A transfer still running after this long is cut off; the client can resume it with a Range request
+	@Value("${file.generation.download.timeout-ms:3600000}")
+	private long downloadTimeoutMs;
+
+	/**
+	 * Downloads beyond the pool size wait in the queue, without holding a request thread.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor downloadTaskExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(downloadThreads);
+		executor.setMaxPoolSize(downloadThreads);
+		executor.setThreadNamePrefix("download-exec-");
+		executor.setTaskDecorator(new MdcTaskDecorator());
+		executor.setWaitForTasksToCompleteOnShutdown(false);
+		executor.initialize();
+		return executor;
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(downloadTaskExecutor());
+		configurer.setDefaultTimeout(downloadTimeoutMs);
+	}
+}
@@ -1,8 +1,16 @@
 package com.silverlakesymmetri.cbs.fileGenerator.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.silverlakesymmetri.cbs.fileGenerator.batch.ControlTotals;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.CobolPicture;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.ControlTotalsConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.DelimitedConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.FixedWidthConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.FixedWidthField;
 import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
 import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfigWrapper;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.OutputValidationConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.TransformConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,7 +19,13 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.text.DecimalFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -165,7 +179,80 @@ public class InterfaceConfigLoader {
 						"'. Allowed: " + ALLOWED_EXTENSIONS);
 			}
 
-			// C. Metadata Consistency
+			if (cfg.getKeySetColumns() != null && !cfg.getKeySetColumns().isEmpty()) {
+				if (cfg.getKeyColumns().size() != cfg.getKeySetColumns().size()) {
+					throw new IllegalStateException("Config Error [" + key + "]: 'keySetColumns' contains blank entries");
+				}
+				if (cfg.getKeySetColumn() != null && !cfg.getKeySetColumn().trim().isEmpty()
+						&& !cfg.getKeySetColumn().trim().equalsIgnoreCase(cfg.getKeyColumns().get(0))) {
+					throw new IllegalStateException("Config Error [" + key + "]: 'keySetColumn' must be the first of " +
+							"'keySetColumns' when both are set");
+				}
+			}
+
+			// C. Partitioning
+			if (cfg.getPartitionCount() < 1) {
+				throw new IllegalStateException("Config Error [" + key + "]: 'partitionCount' must be >= 1");
+			}
+
+			if (cfg.getPartitionCount() > 1 && !cfg.isPartitioned()) {
+				throw new IllegalStateException("Config Error [" + key + "]: 'partitionCount' > 1 requires a dynamic " +
+						"interface with 'keySetColumn' or 'keySetColumns' defined");
+			}
+
+			if (cfg.getPrefetchPages() < 0) {
+				throw new IllegalStateException("Config Error [" + key + "]: 'prefetchPages' must be >= 0");
+			}
+
+			if (cfg.getProcessingThreads() < 1) {
+				throw new IllegalStateException("Config Error [" + key + "]: 'processingThreads' must be >= 1");
+			}
+
+			// D. Transforms
+			if (cfg.getTransforms() != null) {
+				for (int i = 0; i < cfg.getTransforms().size(); i++) {
+					validateTransform(key, i, cfg.getTransforms().get(i));
+				}
+			}
+
+			if (cfg.getOutputFormat() == InterfaceConfig.OutputFormat.DELIMITED) {
+				validateDelimited(key, cfg);
+			}
+			if (cfg.getOutputFormat() == InterfaceConfig.OutputFormat.FIXED_WIDTH) {
+				validateFixedWidth(key, cfg);
+			}
+			if (cfg.getCompression() != InterfaceConfig.Compression.NONE &&
+					(cfg.getCompressionLevel() < 1 || cfg.getCompressionLevel() > 9)) {
+				throw new IllegalStateException("Config Error [" + key + "]: 'compressionLevel' must be 1 to 9");
+			}
+			if (cfg.getControlTotals() != null) {
+				validateControlTotals(key, cfg);
+			}
+			if (cfg.getCompressionThreads() < 1) {
+				throw new IllegalStateException("Config Error [" + key + "]: 'compressionThreads' must be >= 1");
+			}
+			if (cfg.getMaxFileBytes() < 0 || cfg.getMaxRecordsPerFile() < 0) {
+				throw new IllegalStateException("Config Error [" + key + "]: 'maxFileBytes' and 'maxRecordsPerFile' must be >= 0");
+			}
+			if (cfg.isRolling() && cfg.isPartitioned()) {
+				// Segments are merged into a single file; rolling happens in the writing step only
+				throw new IllegalStateException("Config Error [" + key + "]: 'maxFileBytes'/'maxRecordsPerFile' " +
+						"cannot be combined with 'partitionCount' > 1");
+			}
+			if (cfg.isSharded()) {
+				if (!cfg.isDynamic()) {
+					throw new IllegalStateException("Config Error [" + key + "]: 'shardColumn' requires a dynamic interface");
+				}
+				if (cfg.isPartitioned() || cfg.isRolling()) {
+					throw new IllegalStateException("Config Error [" + key + "]: 'shardColumn' cannot be combined with " +
+							"'partitionCount' > 1, 'maxFileBytes' or 'maxRecordsPerFile'");
+				}
+			}
+			if (cfg.getOutputValidation() != null) {
+				validateOutputValidation(key, cfg);
+			}
+
+			// E. Metadata Consistency
 			if (cfg.getOutputFormat() == InterfaceConfig.OutputFormat.XML &&
 					(cfg.getXsdSchemaFile() == null || cfg.getXsdSchemaFile().trim().isEmpty())) {
 				logger.warn("Config [{}]: XML format selected but no XSD schema provided for validation", key);
@@ -173,6 +260,301 @@ public class InterfaceConfigLoader {
 		});
 	}
 
+	private void validateTransform(String key, int index, TransformConfig transform) {
+		String prefix = "Config Error [" + key + "]: transforms[" + index + "]";
+		if (transform == null || transform.getType() == null) {
+			throw new IllegalStateException(prefix + " 'type' is required");
+		}
+		if (transform.getColumn() == null || transform.getColumn().trim().isEmpty()) {
+			throw new IllegalStateException(prefix + " 'column' is required");
+		}
+		if (TransformConfig.ALL_COLUMNS.equals(transform.getColumn().trim()) && !transform.getType().allowsAllColumns()) {
+			throw new IllegalStateException(prefix + " column '*' is only allowed for TRIM and UPPER");
+		}
+		switch (transform.getType()) {
+			case PAD_LEFT:
+			case PAD_RIGHT:
+				if (transform.getLength() == null || transform.getLength() <= 0) {
+					throw new IllegalStateException(prefix + " " + transform.getType() + " requires 'length' > 0");
+				}
+				if (transform.getPadChar() == null || transform.getPadChar().isEmpty()) {
+					throw new IllegalStateException(prefix + " 'padChar' must not be empty");
+				}
+				break;
+			case SUBSTRING:
+				if (transform.getStart() < 0 || (transform.getLength() != null && transform.getLength() < 0)) {
+					throw new IllegalStateException(prefix + " SUBSTRING 'start' and 'length' must be >= 0");
+				}
+				break;
+			case DEFAULT_IF_NULL:
+			case CONSTANT:
+				if (transform.getValue() == null) {
+					throw new IllegalStateException(prefix + " " + transform.getType() + " requires 'value'");
+				}
+				break;
+			case FORMAT_NUMBER:
+			case FORMAT_DATE:
+				if (transform.getPattern() == null || transform.getPattern().isEmpty()) {
+					throw new IllegalStateException(prefix + " " + transform.getType() + " requires 'pattern'");
+				}
+				try {
+					if (transform.getType() == TransformConfig.Type.FORMAT_NUMBER) {
+						new DecimalFormat(transform.getPattern());
+					} else {
+						DateTimeFormatter.ofPattern(transform.getPattern());
+					}
+				} catch (IllegalArgumentException e) {
+					throw new IllegalStateException(prefix + " invalid pattern '" + transform.getPattern() + "': " + e.getMessage(), e);
+				}
+				break;
+			case MASK:
+				if (transform.getKeepFirst() < 0 || transform.getKeepLast() < 0) {
+					throw new IllegalStateException(prefix + " MASK 'keepFirst' and 'keepLast' must be >= 0");
+				}
+				if (transform.getMaskChar() == null || transform.getMaskChar().isEmpty()) {
+					throw new IllegalStateException(prefix + " 'maskChar' must not be empty");
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void validateDelimited(String key, InterfaceConfig cfg) {
+		String prefix = "Config Error [" + key + "]: delimited";
+		DelimitedConfig delimited = cfg.getDelimited() != null ? cfg.getDelimited() : new DelimitedConfig();
+		if (delimited.getDelimiter() == null || delimited.getDelimiter().length() != 1) {
+			throw new IllegalStateException(prefix + " 'delimiter' must be a single character");
+		}
+		if (delimited.getQuote() == null || delimited.getQuote().length() != 1) {
+			throw new IllegalStateException(prefix + " 'quote' must be a single character");
+		}
+		if (delimited.getEscape() != null && delimited.getEscape().length() > 1) {
+			throw new IllegalStateException(prefix + " 'escape' must be a single character");
+		}
+		if (delimited.getDelimiter().equals(delimited.getQuote()) || delimited.getDelimiter().equals(delimited.getEscape())) {
+			throw new IllegalStateException(prefix + " 'delimiter' must differ from 'quote' and 'escape'");
+		}
+		if (delimited.getLineSeparator() == null || delimited.getLineSeparator().isEmpty()) {
+			throw new IllegalStateException(prefix + " 'lineSeparator' must not be empty");
+		}
+		boolean hasColumns = delimited.getColumns() != null && !delimited.getColumns().isEmpty();
+		if (hasColumns && delimited.getColumns().stream().anyMatch(c -> c == null || c.trim().isEmpty())) {
+			throw new IllegalStateException(prefix + " 'columns' contains blank entries");
+		}
+		// The merge step writes the header and never sees a record to take column names from
+		if (delimited.isHeader() && !hasColumns && cfg.getPartitionCount() > 1) {
+			throw new IllegalStateException(prefix + " 'columns' is required for a header row when 'partitionCount' > 1");
+		}
+	}
+
+	private void validateControlTotals(String key, InterfaceConfig cfg) {
+		String prefix = "Config Error [" + key + "]: controlTotals";
+		ControlTotalsConfig totals = cfg.getControlTotals();
+		InterfaceConfig.OutputFormat format = cfg.getOutputFormat();
+		if (format == InterfaceConfig.OutputFormat.DELIMITED || format == InterfaceConfig.OutputFormat.JSON
+				|| format == InterfaceConfig.OutputFormat.JSON_COMPACT || format == InterfaceConfig.OutputFormat.NDJSON) {
+			throw new IllegalStateException(prefix + " are not supported for outputFormat " + format);
+		}
+		for (List<String> columns : Arrays.asList(totals.getSumColumns(), totals.getHashColumns())) {
+			if (columns != null && columns.stream().anyMatch(c -> c == null || c.trim().isEmpty())) {
+				throw new IllegalStateException(prefix + " 'sumColumns'/'hashColumns' contain blank entries");
+			}
+		}
+		if (format != InterfaceConfig.OutputFormat.FIXED_WIDTH && totals.getPlacement().inHeader()
+				&& cfg.getCompression() != InterfaceConfig.Compression.NONE) {
+			throw new IllegalStateException(prefix + " in the header are back-patched, which needs 'compression' NONE");
+		}
+		boolean beanIo = format != InterfaceConfig.OutputFormat.XML && format != InterfaceConfig.OutputFormat.FIXED_WIDTH
+				&& !isBlank(cfg.getBeanIoMappingFile());
+		if (beanIo && (isBlank(totals.getHeaderRecord()) || isBlank(totals.getTrailerRecord()))) {
+			throw new IllegalStateException(prefix + " 'headerRecord'/'trailerRecord' must not be blank");
+		}
+	}
+
+	private void validateOutputValidation(String key, InterfaceConfig cfg) {
+		String prefix = "Config Error [" + key + "]: outputValidation";
+		OutputValidationConfig validation = cfg.getOutputValidation();
+		InterfaceConfig.OutputFormat format = cfg.getOutputFormat();
+		if (format == InterfaceConfig.OutputFormat.XML || format == InterfaceConfig.OutputFormat.JSON
+				|| format == InterfaceConfig.OutputFormat.JSON_COMPACT) {
+			// One document per file: 'xsdSchemaFile' covers XML
+			throw new IllegalStateException(prefix + " is not supported for outputFormat " + format);
+		}
+		if (cfg.isSharded()) {
+			throw new IllegalStateException(prefix + " cannot be combined with 'shardColumn'");
+		}
+		boolean nativeFormat = format == InterfaceConfig.OutputFormat.DELIMITED
+				|| format == InterfaceConfig.OutputFormat.FIXED_WIDTH || format == InterfaceConfig.OutputFormat.NDJSON;
+		if (!nativeFormat) {
+			if (isBlank(cfg.getBeanIoMappingFile())) {
+				throw new IllegalStateException(prefix + " for outputFormat " + format + " requires 'beanIoMappingFile'");
+			}
+			if (validation.getRecordLength() == null && validation.getFieldCount() == null && validation.getDelimiter() == null) {
+				throw new IllegalStateException(prefix + " for BeanIO output needs 'recordLength', 'fieldCount' or 'delimiter'");
+			}
+		}
+		if (format == InterfaceConfig.OutputFormat.NDJSON && isBlank(validation.getJsonSchemaFile())) {
+			throw new IllegalStateException(prefix + " 'jsonSchemaFile' is required for outputFormat NDJSON");
+		}
+		if (!(validation.getSampleRate() > 0 && validation.getSampleRate() <= 1)) {
+			throw new IllegalStateException(prefix + " 'sampleRate' must be > 0 and <= 1");
+		}
+		if (validation.getSampleAfterRecords() < 0) {
+			throw new IllegalStateException(prefix + " 'sampleAfterRecords' must be >= 0");
+		}
+		if ((validation.getRecordLength() != null && validation.getRecordLength() <= 0)
+				|| (validation.getFieldCount() != null && validation.getFieldCount() <= 0)) {
+			throw new IllegalStateException(prefix + " 'recordLength' and 'fieldCount' must be > 0");
+		}
+		for (String character : Arrays.asList(validation.getDelimiter(), validation.getQuote(), validation.getEscape())) {
+			// Matched against single bytes of the UTF-8 output
+			if (character != null && (character.length() != 1 || character.charAt(0) >= 0x80)) {
+				throw new IllegalStateException(prefix + " 'delimiter', 'quote' and 'escape' must be single ASCII characters");
+			}
+		}
+		if (format == InterfaceConfig.OutputFormat.DELIMITED && cfg.getDelimited() != null) {
+			DelimitedConfig delimited = cfg.getDelimited();
+			for (String character : Arrays.asList(delimited.getDelimiter(), delimited.getQuote(), delimited.getEscape())) {
+				if (character != null && !character.isEmpty() && character.charAt(0) >= 0x80) {
+					throw new IllegalStateException(prefix + " needs ASCII 'delimiter', 'quote' and 'escape' characters");
+				}
+			}
+		}
+		boolean separatorRequired = format != InterfaceConfig.OutputFormat.FIXED_WIDTH;
+		if (separatorRequired && validation.getLineSeparator() != null && validation.getLineSeparator().isEmpty()) {
+			throw new IllegalStateException(prefix + " 'lineSeparator' must not be empty for outputFormat " + format);
+		}
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.trim().isEmpty();
+	}
+
+	private void validateFixedWidth(String key, InterfaceConfig cfg) {
+		String prefix = "Config Error [" + key + "]: fixedWidth";
+		FixedWidthConfig fixedWidth = cfg.getFixedWidth();
+		if (fixedWidth == null || fixedWidth.getFields() == null || fixedWidth.getFields().isEmpty()) {
+			throw new IllegalStateException(prefix + " 'fields' are required for outputFormat FIXED_WIDTH");
+		}
+		if (fixedWidth.getEncoding() == null || !Charset.isSupported(fixedWidth.getEncoding())) {
+			throw new IllegalStateException(prefix + " unsupported 'encoding' " + fixedWidth.getEncoding());
+		}
+		if (fixedWidth.getLineSeparator() == null) {
+			throw new IllegalStateException(prefix + " 'lineSeparator' must not be null (use \"\" for none)");
+		}
+		if (fixedWidth.getRecordLength() != null && fixedWidth.getRecordLength() < 1) {
+			throw new IllegalStateException(prefix + " 'recordLength' must be >= 1");
+		}
+		resolveFixedWidthFields(prefix + ".fields", fixedWidth.getFields());
+		if (fixedWidth.getHeader() != null) {
+			resolveFixedWidthFields(prefix + ".header", fixedWidth.getHeader());
+		}
+		if (fixedWidth.getTrailer() != null) {
+			resolveFixedWidthFields(prefix + ".trailer", fixedWidth.getTrailer());
+		}
+		int recordLength = fixedWidth.getEffectiveRecordLength();
+		validateFixedWidthFields(prefix + ".fields", fixedWidth.getFields(), recordLength);
+		if (fixedWidth.getHeader() != null) {
+			validateFixedWidthFields(prefix + ".header", fixedWidth.getHeader(), recordLength);
+			for (FixedWidthField field : fixedWidth.getHeader()) {
+				String column = field.getColumn() != null ? field.getColumn().trim() : null;
+				// Compressed output cannot be back-patched: the header would keep its zero placeholders
+				boolean total = column != null && (ControlTotals.RECORD_COUNT.equals(column)
+						|| column.startsWith(ControlTotals.SUM_PREFIX) || column.startsWith(ControlTotals.HASH_PREFIX));
+				if (total && cfg.getCompression() != InterfaceConfig.Compression.NONE) {
+					throw new IllegalStateException(prefix + ".header column '" + column + "' is back-patched at close, " +
+							"which needs 'compression' NONE");
+				}
+			}
+		}
+		if (fixedWidth.getTrailer() != null) {
+			validateFixedWidthFields(prefix + ".trailer", fixedWidth.getTrailer(), recordLength);
+		}
+	}
+
+	/**
+	 * Copybook-style layouts: a missing offset follows the previous field, a missing length
+	 * comes from the picture.
+	 */
+	private void resolveFixedWidthFields(String prefix, List<FixedWidthField> fields) {
+		int next = 0;
+		for (int i = 0; i < fields.size(); i++) {
+			FixedWidthField field = fields.get(i);
+			CobolPicture picture = parsePicture(prefix + "[" + i + "]", field);
+			if (field.getLength() == null) {
+				if (picture == null) {
+					throw new IllegalStateException(prefix + "[" + i + "] requires 'length' or 'picture'");
+				}
+				field.setLength(picture.byteLength(field.getSign().isSeparate()));
+			}
+			if (field.getOffset() == null) {
+				field.setOffset(next);
+			}
+			next = field.getOffset() + field.getLength();
+		}
+	}
+
+	private CobolPicture parsePicture(String prefix, FixedWidthField field) {
+		if (field.getPicture() == null) {
+			return null;
+		}
+		try {
+			return CobolPicture.parse(field.getPicture());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalStateException(prefix + " " + e.getMessage(), e);
+		}
+	}
+
+	private void validateFixedWidthFields(String prefix, List<FixedWidthField> fields, int recordLength) {
+		for (int i = 0; i < fields.size(); i++) {
+			FixedWidthField field = fields.get(i);
+			String fieldPrefix = prefix + "[" + i + "]";
+			boolean hasColumn = field.getColumn() != null && !field.getColumn().trim().isEmpty();
+			if (hasColumn == (field.getValue() != null)) {
+				throw new IllegalStateException(fieldPrefix + " requires exactly one of 'column' or 'value'");
+			}
+			if (field.getOffset() < 0 || field.getLength() < 1) {
+				throw new IllegalStateException(fieldPrefix + " requires 'offset' >= 0 and 'length' >= 1");
+			}
+			if (field.getOffset() + field.getLength() > recordLength) {
+				throw new IllegalStateException(fieldPrefix + " ends at " + (field.getOffset() + field.getLength()) +
+						", beyond 'recordLength' " + recordLength);
+			}
+			if (field.getPadChar() == null || field.getPadChar().length() != 1) {
+				throw new IllegalStateException(fieldPrefix + " 'padChar' must be a single character");
+			}
+			CobolPicture picture = parsePicture(fieldPrefix, field);
+			if (picture != null) {
+				int pictureLength = picture.byteLength(field.getSign().isSeparate());
+				if (pictureLength != field.getLength()) {
+					throw new IllegalStateException(fieldPrefix + " picture " + picture + " is " + pictureLength +
+							" bytes but 'length' is " + field.getLength());
+				}
+				if (!picture.isAlphanumeric() && field.getPattern() != null) {
+					throw new IllegalStateException(fieldPrefix + " cannot have both a numeric 'picture' and 'pattern'");
+				}
+			}
+			if (field.getPattern() != null) {
+				try {
+					DateTimeFormatter.ofPattern(field.getPattern());
+				} catch (IllegalArgumentException e) {
+					throw new IllegalStateException(fieldPrefix + " invalid pattern '" + field.getPattern() + "': " + e.getMessage(), e);
+				}
+			}
+		}
+		List<FixedWidthField> sorted = fields.stream()
+				.sorted(Comparator.comparingInt(FixedWidthField::getOffset))
+				.collect(Collectors.toList());
+		for (int i = 1; i < sorted.size(); i++) {
+			FixedWidthField previous = sorted.get(i - 1);
+			if (sorted.get(i).getOffset() < previous.getOffset() + previous.getLength()) {
+				throw new IllegalStateException(prefix + " fields at offsets " + previous.getOffset() + " and " +
+						sorted.get(i).getOffset() + " overlap");
+			}
+		}
+	}
+
 	/* ================= Defaults ================= */
 	private void applyDefaults(Map<String, InterfaceConfig> configs) {
 		configs.forEach((key, cfg) -> {
@@ -188,11 +570,12 @@ public class InterfaceConfigLoader {
 
 		configs.forEach((key, cfg) ->
 				logger.info(
-						"Interface [{}] enabled={} format={} schema={}",
+						"Interface [{}] enabled={} format={} schema={} partitions={}",
 						key,
 						cfg.isEnabled(),
 						cfg.getOutputFormat(),
-						cfg.getXsdSchemaFile()
+						cfg.getXsdSchemaFile(),
+						cfg.getPartitionCount()
 				)
 		);
 	}
@@ -0,0 +1,77 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the native SQL of dynamic interfaces.
+ * The external SQL directory is tried first, then the classpath 'sql/' folder.
+ */
+@Component
+public class SqlQueryLoader {
+	private static final Logger logger = LoggerFactory.getLogger(SqlQueryLoader.class);
+
+	@Value("${file.generation.external.sql-dir:classpath:sql}")
+	private Resource resource;
+
+	public String loadQuery(String interfaceType, String queryFile) {
+		if (queryFile == null || queryFile.trim().isEmpty()) {
+			throw new IllegalArgumentException("Data source query file must be defined for " + interfaceType);
+		}
+
+		queryFile = queryFile.trim();
+
+		// Try loading SQL file from external directory first, then classpath fallback
+		InputStream sqlInputStream;
+		String queryString;
+		try {
+			// 1. Attempt external directory
+			Resource externalResource = resource.createRelative(queryFile);
+			if (externalResource.exists() && externalResource.isReadable()) {
+				sqlInputStream = externalResource.getInputStream();
+				logger.info("Loaded SQL query file [{}] from external directory for interface [{}]",
+						queryFile, interfaceType);
+			} else {
+				// 2. Fallback to classpath
+				Resource classpathResource = new ClassPathResource("sql/" + queryFile);
+				if (!classpathResource.exists() || !classpathResource.isReadable()) {
+					throw new IllegalStateException(String.format(
+							"SQL query file [%s] not found in external directory or classpath for interface [%s]",
+							queryFile, interfaceType));
+				}
+				sqlInputStream = classpathResource.getInputStream();
+				logger.info("Loaded SQL query file [{}] from classpath for interface [{}]",
+						queryFile, interfaceType);
+			}
+
+			// Read file content safely
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(sqlInputStream, StandardCharsets.UTF_8))) {
+				queryString = reader.lines().collect(Collectors.joining(System.lineSeparator())).trim();
+			}
+
+			if (queryString.isEmpty()) {
+				throw new IllegalStateException(
+						String.format("SQL query file [%s] is empty for interface [%s]", queryFile, interfaceType)
+				);
+			}
+
+		} catch (IOException e) {
+			logger.error("Unable to read data source query file: {}", queryFile, e);
+			throw new IllegalStateException(
+					String.format("Failed to read SQL file [%s] for interface [%s]", queryFile, interfaceType), e);
+		}
+
+		return queryString;
+	}
+}
@@ -0,0 +1,204 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+import java.util.Locale;
+
+/**
+ * A COBOL copybook picture for fixed-width fields, e.g. {@code X(20)}, {@code 9(7)}, {@code S9(9)V99},
+ * {@code 9(5).99} or {@code PIC S9(7)V99 COMP-3}.
+ * <ul>
+ * <li>{@code X} or {@code X(n)}: alphanumeric, left-aligned and space-padded</li>
+ * <li>{@code S} (first only): signed; where the sign goes is the field's 'sign' setting</li>
+ * <li>{@code 9} or {@code 9(n)}: digit positions, zero-filled</li>
+ * <li>{@code V}: implied decimal point (no character written)</li>
+ * <li>{@code .}: explicit decimal point (DISPLAY only)</li>
+ * </ul>
+ * An optional leading {@code PIC}/{@code PICTURE} and trailing usage ({@code DISPLAY}, {@code COMP-3},
+ * {@code COMPUTATIONAL-3}, {@code PACKED-DECIMAL}) are accepted, so clauses can be copied from a copybook.
+ * Numeric pictures have at most 18 digits, so every value fits a long.
+ */
+public final class CobolPicture {
+	public static final int MAX_DIGITS = 18;
+
+	private final String text;
+	private final boolean alphanumeric;
+	private final boolean signed;
+	private final int integerDigits;
+	private final int scale;
+	private final boolean decimalPoint;
+	private final boolean packed;
+
+	private CobolPicture(String text, boolean alphanumeric, boolean signed, int integerDigits, int scale,
+	                     boolean decimalPoint, boolean packed) {
+		this.text = text;
+		this.alphanumeric = alphanumeric;
+		this.signed = signed;
+		this.integerDigits = integerDigits;
+		this.scale = scale;
+		this.decimalPoint = decimalPoint;
+		this.packed = packed;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the picture is malformed
+	 */
+	public static CobolPicture parse(String picture) {
+		String p = picture.trim().toUpperCase(Locale.ROOT);
+		p = stripPrefix(p, "PICTURE ");
+		p = stripPrefix(p, "PIC ");
+		boolean packed = false;
+		int usage = p.lastIndexOf(' ');
+		if (usage != -1) {
+			switch (p.substring(usage + 1).replace(".", "")) {
+				case "DISPLAY":
+					break;
+				case "COMP-3":
+				case "COMPUTATIONAL-3":
+				case "PACKED-DECIMAL":
+					packed = true;
+					break;
+				default:
+					throw new IllegalArgumentException("Unsupported usage '" + p.substring(usage + 1) + "' in picture " + picture);
+			}
+			p = p.substring(0, usage).trim();
+		}
+
+		if (p.startsWith("X")) {
+			int length = repeated(p, 'X', picture);
+			if (packed) {
+				throw new IllegalArgumentException("Alphanumeric picture " + picture + " cannot be COMP-3");
+			}
+			return new CobolPicture(picture, true, false, length, 0, false, false);
+		}
+
+		int i = 0;
+		boolean signed = false;
+		if (p.startsWith("S")) {
+			signed = true;
+			i = 1;
+		}
+		int[] digits = new int[2];
+		int part = 0;
+		boolean decimalPoint = false;
+		while (i < p.length()) {
+			char c = p.charAt(i);
+			if (c == '9') {
+				int count = 1;
+				i++;
+				if (i < p.length() && p.charAt(i) == '(') {
+					int close = p.indexOf(')', i);
+					if (close < 0) {
+						throw new IllegalArgumentException("Unclosed '(' in picture " + picture);
+					}
+					count = Integer.parseInt(p.substring(i + 1, close).trim());
+					if (count < 1) {
+						throw new IllegalArgumentException("Repeat count must be >= 1 in picture " + picture);
+					}
+					i = close + 1;
+				}
+				digits[part] += count;
+			} else if ((c == 'V' || c == '.') && part == 0) {
+				part = 1;
+				decimalPoint = c == '.';
+				i++;
+			} else {
+				throw new IllegalArgumentException("Unsupported character '" + c + "' in picture " + picture);
+			}
+		}
+		int total = digits[0] + digits[1];
+		if (total == 0 || total > MAX_DIGITS) {
+			throw new IllegalArgumentException("Picture " + picture + " must have 1 to " + MAX_DIGITS + " digits");
+		}
+		if (packed && decimalPoint) {
+			throw new IllegalArgumentException("COMP-3 picture " + picture + " must use an implied decimal point (V)");
+		}
+		return new CobolPicture(picture, false, signed, digits[0], digits[1], decimalPoint, packed);
+	}
+
+	private static String stripPrefix(String p, String prefix) {
+		return p.startsWith(prefix) ? p.substring(prefix.length()).trim() : p;
+	}
+
+	/**
+	 * Length of {@code X}, {@code XXX} or {@code X(n)}.
+	 */
+	private static int repeated(String p, char symbol, String picture) {
+		int count = 0;
+		int i = 0;
+		while (i < p.length()) {
+			if (p.charAt(i) != symbol) {
+				throw new IllegalArgumentException("Unsupported character '" + p.charAt(i) + "' in picture " + picture);
+			}
+			i++;
+			if (i < p.length() && p.charAt(i) == '(') {
+				int close = p.indexOf(')', i);
+				if (close < 0) {
+					throw new IllegalArgumentException("Unclosed '(' in picture " + picture);
+				}
+				int n = Integer.parseInt(p.substring(i + 1, close).trim());
+				if (n < 1) {
+					throw new IllegalArgumentException("Repeat count must be >= 1 in picture " + picture);
+				}
+				count += n;
+				i = close + 1;
+			} else {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public boolean isAlphanumeric() {
+		return alphanumeric;
+	}
+
+	public boolean isSigned() {
+		return signed;
+	}
+
+	/**
+	 * Digits before the decimal point; the character count for alphanumeric pictures.
+	 */
+	public int getIntegerDigits() {
+		return integerDigits;
+	}
+
+	/**
+	 * Digits after the (implied or explicit) decimal point.
+	 */
+	public int getScale() {
+		return scale;
+	}
+
+	public int getDigits() {
+		return integerDigits + scale;
+	}
+
+	public boolean hasDecimalPoint() {
+		return decimalPoint;
+	}
+
+	/**
+	 * COMP-3: two digits per byte, sign in the last nibble.
+	 */
+	public boolean isPacked() {
+		return packed;
+	}
+
+	/**
+	 * Bytes the picture occupies; a separate sign takes one byte, a zoned sign none.
+	 */
+	public int byteLength(boolean separateSign) {
+		if (alphanumeric) {
+			return integerDigits;
+		}
+		if (packed) {
+			return getDigits() / 2 + 1;
+		}
+		return (signed && separateSign ? 1 : 0) + getDigits() + (decimalPoint ? 1 : 0);
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
@@ -0,0 +1,102 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+import java.util.List;
+
+/**
+ * The 'controlTotals' section of an interface: totals a counterparty reconciles the file against,
+ * accumulated while the records are written (no COUNT/SUM query before generation).
+ * <p>
+ * Example:
+ * <pre>
+ * "controlTotals": {
+ *   "sumColumns": ["AMOUNT"],
+ *   "hashColumns": ["ACCOUNT_NO"],
+ *   "placement": "BOTH"
+ * }
+ * </pre>
+ * Totals are named {@code recordCount}, {@code sum_<COLUMN>} and {@code hash_<COLUMN>}. A sum is the exact
+ * decimal total of the column; a hash total adds up the digits of each value read as one number
+ * (e.g. account "0012-345" counts as 12345), modulo 10^18.
+ * <p>
+ * Totals in a header are back-patched when the file is closed, so they need uncompressed output.
+ * FIXED_WIDTH interfaces place totals with header/trailer fields instead of 'placement'.
+ */
+public class ControlTotalsConfig {
+	private List<String> sumColumns;
+	private List<String> hashColumns;
+	private Placement placement = Placement.TRAILER;
+	private String headerRecord = "header";
+	private String trailerRecord = "trailer";
+
+	public List<String> getSumColumns() {
+		return sumColumns;
+	}
+
+	public void setSumColumns(List<String> sumColumns) {
+		this.sumColumns = sumColumns;
+	}
+
+	public List<String> getHashColumns() {
+		return hashColumns;
+	}
+
+	public void setHashColumns(List<String> hashColumns) {
+		this.hashColumns = hashColumns;
+	}
+
+	/**
+	 * Where XML and BeanIO output carries the totals.
+	 */
+	public Placement getPlacement() {
+		return placement;
+	}
+
+	public void setPlacement(Placement placement) {
+		this.placement = placement != null ? placement : Placement.TRAILER;
+	}
+
+	/**
+	 * BeanIO record written with the totals at the start of the file.
+	 */
+	public String getHeaderRecord() {
+		return headerRecord;
+	}
+
+	public void setHeaderRecord(String headerRecord) {
+		this.headerRecord = headerRecord;
+	}
+
+	/**
+	 * BeanIO record written with the totals at the end of the file.
+	 */
+	public String getTrailerRecord() {
+		return trailerRecord;
+	}
+
+	public void setTrailerRecord(String trailerRecord) {
+		this.trailerRecord = trailerRecord;
+	}
+
+	@Override
+	public String toString() {
+		return "ControlTotalsConfig{" +
+				"sumColumns=" + sumColumns +
+				", hashColumns=" + hashColumns +
+				", placement=" + placement +
+				", headerRecord='" + headerRecord + '\'' +
+				", trailerRecord='" + trailerRecord + '\'' +
+				'}';
+	}
+
+	public enum Placement {
+		HEADER, TRAILER, BOTH;
+
+		public boolean inHeader() {
+			return this != TRAILER;
+		}
+
+		public boolean inTrailer() {
+			return this != HEADER;
+		}
+	}
+}
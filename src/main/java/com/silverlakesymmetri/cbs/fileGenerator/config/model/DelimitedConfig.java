@@ -0,0 +1,111 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+import java.util.List;
+
+/**
+ * The 'delimited' section of an interface with outputFormat DELIMITED.
+ * <p>
+ * Example (pipe-separated, no header, selected columns):
+ * <pre>
+ * "delimited": {
+ *   "delimiter": "|",
+ *   "header": false,
+ *   "nullValue": "",
+ *   "columns": ["account_no", "branch_code", "amount"]
+ * }
+ * </pre>
+ * Values are quoted only when they contain the delimiter, the quote or escape character,
+ * a line break, or equal the null token, unless 'alwaysQuote' is set. With no 'escape',
+ * quote characters inside a value are doubled (RFC 4180). Column formatting is done with
+ * the interface's 'transforms'.
+ */
+public class DelimitedConfig {
+	private String delimiter = ",";
+	private String quote = "\"";
+	private String escape;
+	private boolean header = true;
+	private String nullValue = "";
+	private boolean alwaysQuote = false;
+	private String lineSeparator = "\n";
+	private List<String> columns;
+
+	public String getDelimiter() {
+		return delimiter;
+	}
+
+	public void setDelimiter(String delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	public String getQuote() {
+		return quote;
+	}
+
+	public void setQuote(String quote) {
+		this.quote = quote;
+	}
+
+	public String getEscape() {
+		return escape;
+	}
+
+	public void setEscape(String escape) {
+		this.escape = escape;
+	}
+
+	public boolean isHeader() {
+		return header;
+	}
+
+	public void setHeader(boolean header) {
+		this.header = header;
+	}
+
+	public String getNullValue() {
+		return nullValue;
+	}
+
+	public void setNullValue(String nullValue) {
+		this.nullValue = nullValue;
+	}
+
+	public boolean isAlwaysQuote() {
+		return alwaysQuote;
+	}
+
+	public void setAlwaysQuote(boolean alwaysQuote) {
+		this.alwaysQuote = alwaysQuote;
+	}
+
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	public void setLineSeparator(String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+	}
+
+	/**
+	 * Output columns in order; null or empty writes every query column in query order.
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	public void setColumns(List<String> columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public String toString() {
+		return "DelimitedConfig{" +
+				"delimiter='" + delimiter + '\'' +
+				", quote='" + quote + '\'' +
+				", escape='" + escape + '\'' +
+				", header=" + header +
+				", nullValue='" + nullValue + '\'' +
+				", alwaysQuote=" + alwaysQuote +
+				", columns=" + columns +
+				'}';
+	}
+}
@@ -0,0 +1,130 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The 'fixedWidth' section of an interface with outputFormat FIXED_WIDTH.
+ * <p>
+ * Example (150-byte records with a header and a trailer):
+ * <pre>
+ * "fixedWidth": {
+ *   "encoding": "ISO-8859-1",
+ *   "recordLength": 150,
+ *   "fields": [
+ *     { "value": "D",             "offset": 0,  "length": 1 },
+ *     { "column": "account_no",   "offset": 1,  "length": 16 },
+ *     { "column": "amount",       "offset": 17, "length": 13, "picture": "S9(9)V99" },
+ *     { "column": "value_date",   "offset": 30, "length": 8,  "pattern": "yyyyMMdd" }
+ *   ],
+ *   "header": [
+ *     { "value": "H",             "offset": 0,  "length": 1 },
+ *     { "column": "runDate",      "offset": 1,  "length": 8,  "pattern": "yyyyMMdd" },
+ *     { "column": "requestId",    "offset": 9,  "length": 36 }
+ *   ],
+ *   "trailer": [
+ *     { "value": "T",             "offset": 0,  "length": 1 },
+ *     { "column": "recordCount",  "offset": 1,  "length": 9,  "picture": "9(9)" }
+ *   ]
+ * }
+ * </pre>
+ * Header and trailer columns are job metadata: every job parameter (jobId, requestId, ...),
+ * plus interfaceType, fileName, runDate and recordCount.
+ * <p>
+ * For mainframe consumers set an EBCDIC 'encoding' (e.g. "IBM037", "IBM1047"), an empty 'lineSeparator',
+ * and copy the copybook clauses: {@code "picture": "S9(7)V99 COMP-3"}, {@code "sign": "TRAILING"} for
+ * signed zoned decimals, {@code "picture": "X(20)"} for text.
+ */
+public class FixedWidthConfig {
+	private String encoding = "UTF-8";
+	private Integer recordLength;
+	private String lineSeparator = "\n";
+	private List<FixedWidthField> fields;
+	private List<FixedWidthField> header;
+	private List<FixedWidthField> trailer;
+
+	public String getEncoding() {
+		return encoding;
+	}
+
+	public void setEncoding(String encoding) {
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Bytes per record, excluding the line separator; null uses the end of the last field.
+	 */
+	public Integer getRecordLength() {
+		return recordLength;
+	}
+
+	public void setRecordLength(Integer recordLength) {
+		this.recordLength = recordLength;
+	}
+
+	/**
+	 * Written after every record; empty for unseparated records.
+	 */
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	public void setLineSeparator(String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+	}
+
+	public List<FixedWidthField> getFields() {
+		return fields;
+	}
+
+	public void setFields(List<FixedWidthField> fields) {
+		this.fields = fields;
+	}
+
+	public List<FixedWidthField> getHeader() {
+		return header;
+	}
+
+	public void setHeader(List<FixedWidthField> header) {
+		this.header = header;
+	}
+
+	public List<FixedWidthField> getTrailer() {
+		return trailer;
+	}
+
+	public void setTrailer(List<FixedWidthField> trailer) {
+		this.trailer = trailer;
+	}
+
+	/**
+	 * The configured record length, or the end of the furthest field of any record type.
+	 */
+	public int getEffectiveRecordLength() {
+		if (recordLength != null) {
+			return recordLength;
+		}
+		int length = 0;
+		for (List<FixedWidthField> type : Arrays.asList(fields, header, trailer)) {
+			if (type != null) {
+				for (FixedWidthField field : type) {
+					if (field.getOffset() != null && field.getLength() != null) {
+						length = Math.max(length, field.getOffset() + field.getLength());
+					}
+				}
+			}
+		}
+		return length;
+	}
+
+	@Override
+	public String toString() {
+		return "FixedWidthConfig{" +
+				"encoding='" + encoding + '\'' +
+				", recordLength=" + recordLength +
+				", fields=" + fields +
+				", header=" + header +
+				", trailer=" + trailer +
+				'}';
+	}
+}
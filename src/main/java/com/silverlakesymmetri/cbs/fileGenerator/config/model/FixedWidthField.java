@@ -0,0 +1,143 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+/**
+ * One field of a fixed-width record: a byte slice [offset, offset + length) filled from a column
+ * (detail records: a query column; header/trailer: a job metadata key) or a constant 'value'.
+ * <p>
+ * Text is left-aligned and padded with 'padChar' unless 'align' is RIGHT. Values longer than the
+ * field fail the record unless 'truncate' is set. Fields with a numeric 'picture' (see {@link CobolPicture})
+ * are zero-filled, rounded half-up to the picture's scale, and never truncated; 'sign' places the sign
+ * of signed DISPLAY pictures. 'pattern' formats date/time values (DateTimeFormatter syntax).
+ * <p>
+ * Copybook-style layouts may omit 'offset' (the field follows the previous one) and, with a picture,
+ * 'length'; the loader fills both in.
+ */
+public class FixedWidthField {
+	private String column;
+	private String value;
+	private Integer offset;
+	private Integer length;
+	private Align align = Align.LEFT;
+	private String padChar = " ";
+	private String picture;
+	private Sign sign = Sign.LEADING_SEPARATE;
+	private String pattern;
+	private boolean truncate = false;
+
+	public String getColumn() {
+		return column;
+	}
+
+	public void setColumn(String column) {
+		this.column = column;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public void setValue(String value) {
+		this.value = value;
+	}
+
+	public Integer getOffset() {
+		return offset;
+	}
+
+	public void setOffset(Integer offset) {
+		this.offset = offset;
+	}
+
+	public Integer getLength() {
+		return length;
+	}
+
+	public void setLength(Integer length) {
+		this.length = length;
+	}
+
+	public Align getAlign() {
+		return align;
+	}
+
+	public void setAlign(Align align) {
+		this.align = align != null ? align : Align.LEFT;
+	}
+
+	public String getPadChar() {
+		return padChar;
+	}
+
+	public void setPadChar(String padChar) {
+		this.padChar = padChar;
+	}
+
+	public String getPicture() {
+		return picture;
+	}
+
+	public void setPicture(String picture) {
+		this.picture = picture;
+	}
+
+	public Sign getSign() {
+		return sign;
+	}
+
+	public void setSign(Sign sign) {
+		this.sign = sign != null ? sign : Sign.LEADING_SEPARATE;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	public void setPattern(String pattern) {
+		this.pattern = pattern;
+	}
+
+	public boolean isTruncate() {
+		return truncate;
+	}
+
+	public void setTruncate(boolean truncate) {
+		this.truncate = truncate;
+	}
+
+	@Override
+	public String toString() {
+		return "FixedWidthField{" +
+				"column='" + column + '\'' +
+				", value='" + value + '\'' +
+				", offset=" + offset +
+				", length=" + length +
+				", align=" + align +
+				", padChar='" + padChar + '\'' +
+				", picture='" + picture + '\'' +
+				", sign=" + sign +
+				", pattern='" + pattern + '\'' +
+				", truncate=" + truncate +
+				'}';
+	}
+
+	public enum Align {
+		LEFT,
+		RIGHT
+	}
+
+	/**
+	 * Sign of a signed DISPLAY picture: a separate '+'/'-' byte, or zoned (overpunched) into the zone
+	 * of the first or last digit as COBOL's {@code SIGN LEADING}/{@code TRAILING}. TRAILING is the
+	 * COBOL default for {@code S9} DISPLAY fields. COMP-3 always carries the sign in its last nibble.
+	 */
+	public enum Sign {
+		LEADING_SEPARATE,
+		TRAILING_SEPARATE,
+		LEADING,
+		TRAILING;
+
+		public boolean isSeparate() {
+			return this == LEADING_SEPARATE || this == TRAILING_SEPARATE;
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package com.silverlakesymmetri.cbs.fileGenerator.config.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -10,6 +13,10 @@ public class InterfaceConfig {
 	/* ================= Defaults ================= */
 	public static final OutputFormat DEFAULT_OUTPUT_FORMAT = OutputFormat.XML;
 	public static final String DEFAULT_FILE_EXTENSION = OutputFormat.XML.name().toLowerCase(Locale.ROOT);
+	public static final int DEFAULT_PARTITION_COUNT = 1;
+	public static final PartitionStrategy DEFAULT_PARTITION_STRATEGY = PartitionStrategy.MIN_MAX;
+	public static final ReaderMode DEFAULT_READER_MODE = ReaderMode.PAGED;
+	public static final int DEFAULT_COMPRESSION_LEVEL = 6;
 
 	/* ================= Core (Mandatory, Immutable) ================= */
 	private String name;
@@ -22,8 +29,18 @@ public class InterfaceConfig {
 	private String queryFile;
 	private String beanIoMappingFile;
 	private String keySetColumn;
+	private List<String> keySetColumns;
 	private boolean haveHeaders = false;
 	private String streamName;
+	private ReaderMode readerMode = DEFAULT_READER_MODE;
+	private int prefetchPages = 0;
+	private boolean columnar = false;
+	private List<TransformConfig> transforms;
+	private int processingThreads = 1;
+
+	// Partitioned extraction (dynamic interfaces only)
+	private int partitionCount = DEFAULT_PARTITION_COUNT;
+	private PartitionStrategy partitionStrategy = DEFAULT_PARTITION_STRATEGY;
 
 	// XML Related
 	private String xsdSchemaFile;
@@ -31,6 +48,30 @@ public class InterfaceConfig {
 	private String outputFileExtension = DEFAULT_FILE_EXTENSION;
 	private String description;
 
+	// Native DELIMITED writer
+	private DelimitedConfig delimited;
+
+	// Native FIXED_WIDTH writer
+	private FixedWidthConfig fixedWidth;
+
+	// Output compression
+	private Compression compression = Compression.NONE;
+	private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+	private int compressionThreads = 1;
+
+	// Rolling output: 0 = unlimited
+	private long maxFileBytes = 0;
+	private long maxRecordsPerFile = 0;
+
+	// Header/trailer control totals
+	private ControlTotalsConfig controlTotals;
+
+	// Checks on the output bytes while writing
+	private OutputValidationConfig outputValidation;
+
+	// Value-based sharding (dynamic interfaces only)
+	private String shardColumn;
+
 	/* ================= Getters / Setters ================= */
 
 	public void setName(String name) {
@@ -81,6 +122,32 @@ public class InterfaceConfig {
 		this.keySetColumn = keySetColumn;
 	}
 
+	public List<String> getKeySetColumns() {
+		return keySetColumns;
+	}
+
+	public void setKeySetColumns(List<String> keySetColumns) {
+		this.keySetColumns = keySetColumns;
+	}
+
+	/**
+	 * Effective ordered keyset: 'keySetColumns' when set, otherwise the legacy single 'keySetColumn'.
+	 * Empty when the interface has no keyset.
+	 */
+	public List<String> getKeyColumns() {
+		List<String> columns = new ArrayList<>();
+		if (keySetColumns != null && !keySetColumns.isEmpty()) {
+			for (String column : keySetColumns) {
+				if (column != null && !column.trim().isEmpty()) {
+					columns.add(column.trim());
+				}
+			}
+		} else if (keySetColumn != null && !keySetColumn.trim().isEmpty()) {
+			columns.add(keySetColumn.trim());
+		}
+		return Collections.unmodifiableList(columns);
+	}
+
 	public boolean isHaveHeaders() {
 		return haveHeaders;
 	}
@@ -97,6 +164,194 @@ public class InterfaceConfig {
 		this.streamName = streamName;
 	}
 
+	public ReaderMode getReaderMode() {
+		return readerMode;
+	}
+
+	public void setReaderMode(ReaderMode readerMode) {
+		this.readerMode = readerMode != null ? readerMode : DEFAULT_READER_MODE;
+	}
+
+	public int getPrefetchPages() {
+		return prefetchPages;
+	}
+
+	public void setPrefetchPages(int prefetchPages) {
+		this.prefetchPages = prefetchPages;
+	}
+
+	/**
+	 * True when the reader hands out row views over columnar RecordBatch pages.
+	 */
+	public boolean isColumnar() {
+		return columnar;
+	}
+
+	public void setColumnar(boolean columnar) {
+		this.columnar = columnar;
+	}
+
+	/**
+	 * Per-record transforms in application order. Null means the default (trim text columns);
+	 * an empty list disables processing.
+	 */
+	public List<TransformConfig> getTransforms() {
+		return transforms;
+	}
+
+	public void setTransforms(List<TransformConfig> transforms) {
+		this.transforms = transforms;
+	}
+
+	/**
+	 * Worker threads for the processing stage; 1 processes items on the step thread.
+	 */
+	public int getProcessingThreads() {
+		return processingThreads;
+	}
+
+	public void setProcessingThreads(int processingThreads) {
+		this.processingThreads = processingThreads;
+	}
+
+	/**
+	 * Layout of DELIMITED output; null uses the DelimitedConfig defaults (CSV with a header row).
+	 */
+	public DelimitedConfig getDelimited() {
+		return delimited;
+	}
+
+	public void setDelimited(DelimitedConfig delimited) {
+		this.delimited = delimited;
+	}
+
+	/**
+	 * Record layouts of FIXED_WIDTH output; required for that format.
+	 */
+	public FixedWidthConfig getFixedWidth() {
+		return fixedWidth;
+	}
+
+	public void setFixedWidth(FixedWidthConfig fixedWidth) {
+		this.fixedWidth = fixedWidth;
+	}
+
+	public Compression getCompression() {
+		return compression;
+	}
+
+	public void setCompression(Compression compression) {
+		this.compression = compression != null ? compression : Compression.NONE;
+	}
+
+	/**
+	 * Deflate level 1 (fastest) to 9 (smallest).
+	 */
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Threads compressing blocks of the output in parallel; 1 compresses on the writing thread.
+	 */
+	public int getCompressionThreads() {
+		return compressionThreads;
+	}
+
+	public void setCompressionThreads(int compressionThreads) {
+		this.compressionThreads = compressionThreads;
+	}
+
+	/**
+	 * Roll to a new part file before a chunk would take the current part past this size on disk; 0 = unlimited.
+	 */
+	public long getMaxFileBytes() {
+		return maxFileBytes;
+	}
+
+	public void setMaxFileBytes(long maxFileBytes) {
+		this.maxFileBytes = maxFileBytes;
+	}
+
+	/**
+	 * Roll to a new part file before a chunk would take the current part past this many records; 0 = unlimited.
+	 */
+	public long getMaxRecordsPerFile() {
+		return maxRecordsPerFile;
+	}
+
+	public void setMaxRecordsPerFile(long maxRecordsPerFile) {
+		this.maxRecordsPerFile = maxRecordsPerFile;
+	}
+
+	/**
+	 * True when the output is split into numbered part files listed in a manifest.
+	 */
+	public boolean isRolling() {
+		return maxFileBytes > 0 || maxRecordsPerFile > 0;
+	}
+
+	public ControlTotalsConfig getControlTotals() {
+		return controlTotals;
+	}
+
+	public void setControlTotals(ControlTotalsConfig controlTotals) {
+		this.controlTotals = controlTotals;
+	}
+
+	public OutputValidationConfig getOutputValidation() {
+		return outputValidation;
+	}
+
+	public void setOutputValidation(OutputValidationConfig outputValidation) {
+		this.outputValidation = outputValidation;
+	}
+
+	/**
+	 * Column whose value picks the output file of each record: one file per distinct value, from one scan.
+	 */
+	public String getShardColumn() {
+		return shardColumn;
+	}
+
+	public void setShardColumn(String shardColumn) {
+		this.shardColumn = shardColumn;
+	}
+
+	public boolean isSharded() {
+		return shardColumn != null && !shardColumn.trim().isEmpty();
+	}
+
+	public int getPartitionCount() {
+		return partitionCount;
+	}
+
+	public void setPartitionCount(int partitionCount) {
+		this.partitionCount = partitionCount;
+	}
+
+	public PartitionStrategy getPartitionStrategy() {
+		return partitionStrategy;
+	}
+
+	public void setPartitionStrategy(PartitionStrategy partitionStrategy) {
+		if (partitionStrategy == PartitionStrategy.SAMPLED) {
+			partitionStrategy = PartitionStrategy.QUANTILE;
+		}
+		this.partitionStrategy = partitionStrategy != null ? partitionStrategy : DEFAULT_PARTITION_STRATEGY;
+	}
+
+	/**
+	 * True when the dynamic job should split the keyset range across parallel worker steps.
+	 */
+	public boolean isPartitioned() {
+		return dynamic && partitionCount > 1 && !getKeyColumns().isEmpty();
+	}
+
 	public String getXsdSchemaFile() {
 		return xsdSchemaFile;
 	}
@@ -140,8 +395,26 @@ public class InterfaceConfig {
 				", queryFile='" + queryFile + '\'' +
 				", beanIoMappingFile='" + beanIoMappingFile + '\'' +
 				", keySetColumn='" + keySetColumn + '\'' +
+				", keySetColumns=" + keySetColumns +
 				", haveHeaders=" + haveHeaders +
 				", streamName='" + streamName + '\'' +
+				", readerMode=" + readerMode +
+				", prefetchPages=" + prefetchPages +
+				", columnar=" + columnar +
+				", transforms=" + transforms +
+				", processingThreads=" + processingThreads +
+				", delimited=" + delimited +
+				", fixedWidth=" + fixedWidth +
+				", compression=" + compression +
+				", compressionLevel=" + compressionLevel +
+				", compressionThreads=" + compressionThreads +
+				", maxFileBytes=" + maxFileBytes +
+				", maxRecordsPerFile=" + maxRecordsPerFile +
+				", controlTotals=" + controlTotals +
+				", outputValidation=" + outputValidation +
+				", shardColumn='" + shardColumn + '\'' +
+				", partitionCount=" + partitionCount +
+				", partitionStrategy=" + partitionStrategy +
 				", xsdSchemaFile='" + xsdSchemaFile + '\'' +
 				", outputFormat=" + outputFormat +
 				", outputFileExtension='" + outputFileExtension + '\'' +
@@ -150,11 +423,66 @@ public class InterfaceConfig {
 	}
 
 	/* ================= Enum ================= */
+
+	/**
+	 * JSON writes pretty-printed objects separated by spaces, JSON_COMPACT a single compact array,
+	 * NDJSON one compact object per line. DELIMITED is the native CSV/PSV writer ('delimited' section),
+	 * FIXED_WIDTH the native fixed-length writer ('fixedWidth' section); CSV, TXT and FIXED go through BeanIO.
+	 */
 	public enum OutputFormat {
 		XML,
 		CSV,
 		TXT,
 		JSON,
+		JSON_COMPACT,
+		NDJSON,
+		DELIMITED,
+		FIXED_WIDTH,
 		FIXED
 	}
+
+	/**
+	 * Compression of the output file. GZIP writes concatenated gzip members, one per chunk
+	 * checkpoint, so byte-offset restarts and segment merges keep the file decodable;
+	 * '.gz' is appended to the file name.
+	 */
+	public enum Compression {
+		NONE(""),
+		GZIP(".gz");
+
+		private final String fileSuffix;
+
+		Compression(String fileSuffix) {
+			this.fileSuffix = fileSuffix;
+		}
+
+		public String getFileSuffix() {
+			return fileSuffix;
+		}
+	}
+
+	/**
+	 * How the keyset range is split into partitions.
+	 * MIN_MAX splits [MIN, MAX] of a numeric key into equal-width slices: one MIN/MAX query.
+	 * QUANTILE cuts at NTILE quantiles of the key, which balances skewed or non-numeric keys, but ranks
+	 * every row: a full scan and sort of the interface query on one session before any worker starts.
+	 * The query is an inline view, so table sampling (SAMPLE / TABLESAMPLE) cannot be applied to it.
+	 * SAMPLED is the former name of QUANTILE.
+	 */
+	public enum PartitionStrategy {
+		MIN_MAX,
+		QUANTILE,
+		@Deprecated
+		SAMPLED
+	}
+
+	/**
+	 * How DynamicItemReader pulls rows.
+	 * PAGED re-runs the keyset query through JPA for every page.
+	 * CURSOR streams the whole result over one forward-only JDBC cursor held open for the step.
+	 */
+	public enum ReaderMode {
+		PAGED,
+		CURSOR
+	}
 }
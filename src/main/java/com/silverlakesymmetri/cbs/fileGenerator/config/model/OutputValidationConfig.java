@@ -0,0 +1,140 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+/**
+ * The 'outputValidation' section of an interface: checks run on the output bytes as the writer produces them
+ * (see {@link com.silverlakesymmetri.cbs.fileGenerator.validation.OutputValidator}), so a malformed record is
+ * caught without another scan of the file.
+ * <p>
+ * Example (BeanIO fixed-length feed, checking one record in a hundred after the first million):
+ * <pre>
+ * "outputValidation": {
+ *   "recordLength": 240,
+ *   "sampleRate": 0.01,
+ *   "sampleAfterRecords": 1000000
+ * }
+ * </pre>
+ * Checks by output format:
+ * <ul>
+ * <li>FIXED_WIDTH: every record is 'recordLength' bytes plus the line separator (defaults: the 'fixedWidth' layout)</li>
+ * <li>DELIMITED: quoting is well formed and every record has 'fieldCount' fields (default: the 'delimited'
+ * columns, or the first line of the file)</li>
+ * <li>NDJSON: every line is a JSON value valid against 'jsonSchemaFile'</li>
+ * <li>BeanIO: a record-length check when 'recordLength' is set, a delimited check when 'fieldCount' or
+ * 'delimiter' is set</li>
+ * </ul>
+ * A violation in a chunk's records fails that write, which the step's skip policy skips like an invalid record;
+ * one in the header fails the step, and one in the trailer, written after the last chunk, is logged.
+ */
+public class OutputValidationConfig {
+	private Integer recordLength;
+	private String lineSeparator;
+	private Integer fieldCount;
+	private String delimiter;
+	private String quote;
+	private String escape;
+	private String jsonSchemaFile;
+	private double sampleRate = 1.0;
+	private long sampleAfterRecords = 0;
+
+	/**
+	 * Bytes of every record, line separator excluded.
+	 */
+	public Integer getRecordLength() {
+		return recordLength;
+	}
+
+	public void setRecordLength(Integer recordLength) {
+		this.recordLength = recordLength;
+	}
+
+	/**
+	 * Ends every record; defaults to the format's own separator, else "\n".
+	 */
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	public void setLineSeparator(String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+	}
+
+	public Integer getFieldCount() {
+		return fieldCount;
+	}
+
+	public void setFieldCount(Integer fieldCount) {
+		this.fieldCount = fieldCount;
+	}
+
+	public String getDelimiter() {
+		return delimiter;
+	}
+
+	public void setDelimiter(String delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	public String getQuote() {
+		return quote;
+	}
+
+	public void setQuote(String quote) {
+		this.quote = quote;
+	}
+
+	public String getEscape() {
+		return escape;
+	}
+
+	public void setEscape(String escape) {
+		this.escape = escape;
+	}
+
+	/**
+	 * JSON Schema every NDJSON line must satisfy, looked up like XSD files (external directory, then classpath).
+	 */
+	public String getJsonSchemaFile() {
+		return jsonSchemaFile;
+	}
+
+	public void setJsonSchemaFile(String jsonSchemaFile) {
+		this.jsonSchemaFile = jsonSchemaFile;
+	}
+
+	/**
+	 * Share of records checked once 'sampleAfterRecords' have been, spread evenly: 1.0 checks them all.
+	 */
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	public void setSampleRate(double sampleRate) {
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Records at the start of each file that are always checked.
+	 */
+	public long getSampleAfterRecords() {
+		return sampleAfterRecords;
+	}
+
+	public void setSampleAfterRecords(long sampleAfterRecords) {
+		this.sampleAfterRecords = sampleAfterRecords;
+	}
+
+	@Override
+	public String toString() {
+		return "OutputValidationConfig{" +
+				"recordLength=" + recordLength +
+				", lineSeparator='" + lineSeparator + '\'' +
+				", fieldCount=" + fieldCount +
+				", delimiter='" + delimiter + '\'' +
+				", quote='" + quote + '\'' +
+				", escape='" + escape + '\'' +
+				", jsonSchemaFile='" + jsonSchemaFile + '\'' +
+				", sampleRate=" + sampleRate +
+				", sampleAfterRecords=" + sampleAfterRecords +
+				'}';
+	}
+}
@@ -0,0 +1,149 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+/**
+ * One entry of an interface's 'transforms' list, applied to each record in list order.
+ * <p>
+ * Example:
+ * <pre>
+ * "transforms": [
+ *   { "column": "*",          "type": "TRIM" },
+ *   { "column": "branch_code", "type": "PAD_LEFT", "length": 5, "padChar": "0" },
+ *   { "column": "amount",      "type": "FORMAT_NUMBER", "pattern": "0.00" },
+ *   { "column": "value_date",  "type": "FORMAT_DATE", "pattern": "yyyyMMdd" },
+ *   { "column": "account_no",  "type": "MASK", "keepLast": 4 }
+ * ]
+ * </pre>
+ * Columns are resolved against the query's result columns at step start.
+ */
+public class TransformConfig {
+	public static final String ALL_COLUMNS = "*";
+
+	private String column;
+	private Type type;
+	private Integer length;
+	private int start = 0;
+	private String padChar = " ";
+	private String value;
+	private String pattern;
+	private int keepFirst = 0;
+	private int keepLast = 4;
+	private String maskChar = "*";
+
+	public String getColumn() {
+		return column;
+	}
+
+	public void setColumn(String column) {
+		this.column = column;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public Integer getLength() {
+		return length;
+	}
+
+	public void setLength(Integer length) {
+		this.length = length;
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public void setStart(int start) {
+		this.start = start;
+	}
+
+	public String getPadChar() {
+		return padChar;
+	}
+
+	public void setPadChar(String padChar) {
+		this.padChar = padChar;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public void setValue(String value) {
+		this.value = value;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	public void setPattern(String pattern) {
+		this.pattern = pattern;
+	}
+
+	public int getKeepFirst() {
+		return keepFirst;
+	}
+
+	public void setKeepFirst(int keepFirst) {
+		this.keepFirst = keepFirst;
+	}
+
+	public int getKeepLast() {
+		return keepLast;
+	}
+
+	public void setKeepLast(int keepLast) {
+		this.keepLast = keepLast;
+	}
+
+	public String getMaskChar() {
+		return maskChar;
+	}
+
+	public void setMaskChar(String maskChar) {
+		this.maskChar = maskChar;
+	}
+
+	@Override
+	public String toString() {
+		return "TransformConfig{" +
+				"column='" + column + '\'' +
+				", type=" + type +
+				", length=" + length +
+				", start=" + start +
+				", padChar='" + padChar + '\'' +
+				", value='" + value + '\'' +
+				", pattern='" + pattern + '\'' +
+				", keepFirst=" + keepFirst +
+				", keepLast=" + keepLast +
+				", maskChar='" + maskChar + '\'' +
+				'}';
+	}
+
+	/**
+	 * TRIM and UPPER apply to String values only and accept column "*" (every text column).
+	 * CONSTANT overwrites the column; select a placeholder (e.g. {@code NULL AS SOURCE_SYSTEM})
+	 * to add a new one.
+	 */
+	public enum Type {
+		TRIM,
+		PAD_LEFT,
+		PAD_RIGHT,
+		SUBSTRING,
+		UPPER,
+		DEFAULT_IF_NULL,
+		FORMAT_NUMBER,
+		FORMAT_DATE,
+		MASK,
+		CONSTANT;
+
+		public boolean allowsAllColumns() {
+			return this == TRIM || this == UPPER;
+		}
+	}
+}
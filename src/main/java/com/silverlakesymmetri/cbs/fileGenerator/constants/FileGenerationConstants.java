@@ -12,6 +12,22 @@ public final class FileGenerationConstants {
 
 	public static final String FILE_GEN_PART_FILE_PATH = "partFilePath";
 	public static final String FILE_GEN_TOTAL_RECORD_COUNT = "totalRecordCount";
+	// Rolled or sharded output: the parts closed so far (step context) / every file of the output (job context)
+	public static final String FILE_GEN_OUTPUT_PARTS = "outputParts";
+	public static final String MANIFEST_EXTENSION = ".manifest";
+	// Checksum of a finished output file, next to it until finalization moves both
+	public static final String SHA_PART_EXTENSION = ".sha.part";
+	// Job context flag: the output was validated against its XSD while it was written
+	public static final String FILE_GEN_XSD_VALIDATED_INLINE = "xsdValidatedInline";
+	// Job context flag: the writer could not finish the output (footer, header totals); the validation step fails the job
+	public static final String FILE_GEN_OUTPUT_INCOMPLETE = "outputIncomplete";
+
+	// Partitioned extraction (stored in each worker step's ExecutionContext)
+	public static final String PARTITION_INDEX = "dynamic.partition.index";
+	public static final String PARTITION_LOWER_BOUND = "dynamic.partition.lowerBound";
+	public static final String PARTITION_UPPER_BOUND = "dynamic.partition.upperBound";
+	public static final String PARTITION_KEY_NUMERIC = "dynamic.partition.keyNumeric";
+	public static final String PARTITION_SEGMENT_FILE_PATH = "dynamic.partition.segmentFilePath";
 	public static final String FILE_GEN_GROUP = "file-generation-group";
 	public static final String FILE_GEN_ADHOC_JOB = "fileGenAdHocJob";
 	public static final String FILE_GEN_POLL_JOB = "fileGenPollJob";
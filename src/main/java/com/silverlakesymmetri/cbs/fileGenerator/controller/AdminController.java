@@ -2,9 +2,12 @@ package com.silverlakesymmetri.cbs.fileGenerator.controller;
 
 import com.silverlakesymmetri.cbs.fileGenerator.batch.GenericBeanIOWriter;
 import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ChecksumVerification;
 import com.silverlakesymmetri.cbs.fileGenerator.dto.PagedResponse;
 import com.silverlakesymmetri.cbs.fileGenerator.exception.ConflictException;
+import com.silverlakesymmetri.cbs.fileGenerator.exception.ForbiddenException;
 import com.silverlakesymmetri.cbs.fileGenerator.exception.NotFoundException;
+import com.silverlakesymmetri.cbs.fileGenerator.service.FileFinalizationService;
 import com.silverlakesymmetri.cbs.fileGenerator.validation.XsdValidator;
 import org.quartz.*;
 import org.quartz.impl.matchers.GroupMatcher;
@@ -16,9 +19,16 @@ import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.*;
@@ -32,17 +42,23 @@ public class AdminController {
 	private final Scheduler scheduler;
 	private final XsdValidator xsdValidator;
 	private final InterfaceConfigLoader interfaceConfigLoader;
+	private final FileFinalizationService fileFinalizationService;
+
+	@Value("${file.generation.output-directory}")
+	private String outputDirectory;
 
 	@Autowired
 	public AdminController(JobLauncher jobLauncher,
 						   @Qualifier("cleanupJob") Job cleanupJob,
 						   Scheduler scheduler, XsdValidator xsdValidator,
-						   InterfaceConfigLoader interfaceConfigLoader) {
+						   InterfaceConfigLoader interfaceConfigLoader,
+						   FileFinalizationService fileFinalizationService) {
 		this.jobLauncher = jobLauncher;
 		this.cleanupJob = cleanupJob;
 		this.scheduler = scheduler;
 		this.xsdValidator = xsdValidator;
 		this.interfaceConfigLoader = interfaceConfigLoader;
+		this.fileFinalizationService = fileFinalizationService;
 	}
 
 	@PostMapping("/cleanup")
@@ -93,6 +109,43 @@ public class AdminController {
 		return ResponseEntity.ok("Configuration and Caches reloaded successfully.");
 	}
 
+	/**
+	 * Checks output files against their SHA256: one file ({@code file}, relative to the output directory)
+	 * or, without it, every finalized file in the output directory. Files with a segment manifest are
+	 * verified segment by segment in parallel unless {@code full} forces a whole-file hash.
+	 */
+	@PostMapping("/verify")
+	public ResponseEntity<List<ChecksumVerification>> verifyChecksums(
+			@RequestParam(value = "file", required = false) String file,
+			@RequestParam(value = "full", defaultValue = "false") boolean full) throws IOException {
+		Path basePath;
+		Path target;
+		try {
+			basePath = Paths.get(outputDirectory.trim()).toAbsolutePath().normalize();
+			target = file == null || file.trim().isEmpty() ? basePath : basePath.resolve(file.trim()).normalize();
+		} catch (InvalidPathException e) {
+			throw new ForbiddenException("Invalid file path");
+		}
+		if (!target.startsWith(basePath)) {
+			logger.warn("Verify request outside the output directory: {}", file);
+			throw new ForbiddenException("Invalid file path");
+		}
+		// The lexical check above says nothing about where a link points
+		if (Files.isSymbolicLink(target)) {
+			logger.warn("Verify request for a symbolic link: {}", file);
+			throw new ForbiddenException("Invalid file path");
+		}
+		if (!Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+			throw new NotFoundException("File not found: " + file);
+		}
+
+		logger.info("Admin request: verifying checksums of {} (full={})", target, full);
+		if (Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS)) {
+			return ResponseEntity.ok(fileFinalizationService.verifyDirectory(target, full));
+		}
+		return ResponseEntity.ok(Collections.singletonList(fileFinalizationService.verify(target, full)));
+	}
+
 	/**
 	 * Manually trigger a specific File Generation via Quartz.
 	 * This allows the admin to bypass the cron schedule.
@@ -8,6 +8,7 @@ import com.silverlakesymmetri.cbs.fileGenerator.dto.PagedResponse;
 import com.silverlakesymmetri.cbs.fileGenerator.entity.FileGeneration;
 import com.silverlakesymmetri.cbs.fileGenerator.exception.*;
 import com.silverlakesymmetri.cbs.fileGenerator.service.BatchJobLauncherService;
+import com.silverlakesymmetri.cbs.fileGenerator.service.FileDownloadService;
 import com.silverlakesymmetri.cbs.fileGenerator.service.FileGenerationService;
 import com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationStatus;
 import com.silverlakesymmetri.cbs.fileGenerator.service.RateLimiterService;
@@ -18,16 +19,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -51,6 +52,7 @@ public class FileGenerationController {
 	private final BatchJobLauncherService batchJobLauncherService;
 	private final InterfaceConfigLoader interfaceConfigLoader;
 	private final RateLimiterService rateLimiterService;
+	private final FileDownloadService fileDownloadService;
 	private final AtomicBoolean outputDirValid = new AtomicBoolean(false);
 	private volatile Path outputDirPath = null;
 	private final AtomicBoolean initialized = new AtomicBoolean(false);
@@ -63,11 +65,13 @@ public class FileGenerationController {
 			FileGenerationService fileGenerationService,
 			BatchJobLauncherService batchJobLauncherService,
 			InterfaceConfigLoader interfaceConfigLoader,
-			RateLimiterService rateLimiterService) {
+			RateLimiterService rateLimiterService,
+			FileDownloadService fileDownloadService) {
 		this.fileGenerationService = fileGenerationService;
 		this.batchJobLauncherService = batchJobLauncherService;
 		this.interfaceConfigLoader = interfaceConfigLoader;
 		this.rateLimiterService = rateLimiterService;
+		this.fileDownloadService = fileDownloadService;
 	}
 
 	// ==================== Startup Initialization ====================
@@ -143,7 +147,7 @@ public class FileGenerationController {
 
 		// ===== Generate collision-resistant filename =====
 		String ext = interfaceConfig.getOutputFileExtension() != null ? interfaceConfig.getOutputFileExtension() : "txt";
-		String fileName = interfaceType + "_" + UUID.randomUUID() + "." + ext;
+		String fileName = interfaceType + "_" + UUID.randomUUID() + "." + ext + interfaceConfig.getCompression().getFileSuffix();
 
 		// ===== Create file generation record =====
 		FileGeneration fileGen = fileGenerationService.createFileGeneration(
@@ -233,6 +237,24 @@ public class FileGenerationController {
 		target.setOutputFormat(source.getOutputFormat());
 		target.setOutputFileExtension(source.getOutputFileExtension());
 		target.setKeySetColumn(source.getKeySetColumn());
+		target.setKeySetColumns(source.getKeySetColumns());
+		target.setReaderMode(source.getReaderMode());
+		target.setPrefetchPages(source.getPrefetchPages());
+		target.setColumnar(source.isColumnar());
+		target.setTransforms(source.getTransforms());
+		target.setProcessingThreads(source.getProcessingThreads());
+		target.setDelimited(source.getDelimited());
+		target.setFixedWidth(source.getFixedWidth());
+		target.setCompression(source.getCompression());
+		target.setCompressionLevel(source.getCompressionLevel());
+		target.setCompressionThreads(source.getCompressionThreads());
+		target.setMaxFileBytes(source.getMaxFileBytes());
+		target.setMaxRecordsPerFile(source.getMaxRecordsPerFile());
+		target.setControlTotals(source.getControlTotals());
+		target.setOutputValidation(source.getOutputValidation());
+		target.setShardColumn(source.getShardColumn());
+		target.setPartitionCount(source.getPartitionCount());
+		target.setPartitionStrategy(source.getPartitionStrategy());
 		target.setEnabled(source.isEnabled());
 		target.setDescription(source.getDescription());
 
@@ -240,9 +262,10 @@ public class FileGenerationController {
 	}
 
 	@GetMapping("/downloadFileByJobId/{jobId}")
-	public ResponseEntity<Resource> downloadFileByJobId(
+	public ResponseEntity<StreamingResponseBody> downloadFileByJobId(
 			@PathVariable String jobId,
-			@RequestHeader(value = HTTP_HEADER_METADATA_KEY_USER_NAME, required = false) String userName) {
+			@RequestHeader(value = HTTP_HEADER_METADATA_KEY_USER_NAME, required = false) String userName,
+			HttpServletRequest request) {
 		// 1. Directory safety check (Volatile check)
 		if (!outputDirValid.get() || outputDirPath == null) {
 			throw new ConfigurationException("Output storage is unavailable");
@@ -283,18 +306,27 @@ public class FileGenerationController {
 		}
 
 		if (!Files.exists(resolvedPath, LinkOption.NOFOLLOW_LINKS)) {
-			throw new GoneException("File has been archived or deleted from disk");
+			// Rolled output: the job's file is the manifest listing its parts
+			Path manifestPath = resolvedPath.resolveSibling(fileName + MANIFEST_EXTENSION);
+			if (!Files.exists(manifestPath, LinkOption.NOFOLLOW_LINKS)) {
+				throw new GoneException("File has been archived or deleted from disk");
+			}
+			resolvedPath = manifestPath;
+			fileName = manifestPath.getFileName().toString();
 		}
 
-		// 4. Resource Preparation
-		Resource resource = new org.springframework.core.io.FileSystemResource(resolvedPath.toFile());
-
-		// 5. MIME Detection
+		// 4. MIME Detection (compressed output is served as-is, so its SHA matches the download)
 		String contentType = "application/octet-stream";
-		try {
-			contentType = Optional.ofNullable(Files.probeContentType(resolvedPath)).orElse(contentType);
-		} catch (IOException e) {
-			logger.warn("MIME detection failed for {}", fileGen.getFileName());
+		if (fileName.toLowerCase(Locale.ROOT).endsWith(InterfaceConfig.Compression.GZIP.getFileSuffix())) {
+			contentType = "application/gzip";
+		} else if (fileName.endsWith(MANIFEST_EXTENSION)) {
+			contentType = "application/json";
+		} else {
+			try {
+				contentType = Optional.ofNullable(Files.probeContentType(resolvedPath)).orElse(contentType);
+			} catch (IOException e) {
+				logger.warn("MIME detection failed for {}", fileGen.getFileName());
+			}
 		}
 
 		// Encode for RFC 5987
@@ -304,13 +336,13 @@ public class FileGenerationController {
 				"attachment; filename=\"" + fileName + "\"; " +
 						"filename*=UTF-8''" + encodedFileName;
 
-		// 6. Build Response with Range Support
-		return ResponseEntity.ok()
-				.header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-				// Signal to browsers/download managers that we support Range requests
-				.header(HttpHeaders.ACCEPT_RANGES, "bytes")
-				.contentType(MediaType.parseMediaType(contentType))
-				.body(resource);
+		// 5. Zero-copy response with Range/If-Range support, keyed by the file's SHA-256 ETag
+		try {
+			return fileDownloadService.download(resolvedPath, MediaType.parseMediaType(contentType), contentDisposition, request);
+		} catch (IOException e) {
+			logger.error("Failed to read {} for download, jobId={}", resolvedPath, jobId, e);
+			throw new GoneException("File has been archived or deleted from disk");
+		}
 	}
 
 	// ==================== Helper Methods ====================
@@ -0,0 +1,81 @@
+package com.silverlakesymmetri.cbs.fileGenerator.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of checking one output file against its recorded SHA256 (admin verify endpoint).
+ */
+public class ChecksumVerification {
+	private String fileName;
+	private Status status;
+	// FULL: whole file re-hashed against the .sha; SEGMENTS: segments re-hashed against the .sha.segments manifest
+	private String mode;
+	private long bytes;
+	private long elapsedMillis;
+	private List<Integer> mismatchedSegments;
+	private String message;
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	public void setMode(String mode) {
+		this.mode = mode;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public List<Integer> getMismatchedSegments() {
+		return mismatchedSegments;
+	}
+
+	public void setMismatchedSegments(List<Integer> mismatchedSegments) {
+		this.mismatchedSegments = mismatchedSegments;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public boolean isVerified() {
+		return status == Status.VERIFIED;
+	}
+
+	public enum Status {
+		VERIFIED, MISMATCH, NO_CHECKSUM, ERROR
+	}
+}
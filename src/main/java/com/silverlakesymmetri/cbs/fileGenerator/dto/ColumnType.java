@@ -17,6 +17,36 @@ public enum ColumnType {
 		return STRING;
 	}
 
+	/**
+	 * Maps a java.sql.Types code (from ResultSetMetaData) to a ColumnType.
+	 */
+	public static ColumnType fromSqlType(int sqlType) {
+		switch (sqlType) {
+			case java.sql.Types.TINYINT:
+			case java.sql.Types.SMALLINT:
+			case java.sql.Types.INTEGER:
+			case java.sql.Types.BIGINT:
+				return INTEGER;
+			case java.sql.Types.NUMERIC:
+			case java.sql.Types.DECIMAL:
+			case java.sql.Types.FLOAT:
+			case java.sql.Types.REAL:
+			case java.sql.Types.DOUBLE:
+				return DECIMAL;
+			case java.sql.Types.BIT:
+			case java.sql.Types.BOOLEAN:
+				return BOOLEAN;
+			case java.sql.Types.DATE:
+			case java.sql.Types.TIME:
+			case java.sql.Types.TIMESTAMP:
+			case java.sql.Types.TIME_WITH_TIMEZONE:
+			case java.sql.Types.TIMESTAMP_WITH_TIMEZONE:
+				return TIMESTAMP;
+			default:
+				return STRING;
+		}
+	}
+
 	public boolean isNumeric() {
 		return this == INTEGER || this == DECIMAL;
 	}
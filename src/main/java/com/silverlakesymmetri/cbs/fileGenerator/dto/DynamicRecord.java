@@ -2,13 +2,57 @@ package com.silverlakesymmetri.cbs.fileGenerator.dto;
 
 import java.util.*;
 
+/**
+ * One row, exposed as a Map keyed by column name.
+ * Backed either by its own Object[] or, as a row view, by a columnar RecordBatch.
+ */
 public class DynamicRecord extends AbstractMap<String, Object> {
 	private final RecordSchema schema;
 	private final Object[] values;
+	private final RecordBatch batch;
+	private final int row;
 
 	public DynamicRecord(RecordSchema schema) {
 		this.schema = schema;
 		this.values = new Object[schema.size()];
+		this.batch = null;
+		this.row = -1;
+	}
+
+	/**
+	 * Row view over a RecordBatch; reads and writes go straight to the batch columns.
+	 */
+	public DynamicRecord(RecordBatch batch, int row) {
+		this.schema = batch.getSchema();
+		this.values = null;
+		this.batch = batch;
+		this.row = row;
+	}
+
+	/**
+	 * The backing batch, or null when this record owns its values.
+	 */
+	public RecordBatch getBatch() {
+		return batch;
+	}
+
+	public int getRowIndex() {
+		return row;
+	}
+
+	public RecordSchema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * A record owning a copy of this record's values; writes to it never reach this record or its batch.
+	 */
+	public DynamicRecord copy() {
+		DynamicRecord copy = new DynamicRecord(schema);
+		for (int i = 0; i < schema.size(); i++) {
+			copy.values[i] = load(i);
+		}
+		return copy;
 	}
 
 	public void setValue(String name, Object value) {
@@ -16,24 +60,60 @@ public class DynamicRecord extends AbstractMap<String, Object> {
 		if (idx == -1) {
 			throw new IllegalArgumentException("Unknown column name: " + name);
 		}
-		values[idx] = value;
+		store(idx, value);
 	}
 
 	public void setValue(int index, Object value) {
-		if (index < 0 || index >= values.length) {
+		if (index < 0 || index >= schema.size()) {
 			throw new IndexOutOfBoundsException(
-					"Invalid column index " + index + ". Must be between 0 and " + (values.length - 1)
+					"Invalid column index " + index + ". Must be between 0 and " + (schema.size() - 1)
 			);
 		}
-		values[index] = value;
+		store(index, value);
+	}
+
+	/**
+	 * Value by column position; the fast path for writers (no name lookup).
+	 */
+	public Object getValue(int index) {
+		if (index < 0 || index >= schema.size()) {
+			throw new IndexOutOfBoundsException(
+					"Invalid column index " + index + ". Must be between 0 and " + (schema.size() - 1)
+			);
+		}
+		return load(index);
+	}
+
+	/**
+	 * Calls the consumer for every non-null column, in schema order.
+	 */
+	public <E extends Exception> void forEachNonNull(IndexedConsumer<E> consumer) throws E {
+		for (int i = 0; i < schema.size(); i++) {
+			Object value = load(i);
+			if (value != null) {
+				consumer.accept(i, value);
+			}
+		}
+	}
+
+	private void store(int index, Object value) {
+		if (batch != null) {
+			batch.set(row, index, value);
+		} else {
+			values[index] = value;
+		}
+	}
+
+	private Object load(int index) {
+		return batch != null ? batch.get(row, index) : values[index];
 	}
 
 	@Override
 	public Object put(String key, Object value) {
 		int idx = schema.getIndex(key);
 		if (idx != -1) {
-			Object old = values[idx];
-			values[idx] = value;
+			Object old = load(idx);
+			store(idx, value);
 			return old;
 		}
 		return null;
@@ -43,7 +123,7 @@ public class DynamicRecord extends AbstractMap<String, Object> {
 	public Object get(Object key) {
 		if (!(key instanceof String)) return null;
 		int idx = schema.getIndex((String) key);
-		return (idx != -1) ? values[idx] : null;
+		return (idx != -1) ? load(idx) : null;
 	}
 
 	@Override
@@ -91,7 +171,7 @@ public class DynamicRecord extends AbstractMap<String, Object> {
 					public Entry<String, Object> next() {
 						if (!hasNext()) throw new NoSuchElementException();
 						int i = index++;
-						return new SimpleImmutableEntry<>(schema.getName(i), values[i]);
+						return new SimpleImmutableEntry<>(schema.getName(i), load(i));
 					}
 				};
 			}
@@ -106,4 +186,9 @@ public class DynamicRecord extends AbstractMap<String, Object> {
 	public Map<String, Object> asMap() {
 		return this;
 	}
-}
\ No newline at end of file
+
+	@FunctionalInterface
+	public interface IndexedConsumer<E extends Exception> {
+		void accept(int index, Object value) throws E;
+	}
+}
@@ -0,0 +1,60 @@
+package com.silverlakesymmetri.cbs.fileGenerator.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One file of a rolled output: its .part path and the records written to it.
+ * <p>
+ * Lists of parts travel through the step and job ExecutionContext as a string, one
+ * {@code recordCount<TAB>partFilePath} line per part, in part order.
+ */
+public class OutputFilePart {
+	private final String partFilePath;
+	private final long recordCount;
+
+	public OutputFilePart(String partFilePath, long recordCount) {
+		this.partFilePath = partFilePath;
+		this.recordCount = recordCount;
+	}
+
+	public String getPartFilePath() {
+		return partFilePath;
+	}
+
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	public static String encode(List<OutputFilePart> parts) {
+		StringBuilder sb = new StringBuilder();
+		for (OutputFilePart part : parts) {
+			sb.append(part.recordCount).append('\t').append(part.partFilePath).append('\n');
+		}
+		return sb.toString();
+	}
+
+	public static List<OutputFilePart> decode(String value) {
+		if (value == null || value.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<OutputFilePart> parts = new ArrayList<>();
+		for (String line : value.split("\n")) {
+			int tab = line.indexOf('\t');
+			if (tab < 0) {
+				throw new IllegalArgumentException("Malformed output part entry: " + line);
+			}
+			parts.add(new OutputFilePart(line.substring(tab + 1), Long.parseLong(line.substring(0, tab))));
+		}
+		return parts;
+	}
+
+	@Override
+	public String toString() {
+		return "OutputFilePart{" +
+				"partFilePath='" + partFilePath + '\'' +
+				", recordCount=" + recordCount +
+				'}';
+	}
+}
@@ -0,0 +1,407 @@
+package com.silverlakesymmetri.cbs.fileGenerator.dto;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * One page/chunk of rows in columnar form, sharing a RecordSchema.
+ * <p>
+ * Each column picks its storage from the first non-null value it receives:
+ * <ul>
+ *     <li>Long / Integer / Short / Byte: {@code long[]}</li>
+ *     <li>BigDecimal whose unscaled value fits a long: scaled-long ({@code long[]} unscaled + {@code byte[]} scale)</li>
+ *     <li>Double / Float: {@code double[]}</li>
+ *     <li>java.sql.Timestamp / java.sql.Date / java.util.Date: epoch millis ({@code long[]}, plus nanos for Timestamp)</li>
+ *     <li>Boolean: bitmap</li>
+ *     <li>String, when the batch has a StringDictionary and the column is still low-cardinality:
+ *     dictionary codes ({@code int[]})</li>
+ *     <li>anything else (String, CLOB text, ...): {@code Object[]}</li>
+ * </ul>
+ * A column remembers the exact boxed class it saw, so {@link #get} returns the same type and
+ * value the reader stored (BeanIO type handlers and Jackson depend on it). A value that does not
+ * fit the column's encoding (different class, decimal too wide, column dropped from the dictionary) demotes that column to
+ * {@code Object[]}. Nulls are kept in a per-column bitmap.
+ * <p>
+ * Not thread-safe: a batch is filled completely by the reader before its first row is handed
+ * out, and is read-only from then on (transforms copy a record before changing it). Parallel
+ * processors therefore read rows without locking; the executor handoff publishes the reader's writes.
+ */
+public class RecordBatch {
+
+	public enum Encoding {
+		/** No non-null value seen yet. */
+		UNSET,
+		LONG,
+		SCALED_LONG,
+		DOUBLE,
+		EPOCH_MILLIS,
+		BOOLEAN,
+		DICTIONARY,
+		OBJECT
+	}
+
+	private final RecordSchema schema;
+	private final StringDictionary dictionary;
+	private final int capacity;
+	private final Column[] columns;
+	private int size = 0;
+
+	public RecordBatch(RecordSchema schema, int capacity) {
+		this(schema, capacity, null);
+	}
+
+	/**
+	 * @param dictionary per-step dictionary for String columns, or null to store Strings as objects
+	 */
+	public RecordBatch(RecordSchema schema, int capacity, StringDictionary dictionary) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be > 0");
+		}
+		this.schema = schema;
+		this.dictionary = dictionary;
+		this.capacity = capacity;
+		this.columns = new Column[schema.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new Column(i, capacity, dictionary);
+		}
+	}
+
+	public RecordSchema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * The dictionary behind DICTIONARY columns, or null.
+	 */
+	public StringDictionary getDictionary() {
+		return dictionary;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	/**
+	 * Appends an all-null row and returns its index.
+	 */
+	public int addRow() {
+		if (size == capacity) {
+			throw new IllegalStateException("RecordBatch is full (capacity " + capacity + ")");
+		}
+		return size++;
+	}
+
+	/**
+	 * Appends a row from positional values and returns its row view.
+	 */
+	public DynamicRecord addRow(Object[] values) {
+		int row = addRow();
+		for (int i = 0; i < values.length; i++) {
+			set(row, i, values[i]);
+		}
+		return new DynamicRecord(this, row);
+	}
+
+	public DynamicRecord row(int row) {
+		checkRow(row);
+		return new DynamicRecord(this, row);
+	}
+
+	/* ================= Access ================= */
+
+	public Encoding getEncoding(int col) {
+		return columns[col].encoding;
+	}
+
+	public boolean isNull(int row, int col) {
+		checkRow(row);
+		return columns[col].isNull(row);
+	}
+
+	public void set(int row, int col, Object value) {
+		checkRow(row);
+		columns[col].set(row, value);
+	}
+
+	/**
+	 * Boxed value, of the same class as the one stored.
+	 */
+	public Object get(int row, int col) {
+		checkRow(row);
+		return columns[col].get(row);
+	}
+
+	/** LONG columns only. */
+	public long getLong(int row, int col) {
+		return columns[col].longs[row];
+	}
+
+	/** DOUBLE columns only. */
+	public double getDouble(int row, int col) {
+		return columns[col].doubles[row];
+	}
+
+	/** SCALED_LONG columns only. */
+	public long getUnscaled(int row, int col) {
+		return columns[col].longs[row];
+	}
+
+	/** SCALED_LONG columns only. */
+	public int getScale(int row, int col) {
+		return columns[col].scales[row];
+	}
+
+	/** EPOCH_MILLIS columns only. */
+	public long getEpochMillis(int row, int col) {
+		return columns[col].longs[row];
+	}
+
+	/** EPOCH_MILLIS columns only: nanos of a Timestamp value, -1 for java.sql.Date / java.util.Date columns. */
+	public int getNanos(int row, int col) {
+		Column c = columns[col];
+		return c.nanos != null ? c.nanos[row] : -1;
+	}
+
+	/** Class of the values stored in the column; null until the first non-null value. */
+	public Class<?> getValueClass(int col) {
+		return columns[col].boxClass;
+	}
+
+	/** BOOLEAN columns only. */
+	public boolean getBoolean(int row, int col) {
+		return columns[col].bit(columns[col].bits, row);
+	}
+
+	/** DICTIONARY columns only; decode with {@code getDictionary().decode(col, code)}. */
+	public int getCode(int row, int col) {
+		return columns[col].codes[row];
+	}
+
+	/**
+	 * Text form identical to {@code get(row, col).toString()}, without boxing primitive columns.
+	 * Returns null for null values.
+	 */
+	public String getText(int row, int col) {
+		checkRow(row);
+		Column c = columns[col];
+		if (c.isNull(row)) {
+			return null;
+		}
+		switch (c.encoding) {
+			case LONG:
+				return Long.toString(c.longs[row]);
+			case DOUBLE:
+				return c.boxClass == Float.class ? Float.toString((float) c.doubles[row]) : Double.toString(c.doubles[row]);
+			case BOOLEAN:
+				return c.bit(c.bits, row) ? "true" : "false";
+			default:
+				return c.get(row).toString();
+		}
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of bounds for batch of size " + size);
+		}
+	}
+
+	/* ================= Column storage ================= */
+
+	private static final class Column {
+		private final int index;
+		private final int capacity;
+		private final StringDictionary dictionary;
+		private final long[] nulls;
+		private Encoding encoding = Encoding.UNSET;
+		private Class<?> boxClass;
+
+		private long[] longs;
+		private byte[] scales;
+		private int[] nanos;
+		private double[] doubles;
+		private long[] bits;
+		private int[] codes;
+		private Object[] objects;
+
+		private Column(int index, int capacity, StringDictionary dictionary) {
+			this.index = index;
+			this.capacity = capacity;
+			this.dictionary = dictionary;
+			this.nulls = new long[(capacity + 63) >>> 6];
+			// Rows start out null until set
+			for (int i = 0; i < capacity; i++) {
+				setBit(nulls, i, true);
+			}
+		}
+
+		private boolean isNull(int row) {
+			return bit(nulls, row);
+		}
+
+		private void set(int row, Object value) {
+			if (value == null) {
+				setBit(nulls, row, true);
+				if (encoding == Encoding.OBJECT) {
+					objects[row] = null;
+				}
+				return;
+			}
+			if (encoding == Encoding.UNSET) {
+				allocate(value);
+			}
+			if (!store(row, value)) {
+				demote();
+				objects[row] = value;
+			}
+			setBit(nulls, row, false);
+		}
+
+		private void allocate(Object value) {
+			boxClass = value.getClass();
+			if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				encoding = Encoding.LONG;
+				longs = new long[capacity];
+			} else if (value instanceof BigDecimal) {
+				encoding = Encoding.SCALED_LONG;
+				longs = new long[capacity];
+				scales = new byte[capacity];
+			} else if (value instanceof Double || value instanceof Float) {
+				encoding = Encoding.DOUBLE;
+				doubles = new double[capacity];
+			} else if (value instanceof Timestamp || boxClass == java.sql.Date.class || boxClass == Date.class) {
+				encoding = Encoding.EPOCH_MILLIS;
+				longs = new long[capacity];
+				if (value instanceof Timestamp) {
+					nanos = new int[capacity];
+				}
+			} else if (value instanceof Boolean) {
+				encoding = Encoding.BOOLEAN;
+				bits = new long[(capacity + 63) >>> 6];
+			} else if (value instanceof String && dictionary != null && dictionary.isActive(index)) {
+				encoding = Encoding.DICTIONARY;
+				codes = new int[capacity];
+			} else {
+				encoding = Encoding.OBJECT;
+				objects = new Object[capacity];
+			}
+		}
+
+		/**
+		 * @return false when the value does not fit this column's encoding
+		 */
+		private boolean store(int row, Object value) {
+			if (encoding == Encoding.OBJECT) {
+				objects[row] = value;
+				return true;
+			}
+			if (value.getClass() != boxClass) {
+				return false;
+			}
+			switch (encoding) {
+				case LONG:
+					longs[row] = ((Number) value).longValue();
+					return true;
+				case SCALED_LONG:
+					BigDecimal decimal = (BigDecimal) value;
+					if (decimal.scale() < Byte.MIN_VALUE || decimal.scale() > Byte.MAX_VALUE
+							|| decimal.unscaledValue().bitLength() > 63) {
+						return false;
+					}
+					longs[row] = decimal.unscaledValue().longValue();
+					scales[row] = (byte) decimal.scale();
+					return true;
+				case DOUBLE:
+					doubles[row] = ((Number) value).doubleValue();
+					return true;
+				case EPOCH_MILLIS:
+					longs[row] = ((Date) value).getTime();
+					if (nanos != null) {
+						nanos[row] = ((Timestamp) value).getNanos();
+					}
+					return true;
+				case BOOLEAN:
+					setBit(bits, row, (Boolean) value);
+					return true;
+				case DICTIONARY:
+					int code = dictionary.encode(index, (String) value);
+					if (code == StringDictionary.NO_CODE) {
+						return false;
+					}
+					codes[row] = code;
+					return true;
+				default:
+					return false;
+			}
+		}
+
+		private Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			switch (encoding) {
+				case LONG:
+					long l = longs[row];
+					if (boxClass == Integer.class) return (int) l;
+					if (boxClass == Short.class) return (short) l;
+					if (boxClass == Byte.class) return (byte) l;
+					return l;
+				case SCALED_LONG:
+					return BigDecimal.valueOf(longs[row], scales[row]);
+				case DOUBLE:
+					return boxClass == Float.class ? (Object) (float) doubles[row] : (Object) doubles[row];
+				case EPOCH_MILLIS:
+					if (nanos != null) {
+						Timestamp ts = new Timestamp(longs[row]);
+						ts.setNanos(nanos[row]);
+						return ts;
+					}
+					return boxClass == java.sql.Date.class ? new java.sql.Date(longs[row]) : new Date(longs[row]);
+				case BOOLEAN:
+					return bit(bits, row);
+				case DICTIONARY:
+					return dictionary.decode(index, codes[row]);
+				default:
+					return objects[row];
+			}
+		}
+
+		/**
+		 * Falls back to boxed storage for this column, keeping the values stored so far.
+		 */
+		private void demote() {
+			Object[] boxed = new Object[capacity];
+			for (int i = 0; i < capacity; i++) {
+				boxed[i] = get(i);
+			}
+			encoding = Encoding.OBJECT;
+			objects = boxed;
+			longs = null;
+			scales = null;
+			nanos = null;
+			doubles = null;
+			bits = null;
+			codes = null;
+		}
+
+		private boolean bit(long[] words, int i) {
+			return (words[i >>> 6] & (1L << i)) != 0;
+		}
+
+		private static void setBit(long[] words, int i, boolean on) {
+			if (on) {
+				words[i >>> 6] |= (1L << i);
+			} else {
+				words[i >>> 6] &= ~(1L << i);
+			}
+		}
+	}
+}
@@ -1,14 +1,20 @@
 package com.silverlakesymmetri.cbs.fileGenerator.dto;
 
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
 import java.util.*;
 
 /**
  * Shared metadata for all records in a batch.
  * Prevents repeating strings and map overhead in every row.
+ * Per-column names for the writers (XML element names, JSON field names) are computed once here.
  */
 public class RecordSchema {
 	private final String[] names;
 	private final ColumnType[] types;
+	private final String[] elementNames;
+	private final SerializableString[] jsonNames;
 	private final Map<String, Integer> nameToIndex;
 	private final Set<String> immutableKeySet;
 
@@ -30,12 +36,22 @@ public class RecordSchema {
 			}
 		}
 		this.nameToIndex = Collections.unmodifiableMap(tmpMap);
+		this.elementNames = new String[names.length];
+		this.jsonNames = new SerializableString[names.length];
+		for (int i = 0; i < names.length; i++) {
+			elementNames[i] = toElementName(names[i]);
+			jsonNames[i] = new SerializedString(names[i]);
+		}
 		this.immutableKeySet = Collections.unmodifiableSet(new LinkedHashSet<>(columnNames));
 	}
 
 	public int getIndex(String name) {
 		if (name == null) return -1;
-		Integer idx = nameToIndex.get(name.toLowerCase(Locale.ROOT));
+		// Names are stored lowercase; only lowercase the lookup key when the exact name misses
+		Integer idx = nameToIndex.get(name);
+		if (idx == null) {
+			idx = nameToIndex.get(name.toLowerCase(Locale.ROOT));
+		}
 		return (idx != null) ? idx : -1;
 	}
 
@@ -61,6 +77,20 @@ public class RecordSchema {
 		return types[i];
 	}
 
+	/**
+	 * Column name made safe for use as an XML element name.
+	 */
+	public String getElementName(int i) {
+		return elementNames[i];
+	}
+
+	/**
+	 * Column name as a JSON field name, with its quoted form cached by Jackson.
+	 */
+	public SerializableString getJsonName(int i) {
+		return jsonNames[i];
+	}
+
 	public String[] getNames() {
 		return Arrays.copyOf(names, names.length);
 	}
@@ -68,4 +98,13 @@ public class RecordSchema {
 	public Set<String> getKeySet() {
 		return immutableKeySet;
 	}
+
+	private static String toElementName(String name) {
+		if (name == null || name.trim().isEmpty()) return "field";
+		String sanitized = name.replaceAll("[^a-zA-Z0-9_]", "_");
+		if (Character.isDigit(sanitized.charAt(0))) {
+			return "_" + sanitized;
+		}
+		return sanitized;
+	}
 }
@@ -0,0 +1,124 @@
+package com.silverlakesymmetri.cbs.fileGenerator.dto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-step dictionary of repeated String values (currency codes, branch codes, status flags...).
+ * <p>
+ * Every column starts out as a candidate. A column stays dictionary-encoded while its distinct
+ * values fit the size cap and, after the first {@code sampleSize} values, while at most half of
+ * the sampled values were distinct. Otherwise the column is dropped: new values are passed
+ * through untouched, but codes already handed out stay decodable.
+ * <p>
+ * Codes are dense ({@code 0..size-1}) per column, so writers can cache encoded forms in arrays.
+ * Only the reader thread encodes. {@link #decode} may run on processor threads while the reader
+ * keeps adding values: the value table grows by copy and is republished through a volatile
+ * field, so a code received from the reader always decodes without locking.
+ */
+public class StringDictionary {
+	private static final Logger logger = LoggerFactory.getLogger(StringDictionary.class);
+
+	public static final int NO_CODE = -1;
+
+	private final RecordSchema schema;
+	private final int maxEntries;
+	private final int sampleSize;
+	private final ColumnDictionary[] columns;
+
+	public StringDictionary(RecordSchema schema, int maxEntries, int sampleSize) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be > 0");
+		}
+		this.schema = schema;
+		this.maxEntries = maxEntries;
+		this.sampleSize = Math.max(1, sampleSize);
+		this.columns = new ColumnDictionary[schema.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new ColumnDictionary();
+		}
+	}
+
+	public RecordSchema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * @return false once the column has been found to be high-cardinality
+	 */
+	public boolean isActive(int col) {
+		return columns[col].codes != null;
+	}
+
+	/**
+	 * Code of the value, adding it when new, or {@link #NO_CODE} if the column is not dictionary-encoded.
+	 */
+	public int encode(int col, String value) {
+		ColumnDictionary c = columns[col];
+		if (c.codes == null) {
+			return NO_CODE;
+		}
+		if (++c.seen == sampleSize + 1 && c.size > sampleSize / 2) {
+			drop(col, c.size + " distinct values in the first " + sampleSize);
+			return NO_CODE;
+		}
+		Integer code = c.codes.get(value);
+		if (code != null) {
+			return code;
+		}
+		if (c.size >= maxEntries) {
+			drop(col, "more than " + maxEntries + " distinct values");
+			return NO_CODE;
+		}
+		int newCode = c.size;
+		String[] values = c.values;
+		if (newCode == values.length) {
+			values = Arrays.copyOf(values, Math.min(values.length * 2, maxEntries));
+		}
+		values[newCode] = value;
+		c.values = values;
+		c.size = newCode + 1;
+		c.codes.put(value, newCode);
+		return newCode;
+	}
+
+	/**
+	 * The shared instance for the value, or the value itself if the column is not dictionary-encoded.
+	 */
+	public String intern(int col, String value) {
+		int code = encode(col, value);
+		return code == NO_CODE ? value : columns[col].values[code];
+	}
+
+	public String decode(int col, int code) {
+		return columns[col].values[code];
+	}
+
+	/**
+	 * Number of codes handed out for the column so far.
+	 */
+	public int size(int col) {
+		return columns[col].size;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	private void drop(int col, String reason) {
+		// Keep the values: batches still hold codes that point at them
+		columns[col].codes = null;
+		logger.info("Dictionary encoding disabled for column [{}]: {}", schema.getName(col), reason);
+	}
+
+	private static final class ColumnDictionary {
+		private Map<String, Integer> codes = new HashMap<>();
+		private volatile String[] values = new String[16];
+		private int size = 0;
+		private int seen = 0;
+	}
+}
@@ -62,7 +62,7 @@ public class BatchJobLauncher extends QuartzJobBean {
 			String ext = config.getOutputFileExtension() != null ? config.getOutputFileExtension() : "txt";
 
 			// 1. Create a tracking record in the database
-			String fileName = interfaceType + "_" + UUID.randomUUID() + "." + ext;
+			String fileName = interfaceType + "_" + UUID.randomUUID() + "." + ext + config.getCompression().getFileSuffix();
 
 			FileGeneration fileGen = fileGenerationService.createFileGeneration(
 					fileName,
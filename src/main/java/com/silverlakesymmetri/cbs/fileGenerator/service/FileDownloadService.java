@@ -0,0 +1,208 @@
+package com.silverlakesymmetri.cbs.fileGenerator.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves a finalized file for download, resumable with HTTP Range requests.
+ * <p>
+ * The ETag is the file's SHA-256 from its .sha (a strong validator: it changes exactly when the bytes do),
+ * or a weak one from size and modification time for a file without one. A single byte range is served as
+ * 206 Partial Content; an {@code If-Range} that no longer matches, several ranges or a malformed Range header
+ * get the whole file. {@code If-None-Match}/{@code If-Modified-Since} are answered with 304.
+ * <p>
+ * The bytes never pass through a heap buffer of ours. On a Tomcat connector with sendfile, the range is handed
+ * to the connector, which sends it from the page cache with sendfile(2) once the request thread has returned.
+ * Otherwise a {@link StreamingResponseBody} copies it with {@link FileChannel#transferTo} on the MVC async
+ * executor (see {@code DownloadConfig}), so a slow client never holds a request thread.
+ */
+@Service
+public class FileDownloadService {
+	private static final Logger logger = LoggerFactory.getLogger(FileDownloadService.class);
+
+	// Tomcat's sendfile contract: the connector sends [start, end) of the file after the servlet returns
+	private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+	private final FileFinalizationService fileFinalizationService;
+
+	@Value("${file.generation.download.sendfile:true}")
+	private boolean sendfile = true;
+
+	// Smaller responses are cheaper to write than to hand over
+	@Value("${file.generation.download.sendfile-min-bytes:49152}")
+	private long sendfileMinBytes;
+
+	@Autowired
+	public FileDownloadService(FileFinalizationService fileFinalizationService) {
+		this.fileFinalizationService = fileFinalizationService;
+	}
+
+	/**
+	 * The response for a GET (or HEAD) of {@code file}, honouring the request's conditional and Range headers.
+	 */
+	public ResponseEntity<StreamingResponseBody> download(Path file, MediaType contentType, String contentDisposition,
+														 HttpServletRequest request) throws IOException {
+		long size = Files.size(file);
+		// HTTP dates have whole seconds
+		long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+		Optional<String> sha256 = fileFinalizationService.getRecordedSha256(file);
+		String etag = sha256.map(hash -> "\"" + hash + "\"")
+				.orElseGet(() -> "W/\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"");
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(etag);
+		headers.setLastModified(lastModified);
+		headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+		if (isNotModified(request, etag, lastModified)) {
+			return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+		}
+
+		headers.set(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+		headers.setContentType(contentType);
+
+		long start = 0;
+		long end = size - 1;
+		HttpStatus status = HttpStatus.OK;
+		String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+		if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+			HttpRange range = singleRange(rangeHeader);
+			if (range != null) {
+				try {
+					start = range.getRangeStart(size);
+					end = range.getRangeEnd(size);
+				} catch (IllegalArgumentException e) {
+					start = size;
+				}
+				if (start >= size || start > end) {
+					headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+					return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+				}
+				status = HttpStatus.PARTIAL_CONTENT;
+				headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+				logger.info("Resuming download of {} at byte {} of {}", file.getFileName(), start, size);
+			}
+		}
+		long count = end - start + 1;
+		headers.setContentLength(count);
+
+		if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+			return new ResponseEntity<>(headers, status);
+		}
+		if (sendfile && count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+			request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTR, start);
+			request.setAttribute(SENDFILE_END_ATTR, end + 1);
+			return new ResponseEntity<>(headers, status);
+		}
+		long position = start;
+		return new ResponseEntity<>(out -> transfer(file, position, count, out), headers, status);
+	}
+
+	/**
+	 * Copies {@code count} bytes of {@code file} from {@code position} to the response.
+	 */
+	private static void transfer(Path file, long position, long count, OutputStream out) throws IOException {
+		long end = position + count;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(out);
+			while (position < end) {
+				long transferred = channel.transferTo(position, end - position, target);
+				if (transferred <= 0) {
+					throw new EOFException(file + " ended at byte " + position + " of " + end);
+				}
+				position += transferred;
+			}
+		} catch (IOException e) {
+			// Usually the client going away; it can resume from what it received
+			logger.info("Download of {} stopped at byte {}: {}", file.getFileName(), position, e.toString());
+			throw e;
+		}
+	}
+
+	/**
+	 * The one range requested; null to send the whole file (several ranges, or a header that does not parse).
+	 */
+	private static HttpRange singleRange(String rangeHeader) {
+		try {
+			List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+			return ranges.size() == 1 ? ranges.get(0) : null;
+		} catch (IllegalArgumentException e) {
+			logger.debug("Ignoring malformed Range header: {}", rangeHeader);
+			return null;
+		}
+	}
+
+	/**
+	 * A Range applies without If-Range, or when If-Range names the current file: its strong ETag, or its exact
+	 * modification date.
+	 */
+	private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (ifRange == null) {
+			return true;
+		}
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			// Strong comparison: a weak validator never matches
+			return !etag.startsWith("W/") && ifRange.equals(etag);
+		}
+		long date = dateHeader(request, HttpHeaders.IF_RANGE);
+		return date != -1 && date == lastModified;
+	}
+
+	private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if (ifNoneMatch != null) {
+			String opaque = opaqueTag(etag);
+			for (String candidate : ifNoneMatch.split(",")) {
+				candidate = candidate.trim();
+				// Weak comparison
+				if ("*".equals(candidate) || opaqueTag(candidate).equals(opaque)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+		return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+	}
+
+	private static String opaqueTag(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	private static long dateHeader(HttpServletRequest request, String name) {
+		try {
+			return request.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+}
@@ -1,9 +1,14 @@
 package com.silverlakesymmetri.cbs.fileGenerator.service;
 
+import com.silverlakesymmetri.cbs.fileGenerator.config.MdcTaskDecorator;
 import com.silverlakesymmetri.cbs.fileGenerator.constants.FinalizationResult;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ChecksumVerification;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.OutputFilePart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -11,43 +16,60 @@ import javax.annotation.PostConstruct;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.MANIFEST_EXTENSION;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.SHA_PART_EXTENSION;
 
 @Service
 public class FileFinalizationService {
 	private static final Logger logger = LoggerFactory.getLogger(FileFinalizationService.class);
-	private static final String SHA256_ALGORITHM = "SHA-256";
-	private static final int BUFFER_SIZE = 8192;
 	private static final Pattern SHA_PATTERN = Pattern.compile("^SHA256\\(([^)]+)\\)=\\s*([a-f0-9]{64})$", Pattern.CASE_INSENSITIVE);
 	private static final boolean POSIX_SUPPORTED = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
 	private static final String PART_EXTENSION = ".part";
 	private static final String SHA_EXTENSION = ".sha";
-	private static final String SHA_PART_EXTENSION = ".sha.part";
+
+	private static final int SWEEP_DEPTH = 5;
+
+	private final FileHashService fileHashService;
 
 	@Value("${file.generation.permissions:rw-r--r--}")
 	private String filePermissions;
 	private Set<PosixFilePermission> posixPermissionsCache;
 
+	// Also write <file>.sha.segments whenever a file is hashed in full, so later audits verify it in parallel
+	@Value("${file.generation.hash.segment-manifest:true}")
+	private boolean recordSegmentManifest;
+
 	// Thread-safe lock registry
 	private final ConcurrentHashMap<Path, Object> fileLocks = new ConcurrentHashMap<>();
 
+	@Autowired
+	public FileFinalizationService(FileHashService fileHashService) {
+		this.fileHashService = fileHashService;
+	}
+
 	/**
 	 * Finalize a .part file safely:
 	 * 1. Atomically move .part -> final file
-	 * 2. Generate SHA256 checksum file (.sha)
+	 * 2. Generate SHA256 checksum file (.sha) of the bytes on disk (compressed output stays compressed),
+	 *    or take the one the writer computed while writing (.sha.part), which saves reading the file
 	 */
 	public FinalizationResult finalizeFile(String partFilePath) {
 		Optional<PartFilePaths> partFilePaths = normalizeAndResolvePart(partFilePath);
@@ -124,11 +146,14 @@ public class FileFinalizationService {
 			if (!shaMoved && shaPartPath != null) {
 				cleanupIfExists(shaPartPath);
 			}
+			if (!shaMoved) {
+				cleanupIfExists(fileHashService.segmentManifestPath(finalPath));
+			}
 		}
 	}
 
 	/**
-	 * Generate SHA256 checksum file safely (.sha.part -> .sha)
+	 * Generate SHA256 checksum file safely (.sha.part -> .sha); a well-formed .sha.part left by the writer is used as is
 	 */
 	private Optional<Path> generateShaFile(PartFilePaths partFilePaths) {
 		Path partPath = partFilePaths.getPartPath();
@@ -137,7 +162,15 @@ public class FileFinalizationService {
 		Path shaPartPath = partPath.resolveSibling(finalFileName + SHA_PART_EXTENSION);
 
 		try {
-			Optional<String> hash = calculateSha256(partPath);
+			if (Files.exists(shaPartPath, LinkOption.NOFOLLOW_LINKS)) {
+				if (parseShaFile(shaPartPath, finalFileName).isPresent()) {
+					logger.debug("Using checksum computed while writing: {}", shaPartPath);
+					return Optional.of(shaPartPath);
+				}
+				logger.warn("Ignoring malformed checksum {}; recomputing", shaPartPath);
+			}
+
+			Optional<String> hash = recordSegmentManifest ? hashWithSegments(partPath, finalPath) : calculateSha256(partPath);
 			if (!hash.isPresent()) return Optional.empty();
 
 			Path tmp = null;
@@ -187,26 +220,193 @@ public class FileFinalizationService {
 	}
 
 	private Optional<String> calculateSha256(Path filePath) {
-		try (InputStream fis = Files.newInputStream(filePath);
-			 DigestInputStream dis = new DigestInputStream(fis, MessageDigest.getInstance(SHA256_ALGORITHM))) {
-			byte[] buffer = new byte[BUFFER_SIZE];
-			while (dis.read(buffer) != -1) {
-			}
-			return Optional.of(bytesToHex(dis.getMessageDigest().digest()));
-		} catch (IOException | NoSuchAlgorithmException e) {
+		try {
+			return Optional.of(fileHashService.sha256(filePath));
+		} catch (IOException e) {
 			logger.error("Error calculating SHA256 for: {}", filePath, e);
 			return Optional.empty();
 		}
 	}
 
-	private String bytesToHex(byte[] bytes) {
-		StringBuilder hex = new StringBuilder();
-		for (byte b : bytes) {
-			String h = Integer.toHexString(0xff & b);
-			if (h.length() == 1) hex.append('0');
-			hex.append(h);
+	/**
+	 * The SHA256 of a .part file, with its segment manifest written for the final file name.
+	 */
+	private Optional<String> hashWithSegments(Path partPath, Path finalPath) {
+		try {
+			FileHashService.FileHashes hashes = fileHashService.hash(partPath);
+			fileHashService.writeSegmentManifest(finalPath, hashes);
+			return Optional.of(hashes.getSha256());
+		} catch (IOException e) {
+			logger.error("Error calculating SHA256 for: {}", partPath, e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Finalizes rolled parts or shard files together with their manifest ({@code manifestFilePath}), all or nothing.
+	 * Every checksum and the manifest are prepared while the files are still .part; only then are the files renamed,
+	 * the manifest last. If a rename fails, the files already renamed are moved back to .part, so consumers never
+	 * see part of a run and the .part files can be finalized again. With {@code verify}, every file is re-read
+	 * against its checksum before anything is renamed.
+	 * <p>
+	 * The manifest lists the parts in order with the records, size and SHA256 of each, e.g.
+	 * <pre>
+	 * {
+	 *   "fileName": "ACCT_1f0c.xml.gz",
+	 *   "recordCount": 250000,
+	 *   "parts": [
+	 *     {"fileName": "ACCT_1f0c_0001.xml.gz", "recordCount": 100000, "bytes": 5242741, "sha256": "9f86d0..."},
+	 *     ...
+	 *   ]
+	 * }
+	 * </pre>
+	 */
+	public FinalizationResult finalizeParts(String manifestFilePath, List<OutputFilePart> parts, boolean verify) {
+		if (!StringUtils.hasText(manifestFilePath) || !manifestFilePath.trim().endsWith(MANIFEST_EXTENSION)) {
+			logger.error("[finalizeParts] Not a manifest path: {}", manifestFilePath);
+			return FinalizationResult.INVALID_PART_FILE;
 		}
-		return hex.toString();
+		Optional<PartFilePaths> manifestPaths = normalizeAndResolvePart(manifestFilePath.trim() + PART_EXTENSION);
+		if (!manifestPaths.isPresent()) return FinalizationResult.INVALID_PART_FILE;
+		PartFilePaths manifest = manifestPaths.get();
+
+		List<PartFilePaths> files = new ArrayList<>(parts.size() + 1);
+		for (OutputFilePart part : parts) {
+			Optional<PartFilePaths> partFilePaths = normalizeAndResolvePart(part.getPartFilePath());
+			if (!partFilePaths.isPresent()) return FinalizationResult.INVALID_PART_FILE;
+			files.add(partFilePaths.get());
+		}
+
+		List<Path> shaPartPaths = new ArrayList<>(files.size() + 1);
+		FinalizationResult result = FinalizationResult.SUCCESS;
+		try {
+			for (PartFilePaths file : files) {
+				result = prepareShaFile(file, verify, shaPartPaths);
+				if (!result.isSuccess()) return result;
+			}
+			writeManifestPart(manifest, parts, files, shaPartPaths);
+			files.add(manifest);
+			result = prepareShaFile(manifest, false, shaPartPaths);
+			if (!result.isSuccess()) return result;
+
+			result = publishAll(files, shaPartPaths);
+			return result;
+		} catch (IOException e) {
+			logger.error("I/O error preparing the finalization of {}", manifestFilePath, e);
+			result = FinalizationResult.IO_ERROR;
+			return result;
+		} catch (SecurityException e) {
+			logger.error("Security exception preparing the finalization of {}", manifestFilePath, e);
+			result = FinalizationResult.SECURITY_ERROR;
+			return result;
+		} finally {
+			if (!result.isSuccess()) {
+				// The manifest is rebuilt on the next attempt; the parts' .part and .sha.part files are the caller's
+				cleanupIfExists(manifest.getPartPath());
+				cleanupIfExists(manifest.getPartPath().resolveSibling(manifest.getFinalPath().getFileName() + SHA_PART_EXTENSION));
+				for (PartFilePaths file : files) {
+					cleanupIfExists(fileHashService.segmentManifestPath(file.getFinalPath()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the file's .sha.part to {@code shaPartPaths}, optionally re-reading the file against it.
+	 */
+	private FinalizationResult prepareShaFile(PartFilePaths file, boolean verify, List<Path> shaPartPaths) throws IOException {
+		if (Files.isSymbolicLink(file.getPartPath())) return FinalizationResult.SECURITY_ERROR;
+		if (Files.isSymbolicLink(file.getFinalPath())) return FinalizationResult.SECURITY_ERROR;
+
+		Path shaPartPath = generateShaFile(file).orElse(null);
+		if (shaPartPath == null) return FinalizationResult.SHA_GENERATION_FAILED;
+		if (Files.isSymbolicLink(shaPartPath)) return FinalizationResult.SECURITY_ERROR;
+		shaPartPaths.add(shaPartPath);
+
+		if (verify) {
+			String expected = parseShaFile(shaPartPath, file.getFinalPath().getFileName().toString()).orElse(null);
+			String actual = calculateSha256(file.getPartPath()).orElse(null);
+			if (expected == null || !expected.equalsIgnoreCase(actual)) {
+				logger.error("SHA256 checksum mismatch for {}: expected {}, actual {}", file.getPartPath(), expected, actual);
+				return FinalizationResult.INVALID_PART_FILE;
+			}
+		}
+		return FinalizationResult.SUCCESS;
+	}
+
+	/**
+	 * Writes the manifest's .part from the parts' .part files and prepared checksums.
+	 */
+	private void writeManifestPart(PartFilePaths manifest, List<OutputFilePart> parts, List<PartFilePaths> files,
+								   List<Path> shaPartPaths) throws IOException {
+		String fileName = manifest.getFinalPath().getFileName().toString();
+		fileName = fileName.substring(0, fileName.length() - MANIFEST_EXTENSION.length());
+
+		long totalRecords = 0;
+		StringBuilder entries = new StringBuilder();
+		for (int i = 0; i < parts.size(); i++) {
+			OutputFilePart part = parts.get(i);
+			PartFilePaths file = files.get(i);
+			String partFileName = file.getFinalPath().getFileName().toString();
+			Optional<String> hash = parseShaFile(shaPartPaths.get(i), partFileName);
+			if (!hash.isPresent()) throw new IOException("Unreadable checksum for " + partFileName);
+
+			entries.append(entries.length() == 0 ? "\n" : ",\n")
+					.append("    {\"fileName\": ").append(jsonString(partFileName))
+					.append(", \"recordCount\": ").append(part.getRecordCount())
+					.append(", \"bytes\": ").append(Files.size(file.getPartPath()))
+					.append(", \"sha256\": \"").append(hash.get().toLowerCase(Locale.ROOT)).append("\"}");
+			totalRecords += part.getRecordCount();
+		}
+
+		String content = "{\n" +
+				"  \"fileName\": " + jsonString(fileName) + ",\n" +
+				"  \"recordCount\": " + totalRecords + ",\n" +
+				"  \"parts\": [" + entries + "\n  ]\n" +
+				"}\n";
+		Files.write(manifest.getPartPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Renames every prepared file and its .sha.part in order; on the first failure, moves the ones already renamed back.
+	 */
+	private FinalizationResult publishAll(List<PartFilePaths> files, List<Path> shaPartPaths) {
+		int partsMoved = 0;
+		int shasMoved = 0;
+		try {
+			for (int i = 0; i < files.size(); i++) {
+				PartFilePaths file = files.get(i);
+				moveFileSafely(file.getPartPath(), file.getFinalPath());
+				partsMoved++;
+				moveFileSafely(shaPartPaths.get(i), resolveShaPath(file.getFinalPath()));
+				shasMoved++;
+			}
+		} catch (IOException | SecurityException e) {
+			logger.error("Finalization of {} files failed after {} renames; moving them back to .part",
+					files.size(), partsMoved, e);
+			for (int i = partsMoved - 1; i >= 0; i--) {
+				PartFilePaths file = files.get(i);
+				try {
+					if (i < shasMoved) {
+						moveFileSafely(resolveShaPath(file.getFinalPath()), shaPartPaths.get(i));
+					}
+					moveFileSafely(file.getFinalPath(), file.getPartPath());
+				} catch (IOException | SecurityException rollbackError) {
+					logger.error("Could not move {} back to .part; it remains published", file.getFinalPath(), rollbackError);
+				}
+			}
+			return e instanceof SecurityException ? FinalizationResult.SECURITY_ERROR : FinalizationResult.IO_ERROR;
+		}
+
+		for (PartFilePaths file : files) {
+			applyPosixPermissions(file.getFinalPath());
+			applyPosixPermissions(resolveShaPath(file.getFinalPath()));
+		}
+		return FinalizationResult.SUCCESS;
+	}
+
+	private static String jsonString(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
 	}
 
 	public void cleanupPartFile(String partFilePath) {
@@ -246,56 +446,179 @@ public class FileFinalizationService {
 				logger.warn("Target file not found: {}", filePath);
 				return false;
 			}
+			return verify(filePath, true).isVerified();
+		} catch (InvalidPathException | SecurityException e) {
+			logger.error("Error verifying SHA file for: {}", filePathStr, e);
+			return false;
+		}
+	}
 
-			Path shaPath = resolveShaPath(filePath);
-
-			if (!Files.exists(shaPath, LinkOption.NOFOLLOW_LINKS)) {
-				logger.warn("SHA file not found: {}", shaPath);
-				return false;
+	/**
+	 * Checks a finalized file against its .sha. Unless {@code full} is set, a file with a valid segment manifest
+	 * (whose whole-file hash is the one in the .sha) is verified by re-hashing its segments in parallel;
+	 * otherwise the whole file is hashed, recording a segment manifest when configured.
+	 */
+	public ChecksumVerification verify(Path filePath, boolean full) {
+		ChecksumVerification result = new ChecksumVerification();
+		result.setFileName(filePath.getFileName().toString());
+		long start = System.currentTimeMillis();
+		try {
+			result.setBytes(Files.size(filePath));
+			Optional<String> recordedHash = readShaFile(filePath);
+			if (!recordedHash.isPresent()) {
+				result.setStatus(ChecksumVerification.Status.NO_CHECKSUM);
+				return result;
 			}
-
-			String shaContent;
-			try (BufferedReader reader = Files.newBufferedReader(shaPath, StandardCharsets.UTF_8)) {
-				shaContent = reader.readLine();
+			String expectedHash = recordedHash.get();
+
+			FileHashService.FileHashes manifest = full ? null : fileHashService.readSegmentManifest(filePath);
+			if (manifest != null && manifest.getSha256().equalsIgnoreCase(expectedHash)) {
+				result.setMode("SEGMENTS");
+				List<Integer> mismatched = fileHashService.verifySegments(filePath, manifest);
+				result.setMismatchedSegments(mismatched);
+				result.setStatus(mismatched.isEmpty() ? ChecksumVerification.Status.VERIFIED : ChecksumVerification.Status.MISMATCH);
+			} else {
+				result.setMode("FULL");
+				String actualHash;
+				if (recordSegmentManifest) {
+					FileHashService.FileHashes hashes = fileHashService.hash(filePath);
+					actualHash = hashes.getSha256();
+					if (expectedHash.equalsIgnoreCase(actualHash)) {
+						fileHashService.writeSegmentManifest(filePath, hashes);
+					}
+				} else {
+					actualHash = fileHashService.sha256(filePath);
+				}
+				boolean matches = expectedHash.equalsIgnoreCase(actualHash);
+				result.setStatus(matches ? ChecksumVerification.Status.VERIFIED : ChecksumVerification.Status.MISMATCH);
+				if (!matches) {
+					result.setMessage("expected " + expectedHash + ", actual " + actualHash);
+				}
 			}
-
-			if (!StringUtils.hasText(shaContent)) {
-				logger.error("SHA file is empty: {}", shaPath);
-				return false;
+			if (!result.isVerified()) {
+				logger.warn("SHA mismatch for {} ({}): {}", filePath, result.getMode(),
+						result.getMessage() != null ? result.getMessage() : "segments " + result.getMismatchedSegments());
 			}
+		} catch (IOException | SecurityException e) {
+			logger.error("Error verifying SHA file for: {}", filePath, e);
+			result.setStatus(ChecksumVerification.Status.ERROR);
+			result.setMessage(e.getMessage());
+		} finally {
+			result.setElapsedMillis(System.currentTimeMillis() - start);
+		}
+		return result;
+	}
 
-			Matcher matcher = SHA_PATTERN.matcher(shaContent.trim());
-			if (!matcher.matches()) {
-				logger.error("Invalid SHA file format: {}", shaPath);
-				return false;
+	/**
+	 * Integrity sweep: {@link #verify} for every finalized file under {@code directory} (checksum files,
+	 * segment manifests and unfinished .part/.tmp files excluded), results in path order. Files are verified
+	 * concurrently, as many at a time as the hashTaskExecutor has threads, on a pool of the sweep's own: each
+	 * file's segments still go to the hashTaskExecutor, which therefore never waits on itself.
+	 */
+	public List<ChecksumVerification> verifyDirectory(Path directory, boolean full) throws IOException {
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(directory, SWEEP_DEPTH)) {
+			files = paths.filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS))
+					.filter(path -> {
+						String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+						return !name.endsWith(SHA_EXTENSION) && !name.endsWith(FileHashService.SEGMENTS_EXTENSION)
+								&& !name.endsWith(PART_EXTENSION) && !name.endsWith(".tmp");
+					})
+					.sorted()
+					.collect(Collectors.toList());
+		}
+		List<ChecksumVerification> results = new ArrayList<>(files.size());
+		int threads = Math.min(fileHashService.getParallelism(), files.size());
+		if (threads <= 1) {
+			for (Path file : files) {
+				results.add(verify(file, full));
 			}
-
-			String expectedName = filePath.getFileName().toString();
-			if (!matcher.group(1).equals(expectedName)) {
-				logger.error("SHA filename mismatch: expected {}, found {}",
-						expectedName, matcher.group(1));
-				return false;
+		} else {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setCorePoolSize(threads);
+			executor.setMaxPoolSize(threads);
+			executor.setThreadNamePrefix("verify-exec-");
+			executor.setTaskDecorator(new MdcTaskDecorator());
+			executor.initialize();
+			try {
+				List<Future<ChecksumVerification>> tasks = new ArrayList<>(files.size());
+				for (Path file : files) {
+					tasks.add(executor.submit(() -> verify(file, full)));
+				}
+				for (Future<ChecksumVerification> task : tasks) {
+					results.add(awaitVerification(task));
+				}
+			} finally {
+				executor.shutdown();
 			}
+		}
+		long failed = results.stream().filter(result -> !result.isVerified()).count();
+		logger.info("Integrity sweep of {}: {} files, {} not verified", directory, results.size(), failed);
+		return results;
+	}
 
-			String expectedHash = matcher.group(2);
-			Optional<String> actualHash = calculateSha256(filePath);
+	private static ChecksumVerification awaitVerification(Future<ChecksumVerification> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted during integrity sweep");
+		} catch (ExecutionException e) {
+			throw new IOException("File verification failed", e.getCause());
+		}
+	}
 
-			if (!actualHash.isPresent()) {
-				logger.warn("Failed to calculate SHA for {}", filePathStr);
-				return false;
-			}
+	/**
+	 * The SHA-256 recorded for a finalized file, in lower case; empty without a well-formed .sha.
+	 */
+	public Optional<String> getRecordedSha256(Path filePath) {
+		try {
+			return readShaFile(filePath).map(hash -> hash.toLowerCase(Locale.ROOT));
+		} catch (IOException | SecurityException e) {
+			logger.warn("Could not read the checksum of {}", filePath, e);
+			return Optional.empty();
+		}
+	}
 
-			String actualHashStr = actualHash.get();
-			if (!expectedHash.equalsIgnoreCase(actualHashStr)) {
-				logger.warn("SHA mismatch for {}: expected {}, actual {}", filePathStr, expectedHash, actualHashStr);
-				return false;
-			}
+	/**
+	 * The hash recorded in the .sha file next to {@code filePath}, if the file is well-formed and names it.
+	 */
+	private Optional<String> readShaFile(Path filePath) throws IOException {
+		Path shaPath = resolveShaPath(filePath);
 
-			return true;
-		} catch (InvalidPathException | IOException | SecurityException e) {
-			logger.error("Error verifying SHA file for: {}", filePathStr, e);
-			return false;
+		if (!Files.exists(shaPath, LinkOption.NOFOLLOW_LINKS)) {
+			logger.warn("SHA file not found: {}", shaPath);
+			return Optional.empty();
+		}
+		return parseShaFile(shaPath, filePath.getFileName().toString());
+	}
+
+	/**
+	 * The hash in a checksum file, if it is well-formed and names {@code expectedName}.
+	 */
+	private Optional<String> parseShaFile(Path shaPath, String expectedName) throws IOException {
+		String shaContent;
+		try (BufferedReader reader = Files.newBufferedReader(shaPath, StandardCharsets.UTF_8)) {
+			shaContent = reader.readLine();
+		}
+
+		if (!StringUtils.hasText(shaContent)) {
+			logger.error("SHA file is empty: {}", shaPath);
+			return Optional.empty();
+		}
+
+		Matcher matcher = SHA_PATTERN.matcher(shaContent.trim());
+		if (!matcher.matches()) {
+			logger.error("Invalid SHA file format: {}", shaPath);
+			return Optional.empty();
+		}
+
+		if (!matcher.group(1).equals(expectedName)) {
+			logger.error("SHA filename mismatch: expected {}, found {}",
+					expectedName, matcher.group(1));
+			return Optional.empty();
 		}
+		return Optional.of(matcher.group(2));
 	}
 
 	private void applyPosixPermissions(Path path) {
@@ -0,0 +1,366 @@
+package com.silverlakesymmetri.cbs.fileGenerator.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SHA-256 of files already on disk: finalization without an inline checksum, verification and audits.
+ * <p>
+ * A file is memory-mapped in segments of 'file.generation.hash.segment-size'. The segments are hashed
+ * concurrently on the hashTaskExecutor while the calling thread runs the whole-file SHA-256 over the same
+ * mappings in order. SHA-256 cannot be split, so the classic digest stays sequential, but the segment
+ * threads fault the pages in ahead of it and nothing is copied through a stream buffer.
+ * <p>
+ * The segment digests and a top digest (SHA-256 of the segment digests concatenated in order) form a
+ * segment manifest, {@code <file>.sha.segments}:
+ * <pre>
+ * SHA256(ACCT_1f0c.xml)= 9f86d0...
+ * SEGMENT_SIZE= 67108864
+ * BYTES= 104857600
+ * SEGMENT(0)= 3a7bd3...
+ * SEGMENT(1)= 1f2d8c...
+ * TOP_SHA256= 77c0e1...
+ * </pre>
+ * Its first line is the classic .sha line. A file with a manifest is verified from its segments alone, all in parallel.
+ */
+@Service
+public class FileHashService {
+	private static final Logger logger = LoggerFactory.getLogger(FileHashService.class);
+	private static final String SHA256_ALGORITHM = "SHA-256";
+	public static final String SEGMENTS_EXTENSION = ".sha.segments";
+	// A single mapping cannot exceed Integer.MAX_VALUE bytes
+	private static final long MAX_SEGMENT_SIZE = 1L << 30;
+	private static final long MIN_SEGMENT_SIZE = 1L << 20;
+	private static final Pattern SHA_LINE = Pattern.compile("^SHA256\\(([^)]+)\\)=\\s*([a-f0-9]{64})$", Pattern.CASE_INSENSITIVE);
+	private static final Pattern SEGMENT_SIZE_LINE = Pattern.compile("^SEGMENT_SIZE=\\s*(\\d+)$");
+	private static final Pattern BYTES_LINE = Pattern.compile("^BYTES=\\s*(\\d+)$");
+	private static final Pattern SEGMENT_LINE = Pattern.compile("^SEGMENT\\((\\d+)\\)=\\s*([a-f0-9]{64})$", Pattern.CASE_INSENSITIVE);
+	private static final Pattern TOP_LINE = Pattern.compile("^TOP_SHA256=\\s*([a-f0-9]{64})$", Pattern.CASE_INSENSITIVE);
+
+	private final ThreadPoolTaskExecutor hashTaskExecutor;
+
+	@Value("${file.generation.hash.segment-size:67108864}")
+	private long segmentSize;
+
+	public FileHashService(@Qualifier("hashTaskExecutor") ThreadPoolTaskExecutor hashTaskExecutor) {
+		this.hashTaskExecutor = hashTaskExecutor;
+	}
+
+	/**
+	 * Threads of the hashTaskExecutor; also the number of files an integrity sweep verifies at once.
+	 */
+	public int getParallelism() {
+		return Math.max(hashTaskExecutor.getMaxPoolSize(), 1);
+	}
+
+	/**
+	 * The whole-file SHA-256 only; segments are mapped ahead of the digest to overlap I/O with hashing.
+	 */
+	public String sha256(Path file) throws IOException {
+		return hash(file, false).getSha256();
+	}
+
+	/**
+	 * The whole-file SHA-256 plus the segment digests, in one pass over the file.
+	 */
+	public FileHashes hash(Path file) throws IOException {
+		return hash(file, true);
+	}
+
+	private FileHashes hash(Path file, boolean withSegments) throws IOException {
+		long segment = effectiveSegmentSize();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int count = (int) ((size + segment - 1) / segment);
+			// Segments mapped and handed to the pool before the sequential digest reaches them
+			int ahead = getParallelism();
+			MappedByteBuffer[] mapped = new MappedByteBuffer[count];
+			List<Future<byte[]>> tasks = new ArrayList<>(count);
+			MessageDigest whole = newDigest();
+			try {
+				int submitted = 0;
+				for (int i = 0; i < count; i++) {
+					while (submitted < count && submitted <= i + ahead) {
+						MappedByteBuffer buffer = map(channel, submitted, segment, size);
+						mapped[submitted] = buffer;
+						tasks.add(hashTaskExecutor.submit(() -> {
+							if (!withSegments) {
+								buffer.load();
+								return null;
+							}
+							MessageDigest digest = newDigest();
+							digest.update(buffer.duplicate());
+							return digest.digest();
+						}));
+						submitted++;
+					}
+					whole.update(mapped[i].duplicate());
+					mapped[i] = null;
+				}
+				List<String> segments = new ArrayList<>(withSegments ? count : 0);
+				for (Future<byte[]> task : tasks) {
+					byte[] digest = await(task);
+					if (withSegments) {
+						segments.add(toHex(digest));
+					}
+				}
+				return new FileHashes(toHex(whole.digest()), size, segment, withSegments ? segments : null);
+			} finally {
+				for (Future<byte[]> task : tasks) {
+					task.cancel(false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Re-hashes every segment in parallel against a manifest.
+	 *
+	 * @return the indexes of segments that differ, in order; empty when the file matches. When the size
+	 * changed, every segment from the one where the recorded and actual lengths part ways is listed.
+	 */
+	public List<Integer> verifySegments(Path file, FileHashes manifest) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long segment = manifest.getSegmentSize();
+			int count = (int) ((size + segment - 1) / segment);
+			int recorded = manifest.getSegmentSha256().size();
+			// Segments wholly inside both lengths can be compared; the rest differ by length
+			int comparable = size == manifest.getBytes() ? count : (int) (Math.min(size, manifest.getBytes()) / segment);
+			List<Future<byte[]>> tasks = new ArrayList<>(comparable);
+			try {
+				for (int i = 0; i < comparable; i++) {
+					int index = i;
+					tasks.add(hashTaskExecutor.submit(() -> {
+						MessageDigest digest = newDigest();
+						digest.update(map(channel, index, segment, size));
+						return digest.digest();
+					}));
+				}
+				List<Integer> mismatched = new ArrayList<>();
+				for (int i = 0; i < comparable; i++) {
+					if (!toHex(await(tasks.get(i))).equalsIgnoreCase(manifest.getSegmentSha256().get(i))) {
+						mismatched.add(i);
+					}
+				}
+				for (int i = comparable; i < Math.max(count, recorded); i++) {
+					mismatched.add(i);
+				}
+				return mismatched;
+			} finally {
+				for (Future<byte[]> task : tasks) {
+					task.cancel(false);
+				}
+			}
+		}
+	}
+
+	public Path segmentManifestPath(Path file) {
+		return file.resolveSibling(file.getFileName().toString() + SEGMENTS_EXTENSION);
+	}
+
+	/**
+	 * Writes the segment manifest of {@code file} next to it (temp file, then move).
+	 */
+	public void writeSegmentManifest(Path file, FileHashes hashes) throws IOException {
+		Path target = segmentManifestPath(file);
+		Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			Files.write(tmp, hashes.toManifest(file.getFileName().toString()).getBytes(StandardCharsets.US_ASCII));
+			try {
+				Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * The segment manifest of {@code file}, if there is one that names it and whose top digest matches its segments.
+	 */
+	public FileHashes readSegmentManifest(Path file) throws IOException {
+		Path path = segmentManifestPath(file);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+		FileHashes hashes = FileHashes.parse(lines, file.getFileName().toString());
+		if (hashes == null) {
+			logger.warn("Ignoring malformed segment manifest: {}", path);
+		}
+		return hashes;
+	}
+
+	private long effectiveSegmentSize() {
+		return Math.min(Math.max(segmentSize, MIN_SEGMENT_SIZE), MAX_SEGMENT_SIZE);
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, int index, long segment, long size) throws IOException {
+		long position = index * segment;
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segment, size - position));
+	}
+
+	private static byte[] await(Future<byte[]> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a segment hash");
+		} catch (ExecutionException e) {
+			throw new IOException("Segment hashing failed", e.getCause());
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(SHA256_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(SHA256_ALGORITHM + " not available", e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	private static byte[] fromHex(String hex) {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Digests of one file: always the whole-file SHA-256; segment digests and the top digest when computed.
+	 */
+	public static final class FileHashes {
+		private final String sha256;
+		private final long bytes;
+		private final long segmentSize;
+		private final List<String> segmentSha256;
+
+		private FileHashes(String sha256, long bytes, long segmentSize, List<String> segmentSha256) {
+			this.sha256 = sha256;
+			this.bytes = bytes;
+			this.segmentSize = segmentSize;
+			this.segmentSha256 = segmentSha256 != null ? Collections.unmodifiableList(segmentSha256) : null;
+		}
+
+		public String getSha256() {
+			return sha256;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getSegmentSize() {
+			return segmentSize;
+		}
+
+		public List<String> getSegmentSha256() {
+			return segmentSha256;
+		}
+
+		public boolean hasSegments() {
+			return segmentSha256 != null;
+		}
+
+		public String getTopSha256() {
+			MessageDigest top = newDigest();
+			for (String segment : segmentSha256) {
+				top.update(fromHex(segment));
+			}
+			return toHex(top.digest());
+		}
+
+		String toManifest(String fileName) {
+			if (segmentSha256 == null) {
+				throw new IllegalStateException("No segment digests for " + fileName);
+			}
+			StringBuilder sb = new StringBuilder();
+			sb.append("SHA256(").append(fileName).append(")= ").append(sha256).append('\n');
+			sb.append("SEGMENT_SIZE= ").append(segmentSize).append('\n');
+			sb.append("BYTES= ").append(bytes).append('\n');
+			for (int i = 0; i < segmentSha256.size(); i++) {
+				sb.append("SEGMENT(").append(i).append(")= ").append(segmentSha256.get(i)).append('\n');
+			}
+			sb.append("TOP_SHA256= ").append(getTopSha256()).append('\n');
+			return sb.toString();
+		}
+
+		static FileHashes parse(List<String> lines, String fileName) {
+			if (lines.size() < 4) {
+				return null;
+			}
+			Matcher sha = SHA_LINE.matcher(lines.get(0).trim());
+			Matcher size = SEGMENT_SIZE_LINE.matcher(lines.get(1).trim());
+			Matcher length = BYTES_LINE.matcher(lines.get(2).trim());
+			if (!sha.matches() || !sha.group(1).equals(fileName) || !size.matches() || !length.matches()) {
+				return null;
+			}
+			long segment = Long.parseLong(size.group(1));
+			long bytes = Long.parseLong(length.group(1));
+			if (segment < 1 || segment > MAX_SEGMENT_SIZE) {
+				return null;
+			}
+			List<String> segments = new ArrayList<>();
+			String top = null;
+			for (String line : lines.subList(3, lines.size())) {
+				String trimmed = line.trim();
+				Matcher segmentLine = SEGMENT_LINE.matcher(trimmed);
+				Matcher topLine = TOP_LINE.matcher(trimmed);
+				if (segmentLine.matches() && top == null && Integer.parseInt(segmentLine.group(1)) == segments.size()) {
+					segments.add(segmentLine.group(2).toLowerCase(Locale.ROOT));
+				} else if (topLine.matches() && top == null) {
+					top = topLine.group(1);
+				} else if (!trimmed.isEmpty()) {
+					return null;
+				}
+			}
+			FileHashes hashes = new FileHashes(sha.group(2).toLowerCase(Locale.ROOT), bytes, segment, segments);
+			if (segments.size() != (bytes + segment - 1) / segment || top == null || !top.equalsIgnoreCase(hashes.getTopSha256())) {
+				return null;
+			}
+			return hashes;
+		}
+
+		@Override
+		public String toString() {
+			return "FileHashes{sha256=" + sha256 + ", bytes=" + bytes + ", segments=" +
+					(segmentSha256 != null ? segmentSha256.size() : 0) + '}';
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.silverlakesymmetri.cbs.fileGenerator.tasklets;
 
 import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
 import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.OutputFilePart;
 import com.silverlakesymmetri.cbs.fileGenerator.validation.XsdValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +20,13 @@ import org.springframework.util.StringUtils;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_INCOMPLETE;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_PARTS;
 import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_PART_FILE_PATH;
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_XSD_VALIDATED_INLINE;
 
 @Component
 @StepScope
@@ -44,6 +50,12 @@ public class FileValidationTasklet implements Tasklet {
 		ExecutionContext jobContext = chunkContext.getStepContext().getStepExecution()
 				.getJobExecution().getExecutionContext();
 
+		// 0. A file the writer could not finish (footer, header totals) is never delivered, in either mode
+		if (Boolean.TRUE.equals(jobContext.get(FILE_GEN_OUTPUT_INCOMPLETE))) {
+			throw new ValidationException("Output of interface " + chunkContext.getStepContext().getJobParameters()
+					.get("interfaceType") + " could not be finished; see the generation step's errors");
+		}
+
 		// 1. Retrieve file path and guard against missing path
 		String partFilePath = jobContext.getString(FILE_GEN_PART_FILE_PATH, null);
 		if (partFilePath == null || partFilePath.trim().isEmpty()) {
@@ -66,25 +78,47 @@ public class FileValidationTasklet implements Tasklet {
 			return RepeatStatus.FINISHED;
 		}
 
-		// 4. Validate input file
-		File file = new File(partFilePath);
-		ensureFileReadable(file);
+		// 4. Nothing to do when the writer validated the output while generating it
+		if (Boolean.TRUE.equals(jobContext.get(FILE_GEN_XSD_VALIDATED_INLINE))) {
+			logger.info("XSD validation done inline for file: {}, interface: {}. Skipping re-parse.", partFilePath, interfaceType);
+			return RepeatStatus.FINISHED;
+		}
 
-		String xsdSchemaFile = interfaceConfig.getXsdSchemaFile();
-		boolean isValid = xsdValidator.validateFullFile(file, xsdSchemaFile);
+		// 5. Validate every file of the output: each part of a rolled output is a document of its own
+		List<String> filePaths = new ArrayList<>();
+		if (jobContext.containsKey(FILE_GEN_OUTPUT_PARTS)) {
+			for (OutputFilePart part : OutputFilePart.decode(jobContext.getString(FILE_GEN_OUTPUT_PARTS))) {
+				filePaths.add(part.getPartFilePath());
+			}
+		} else {
+			filePaths.add(partFilePath);
+		}
 
-		if (!isValid) {
-			if (strictMode) {
-				throw new ValidationException("XSD validation failed for file: " +
-						file.getAbsolutePath() + ", interface: " + interfaceType);
-			} else {
+		String xsdSchemaFile = interfaceConfig.getXsdSchemaFile();
+		int invalidFiles = 0;
+		for (String filePath : filePaths) {
+			File file = new File(filePath);
+			ensureFileReadable(file);
+
+			boolean isValid = xsdValidator.validateFullFile(file, xsdSchemaFile, interfaceConfig.getCompression());
+
+			if (!isValid) {
+				if (strictMode) {
+					throw new ValidationException("XSD validation failed for file: " +
+							file.getAbsolutePath() + ", interface: " + interfaceType);
+				}
 				logger.warn("XSD validation failed (lenient mode) for file: {}, interface: {}",
 						file.getAbsolutePath(), interfaceType);
-				return RepeatStatus.FINISHED;
+				invalidFiles++;
+				continue;
 			}
-		}
 
-		logger.info("XSD validation successful for file: {}, interface: {}", file.getAbsolutePath(), interfaceType);
+			logger.info("XSD validation successful for file: {}, interface: {}", file.getAbsolutePath(), interfaceType);
+		}
+		if (filePaths.size() > 1) {
+			logger.info("XSD validation of {} files done for interface: {} ({} invalid)",
+					filePaths.size(), interfaceType, invalidFiles);
+		}
 		return RepeatStatus.FINISHED;
 	}
 
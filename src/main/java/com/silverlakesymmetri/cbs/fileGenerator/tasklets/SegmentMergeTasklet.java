@@ -0,0 +1,109 @@
+package com.silverlakesymmetri.cbs.fileGenerator.tasklets;
+
+import com.silverlakesymmetri.cbs.fileGenerator.batch.ControlTotals;
+import com.silverlakesymmetri.cbs.fileGenerator.batch.DynamicItemWriter;
+import com.silverlakesymmetri.cbs.fileGenerator.batch.DynamicKeyRangePartitioner;
+import com.silverlakesymmetri.cbs.fileGenerator.batch.OutputFormatWriter;
+import com.silverlakesymmetri.cbs.fileGenerator.batch.OutputFormatWriterFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.*;
+
+/**
+ * Concatenates the partition segment files, in partition (= key) order, into the job's
+ * .part file, wrapped in a single header/footer. Runs before validation so that the XSD
+ * check and the finalization listener see one complete file.
+ * <p>
+ * Partitions are looked up through the JobRepository (latest execution per worker step
+ * name), so a restarted job also picks up segments completed by an earlier execution.
+ */
+@Component
+@StepScope
+public class SegmentMergeTasklet implements Tasklet {
+	private static final Logger logger = LoggerFactory.getLogger(SegmentMergeTasklet.class);
+	public static final String WORKER_STEP_NAME = "dynamicPartitionWorkerStep";
+
+	private final JobRepository jobRepository;
+	private final OutputFormatWriterFactory writerFactory;
+
+	@Autowired
+	public SegmentMergeTasklet(JobRepository jobRepository, OutputFormatWriterFactory writerFactory) {
+		this.jobRepository = jobRepository;
+		this.writerFactory = writerFactory;
+	}
+
+	@Override
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+		StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+		JobInstance jobInstance = stepExecution.getJobExecution().getJobInstance();
+		String interfaceType = stepExecution.getJobParameters().getString("interfaceType");
+		String outputFilePath = stepExecution.getJobParameters().getString("outputFilePath");
+
+		List<String> segments = new ArrayList<>();
+		long totalRecords = 0;
+		// Control totals of the segments, concatenated; the writer adds them up
+		StringBuilder segmentTotals = new StringBuilder();
+
+		for (int i = 0; ; i++) {
+			String workerName = WORKER_STEP_NAME + ":" + DynamicKeyRangePartitioner.partitionName(i);
+			StepExecution worker = jobRepository.getLastStepExecution(jobInstance, workerName);
+			if (worker == null) break;
+
+			if (worker.getStatus() != BatchStatus.COMPLETED) {
+				throw new IllegalStateException("Partition " + workerName + " is " + worker.getStatus() +
+						"; cannot merge segments for " + interfaceType);
+			}
+
+			ExecutionContext context = worker.getExecutionContext();
+			String segment = context.getString(PARTITION_SEGMENT_FILE_PATH);
+			if (!Files.exists(Paths.get(segment))) {
+				throw new IllegalStateException("Segment file missing for " + workerName + ": " + segment);
+			}
+			segments.add(segment);
+			totalRecords += context.getLong(DynamicItemWriter.CONTEXT_KEY_RECORD_COUNT, 0L);
+			segmentTotals.append(context.getString(ControlTotals.CONTEXT_KEY, ""));
+		}
+
+		if (segments.isEmpty()) {
+			throw new IllegalStateException("No partition segments found for interface " + interfaceType);
+		}
+
+		OutputFormatWriter writer = writerFactory.selectWriter(interfaceType);
+		writer.init(outputFilePath, interfaceType);
+		writer.mergeSegments(segments, totalRecords, segmentTotals.toString());
+
+		ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+		jobContext.putString(FILE_GEN_PART_FILE_PATH, writer.getPartFilePath());
+		jobContext.putLong(FILE_GEN_TOTAL_RECORD_COUNT, totalRecords);
+
+		logger.info("Merged {} segment(s) with {} records into {}", segments.size(), totalRecords, writer.getPartFilePath());
+
+		for (String segment : segments) {
+			try {
+				Files.deleteIfExists(Paths.get(segment));
+			} catch (IOException e) {
+				logger.warn("Failed to delete merged segment {}", segment, e);
+			}
+		}
+		return RepeatStatus.FINISHED;
+	}
+}
@@ -0,0 +1,154 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.DelimitedConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.FixedWidthConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.OutputValidationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The record-length, delimited and JSON Schema checks of an interface's 'outputValidation' section, by output
+ * format (see {@link OutputValidationConfig}). Settings not given there are taken from the format's own section.
+ */
+@Component
+public class BuiltInOutputValidators implements OutputValidatorProvider {
+	private static final Logger logger = LoggerFactory.getLogger(BuiltInOutputValidators.class);
+	private static final String DEFAULT_LINE_SEPARATOR = "\n";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Value("${file.generation.external.json-schema-dir:classpath:json-schema/}")
+	private Resource resource;
+
+	// Compiled schemas by file name
+	private final Map<String, JsonSchema> schemaCache = new ConcurrentHashMap<>();
+
+	@Override
+	public List<OutputValidator> create(InterfaceConfig config) {
+		OutputValidationConfig validation = config.getOutputValidation();
+		if (validation == null || config.getOutputFormat() == null) {
+			return Collections.emptyList();
+		}
+		List<OutputValidator> validators = new ArrayList<>();
+		switch (config.getOutputFormat()) {
+			case FIXED_WIDTH:
+				validators.add(fixedWidthValidator(config.getFixedWidth(), validation));
+				break;
+			case DELIMITED:
+				validators.add(delimitedValidator(config.getDelimited(), validation));
+				break;
+			case NDJSON:
+				validators.add(new JsonLineSchemaValidator(mapper, getOrLoadSchema(validation.getJsonSchemaFile().trim()),
+						validation.getSampleRate(), validation.getSampleAfterRecords()));
+				break;
+			case XML:
+			case JSON:
+			case JSON_COMPACT:
+				break;
+			default:
+				// BeanIO: nothing is known of the layout but what the section says
+				if (validation.getRecordLength() != null) {
+					validators.add(new RecordLengthValidator(validation.getRecordLength(),
+							bytes(lineSeparator(validation, null), StandardCharsets.UTF_8), false,
+							validation.getSampleRate(), validation.getSampleAfterRecords()));
+				}
+				if (validation.getFieldCount() != null || validation.getDelimiter() != null) {
+					validators.add(delimitedValidator(null, validation));
+				}
+				break;
+		}
+		return validators;
+	}
+
+	private static OutputValidator fixedWidthValidator(FixedWidthConfig fixedWidth, OutputValidationConfig validation) {
+		FixedWidthConfig layout = fixedWidth != null ? fixedWidth : new FixedWidthConfig();
+		int recordLength = validation.getRecordLength() != null
+				? validation.getRecordLength() : layout.getEffectiveRecordLength();
+		String separator = validation.getLineSeparator() != null ? validation.getLineSeparator() : layout.getLineSeparator();
+		// Read positionally: COMP-3 and other binary fields may hold separator bytes
+		return new RecordLengthValidator(recordLength, bytes(separator, Charset.forName(layout.getEncoding())), true,
+				validation.getSampleRate(), validation.getSampleAfterRecords());
+	}
+
+	private static OutputValidator delimitedValidator(DelimitedConfig delimited, OutputValidationConfig validation) {
+		DelimitedConfig format = delimited != null ? delimited : new DelimitedConfig();
+		char delimiter = firstChar(validation.getDelimiter(), format.getDelimiter());
+		char quote = firstChar(validation.getQuote(), format.getQuote());
+		char escape = firstChar(validation.getEscape(), StringUtils.hasLength(format.getEscape())
+				? format.getEscape() : String.valueOf(quote));
+		int fieldCount = 0;
+		if (validation.getFieldCount() != null) {
+			fieldCount = validation.getFieldCount();
+		} else if (delimited != null && delimited.getColumns() != null) {
+			fieldCount = delimited.getColumns().size();
+		}
+		String separator = lineSeparator(validation, delimited != null ? delimited.getLineSeparator() : null);
+		return new DelimitedRecordValidator(delimiter, quote, escape, bytes(separator, StandardCharsets.UTF_8),
+				fieldCount, validation.getSampleRate(), validation.getSampleAfterRecords());
+	}
+
+	private static String lineSeparator(OutputValidationConfig validation, String formatSeparator) {
+		if (validation.getLineSeparator() != null) {
+			return validation.getLineSeparator();
+		}
+		return formatSeparator != null ? formatSeparator : DEFAULT_LINE_SEPARATOR;
+	}
+
+	private static char firstChar(String value, String fallback) {
+		return StringUtils.hasLength(value) ? value.charAt(0) : fallback.charAt(0);
+	}
+
+	private static byte[] bytes(String value, Charset charset) {
+		return value != null ? value.getBytes(charset) : new byte[0];
+	}
+
+	/**
+	 * Load a schema from the external directory, else the classpath, once.
+	 *
+	 * @throws IllegalStateException when the schema cannot be found or read
+	 */
+	private JsonSchema getOrLoadSchema(String schemaFileName) {
+		return schemaCache.computeIfAbsent(schemaFileName, file -> {
+			try {
+				Resource schemaResource = resource.createRelative(file);
+				if (!schemaResource.exists() || !schemaResource.isReadable()) {
+					schemaResource = new ClassPathResource("json-schema/" + file);
+				}
+				if (!schemaResource.exists() || !schemaResource.isReadable()) {
+					throw new IllegalStateException("JSON Schema not found in external or classpath: " + file);
+				}
+				try (InputStream is = schemaResource.getInputStream()) {
+					JsonSchema schema = JsonSchema.compile(mapper.readTree(is));
+					logger.info("Loaded JSON Schema {}", schemaResource.getDescription());
+					return schema;
+				}
+			} catch (IOException | IllegalArgumentException e) {
+				throw new IllegalStateException("Failed to load JSON Schema: " + file, e);
+			}
+		});
+	}
+
+	/**
+	 * Clear cached schemas (useful for tests or hot reload scenarios).
+	 */
+	public void clearSchemaCache() {
+		schemaCache.clear();
+	}
+}
@@ -0,0 +1,193 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+/**
+ * Delimited (CSV/PSV/TSV) records are well quoted and have the expected number of fields.
+ * <p>
+ * Reads the UTF-8 bytes with the quoting rules of the writer: a field is either unquoted and free of quote
+ * characters, or quoted, with inner quotes doubled (or preceded by the escape character when it differs
+ * from the quote) and nothing but a delimiter or the line separator after the closing quote. Line
+ * separators inside a quoted field are data. Delimiter, quote and escape must be ASCII, so they never
+ * match a byte of a multi-byte character.
+ * <p>
+ * Without an expected field count, the first record read (the header row, usually) sets it.
+ */
+public class DelimitedRecordValidator extends RecordValidator {
+	private enum State {
+		FIELD_START, UNQUOTED, QUOTED, QUOTED_ESCAPE, AFTER_QUOTE
+	}
+
+	private final byte delimiter;
+	private final byte quote;
+	private final byte escape;
+	private final byte[] separator;
+
+	private int expectedFields;
+	private int markedExpectedFields;
+	private State state = State.FIELD_START;
+	// Delimiters seen in the record being read
+	private int delimiters;
+	private int separatorMatched;
+	// First quoting problem of the record being read; reported with the record
+	private String quotingError;
+
+	/**
+	 * @param escape     equal to {@code quote} when quotes are escaped by doubling them
+	 * @param fieldCount expected fields per record; 0 to take it from the first record
+	 */
+	public DelimitedRecordValidator(char delimiter, char quote, char escape, byte[] separator, int fieldCount,
+									double sampleRate, long sampleAfterRecords) {
+		super("delimited", sampleRate, sampleAfterRecords);
+		if (delimiter >= 0x80 || quote >= 0x80 || escape >= 0x80) {
+			throw new IllegalArgumentException("Delimiter, quote and escape must be ASCII characters");
+		}
+		if (separator.length == 0) {
+			throw new IllegalArgumentException("Delimited records need a line separator");
+		}
+		this.delimiter = (byte) delimiter;
+		this.quote = (byte) quote;
+		this.escape = (byte) escape;
+		this.separator = separator;
+		this.expectedFields = fieldCount;
+		this.markedExpectedFields = fieldCount;
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		for (int i = off; i < off + len; i++) {
+			accept(b[i]);
+		}
+	}
+
+	private void accept(byte b) {
+		if (state == State.QUOTED_ESCAPE && escape == quote) {
+			if (b == quote) {
+				// A doubled quote
+				state = State.QUOTED;
+				return;
+			}
+			// The quote before this byte closed the field
+			state = State.AFTER_QUOTE;
+		}
+		if (state != State.QUOTED && state != State.QUOTED_ESCAPE) {
+			if (b == separator[separatorMatched]) {
+				if (++separatorMatched == separator.length) {
+					completeRecord();
+				}
+				return;
+			}
+			if (separatorMatched > 0) {
+				// What looked like the start of a separator was data
+				separatorMatched = 0;
+				unquotedData();
+				if (b == separator[0]) {
+					if (++separatorMatched == separator.length) {
+						completeRecord();
+					}
+					return;
+				}
+			}
+		}
+		switch (state) {
+			case FIELD_START:
+				if (b == quote) {
+					state = State.QUOTED;
+				} else if (b == delimiter) {
+					delimiters++;
+				} else {
+					state = State.UNQUOTED;
+				}
+				break;
+			case UNQUOTED:
+				if (b == delimiter) {
+					delimiters++;
+					state = State.FIELD_START;
+				} else if (b == quote) {
+					quotingError("quote character inside an unquoted field");
+				}
+				break;
+			case QUOTED:
+				if (b == escape) {
+					state = State.QUOTED_ESCAPE;
+				} else if (b == quote) {
+					state = State.AFTER_QUOTE;
+				}
+				break;
+			case QUOTED_ESCAPE:
+				// Escaped character (an escape distinct from the quote)
+				state = State.QUOTED;
+				break;
+			case AFTER_QUOTE:
+				if (b == delimiter) {
+					delimiters++;
+					state = State.FIELD_START;
+				} else {
+					unquotedData();
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void unquotedData() {
+		if (state == State.AFTER_QUOTE) {
+			quotingError("text after the closing quote of a field");
+		}
+		if (state != State.QUOTED && state != State.QUOTED_ESCAPE) {
+			state = State.UNQUOTED;
+		}
+	}
+
+	private void quotingError(String message) {
+		if (quotingError == null) {
+			quotingError = message;
+		}
+	}
+
+	private void completeRecord() {
+		int fields = delimiters + 1;
+		if (expectedFields == 0) {
+			expectedFields = fields;
+		}
+		if (isSampled()) {
+			if (quotingError != null) {
+				violation(quotingError);
+			}
+			if (fields != expectedFields) {
+				violation(fields + " fields, expected " + expectedFields);
+			}
+		}
+		endRecord();
+		clearRecord();
+	}
+
+	@Override
+	public void finish() {
+		if (state == State.QUOTED || (state == State.QUOTED_ESCAPE && escape != quote)) {
+			violation("unterminated quoted field at the end of the file");
+		} else if (state != State.FIELD_START || delimiters > 0 || separatorMatched > 0) {
+			violation("incomplete last record: no line separator");
+		}
+	}
+
+	@Override
+	public void mark() {
+		super.mark();
+		markedExpectedFields = expectedFields;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		// The record that set the count may be the one rolled back
+		expectedFields = markedExpectedFields;
+	}
+
+	@Override
+	protected void clearRecord() {
+		state = State.FIELD_START;
+		delimiters = 0;
+		separatorMatched = 0;
+		quotingError = null;
+	}
+}
@@ -0,0 +1,192 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One document validated while it is written: the bytes passing through {@link #tee(OutputStream)} are
+ * copied into a bounded queue that a {@link javax.xml.validation.Validator} on a companion thread reads as
+ * its input. The writer never waits for the validator unless the queue is full, so validation runs
+ * alongside generation and lags the written bytes by at most the queue's capacity.
+ * <p>
+ * Created by {@link XsdValidator#startInlineValidation}. The writer ends the document with {@link #finish()}
+ * once it is complete, or drops it with {@link #abort()}.
+ */
+public final class InlineXsdValidation {
+	private static final byte[] END = new byte[0];
+	private static final long POLL_MILLIS = 100;
+
+	/**
+	 * Validates the document read from the source; throws on the first violation.
+	 */
+	interface Task {
+		void validate(StreamSource source) throws Exception;
+	}
+
+	private final BlockingQueue<byte[]> queue;
+	private final Thread thread;
+	private final boolean failFast;
+
+	private volatile Exception failure;
+	private volatile boolean done;
+	private volatile boolean aborted;
+
+	InlineXsdValidation(String systemId, int capacity, boolean failFast, String threadName, Task task) {
+		this.queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+		this.failFast = failFast;
+		StreamSource source = new StreamSource(new QueueInputStream());
+		source.setSystemId(systemId);
+		this.thread = new Thread(() -> {
+			try {
+				task.validate(source);
+			} catch (Exception e) {
+				if (!aborted) {
+					failure = e;
+				}
+			} finally {
+				done = true;
+				queue.clear();
+			}
+		}, threadName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * The stream to write the document through: bytes go to {@code delegate} and to the validator.
+	 * Once a violation is found, writes fail with it in fail-fast mode and are no longer validated otherwise.
+	 */
+	public OutputStream tee(OutputStream delegate) {
+		return new FilterOutputStream(delegate) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				feed(new byte[]{(byte) b});
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				if (len > 0) {
+					// Callers reuse their buffers
+					feed(Arrays.copyOfRange(b, off, off + len));
+				}
+			}
+		};
+	}
+
+	private void feed(byte[] block) throws IOException {
+		try {
+			while (!done) {
+				if (queue.offer(block, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted feeding the XSD validator");
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Throws the violation found so far, in fail-fast mode.
+	 */
+	public void checkFailure() throws IOException {
+		Exception e = failure;
+		if (e != null && failFast) {
+			throw new IOException("XML output violates its XSD: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * The first violation found so far, or null.
+	 */
+	public Exception getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Ends the document and waits for the validator to read the rest of it.
+	 *
+	 * @return true when the whole document is valid
+	 */
+	public boolean finish() throws InterruptedException {
+		while (!done) {
+			if (queue.offer(END, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				break;
+			}
+		}
+		thread.join();
+		return failure == null;
+	}
+
+	/**
+	 * Drops an incomplete document; the validator stops without reporting it.
+	 */
+	public void abort() {
+		aborted = true;
+		queue.clear();
+	}
+
+	/**
+	 * The validator's input: the queued blocks in order, ending at {@link #END}.
+	 */
+	private final class QueueInputStream extends InputStream {
+		private byte[] block = new byte[0];
+		private int position;
+
+		@Override
+		public int read() throws IOException {
+			if (!next()) {
+				return -1;
+			}
+			return block[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!next()) {
+				return -1;
+			}
+			int n = Math.min(len, block.length - position);
+			System.arraycopy(block, position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		private boolean next() throws IOException {
+			while (position == block.length) {
+				if (block == END) {
+					return false;
+				}
+				try {
+					byte[] taken = null;
+					while (taken == null) {
+						if (aborted) {
+							throw new IOException("Inline XSD validation aborted");
+						}
+						taken = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+					}
+					block = taken;
+					position = 0;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted waiting for XML output");
+				}
+			}
+			return true;
+		}
+	}
+}
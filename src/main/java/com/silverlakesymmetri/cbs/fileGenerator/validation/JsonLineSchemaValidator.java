@@ -0,0 +1,137 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every NDJSON line is one JSON value valid against a schema.
+ * <p>
+ * Lines end at '\n' (the writer escapes line feeds inside strings, so the split is exact). Only sampled lines
+ * are buffered and parsed; the others are passed over byte by byte.
+ */
+public class JsonLineSchemaValidator extends RecordValidator {
+	private static final byte NEWLINE = '\n';
+	// Schema messages reported per line
+	private static final int MAX_LINE_ERRORS = 3;
+
+	private final ObjectMapper mapper;
+	private final JsonSchema schema;
+
+	private byte[] line = new byte[1024];
+	private int lineLength;
+	// The line being read is sampled; decided at its first byte
+	private boolean sampling;
+	private boolean lineStarted;
+
+	public JsonLineSchemaValidator(ObjectMapper mapper, JsonSchema schema, double sampleRate, long sampleAfterRecords) {
+		super("json schema", sampleRate, sampleAfterRecords);
+		this.mapper = mapper;
+		this.schema = schema;
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		int end = off + len;
+		int i = off;
+		while (i < end) {
+			if (!lineStarted) {
+				lineStarted = true;
+				sampling = isSampled();
+			}
+			int newline = indexOf(b, i, end);
+			int stop = newline < 0 ? end : newline;
+			if (sampling) {
+				append(b, i, stop - i);
+			}
+			if (newline < 0) {
+				return;
+			}
+			completeLine();
+			i = newline + 1;
+		}
+	}
+
+	private static int indexOf(byte[] b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (b[i] == NEWLINE) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void append(byte[] b, int off, int len) {
+		if (lineLength + len > line.length) {
+			line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + len));
+		}
+		System.arraycopy(b, off, line, lineLength, len);
+		lineLength += len;
+	}
+
+	private void completeLine() {
+		if (sampling) {
+			check();
+		}
+		endRecord();
+		clearRecord();
+	}
+
+	private void check() {
+		int len = lineLength;
+		if (len > 0 && line[len - 1] == '\r') {
+			len--;
+		}
+		if (len == 0) {
+			violation("empty line");
+			return;
+		}
+		JsonNode value;
+		try (JsonParser parser = mapper.getFactory().createParser(line, 0, len)) {
+			value = mapper.readTree(parser);
+			if (parser.nextToken() != null) {
+				violation("more than one JSON value on the line");
+				return;
+			}
+		} catch (JsonProcessingException e) {
+			violation("not valid JSON: " + e.getOriginalMessage());
+			return;
+		} catch (IOException e) {
+			violation("not valid JSON: " + e.getMessage());
+			return;
+		}
+		if (value == null) {
+			violation("no JSON value on the line");
+			return;
+		}
+		List<String> errors = new ArrayList<>();
+		schema.validate(value, errors);
+		for (int i = 0; i < errors.size() && i < MAX_LINE_ERRORS; i++) {
+			violation(errors.get(i));
+		}
+	}
+
+	@Override
+	public void finish() {
+		if (lineStarted) {
+			violation("incomplete last line: no line feed");
+		}
+	}
+
+	@Override
+	protected void clearRecord() {
+		lineLength = 0;
+		lineStarted = false;
+		sampling = false;
+		if (line.length > 1 << 20) {
+			// One huge record should not pin its buffer for the rest of the file
+			line = new byte[1024];
+		}
+	}
+}
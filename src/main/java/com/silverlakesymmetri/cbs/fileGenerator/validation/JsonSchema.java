@@ -0,0 +1,350 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A compiled JSON Schema, for the structural keywords a flat record needs: {@code type}, {@code enum},
+ * {@code const}, {@code required}, {@code properties}, {@code additionalProperties}, {@code items},
+ * {@code minLength}/{@code maxLength}, {@code pattern}, {@code minimum}/{@code maximum} and their exclusive
+ * forms (numeric as in draft 6+, or draft 4 booleans next to {@code minimum}/{@code maximum}),
+ * {@code minItems}/{@code maxItems}. Annotations ({@code $schema}, {@code $id}, {@code title},
+ * {@code description}, {@code default}, ...) are ignored.
+ * <p>
+ * Any other keyword ({@code $ref}, {@code allOf}, {@code format}, {@code patternProperties}, a misspelt
+ * {@code maxLenght}, ...) and any malformed value is rejected when the schema is compiled, so nothing is
+ * silently left unchecked. Immutable and thread-safe once compiled.
+ */
+public final class JsonSchema {
+	private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+			"type", "enum", "const", "required", "properties", "additionalProperties", "items",
+			"minLength", "maxLength", "pattern", "minimum", "maximum", "exclusiveMinimum", "exclusiveMaximum",
+			"minItems", "maxItems"));
+	private static final Set<String> ANNOTATIONS = new HashSet<>(Arrays.asList(
+			"$schema", "$id", "id", "$comment", "title", "description", "default", "examples",
+			"readOnly", "writeOnly", "deprecated"));
+	private static final Set<String> TYPES = new HashSet<>(Arrays.asList(
+			"object", "array", "string", "number", "integer", "boolean", "null"));
+
+	private final Set<String> types;
+	private final List<JsonNode> allowed;
+	private final List<String> required;
+	private final Map<String, JsonSchema> properties;
+	private final boolean additionalAllowed;
+	private final JsonSchema additionalProperties;
+	private final JsonSchema items;
+	private final Integer minLength;
+	private final Integer maxLength;
+	private final Pattern pattern;
+	private final BigDecimal minimum;
+	private final BigDecimal maximum;
+	private final BigDecimal exclusiveMinimum;
+	private final BigDecimal exclusiveMaximum;
+	private final Integer minItems;
+	private final Integer maxItems;
+
+	private JsonSchema(JsonNode schema, String path) {
+		if (!schema.isObject()) {
+			throw new IllegalArgumentException("JSON Schema at " + path + " must be an object");
+		}
+		Iterator<String> names = schema.fieldNames();
+		while (names.hasNext()) {
+			String name = names.next();
+			if (!KEYWORDS.contains(name) && !ANNOTATIONS.contains(name)) {
+				throw new IllegalArgumentException("JSON Schema keyword '" + name + "' at " + path + " is not supported");
+			}
+		}
+
+		JsonNode type = schema.get("type");
+		if (type == null) {
+			types = null;
+		} else {
+			types = new HashSet<>();
+			if (type.isArray() && type.size() > 0) {
+				type.forEach(t -> types.add(typeName(t, path)));
+			} else {
+				types.add(typeName(type, path));
+			}
+		}
+
+		if (schema.has("enum")) {
+			allowed = new ArrayList<>();
+			arrayOf(schema, "enum", path).forEach(allowed::add);
+			if (schema.has("const")) {
+				// Both must hold
+				allowed.retainAll(Collections.singletonList(schema.get("const")));
+			}
+		} else if (schema.has("const")) {
+			allowed = new ArrayList<>();
+			allowed.add(schema.get("const"));
+		} else {
+			allowed = null;
+		}
+
+		required = new ArrayList<>();
+		if (schema.has("required")) {
+			for (JsonNode name : arrayOf(schema, "required", path)) {
+				if (!name.isTextual()) {
+					throw malformed("required", path, "property names");
+				}
+				required.add(name.textValue());
+			}
+		}
+
+		properties = new LinkedHashMap<>();
+		if (schema.has("properties")) {
+			if (!schema.get("properties").isObject()) {
+				throw malformed("properties", path, "an object of schemas");
+			}
+			Iterator<Map.Entry<String, JsonNode>> fields = schema.get("properties").fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				properties.put(field.getKey(), new JsonSchema(field.getValue(), path + "/properties/" + field.getKey()));
+			}
+		}
+
+		JsonNode additional = schema.get("additionalProperties");
+		if (additional != null && !additional.isBoolean() && !additional.isObject()) {
+			throw malformed("additionalProperties", path, "a boolean or a schema");
+		}
+		additionalAllowed = additional == null || !additional.isBoolean() || additional.asBoolean();
+		additionalProperties = additional != null && additional.isObject()
+				? new JsonSchema(additional, path + "/additionalProperties") : null;
+		items = schema.has("items") ? new JsonSchema(schema.get("items"), path + "/items") : null;
+
+		minLength = intOrNull(schema, "minLength", path);
+		maxLength = intOrNull(schema, "maxLength", path);
+		pattern = pattern(schema, path);
+		minItems = intOrNull(schema, "minItems", path);
+		maxItems = intOrNull(schema, "maxItems", path);
+
+		// Draft 4 makes minimum/maximum exclusive with a boolean; draft 6+ gives the exclusive bound a number
+		BigDecimal min = decimalOrNull(schema, "minimum", path);
+		BigDecimal max = decimalOrNull(schema, "maximum", path);
+		boolean minExclusive = draft4Exclusive(schema, "exclusiveMinimum", "minimum", path);
+		boolean maxExclusive = draft4Exclusive(schema, "exclusiveMaximum", "maximum", path);
+		minimum = minExclusive ? null : min;
+		maximum = maxExclusive ? null : max;
+		exclusiveMinimum = minExclusive ? min : numericExclusive(schema, "exclusiveMinimum", path);
+		exclusiveMaximum = maxExclusive ? max : numericExclusive(schema, "exclusiveMaximum", path);
+	}
+
+	/**
+	 * @throws IllegalArgumentException for a malformed schema or one using an unsupported keyword
+	 */
+	public static JsonSchema compile(JsonNode schema) {
+		return new JsonSchema(schema, "#");
+	}
+
+	private static String typeName(JsonNode type, String path) {
+		if (!type.isTextual() || !TYPES.contains(type.textValue())) {
+			throw malformed("type", path, "one of " + TYPES + " or a non-empty array of them");
+		}
+		return type.textValue();
+	}
+
+	private static JsonNode arrayOf(JsonNode schema, String keyword, String path) {
+		JsonNode node = schema.get(keyword);
+		if (!node.isArray()) {
+			throw malformed(keyword, path, "an array");
+		}
+		return node;
+	}
+
+	private static Integer intOrNull(JsonNode schema, String keyword, String path) {
+		JsonNode node = schema.get(keyword);
+		if (node == null) {
+			return null;
+		}
+		if (!node.isIntegralNumber() || !node.canConvertToInt() || node.intValue() < 0) {
+			throw malformed(keyword, path, "a non-negative integer");
+		}
+		return node.intValue();
+	}
+
+	private static BigDecimal decimalOrNull(JsonNode schema, String keyword, String path) {
+		JsonNode node = schema.get(keyword);
+		if (node == null) {
+			return null;
+		}
+		if (!node.isNumber()) {
+			throw malformed(keyword, path, "a number");
+		}
+		return node.decimalValue();
+	}
+
+	/**
+	 * @return true when {@code keyword} is the draft 4 boolean {@code true}, making {@code bound} exclusive
+	 */
+	private static boolean draft4Exclusive(JsonNode schema, String keyword, String bound, String path) {
+		JsonNode node = schema.get(keyword);
+		if (node == null || !node.isBoolean()) {
+			return false;
+		}
+		if (!schema.has(bound)) {
+			throw new IllegalArgumentException("JSON Schema keyword '" + keyword + "' at " + path +
+					" is a draft 4 boolean without '" + bound + "'");
+		}
+		return node.booleanValue();
+	}
+
+	private static BigDecimal numericExclusive(JsonNode schema, String keyword, String path) {
+		JsonNode node = schema.get(keyword);
+		return node != null && node.isBoolean() ? null : decimalOrNull(schema, keyword, path);
+	}
+
+	private static Pattern pattern(JsonNode schema, String path) {
+		JsonNode node = schema.get("pattern");
+		if (node == null) {
+			return null;
+		}
+		if (!node.isTextual()) {
+			throw malformed("pattern", path, "a regular expression");
+		}
+		try {
+			return Pattern.compile(node.textValue());
+		} catch (PatternSyntaxException e) {
+			throw new IllegalArgumentException("JSON Schema keyword 'pattern' at " + path + ": " + e.getDescription(), e);
+		}
+	}
+
+	private static IllegalArgumentException malformed(String keyword, String path, String expected) {
+		return new IllegalArgumentException("JSON Schema keyword '" + keyword + "' at " + path + " must be " + expected);
+	}
+
+	/**
+	 * Adds a message for every violation of this schema by {@code value} to {@code errors}.
+	 */
+	public void validate(JsonNode value, List<String> errors) {
+		validate(value, "$", errors);
+	}
+
+	private void validate(JsonNode value, String path, List<String> errors) {
+		if (types != null && !hasType(value)) {
+			errors.add(path + ": expected " + (types.size() == 1 ? types.iterator().next() : types) +
+					", found " + value.getNodeType().name().toLowerCase());
+			return;
+		}
+		if (allowed != null && !allowed.contains(value)) {
+			errors.add(path + ": " + value + " is not one of " + allowed);
+		}
+		if (value.isTextual()) {
+			validateText(value.textValue(), path, errors);
+		} else if (value.isNumber()) {
+			validateNumber(value.decimalValue(), path, errors);
+		} else if (value.isObject()) {
+			validateObject(value, path, errors);
+		} else if (value.isArray()) {
+			validateArray(value, path, errors);
+		}
+	}
+
+	private boolean hasType(JsonNode value) {
+		for (String type : types) {
+			switch (type) {
+				case "object":
+					if (value.isObject()) return true;
+					break;
+				case "array":
+					if (value.isArray()) return true;
+					break;
+				case "string":
+					if (value.isTextual()) return true;
+					break;
+				case "number":
+					if (value.isNumber()) return true;
+					break;
+				case "integer":
+					if (value.isIntegralNumber()
+							|| (value.isNumber() && value.decimalValue().stripTrailingZeros().scale() <= 0)) return true;
+					break;
+				case "boolean":
+					if (value.isBoolean()) return true;
+					break;
+				case "null":
+					if (value.isNull()) return true;
+					break;
+				default:
+					// Names are checked when the schema is compiled
+					break;
+			}
+		}
+		return false;
+	}
+
+	private void validateText(String text, String path, List<String> errors) {
+		if (minLength != null || maxLength != null) {
+			int length = text.codePointCount(0, text.length());
+			if (minLength != null && length < minLength) {
+				errors.add(path + ": " + length + " characters, minimum " + minLength);
+			}
+			if (maxLength != null && length > maxLength) {
+				errors.add(path + ": " + length + " characters, maximum " + maxLength);
+			}
+		}
+		if (pattern != null && !pattern.matcher(text).find()) {
+			errors.add(path + ": does not match " + pattern.pattern());
+		}
+	}
+
+	private void validateNumber(BigDecimal number, String path, List<String> errors) {
+		if (minimum != null && number.compareTo(minimum) < 0) {
+			errors.add(path + ": " + number + " is below the minimum " + minimum);
+		}
+		if (maximum != null && number.compareTo(maximum) > 0) {
+			errors.add(path + ": " + number + " is above the maximum " + maximum);
+		}
+		if (exclusiveMinimum != null && number.compareTo(exclusiveMinimum) <= 0) {
+			errors.add(path + ": " + number + " is not above " + exclusiveMinimum);
+		}
+		if (exclusiveMaximum != null && number.compareTo(exclusiveMaximum) >= 0) {
+			errors.add(path + ": " + number + " is not below " + exclusiveMaximum);
+		}
+	}
+
+	private void validateObject(JsonNode object, String path, List<String> errors) {
+		for (String name : required) {
+			if (!object.has(name)) {
+				errors.add(path + ": required property '" + name + "' is missing");
+			}
+		}
+		Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			JsonSchema property = properties.get(field.getKey());
+			if (property != null) {
+				property.validate(field.getValue(), path + "." + field.getKey(), errors);
+			} else if (!additionalAllowed) {
+				errors.add(path + ": property '" + field.getKey() + "' is not allowed");
+			} else if (additionalProperties != null) {
+				additionalProperties.validate(field.getValue(), path + "." + field.getKey(), errors);
+			}
+		}
+	}
+
+	private void validateArray(JsonNode array, String path, List<String> errors) {
+		if (minItems != null && array.size() < minItems) {
+			errors.add(path + ": " + array.size() + " items, minimum " + minItems);
+		}
+		if (maxItems != null && array.size() > maxItems) {
+			errors.add(path + ": " + array.size() + " items, maximum " + maxItems);
+		}
+		if (items != null) {
+			for (int i = 0; i < array.size(); i++) {
+				items.validate(array.get(i), path + "[" + i + "]", errors);
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The output validators of one file, fed together from {@link #tee(OutputStream)}. The validators run on the
+ * writing thread, over the bytes of each flushed buffer, so the file is never read back.
+ */
+public final class OutputValidation {
+	private final List<OutputValidator> validators;
+
+	private OutputValidation(List<OutputValidator> validators) {
+		this.validators = validators;
+	}
+
+	/**
+	 * The validators every provider has for a new file of the interface's output; null when none has any.
+	 */
+	public static OutputValidation create(List<OutputValidatorProvider> providers, InterfaceConfig config) {
+		List<OutputValidator> validators = new ArrayList<>();
+		if (providers != null) {
+			for (OutputValidatorProvider provider : providers) {
+				validators.addAll(provider.create(config));
+			}
+		}
+		return validators.isEmpty() ? null : new OutputValidation(validators);
+	}
+
+	/**
+	 * Passes everything written to {@code delegate} through the validators.
+	 */
+	public OutputStream tee(OutputStream delegate) {
+		return new FilterOutputStream(delegate) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				update(new byte[]{(byte) b}, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				update(b, off, len);
+			}
+		};
+	}
+
+	private void update(byte[] b, int off, int len) {
+		for (OutputValidator validator : validators) {
+			validator.update(b, off, len);
+		}
+	}
+
+	public void mark() {
+		for (OutputValidator validator : validators) {
+			validator.mark();
+		}
+	}
+
+	public void reset() {
+		for (OutputValidator validator : validators) {
+			validator.reset();
+		}
+	}
+
+	public void finish() {
+		for (OutputValidator validator : validators) {
+			validator.finish();
+		}
+	}
+
+	/**
+	 * Violations of every validator since the last call; empty when none.
+	 */
+	public List<String> drainViolations() {
+		List<String> violations = Collections.emptyList();
+		for (OutputValidator validator : validators) {
+			List<String> found = validator.drainViolations();
+			if (!found.isEmpty()) {
+				if (violations.isEmpty()) {
+					violations = new ArrayList<>();
+				}
+				violations.addAll(found);
+			}
+		}
+		return violations;
+	}
+}
@@ -0,0 +1,40 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import java.util.List;
+
+/**
+ * Checks one output file as it is written: the writer passes every uncompressed byte through
+ * {@link #update}, in order, as its buffers are flushed. One instance per file, used by one thread.
+ * <p>
+ * Writers flush at every chunk boundary, which is always a record boundary: {@link #mark()} is called
+ * there, and {@link #reset()} returns to it when the writer rolls the chunk back to skip a bad record.
+ * Implementations report violations instead of throwing, so the writer decides between skipping and failing.
+ * Created by an {@link OutputValidatorProvider}.
+ */
+public interface OutputValidator {
+
+	/**
+	 * Reads the next bytes of the file.
+	 */
+	void update(byte[] b, int off, int len);
+
+	/**
+	 * The file is complete: reports a last record left unterminated.
+	 */
+	void finish();
+
+	/**
+	 * Remembers the current position, a record boundary.
+	 */
+	void mark();
+
+	/**
+	 * Forgets everything read since {@link #mark()}.
+	 */
+	void reset();
+
+	/**
+	 * Violations found since the last call, one message each; empty when none.
+	 */
+	List<String> drainViolations();
+}
@@ -0,0 +1,17 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+
+import java.util.List;
+
+/**
+ * Extension point for output checks: every Spring bean implementing it is asked for validators whenever a
+ * writer starts a file of an interface with an 'outputValidation' section.
+ */
+public interface OutputValidatorProvider {
+
+	/**
+	 * New validators for one file of the interface's output; empty when this provider has none for it.
+	 */
+	List<OutputValidator> create(InterfaceConfig config);
+}
@@ -0,0 +1,104 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+/**
+ * Every record is exactly {@code recordLength} bytes followed by the line separator.
+ * <p>
+ * Text records are found by their separator and measured. Records that may hold binary fields (COMP-3
+ * bytes can equal a line feed) are read positionally instead: {@code recordLength} bytes, then the
+ * separator must follow; when it does not, the validator reports it and scans for the next separator
+ * to get back in step. With an empty separator the file is a plain sequence of records.
+ */
+public class RecordLengthValidator extends RecordValidator {
+	private final int recordLength;
+	private final byte[] separator;
+	private final boolean positional;
+
+	// Data bytes of the record being read, and how much of the separator follows them
+	private long length;
+	private int separatorMatched;
+	// Positional reading lost step at a misplaced separator; scanning for the next one
+	private boolean resyncing;
+
+	public RecordLengthValidator(int recordLength, byte[] separator, boolean positional,
+								 double sampleRate, long sampleAfterRecords) {
+		super("record length", sampleRate, sampleAfterRecords);
+		if (!positional && separator.length == 0) {
+			throw new IllegalArgumentException("Records without a line separator can only be read positionally");
+		}
+		this.recordLength = recordLength;
+		this.separator = separator;
+		this.positional = positional;
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		for (int i = off; i < off + len; i++) {
+			accept(b[i]);
+		}
+	}
+
+	private void accept(byte b) {
+		if (positional && !resyncing) {
+			if (length < recordLength) {
+				if (++length == recordLength && separator.length == 0) {
+					completeRecord();
+				}
+				return;
+			}
+			if (b == separator[separatorMatched]) {
+				if (++separatorMatched == separator.length) {
+					completeRecord();
+				}
+				return;
+			}
+			if (isSampled()) {
+				violation("no line separator after " + recordLength + " bytes (the record is longer, or one before it shorter)");
+			}
+			resyncing = true;
+		}
+		if (matchSeparator(b)) {
+			if (!resyncing && length != recordLength && isSampled()) {
+				violation(length + " bytes, expected " + recordLength);
+			}
+			completeRecord();
+		}
+	}
+
+	/**
+	 * @return true when {@code b} completes the separator
+	 */
+	private boolean matchSeparator(byte b) {
+		if (b == separator[separatorMatched]) {
+			return ++separatorMatched == separator.length;
+		}
+		// What looked like the start of a separator was data
+		length += separatorMatched;
+		separatorMatched = 0;
+		if (b == separator[0]) {
+			return ++separatorMatched == separator.length;
+		}
+		length++;
+		return false;
+	}
+
+	private void completeRecord() {
+		endRecord();
+		length = 0;
+		separatorMatched = 0;
+		resyncing = false;
+	}
+
+	@Override
+	public void finish() {
+		if (length > 0 || separatorMatched > 0) {
+			violation("incomplete last record: " + (length + separatorMatched) + " bytes without a line separator");
+		}
+	}
+
+	@Override
+	protected void clearRecord() {
+		length = 0;
+		separatorMatched = 0;
+		resyncing = false;
+	}
+}
@@ -0,0 +1,88 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base of validators that check the output record by record: counts records, decides which are sampled,
+ * and collects violations. Subclasses find record boundaries in every byte (so they stay in step) and
+ * check the contents of sampled records only.
+ * <p>
+ * Records are numbered from 1 at the start of the file (from the restart point after a restart), header
+ * records included.
+ */
+public abstract class RecordValidator implements OutputValidator {
+	// Messages kept between two drains; a badly broken file should not fill the heap with them
+	private static final int MAX_VIOLATIONS = 10;
+
+	private final String name;
+	private final double sampleRate;
+	private final long sampleAfterRecords;
+	private final List<String> violations = new ArrayList<>();
+
+	// Records completed so far, and at the mark
+	private long records;
+	private long markedRecords;
+
+	protected RecordValidator(String name, double sampleRate, long sampleAfterRecords) {
+		this.name = name;
+		this.sampleRate = sampleRate;
+		this.sampleAfterRecords = sampleAfterRecords;
+	}
+
+	/**
+	 * Whether the record being read is checked: all of the first 'sampleAfterRecords', then an even
+	 * share 'sampleRate' of the rest.
+	 */
+	protected boolean isSampled() {
+		if (records < sampleAfterRecords || sampleRate >= 1.0) {
+			return true;
+		}
+		long index = records - sampleAfterRecords;
+		return (long) ((index + 1) * sampleRate) > (long) (index * sampleRate);
+	}
+
+	/**
+	 * The record being read is complete.
+	 */
+	protected void endRecord() {
+		records++;
+	}
+
+	/**
+	 * Reports a violation in the record being read.
+	 */
+	protected void violation(String message) {
+		if (violations.size() < MAX_VIOLATIONS) {
+			violations.add(name + ": record " + (records + 1) + ": " + message);
+		}
+	}
+
+	/**
+	 * Drops the partial record being read; called by {@link #reset()}.
+	 */
+	protected abstract void clearRecord();
+
+	@Override
+	public void mark() {
+		markedRecords = records;
+	}
+
+	@Override
+	public void reset() {
+		records = markedRecords;
+		violations.clear();
+		clearRecord();
+	}
+
+	@Override
+	public List<String> drainViolations() {
+		if (violations.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> drained = new ArrayList<>(violations);
+		violations.clear();
+		return drained;
+	}
+}
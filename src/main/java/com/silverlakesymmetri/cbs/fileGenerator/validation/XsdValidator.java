@@ -1,5 +1,6 @@
 package com.silverlakesymmetri.cbs.fileGenerator.validation;
 
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,6 +24,7 @@ import java.nio.file.Files;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
 
 /**
  * XSD Schema validator for optional XML output validation.
@@ -31,17 +33,23 @@ import java.util.concurrent.ConcurrentHashMap;
  * - XXE-safe XML processing
  * - Thread-safe schema caching
  * - Stream-based validation (no DOM)
+ * - Inline validation of a document while it is written
  * - Strict / lenient validation modes
  */
 @Component
 public class XsdValidator {
 	private static final Logger logger = LoggerFactory.getLogger(XsdValidator.class);
+	private static final int GZIP_BUFFER_SIZE = 65536;
 	@Value("${file.generation.external.xsd-dir:classpath:xsd}")
 	private Resource resource;
 
 	@Value("${validation.xsd.strict-mode:false}")
 	private boolean strictMode;
 
+	// Written blocks queued for an inline validator before the writer waits for it
+	@Value("${validation.xsd.inline.queue-blocks:64}")
+	private int inlineQueueBlocks;
+
 	/**
 	 * Thread-safe cache for loaded schemas.
 	 * Null values indicate schema load failure.
@@ -53,6 +61,14 @@ public class XsdValidator {
 	 * Use this in your Tasklet for post-generation validation.
 	 */
 	public boolean validateFullFile(File xmlFile, String schemaFileName) {
+		return validateFullFile(xmlFile, schemaFileName, InterfaceConfig.Compression.NONE);
+	}
+
+	/**
+	 * Validates a full file on disk written with the given compression; GZIP output is
+	 * decompressed as it is read (all of its concatenated members).
+	 */
+	public boolean validateFullFile(File xmlFile, String schemaFileName, InterfaceConfig.Compression compression) {
 		if (xmlFile == null || !xmlFile.exists() || !xmlFile.isFile() || !xmlFile.canRead()) {
 			logStrictMode(null, "Validation failed: File is invalid or unreadable: {}", xmlFile);
 			return !strictMode;
@@ -63,7 +79,7 @@ public class XsdValidator {
 			return !strictMode;
 		}
 
-		try (InputStream is = Files.newInputStream(xmlFile.toPath())) {
+		try (InputStream is = openForValidation(xmlFile, compression)) {
 			StreamSource source = new StreamSource(is);
 			source.setSystemId(xmlFile.getAbsolutePath());
 			return executeValidation(source, schemaFileName);
@@ -90,6 +106,39 @@ public class XsdValidator {
 		}
 	}
 
+	private static InputStream openForValidation(File xmlFile, InterfaceConfig.Compression compression) throws IOException {
+		InputStream in = Files.newInputStream(xmlFile.toPath());
+		if (compression != InterfaceConfig.Compression.GZIP) {
+			return in;
+		}
+		try {
+			return new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts validating a document while it is generated: the bytes written through the returned session's
+	 * {@link InlineXsdValidation#tee tee} are validated on a companion thread. In strict mode a violation
+	 * fails the writes that follow it.
+	 *
+	 * @return null when the schema cannot be loaded; post-generation validation then reports it
+	 */
+	public InlineXsdValidation startInlineValidation(String schemaFileName, String systemId) {
+		if (!StringUtils.hasText(schemaFileName)) {
+			return null;
+		}
+		Optional<Schema> schema = getOrLoadSchema(schemaFileName);
+		if (!schema.isPresent()) {
+			logger.warn("Schema not found: {}. Inline validation disabled for {}", schemaFileName, systemId);
+			return null;
+		}
+		return new InlineXsdValidation(systemId, inlineQueueBlocks, strictMode, "xsd-inline-" + schemaFileName,
+				source -> newValidator(schema.get()).validate(source));
+	}
+
 	/**
 	 * Unified private method to handle the validation logic.
 	 */
@@ -164,19 +213,8 @@ public class XsdValidator {
 	 * @throws SAXParseException for any validation or IO failure
 	 */
 	private void validateXml(StreamSource source, Schema schema, String schemaFileName) throws SAXParseException {
-		// Validator is NOT thread-safe. Must be created per validation request.
-		Validator validator = schema.newValidator();
 		try {
-			// XXE-safe properties for the validator instance
-			try {
-				validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-				validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-				validator.setProperty(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
-			} catch (SAXNotRecognizedException | SAXNotSupportedException ignore) {
-				// Not all JAXP implementations support these properties
-				// Ignore if not supported
-			}
-			validator.validate(source);
+			newValidator(schema).validate(source);
 		} catch (SAXParseException e) {
 			logStrictMode(e, "XSD Validation. Schema: {}, Error at Line: {}, Column: {}. Reason: {}",
 					schemaFileName, e.getLineNumber(), e.getColumnNumber(), e.getMessage());
@@ -190,6 +228,23 @@ public class XsdValidator {
 		}
 	}
 
+	/**
+	 * Validator is NOT thread-safe. Must be created per validation request.
+	 */
+	private static Validator newValidator(Schema schema) {
+		Validator validator = schema.newValidator();
+		// XXE-safe properties for the validator instance
+		try {
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+		} catch (SAXNotRecognizedException | SAXNotSupportedException ignore) {
+			// Not all JAXP implementations support these properties
+			// Ignore if not supported
+		}
+		return validator;
+	}
+
 	private Optional<Schema> createSchemaFromStream(InputStream is, String filePath) {
 		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
 		try {
@@ -0,0 +1,358 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.ControlTotalsConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ColumnType;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Control totals are what the receiving system reconciles the file against: they must be exact across long
+ * overflow, restarts and partition segments, and a back-patched header must keep its length.
+ */
+public class ControlTotalsTest {
+	private static final String SUM_AMOUNT = ControlTotals.SUM_PREFIX + "AMOUNT";
+	private static final String HASH_ACCOUNT = ControlTotals.HASH_PREFIX + "ACCOUNT";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final RecordSchema schema = new RecordSchema(Arrays.asList("ACCOUNT", "AMOUNT"),
+			Arrays.asList(ColumnType.STRING, ColumnType.DECIMAL));
+
+	/* ================= Sums and hashes ================= */
+
+	@Test
+	public void foldsLongOverflowIntoTheDecimalTotal() {
+		ControlTotals totals = totals();
+		totals.add(record("1", Long.MAX_VALUE));
+		totals.add(record("2", Long.MAX_VALUE));
+		totals.add(record("3", 2L));
+
+		assertEquals(new BigDecimal(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)).add(BigDecimal.valueOf(2)),
+				totals.values(3).get(SUM_AMOUNT));
+	}
+
+	@Test
+	public void foldsNegativeLongOverflow() {
+		ControlTotals totals = totals();
+		totals.add(record("1", Long.MIN_VALUE));
+		totals.add(record("2", -1L));
+		totals.add(record("3", 1));
+
+		assertEquals(new BigDecimal(Long.MIN_VALUE), totals.values(3).get(SUM_AMOUNT));
+	}
+
+	@Test
+	public void addsMixedNumericTypesExactly() {
+		ControlTotals totals = totals();
+		totals.add(record("1", 10L));
+		totals.add(record("2", new BigDecimal("0.15")));
+		totals.add(record("3", 0.1d));
+		totals.add(record("4", " 2.5 "));
+		totals.add(record("5", null));
+
+		assertEquals(new BigDecimal("12.75"), totals.values(5).get(SUM_AMOUNT));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsNonNumericSumValues() {
+		totals().add(record("1", "12,50"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsColumnsMissingFromTheResults() {
+		ControlTotalsConfig config = new ControlTotalsConfig();
+		config.setSumColumns(Collections.singletonList("BALANCE"));
+		new ControlTotals(config).add(record("1", 1L));
+	}
+
+	@Test
+	public void hashesTheDigitsOfEachValue() {
+		ControlTotals totals = totals();
+		totals.add(record("AC-123/45", 0L));
+		totals.add(record("00055", 0L));
+		totals.add(record(null, 0L));
+
+		assertEquals(12345L + 55L, totals.values(3).get(HASH_ACCOUNT));
+	}
+
+	@Test
+	public void keepsTheLastEighteenDigitsOfTheHash() {
+		ControlTotals totals = totals();
+		totals.add(record("1234567890123456789012", 0L));
+		totals.add(record("999999999999999999", 0L));
+		totals.add(record("1", 0L));
+
+		// 567890123456789012 + 999999999999999999 + 1, modulo 10^18
+		assertEquals(567890123456789012L, totals.values(3).get(HASH_ACCOUNT));
+	}
+
+	/* ================= Checkpoints and segments ================= */
+
+	@Test
+	public void encodesTotalsWithoutTheRecordCount() {
+		ControlTotals totals = totals();
+		totals.add(record("42", new BigDecimal("12.50")));
+
+		assertEquals("sum_AMOUNT=12.50;hash_ACCOUNT=42;", totals.encode());
+	}
+
+	@Test
+	public void restoresTheTotalsOfACheckpoint() {
+		ControlTotals totals = totals();
+		totals.add(record("7", Long.MAX_VALUE));
+		totals.add(record("8", 1L));
+		String checkpoint = totals.encode();
+		// Added after the checkpoint, then lost with the rolled-back chunk
+		totals.add(record("9", 100L));
+
+		ControlTotals restored = totals();
+		restored.add(record("1", 5L));
+		restored.restore(checkpoint);
+		totals.restore(checkpoint);
+
+		assertEquals(new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE), restored.values(2).get(SUM_AMOUNT));
+		assertEquals(15L, restored.values(2).get(HASH_ACCOUNT));
+		assertEquals(restored.values(2), totals.values(2));
+	}
+
+	@Test
+	public void mergesSegmentTotalsToTheWholeFilesTotals() {
+		List<DynamicRecord> records = Arrays.asList(record("900000000000000001", Long.MAX_VALUE),
+				record("900000000000000002", new BigDecimal("-0.01")), record("3", -7L), record("4", new BigDecimal("1E+2")));
+		ControlTotals whole = totals();
+		ControlTotals first = totals();
+		ControlTotals second = totals();
+		for (int i = 0; i < records.size(); i++) {
+			whole.add(records.get(i));
+			(i < 2 ? first : second).add(records.get(i));
+		}
+
+		ControlTotals merged = totals();
+		merged.merge(first.encode());
+		merged.merge(second.encode());
+		merged.merge("");
+		merged.merge(null);
+
+		assertEquals(whole.values(4), merged.values(4));
+		assertEquals(whole.paddedValues(4), merged.paddedValues(4));
+	}
+
+	@Test
+	public void ignoresTotalsNotConfiguredHere() {
+		ControlTotals totals = totals();
+		totals.merge("sum_OTHER=5;hash_OTHER=7;sum_AMOUNT=1.5;junk;");
+
+		assertEquals(new BigDecimal("1.5"), totals.values(0).get(SUM_AMOUNT));
+		assertEquals(0L, totals.values(0).get(HASH_ACCOUNT));
+	}
+
+	/* ================= Padded header values ================= */
+
+	@Test
+	public void padsNegativeSumsAfterTheSign() {
+		ControlTotals totals = totals();
+		totals.add(record("1", new BigDecimal("-12.50")));
+		Map<String, String> padded = totals.paddedValues(1);
+
+		assertEquals("000000000000000001", padded.get(ControlTotals.RECORD_COUNT));
+		assertEquals("-00000000000000000012.50", padded.get(SUM_AMOUNT));
+		assertEquals("000000000000000001", padded.get(HASH_ACCOUNT));
+	}
+
+	@Test
+	public void keepsEveryPaddedValueAsLongAsThePlaceholder() {
+		Map<String, String> placeholder = totals().paddedValues(0);
+		ControlTotals totals = totals();
+		totals.add(record("999999999999999999", new BigDecimal("-98765432109876543.21")));
+		totals.add(record("1", 3L));
+		Map<String, String> values = totals.paddedValues(123456789L);
+
+		for (Map.Entry<String, String> entry : placeholder.entrySet()) {
+			assertEquals(entry.getKey(), entry.getValue().length(), values.get(entry.getKey()).length());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsASumWiderThanItsHeaderPositions() {
+		ControlTotals totals = totals();
+		totals.add(record("1", new BigDecimal("-12345678901234567890123.5")));
+		totals.paddedValues(1);
+	}
+
+	/* ================= Back-patched header ================= */
+
+	@Test
+	public void backPatchesTheHeaderInPlace() throws Exception {
+		File file = folder.newFile("totals.txt");
+		HeaderTotalsWriter writer = writer(file);
+		ExecutionContext context = new ExecutionContext();
+		writer.open(context);
+		String placeholder = Files.readAllLines(part(file).toPath()).get(0);
+		writer.write(Arrays.asList(record("11", 250L), record("22", new BigDecimal("-0.75"))));
+		writer.update(context);
+		writer.write(Collections.singletonList(record("33", 1L)));
+		writer.update(context);
+		writer.setStepSuccessful(true);
+		writer.close();
+
+		List<String> lines = Files.readAllLines(part(file).toPath());
+		assertEquals("H000000000000000003|000000000000000000250.25|000000000000000066", lines.get(0));
+		assertEquals(placeholder.length(), lines.get(0).length());
+		assertEquals(Arrays.asList("D11", "D22", "D33"), lines.subList(1, lines.size()));
+	}
+
+	@Test
+	public void backPatchesTheHeaderAfterARestart() throws Exception {
+		File file = folder.newFile("restarted.txt");
+		HeaderTotalsWriter writer = writer(file);
+		ExecutionContext context = new ExecutionContext();
+		writer.open(context);
+		writer.write(Collections.singletonList(record("11", 250L)));
+		writer.update(context);
+		// Lost: never checkpointed
+		writer.write(Collections.singletonList(record("99", 1000L)));
+		writer.close();
+
+		HeaderTotalsWriter restarted = writer(file);
+		restarted.open(new ExecutionContext(context.toMap()));
+		restarted.write(Collections.singletonList(record("22", 5L)));
+		restarted.update(context);
+		restarted.setStepSuccessful(true);
+		restarted.close();
+
+		assertEquals(Arrays.asList("H000000000000000002|000000000000000000000255|000000000000000033", "D11", "D22"),
+				Files.readAllLines(part(file).toPath()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void failsTheCheckpointWhenATotalOutgrowsThePlaceholder() throws Throwable {
+		HeaderTotalsWriter writer = writer(folder.newFile("wide.txt"));
+		writer.open(new ExecutionContext());
+		writer.write(Collections.singletonList(record("1", new BigDecimal("1234567890123456789012345"))));
+		try {
+			writer.update(new ExecutionContext());
+		} catch (RuntimeException e) {
+			throw e.getCause();
+		} finally {
+			writer.close();
+		}
+	}
+
+	/* ================= Helpers ================= */
+
+	private static ControlTotals totals() {
+		return new ControlTotals(config());
+	}
+
+	private static ControlTotalsConfig config() {
+		ControlTotalsConfig config = new ControlTotalsConfig();
+		config.setSumColumns(Collections.singletonList(" AMOUNT "));
+		config.setHashColumns(Collections.singletonList("ACCOUNT"));
+		return config;
+	}
+
+	private DynamicRecord record(String account, Object amount) {
+		DynamicRecord record = new DynamicRecord(schema);
+		record.setValue(0, account);
+		record.setValue(1, amount);
+		return record;
+	}
+
+	private static HeaderTotalsWriter writer(File file) throws Exception {
+		HeaderTotalsWriter writer = new HeaderTotalsWriter();
+		writer.setControlTotals(config());
+		writer.init(file.getPath(), "TEST");
+		return writer;
+	}
+
+	private static File part(File file) {
+		return new File(file.getPath() + ".part");
+	}
+
+	/**
+	 * "H<count>|<sum>|<hash>" header back-patched with the final totals, then one "D<account>" line per record.
+	 */
+	private static final class HeaderTotalsWriter extends AbstractBaseOutputWriter<DynamicRecord> {
+
+		@Override
+		protected String getByteOffsetKey() {
+			return "test.writer.byteOffset";
+		}
+
+		@Override
+		protected String getRecordCountKey() {
+			return "test.writer.recordCount";
+		}
+
+		@Override
+		protected void onInit() {
+		}
+
+		@Override
+		protected void openStream(OutputStream os, boolean isRestart) throws Exception {
+			if (!isRestart) {
+				writeHeader();
+			}
+		}
+
+		@Override
+		public void write(List<? extends DynamicRecord> items) throws Exception {
+			beginWrite();
+			for (DynamicRecord record : items) {
+				bufferedOutputStream.write(("D" + record.getValue(0) + "\n").getBytes(StandardCharsets.US_ASCII));
+				addToControlTotals(record);
+				recordCount++;
+			}
+			endWrite();
+		}
+
+		@Override
+		protected void flushInternal() {
+		}
+
+		@Override
+		protected void writeHeader() throws Exception {
+			writePatchableHeader(renderHeaderPatch());
+		}
+
+		@Override
+		protected byte[] renderHeaderPatch() {
+			return ("H" + String.join("|", controlTotals.paddedValues(getPartRecordCount()).values()) + "\n")
+					.getBytes(StandardCharsets.US_ASCII);
+		}
+
+		@Override
+		protected void writeFooter() {
+		}
+
+		@Override
+		public void close() {
+			try {
+				if (stepSuccessful) {
+					patchHeader();
+				}
+			} catch (Exception e) {
+				throw unfinished("Failed to finish test output of " + interfaceType, e);
+			} finally {
+				closeQuietly();
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.TransformConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ColumnType;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The step processes an item again on retry, in scan mode and after a rollback; the output must not depend
+ * on how many times that happened.
+ */
+public class DynamicItemProcessorTest {
+
+	private final RecordSchema schema = new RecordSchema(Arrays.asList("ID", "BRANCH_CODE"),
+			Arrays.asList(ColumnType.INTEGER, ColumnType.STRING));
+
+	private DynamicItemProcessor processor;
+
+	@Before
+	public void setUp() {
+		// Not idempotent when applied in place: "BR0042 " -> "0042", then "42"
+		InterfaceConfig config = new InterfaceConfig();
+		config.setTransforms(Arrays.asList(
+				transform(TransformConfig.Type.TRIM, null, 0),
+				transform(TransformConfig.Type.SUBSTRING, null, 2)));
+		InterfaceConfigLoader loader = mock(InterfaceConfigLoader.class);
+		when(loader.getConfig("TEST")).thenReturn(config);
+		processor = new DynamicItemProcessor(loader);
+		processor.setInterfaceType("TEST");
+		processor.init();
+	}
+
+	@Test
+	public void processingTheSameBatchRowTwiceGivesTheSameOutput() throws Exception {
+		RecordBatch batch = new RecordBatch(schema, 4);
+		DynamicRecord record = batch.addRow(new Object[]{1L, "BR0042 "});
+
+		DynamicRecord first = processor.process(record);
+		DynamicRecord second = processor.process(record);
+
+		assertEquals("0042", first.get("BRANCH_CODE"));
+		assertEquals("0042", second.get("BRANCH_CODE"));
+		assertEquals(1L, second.get("ID"));
+		assertEquals("BR0042 ", record.get("BRANCH_CODE"));
+		assertEquals("BR0042 ", batch.get(0, 1));
+	}
+
+	@Test
+	public void processingTheSameRecordTwiceGivesTheSameOutput() throws Exception {
+		DynamicRecord record = new DynamicRecord(schema);
+		record.setValue("ID", 1L);
+		record.setValue("BRANCH_CODE", "BR0042 ");
+
+		DynamicRecord first = processor.process(record);
+		DynamicRecord second = processor.process(record);
+
+		assertEquals("0042", first.get("BRANCH_CODE"));
+		assertEquals("0042", second.get("BRANCH_CODE"));
+		assertEquals("BR0042 ", record.get("BRANCH_CODE"));
+	}
+
+	@Test
+	public void recordNoTransformChangesIsPassedOn() throws Exception {
+		RecordBatch batch = new RecordBatch(schema, 4);
+		DynamicRecord record = batch.addRow(new Object[]{1L, null});
+
+		assertSame(record, processor.process(record));
+	}
+
+	@Test
+	public void formatsNumbersHalfUpWhateverTheDefaultLocale() throws Exception {
+		TransformConfig format = new TransformConfig();
+		format.setColumn("AMOUNT");
+		format.setType(TransformConfig.Type.FORMAT_NUMBER);
+		format.setPattern("#,##0.00");
+		InterfaceConfig config = new InterfaceConfig();
+		config.setTransforms(Collections.singletonList(format));
+		InterfaceConfigLoader loader = mock(InterfaceConfigLoader.class);
+		when(loader.getConfig("AMOUNTS")).thenReturn(config);
+		DynamicItemProcessor amounts = new DynamicItemProcessor(loader);
+		amounts.setInterfaceType("AMOUNTS");
+		amounts.init();
+
+		RecordSchema amountSchema = new RecordSchema(Collections.singletonList("AMOUNT"),
+				Collections.singletonList(ColumnType.DECIMAL));
+		Locale defaultLocale = Locale.getDefault();
+		// Decimal comma and '.' grouping
+		Locale.setDefault(Locale.GERMANY);
+		try {
+			// HALF_EVEN, DecimalFormat's default, would give 2.34
+			assertEquals("2.35", amounts.process(amount(amountSchema, "2.345")).get("AMOUNT"));
+			assertEquals("1,234,567.50", amounts.process(amount(amountSchema, "1234567.5")).get("AMOUNT"));
+			assertEquals("-0.13", amounts.process(amount(amountSchema, "-0.125")).get("AMOUNT"));
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	private static DynamicRecord amount(RecordSchema schema, String value) {
+		DynamicRecord record = new DynamicRecord(schema);
+		record.setValue("AMOUNT", new BigDecimal(value));
+		return record;
+	}
+
+	private static TransformConfig transform(TransformConfig.Type type, Integer length, int start) {
+		TransformConfig transform = new TransformConfig();
+		transform.setColumn("BRANCH_CODE");
+		transform.setType(type);
+		transform.setLength(length);
+		transform.setStart(start);
+		return transform;
+	}
+}
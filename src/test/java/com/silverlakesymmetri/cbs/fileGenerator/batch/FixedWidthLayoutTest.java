@@ -0,0 +1,196 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.CobolPicture;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.FixedWidthField;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ColumnType;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordBatch;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Known byte vectors for numeric pictures: a wrong nibble or zone here silently corrupts a mainframe feed.
+ */
+public class FixedWidthLayoutTest {
+
+	private static final Charset EBCDIC = Charset.forName("IBM037");
+
+	/* ================= COMP-3 ================= */
+
+	@Test
+	public void packsNegativeDecimalWithSignNibbleD() {
+		assertArrayEquals(bytes(0x00, 0x12, 0x34, 0x5D),
+				render("S9(5)V99 COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC, new BigDecimal("-123.45")));
+	}
+
+	@Test
+	public void packsPositiveSignedDecimalWithSignNibbleC() {
+		assertArrayEquals(bytes(0x00, 0x12, 0x34, 0x5C),
+				render("S9(5)V99 COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC, new BigDecimal("123.45")));
+	}
+
+	@Test
+	public void packsUnsignedDecimalWithSignNibbleF() {
+		assertArrayEquals(bytes(0x00, 0x12, 0x34, 0x5F),
+				render("9(5)V99 COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC, new BigDecimal("123.45")));
+	}
+
+	@Test
+	public void packsLongScaledToThePicture() {
+		// 12 -> 12.00 -> digits 01200
+		assertArrayEquals(bytes(0x01, 0x20, 0x0C),
+				render("PIC S9(3)V99 COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC, 12L));
+	}
+
+	@Test
+	public void packsColumnarValuesLikeBoxedOnes() {
+		RecordSchema schema = new RecordSchema(Collections.singletonList("AMOUNT"),
+				Collections.singletonList(ColumnType.DECIMAL));
+		RecordBatch batch = new RecordBatch(schema, 2);
+		DynamicRecord record = batch.addRow(new Object[]{new BigDecimal("-123.45")});
+
+		FixedWidthLayout layout = layout("S9(5)V99 COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC);
+		byte[] row = new byte[layout.size()];
+		layout.render(record, row);
+
+		assertArrayEquals(bytes(0x00, 0x12, 0x34, 0x5D), row);
+	}
+
+	@Test
+	public void leavesNullPackedFieldAsSignedZero() {
+		assertArrayEquals(bytes(0x00, 0x00, 0x0C),
+				render("S9(5) COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC, null));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsPackedOverflow() {
+		render("S9(3) COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC, 1000L);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsNegativeValueInUnsignedPackedPicture() {
+		render("9(3) COMP-3", FixedWidthField.Sign.TRAILING, EBCDIC, -1L);
+	}
+
+	/* ================= Zoned DISPLAY ================= */
+
+	@Test
+	public void overpunchesTrailingNegativeSignInEbcdic() {
+		// 'K' (zone D, digit 2)
+		assertArrayEquals(bytes(0xF0, 0xF1, 0xD2),
+				render("S9(3)", FixedWidthField.Sign.TRAILING, EBCDIC, -12L));
+	}
+
+	@Test
+	public void overpunchesTrailingPositiveSignInEbcdic() {
+		// 'B' (zone C, digit 2)
+		assertArrayEquals(bytes(0xF0, 0xF1, 0xC2),
+				render("S9(3)", FixedWidthField.Sign.TRAILING, EBCDIC, 12L));
+	}
+
+	@Test
+	public void overpunchesLeadingNegativeSignInEbcdic() {
+		// '}' (zone D, digit 0)
+		assertArrayEquals(bytes(0xD0, 0xF1, 0xF2),
+				render("S9(3)", FixedWidthField.Sign.LEADING, EBCDIC, -12L));
+	}
+
+	@Test
+	public void overpunchesNegativeZeroDigitInAscii() {
+		assertArrayEquals(ascii("01}"),
+				render("S9(3)", FixedWidthField.Sign.TRAILING, StandardCharsets.US_ASCII, -10L));
+	}
+
+	@Test
+	public void writesUnsignedDisplayInEbcdicDigits() {
+		assertArrayEquals(bytes(0xF0, 0xF4, 0xF2),
+				render("9(3)", FixedWidthField.Sign.TRAILING, EBCDIC, 42L));
+	}
+
+	/* ================= Separate signs and decimal points ================= */
+
+	@Test
+	public void writesLeadingSeparateSign() {
+		assertArrayEquals(ascii("-0015"),
+				render("S9(3)V9", FixedWidthField.Sign.LEADING_SEPARATE, StandardCharsets.US_ASCII, new BigDecimal("-1.5")));
+	}
+
+	@Test
+	public void writesTrailingSeparateSign() {
+		assertArrayEquals(ascii("0015-"),
+				render("S9(3)V9", FixedWidthField.Sign.TRAILING_SEPARATE, StandardCharsets.US_ASCII, new BigDecimal("-1.5")));
+	}
+
+	@Test
+	public void writesSeparateSignInEbcdic() {
+		assertArrayEquals(bytes(0x4E, 0xF0, 0xF4, 0xF2),
+				render("S9(3)", FixedWidthField.Sign.LEADING_SEPARATE, EBCDIC, 42L));
+	}
+
+	@Test
+	public void writesExplicitDecimalPoint() {
+		assertArrayEquals(ascii("012.50"),
+				render("9(3).99", FixedWidthField.Sign.LEADING_SEPARATE, StandardCharsets.US_ASCII, new BigDecimal("12.5")));
+	}
+
+	@Test
+	public void roundsHalfUpToThePictureScale() {
+		assertArrayEquals(ascii("+0013"),
+				render("S9(3)V9", FixedWidthField.Sign.LEADING_SEPARATE, StandardCharsets.US_ASCII, new BigDecimal("1.25")));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsDisplayOverflow() {
+		render("9(3)", FixedWidthField.Sign.LEADING_SEPARATE, StandardCharsets.US_ASCII, 1000L);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsNegativeValueInUnsignedDisplayPicture() {
+		render("9(3)", FixedWidthField.Sign.LEADING_SEPARATE, StandardCharsets.US_ASCII, -1L);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsLongMinValue() {
+		render("S9(18)", FixedWidthField.Sign.LEADING_SEPARATE, StandardCharsets.US_ASCII, Long.MIN_VALUE);
+	}
+
+	/* ================= Helpers ================= */
+
+	private static byte[] render(String picture, FixedWidthField.Sign sign, Charset charset, Object value) {
+		FixedWidthLayout layout = layout(picture, sign, charset);
+		byte[] row = new byte[layout.size()];
+		layout.render(new Object[]{value}, row);
+		return row;
+	}
+
+	private static FixedWidthLayout layout(String picture, FixedWidthField.Sign sign, Charset charset) {
+		int length = CobolPicture.parse(picture).byteLength(sign.isSeparate());
+		FixedWidthField field = new FixedWidthField();
+		field.setColumn("AMOUNT");
+		field.setPicture(picture);
+		field.setSign(sign);
+		field.setOffset(0);
+		field.setLength(length);
+		return FixedWidthLayout.compile("DETAIL", Collections.singletonList(field), length, "",
+				new FixedWidthLayout.Codec(charset), column -> 0);
+	}
+
+	private static byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = (byte) values[i];
+		}
+		return bytes;
+	}
+
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,216 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Block-parallel gzip must read back with GZIPInputStream exactly like the single-threaded stream it stands in
+ * for, across block and member boundaries and after a restart truncates it at a checkpoint.
+ */
+public class ParallelGzipOutputStreamTest {
+	// The smallest block size the stream allows: two deflate windows
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	@Test
+	public void roundTripsAMemberSpanningSeveralBlocks() throws Exception {
+		byte[] data = data(5 * BLOCK_SIZE + 1234, 1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = parallel(out);
+		writeInSlices(gzip, data, 7001);
+		gzip.close();
+
+		assertArrayEquals(data, gunzip(out.toByteArray()));
+	}
+
+	@Test
+	public void roundTripsAMemberOfExactlyOneBlock() throws Exception {
+		byte[] data = data(BLOCK_SIZE, 2);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = parallel(out);
+		gzip.write(data);
+		gzip.close();
+
+		assertArrayEquals(data, gunzip(out.toByteArray()));
+	}
+
+	@Test
+	public void roundTripsAMemberEndingOnABlockBoundary() throws Exception {
+		// The last full block is submitted on its own, so the member ends with an empty final block
+		byte[] data = data(3 * BLOCK_SIZE, 3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = parallel(out);
+		writeInSlices(gzip, data, BLOCK_SIZE);
+		gzip.close();
+
+		assertArrayEquals(data, gunzip(out.toByteArray()));
+	}
+
+	@Test
+	public void roundTripsSingleBytesAndTinyMembers() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = parallel(out);
+		gzip.write('A');
+		gzip.finishBlock();
+		// No member for nothing written
+		gzip.finishBlock();
+		gzip.write('B');
+		gzip.close();
+
+		assertArrayEquals(new byte[]{'A', 'B'}, gunzip(out.toByteArray()));
+	}
+
+	@Test
+	public void roundTripsSeveralMembersInOneFile() throws Exception {
+		byte[] first = data(2 * BLOCK_SIZE + 17, 4);
+		byte[] second = data(100, 5);
+		byte[] third = data(BLOCK_SIZE + 1, 6);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = parallel(out);
+		gzip.write(first);
+		gzip.finishBlock();
+		int afterFirst = out.size();
+		gzip.write(second);
+		gzip.finishBlock();
+		gzip.write(third);
+		gzip.close();
+
+		assertArrayEquals(concat(first, second, third), gunzip(out.toByteArray()));
+		// Every member boundary is the end of a complete gzip file
+		assertArrayEquals(first, gunzip(Arrays.copyOf(out.toByteArray(), afterFirst)));
+	}
+
+	@Test
+	public void appendsAfterTruncationAtACheckpoint() throws Exception {
+		byte[] checkpointed = data(BLOCK_SIZE + 500, 7);
+		byte[] lost = data(3 * BLOCK_SIZE, 8);
+		byte[] rewritten = data(2 * BLOCK_SIZE + 9, 9);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = parallel(out);
+		gzip.write(checkpointed);
+		// The writer ends a member at every checkpoint and records the byte offset
+		gzip.finishBlock();
+		int checkpoint = out.size();
+		// A chunk that fails after some of its blocks were written out
+		gzip.write(lost);
+		gzip.flush();
+
+		// The restart truncates the file at the checkpoint and opens a new stream after it
+		ByteArrayOutputStream restarted = new ByteArrayOutputStream();
+		restarted.write(out.toByteArray(), 0, checkpoint);
+		ParallelGzipOutputStream resumed = parallel(restarted);
+		resumed.write(rewritten);
+		resumed.close();
+		gzip.close();
+
+		assertArrayEquals(concat(checkpointed, rewritten), gunzip(restarted.toByteArray()));
+	}
+
+	@Test
+	public void readsBackLikeTheSingleThreadedStream() throws Exception {
+		byte[] first = data(4 * BLOCK_SIZE - 3, 10);
+		byte[] second = data(BLOCK_SIZE / 2, 11);
+		ByteArrayOutputStream parallelOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream singleOut = new ByteArrayOutputStream();
+		GzipMemberOutputStream[] streams = {parallel(parallelOut),
+				new GzipBlockOutputStream(singleOut, Deflater.DEFAULT_COMPRESSION, 8192)};
+		for (GzipMemberOutputStream gzip : streams) {
+			writeInSlices(gzip, first, 4096);
+			gzip.finishBlock();
+			writeInSlices(gzip, second, 333);
+			gzip.close();
+		}
+
+		assertArrayEquals(gunzip(singleOut.toByteArray()), gunzip(parallelOut.toByteArray()));
+		assertArrayEquals(concat(first, second), gunzip(parallelOut.toByteArray()));
+	}
+
+	@Test
+	public void mixesWithSingleThreadedMembers() throws Exception {
+		// Segments merged into one file may have been compressed either way
+		byte[] first = data(2 * BLOCK_SIZE + 1, 12);
+		byte[] second = data(BLOCK_SIZE + 2, 13);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = parallel(out);
+		gzip.write(first);
+		gzip.close();
+		GzipBlockOutputStream single = new GzipBlockOutputStream(out, Deflater.BEST_SPEED, 8192);
+		single.write(second);
+		single.close();
+
+		assertArrayEquals(concat(first, second), gunzip(out.toByteArray()));
+	}
+
+	@Test
+	public void roundTripsIncompressibleData() throws Exception {
+		// Deflate output larger than its input exercises the growing output buffer
+		byte[] data = new byte[3 * BLOCK_SIZE + 5];
+		new Random(14).nextBytes(data);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, Deflater.BEST_COMPRESSION, 3, BLOCK_SIZE, 1,
+				"gzip-test-");
+		gzip.write(data);
+		gzip.close();
+
+		assertArrayEquals(data, gunzip(out.toByteArray()));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsWritesAfterClose() throws Exception {
+		ParallelGzipOutputStream gzip = parallel(new ByteArrayOutputStream());
+		gzip.close();
+		gzip.write(1);
+	}
+
+	private static ParallelGzipOutputStream parallel(ByteArrayOutputStream out) {
+		return new ParallelGzipOutputStream(out, Deflater.DEFAULT_COMPRESSION, 4, BLOCK_SIZE, 8, "gzip-test-");
+	}
+
+	private static void writeInSlices(GzipMemberOutputStream gzip, byte[] data, int slice) throws IOException {
+		for (int off = 0; off < data.length; off += slice) {
+			gzip.write(data, off, Math.min(slice, data.length - off));
+		}
+	}
+
+	/**
+	 * Record-like text: compresses well and repeats across block boundaries, so the dictionaries matter.
+	 */
+	private static byte[] data(int length, long seed) {
+		Random random = new Random(seed);
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = i % 64 == 63 ? (byte) '\n' : (byte) ('0' + random.nextInt(10));
+		}
+		return data;
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			out.write(part, 0, part.length);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] gunzip(byte[] gzip) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,185 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.DelimitedConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ColumnType;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.OutputFilePart;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_PARTS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rolled output, driven the way the step drives it: rollIfNeeded before each chunk, a checkpoint after it.
+ * Every record is 11 bytes ("0001,ABCDE\n") and the files have no header or footer.
+ */
+public class RollingOutputTest {
+	private static final int RECORD_BYTES = 11;
+	// 31-byte records
+	private static final String LONG_NAME = "ABCDEABCDEABCDEABCDEABCDE";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final RecordSchema schema = new RecordSchema(Arrays.asList("ID", "NAME"),
+			Arrays.asList(ColumnType.STRING, ColumnType.STRING));
+
+	private InterfaceConfigLoader loader;
+	private String outputFilePath;
+
+	@Before
+	public void setUp() {
+		DelimitedConfig delimited = new DelimitedConfig();
+		delimited.setHeader(false);
+		InterfaceConfig config = new InterfaceConfig();
+		config.setDelimited(delimited);
+		loader = mock(InterfaceConfigLoader.class);
+		when(loader.getConfig("TEST")).thenReturn(config);
+		outputFilePath = new File(folder.getRoot(), "out.csv").getPath();
+	}
+
+	@Test
+	public void rollsOnRecordCount() throws Exception {
+		GenericDelimitedWriter writer = writer(0, 4);
+		ExecutionContext context = new ExecutionContext();
+		writer.open(context);
+		for (int first = 1; first <= 10; first += 2) {
+			writeChunk(writer, context, first, 2);
+		}
+		close(writer);
+
+		assertLines(1, "0001", "0002", "0003", "0004");
+		assertLines(2, "0005", "0006", "0007", "0008");
+		assertLines(3, "0009", "0010");
+		assertFalse(part(4).exists());
+	}
+
+	@Test
+	public void rollsBeforeAChunkWouldExceedTheByteLimit() throws Exception {
+		// Before the first roll the footer is budgeted at one record: 2 + 2 + 1 records would be 55 bytes.
+		// Afterwards the footer is known to be empty, so 4 records (44 bytes) fit.
+		GenericDelimitedWriter writer = writer(50, 0);
+		ExecutionContext context = new ExecutionContext();
+		writer.open(context);
+		for (int first = 1; first <= 6; first += 2) {
+			writeChunk(writer, context, first, 2);
+		}
+		close(writer);
+
+		assertLines(1, "0001", "0002");
+		assertLines(2, "0003", "0004", "0005", "0006");
+		assertFalse(part(3).exists());
+	}
+
+	@Test
+	public void budgetsTheLongestRecordsSeenNotTheAverage() throws Exception {
+		// Part 1: 4 records of 11 bytes, then 2 of 31 bytes = 106 bytes, 18 a record on average. Another chunk of
+		// 31-byte records budgeted at the average (106 + 2 x 18 + 18 = 160) would be let in and end at 168.
+		GenericDelimitedWriter writer = writer(165, 0);
+		ExecutionContext context = new ExecutionContext();
+		writer.open(context);
+		writeChunk(writer, context, 1, 4);
+		writer.rollIfNeeded(2);
+		writer.write(Arrays.asList(record(5, LONG_NAME), record(6, LONG_NAME)));
+		writer.update(context);
+		writer.rollIfNeeded(2);
+		writer.write(Arrays.asList(record(7, LONG_NAME), record(8, LONG_NAME)));
+		writer.update(context);
+		close(writer);
+
+		assertEquals(4 * RECORD_BYTES + 2 * 31, part(1).length());
+		assertEquals(2 * 31, part(2).length());
+	}
+
+	@Test
+	public void resumesRollingAfterARestart() throws Exception {
+		GenericDelimitedWriter writer = writer(0, 4);
+		ExecutionContext context = new ExecutionContext();
+		writer.open(context);
+		// Part 1 gets records 1-4, part 2 records 5-6; records 7-8 are written but never checkpointed
+		writeChunk(writer, context, 1, 2);
+		writeChunk(writer, context, 3, 2);
+		writeChunk(writer, context, 5, 2);
+		writer.rollIfNeeded(2);
+		writer.write(chunk(7, 2));
+		writer.close();
+
+		ExecutionContext restored = new ExecutionContext(context.toMap());
+		GenericDelimitedWriter restarted = writer(0, 4);
+		restarted.open(restored);
+		writeChunk(restarted, restored, 7, 2);
+		writeChunk(restarted, restored, 9, 2);
+		close(restarted);
+
+		assertLines(1, "0001", "0002", "0003", "0004");
+		assertLines(2, "0005", "0006", "0007", "0008");
+		assertLines(3, "0009", "0010");
+		List<OutputFilePart> closed = OutputFilePart.decode(restored.getString(FILE_GEN_OUTPUT_PARTS));
+		assertEquals(2, closed.size());
+		assertEquals(part(1).getPath(), closed.get(0).getPartFilePath());
+		assertEquals(4, closed.get(1).getRecordCount());
+	}
+
+	private GenericDelimitedWriter writer(long maxFileBytes, long maxRecordsPerFile) throws Exception {
+		GenericDelimitedWriter writer = new GenericDelimitedWriter(loader);
+		ReflectionTestUtils.setField(writer, "bufferSize", 4096);
+		writer.setRollingLimits(maxFileBytes, maxRecordsPerFile);
+		writer.init(outputFilePath, "TEST");
+		return writer;
+	}
+
+	private void writeChunk(GenericDelimitedWriter writer, ExecutionContext context, int first, int count) throws Exception {
+		writer.rollIfNeeded(count);
+		writer.write(chunk(first, count));
+		writer.update(context);
+	}
+
+	private static void close(GenericDelimitedWriter writer) {
+		writer.setStepSuccessful(true);
+		writer.close();
+	}
+
+	private List<DynamicRecord> chunk(int first, int count) {
+		List<DynamicRecord> records = new ArrayList<>();
+		for (int id = first; id < first + count; id++) {
+			records.add(record(id, "ABCDE"));
+		}
+		return records;
+	}
+
+	private DynamicRecord record(int id, String name) {
+		DynamicRecord record = new DynamicRecord(schema);
+		record.setValue(0, String.format("%04d", id));
+		record.setValue(1, name);
+		return record;
+	}
+
+	private File part(int index) {
+		return new File(AbstractBaseOutputWriter.rolledPartPath(outputFilePath, index) + ".part");
+	}
+
+	private void assertLines(int index, String... ids) throws Exception {
+		List<String> expected = new ArrayList<>();
+		for (String id : ids) {
+			expected.add(id + ",ABCDE");
+		}
+		assertEquals(expected, Files.readAllLines(part(index).toPath()));
+	}
+}
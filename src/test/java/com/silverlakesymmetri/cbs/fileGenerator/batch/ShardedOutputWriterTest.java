@@ -0,0 +1,221 @@
+package com.silverlakesymmetri.cbs.fileGenerator.batch;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.DelimitedConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.config.model.InterfaceConfig;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ColumnType;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.DynamicRecord;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.OutputFilePart;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.RecordSchema;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static com.silverlakesymmetri.cbs.fileGenerator.constants.FileGenerationConstants.FILE_GEN_OUTPUT_PARTS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sharded output driven the way the step drives it, with delimited shard writers: shards evicted and reopened
+ * mid-step, a step restarted from its last checkpoint, and the file names values are given.
+ */
+public class ShardedOutputWriterTest {
+	private static final String HEADER = "BRANCH,ID";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final RecordSchema schema = new RecordSchema(Arrays.asList("BRANCH", "ID"),
+			Arrays.asList(ColumnType.STRING, ColumnType.STRING));
+
+	private InterfaceConfigLoader loader;
+	private String outputFilePath;
+
+	@Before
+	public void setUp() {
+		InterfaceConfig config = new InterfaceConfig();
+		config.setDelimited(new DelimitedConfig());
+		loader = mock(InterfaceConfigLoader.class);
+		when(loader.getConfig("TEST")).thenReturn(config);
+		outputFilePath = new File(folder.getRoot(), "out.csv").getPath();
+	}
+
+	@Test
+	public void evictsAndReopensShardsWithOneOpenAtATime() throws Exception {
+		ShardedOutputWriter writer = writer(1);
+		StepExecution step = step();
+		ExecutionContext context = new ExecutionContext();
+		writer.beforeStep(step);
+		writer.open(context);
+		// A is evicted for B within the chunk, then reopened for the next one
+		writer.write(Arrays.asList(record("A", "1"), record("B", "1"), record("A", "2")));
+		writer.update(context);
+		writer.write(Arrays.asList(record("A", "3"), record("B", "2")));
+		writer.write(Arrays.asList(record("A", "4")));
+		writer.update(context);
+		complete(writer, step);
+
+		// Reopened through the restart path: one header each, nothing lost or repeated
+		assertLines("A", HEADER, "A,1", "A,2", "A,3", "A,4");
+		assertLines("B", HEADER, "B,1", "B,2");
+		List<OutputFilePart> parts = OutputFilePart.decode(
+				step.getJobExecution().getExecutionContext().getString(FILE_GEN_OUTPUT_PARTS));
+		assertEquals(2, parts.size());
+		assertEquals(shard("A").getPath(), parts.get(0).getPartFilePath());
+		assertEquals(4, parts.get(0).getRecordCount());
+		assertEquals(2, parts.get(1).getRecordCount());
+	}
+
+	@Test
+	public void resumesEveryShardAtTheLastCheckpointAfterARestart() throws Exception {
+		ShardedOutputWriter writer = writer(1);
+		StepExecution failed = step();
+		ExecutionContext context = new ExecutionContext();
+		writer.beforeStep(failed);
+		writer.open(context);
+		writer.write(Arrays.asList(record("A", "1"), record("B", "1")));
+		writer.update(context);
+		// Written but never checkpointed: the chunk rolled back when the step failed
+		writer.write(Arrays.asList(record("A", "2"), record("B", "2")));
+		failed.setStatus(BatchStatus.FAILED);
+		writer.afterStep(failed);
+		writer.close();
+
+		assertEquals(1L, context.getLong("dynamic.shard.A/shard.recordCount"));
+		assertEquals("B", context.getString("dynamic.shard.B/shard.value"));
+
+		ExecutionContext restored = new ExecutionContext(context.toMap());
+		ShardedOutputWriter restarted = writer(1);
+		StepExecution step = step();
+		restarted.beforeStep(step);
+		restarted.open(restored);
+		assertEquals(2, restarted.getRecordCount());
+		restarted.write(Arrays.asList(record("B", "2"), record("A", "2"), record("C", "1")));
+		restarted.update(restored);
+		complete(restarted, step);
+
+		assertLines("A", HEADER, "A,1", "A,2");
+		assertLines("B", HEADER, "B,1", "B,2");
+		assertLines("C", HEADER, "C,1");
+		assertEquals(5, restarted.getRecordCount());
+	}
+
+	@Test
+	public void namesShardsForNullEmptyAndUnsafeValues() throws Exception {
+		ShardedOutputWriter writer = writer(2);
+		StepExecution step = step();
+		writer.beforeStep(step);
+		writer.open(new ExecutionContext());
+		writer.write(Arrays.asList(record(null, "1"), record("  ", "2"), record("A/1", "3"), record("NULL", "4"),
+				record("A_1", "5"), record(new BigDecimal("10.50"), "6"), record(" X ", "7")));
+		writer.update(new ExecutionContext());
+		complete(writer, step);
+
+		assertTrue(shard("NULL").exists());
+		assertTrue(shard("EMPTY").exists());
+		// A changed value and one that reads like a reserved shard get a hash of the raw text
+		assertTrue(shard("A_1_" + crc32("A/1")).exists());
+		assertTrue(shard("NULL_" + crc32("NULL")).exists());
+		assertLines("A_1", HEADER, "A_1,5");
+		assertLines("10.50", HEADER, "10.50,6");
+		// Values are trimmed
+		assertTrue(shard("X").exists());
+		assertEquals(7, OutputFilePart.decode(
+				step.getJobExecution().getExecutionContext().getString(FILE_GEN_OUTPUT_PARTS)).size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void failsOnValuesDifferingOnlyInCase() throws Exception {
+		ShardedOutputWriter writer = writer(4);
+		writer.beforeStep(step());
+		writer.open(new ExecutionContext());
+		writer.write(Arrays.asList(record("abc", "1"), record("ABC", "2")));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void failsOnValuesDifferingOnlyInCaseAcrossARestart() throws Exception {
+		ShardedOutputWriter writer = writer(4);
+		ExecutionContext context = new ExecutionContext();
+		writer.beforeStep(step());
+		writer.open(context);
+		writer.write(Arrays.asList(record("abc", "1")));
+		writer.update(context);
+		writer.close();
+
+		ShardedOutputWriter restarted = writer(4);
+		restarted.beforeStep(step());
+		restarted.open(new ExecutionContext(context.toMap()));
+		restarted.write(Arrays.asList(record("ABC", "2")));
+	}
+
+	@Test
+	public void sendsTheSameTrimmedValueToOneShard() throws Exception {
+		ShardedOutputWriter writer = writer(4);
+		StepExecution step = step();
+		writer.beforeStep(step);
+		writer.open(new ExecutionContext());
+		writer.write(Arrays.asList(record("A", "1"), record(" A", "2")));
+		writer.update(new ExecutionContext());
+		complete(writer, step);
+
+		// The record itself is written as read
+		assertLines("A", HEADER, "A,1", " A,2");
+	}
+
+	private ShardedOutputWriter writer(int maxOpenShards) {
+		ShardedOutputWriter writer = new ShardedOutputWriter("BRANCH", maxOpenShards, () -> {
+			GenericDelimitedWriter shardWriter = new GenericDelimitedWriter(loader);
+			ReflectionTestUtils.setField(shardWriter, "bufferSize", 4096);
+			return shardWriter;
+		});
+		writer.init(outputFilePath, "TEST");
+		return writer;
+	}
+
+	private static StepExecution step() {
+		return new StepExecution("generate", new JobExecution(1L));
+	}
+
+	private static void complete(ShardedOutputWriter writer, StepExecution step) {
+		step.setStatus(BatchStatus.COMPLETED);
+		writer.afterStep(step);
+		writer.close();
+	}
+
+	private DynamicRecord record(Object branch, String id) {
+		DynamicRecord record = new DynamicRecord(schema);
+		record.setValue(0, branch);
+		record.setValue(1, id);
+		return record;
+	}
+
+	private File shard(String name) {
+		return new File(AbstractBaseOutputWriter.insertBeforeExtension(outputFilePath, "_" + name) + ".part");
+	}
+
+	private void assertLines(String name, String... lines) throws Exception {
+		assertEquals(Arrays.asList(lines), Files.readAllLines(shard(name).toPath()));
+	}
+
+	private static String crc32(String value) {
+		CRC32 crc = new CRC32();
+		crc.update(value.getBytes(StandardCharsets.UTF_8));
+		return String.format("%08x", crc.getValue());
+	}
+}
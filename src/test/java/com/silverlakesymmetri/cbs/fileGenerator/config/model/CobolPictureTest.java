@@ -0,0 +1,92 @@
+package com.silverlakesymmetri.cbs.fileGenerator.config.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pictures copied from copybooks must give the same digits, scale and byte length as the COBOL compiler.
+ */
+public class CobolPictureTest {
+
+	@Test
+	public void parsesPackedClauseWithPrefixAndUsage() {
+		CobolPicture picture = CobolPicture.parse("PIC S9(7)V99 COMP-3");
+
+		assertTrue(picture.isSigned());
+		assertTrue(picture.isPacked());
+		assertEquals(7, picture.getIntegerDigits());
+		assertEquals(2, picture.getScale());
+		assertFalse(picture.hasDecimalPoint());
+		assertEquals(5, picture.byteLength(false));
+	}
+
+	@Test
+	public void acceptsUsageSynonymsAndTrailingPeriod() {
+		assertTrue(CobolPicture.parse("PICTURE 9(4) COMPUTATIONAL-3.").isPacked());
+		assertTrue(CobolPicture.parse("s9(4) packed-decimal").isPacked());
+		assertFalse(CobolPicture.parse("9(4) DISPLAY").isPacked());
+	}
+
+	@Test
+	public void packedLengthIsHalfTheDigitsPlusSignNibble() {
+		assertEquals(3, CobolPicture.parse("S9(5) COMP-3").byteLength(false));
+		assertEquals(3, CobolPicture.parse("S9(4) COMP-3").byteLength(false));
+		assertEquals(10, CobolPicture.parse("S9(18) COMP-3").byteLength(false));
+	}
+
+	@Test
+	public void displayLengthCountsSeparateSignAndExplicitPoint() {
+		assertEquals(5, CobolPicture.parse("S9(3)V9").byteLength(true));
+		assertEquals(4, CobolPicture.parse("S9(3)V9").byteLength(false));
+		assertEquals(6, CobolPicture.parse("9(3).99").byteLength(true));
+		assertEquals(3, CobolPicture.parse("999").byteLength(true));
+	}
+
+	@Test
+	public void parsesAlphanumeric() {
+		CobolPicture picture = CobolPicture.parse("X(20)");
+
+		assertTrue(picture.isAlphanumeric());
+		assertEquals(20, picture.byteLength(true));
+		assertEquals(3, CobolPicture.parse("XXX").byteLength(true));
+		assertEquals(5, CobolPicture.parse("X(2)XXX").byteLength(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMoreThanEighteenDigits() {
+		CobolPicture.parse("9(10)V9(9)");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsExplicitPointInPackedPicture() {
+		CobolPicture.parse("9(5).99 COMP-3");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnsupportedUsage() {
+		CobolPicture.parse("S9(9) COMP");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsPackedAlphanumeric() {
+		CobolPicture.parse("X(4) COMP-3");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsSecondDecimalPoint() {
+		CobolPicture.parse("9V9V9");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnclosedRepeat() {
+		CobolPicture.parse("9(5");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsZeroRepeat() {
+		CobolPicture.parse("9(0)");
+	}
+}
@@ -0,0 +1,88 @@
+package com.silverlakesymmetri.cbs.fileGenerator.controller;
+
+import com.silverlakesymmetri.cbs.fileGenerator.config.InterfaceConfigLoader;
+import com.silverlakesymmetri.cbs.fileGenerator.dto.ChecksumVerification;
+import com.silverlakesymmetri.cbs.fileGenerator.exception.ForbiddenException;
+import com.silverlakesymmetri.cbs.fileGenerator.exception.NotFoundException;
+import com.silverlakesymmetri.cbs.fileGenerator.service.FileFinalizationService;
+import com.silverlakesymmetri.cbs.fileGenerator.validation.XsdValidator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quartz.Scheduler;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checksum verification reads whatever path it is given, so it must stay inside the output directory.
+ */
+public class AdminControllerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private FileFinalizationService fileFinalizationService;
+	private AdminController controller;
+	private Path outputDirectory;
+
+	@Before
+	public void setUp() throws Exception {
+		outputDirectory = folder.newFolder("output").toPath();
+		fileFinalizationService = mock(FileFinalizationService.class);
+		controller = new AdminController(mock(JobLauncher.class), mock(Job.class), mock(Scheduler.class),
+				mock(XsdValidator.class), mock(InterfaceConfigLoader.class), fileFinalizationService);
+		ReflectionTestUtils.setField(controller, "outputDirectory", outputDirectory.toString());
+	}
+
+	@Test
+	public void verifiesAFileInTheOutputDirectory() throws Exception {
+		Path file = Files.write(outputDirectory.resolve("ACCT_1.csv"), new byte[]{1});
+		ChecksumVerification verification = new ChecksumVerification();
+		when(fileFinalizationService.verify(file, false)).thenReturn(verification);
+
+		assertEquals(Collections.singletonList(verification), controller.verifyChecksums("ACCT_1.csv", false).getBody());
+	}
+
+	@Test(expected = ForbiddenException.class)
+	public void refusesASymbolicLinkToAFile() throws Exception {
+		Path outside = Files.write(folder.getRoot().toPath().resolve("secret.csv"), new byte[]{1});
+		Files.createSymbolicLink(outputDirectory.resolve("ACCT_1.csv"), outside);
+		try {
+			controller.verifyChecksums("ACCT_1.csv", false);
+		} finally {
+			verifyZeroInteractions(fileFinalizationService);
+		}
+	}
+
+	@Test(expected = ForbiddenException.class)
+	public void refusesASymbolicLinkToADirectory() throws Exception {
+		Files.createSymbolicLink(outputDirectory.resolve("archive"), folder.newFolder("elsewhere").toPath());
+		controller.verifyChecksums("archive", false);
+	}
+
+	@Test(expected = ForbiddenException.class)
+	public void refusesADanglingSymbolicLink() throws Exception {
+		Files.createSymbolicLink(outputDirectory.resolve("ACCT_1.csv"), folder.getRoot().toPath().resolve("missing.csv"));
+		controller.verifyChecksums("ACCT_1.csv", false);
+	}
+
+	@Test(expected = ForbiddenException.class)
+	public void refusesAPathOutsideTheOutputDirectory() throws Exception {
+		controller.verifyChecksums("../secret.csv", false);
+	}
+
+	@Test(expected = NotFoundException.class)
+	public void reportsAMissingFile() throws Exception {
+		controller.verifyChecksums("ACCT_2.csv", false);
+	}
+}
@@ -0,0 +1,276 @@
+package com.silverlakesymmetri.cbs.fileGenerator.service;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resumed downloads: a client that gets the wrong bytes for a Range, or a 206 for a file that changed under it,
+ * ends up with a corrupt file and no error.
+ */
+public class FileDownloadServiceTest {
+	private static final String SHA256 = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+	private static final long LAST_MODIFIED = 1760000000000L;
+	private static final int SIZE = 100;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private FileFinalizationService fileFinalizationService;
+	private FileDownloadService service;
+	private Path file;
+	private byte[] content;
+
+	@Before
+	public void setUp() throws Exception {
+		content = new byte[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			content[i] = (byte) i;
+		}
+		file = folder.newFile("ACCT_1.csv").toPath();
+		Files.write(file, content);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+		fileFinalizationService = mock(FileFinalizationService.class);
+		when(fileFinalizationService.getRecordedSha256(file)).thenReturn(Optional.of(SHA256));
+		service = new FileDownloadService(fileFinalizationService);
+		ReflectionTestUtils.setField(service, "sendfileMinBytes", 49152L);
+	}
+
+	@Test
+	public void servesTheWholeFileWithoutRange() throws Exception {
+		ResponseEntity<StreamingResponseBody> response = download(get());
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("\"" + SHA256 + "\"", response.getHeaders().getETag());
+		assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+		assertEquals(SIZE, response.getHeaders().getContentLength());
+		assertArrayEquals(content, body(response));
+	}
+
+	@Test
+	public void servesAClosedRange() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 10-19/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals(10, response.getHeaders().getContentLength());
+		assertArrayEquals(Arrays.copyOfRange(content, 10, 20), body(response));
+	}
+
+	@Test
+	public void servesAnOpenEndedRange() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=90-");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 90-99/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals(Arrays.copyOfRange(content, 90, 100), body(response));
+	}
+
+	@Test
+	public void servesASuffixRange() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=-5");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 95-99/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals(Arrays.copyOfRange(content, 95, 100), body(response));
+	}
+
+	@Test
+	public void clampsARangeEndingPastTheEnd() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=98-500");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals("bytes 98-99/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals(Arrays.copyOfRange(content, 98, 100), body(response));
+	}
+
+	@Test
+	public void rejectsARangeStartingPastTheEnd() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=100-");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+		assertEquals("bytes */100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertNull(response.getBody());
+	}
+
+	@Test
+	public void servesTheWholeFileForSeveralRanges() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-9,20-29");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertArrayEquals(content, body(response));
+	}
+
+	@Test
+	public void servesTheWholeFileForAMalformedRange() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "lines=1-2");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	public void honoursIfRangeNamingTheCurrentFile() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"" + SHA256 + "\"");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertArrayEquals(Arrays.copyOfRange(content, 50, 100), body(response));
+	}
+
+	@Test
+	public void servesTheWholeFileForAStaleIfRange() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"0000\"");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals(SIZE, response.getHeaders().getContentLength());
+		assertArrayEquals(content, body(response));
+	}
+
+	@Test
+	public void neverMatchesIfRangeAgainstAWeakETag() throws Exception {
+		// No .sha: the ETag is weak, so even the client's copy of it cannot validate a range
+		when(fileFinalizationService.getRecordedSha256(file)).thenReturn(Optional.empty());
+		String weak = download(get()).getHeaders().getETag();
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+		request.addHeader(HttpHeaders.IF_RANGE, weak);
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals("W/\"64-" + Long.toHexString(LAST_MODIFIED) + "\"", weak);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertArrayEquals(content, body(response));
+	}
+
+	@Test
+	public void neverMatchesAWeakIfRange() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+		request.addHeader(HttpHeaders.IF_RANGE, "W/\"" + SHA256 + "\"");
+
+		assertEquals(HttpStatus.OK, download(request).getStatusCode());
+	}
+
+	@Test
+	public void honoursIfRangeWithTheExactModificationDate() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+		request.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED));
+		assertEquals(HttpStatus.PARTIAL_CONTENT, download(request).getStatusCode());
+
+		MockHttpServletRequest stale = get();
+		stale.addHeader(HttpHeaders.RANGE, "bytes=50-");
+		stale.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED - 1000));
+		assertEquals(HttpStatus.OK, download(stale).getStatusCode());
+	}
+
+	@Test
+	public void answersIfNoneMatchWithNotModified() throws Exception {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/\"" + SHA256 + "\"");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertEquals("\"" + SHA256 + "\"", response.getHeaders().getETag());
+		assertNull(response.getBody());
+	}
+
+	@Test
+	public void answersHeadWithHeadersOnly() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/download");
+		request.addHeader(HttpHeaders.RANGE, "bytes=-5");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 95-99/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals(5, response.getHeaders().getContentLength());
+		assertNull(response.getBody());
+	}
+
+	@Test
+	public void handsTheRangeToTheConnectorWithSendfile() throws Exception {
+		ReflectionTestUtils.setField(service, "sendfileMinBytes", 0L);
+		MockHttpServletRequest request = get();
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertNull(response.getBody());
+		assertEquals(file.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+		// Exclusive end
+		assertEquals(100L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+	}
+
+	@Test
+	public void streamsResponsesBelowTheSendfileMinimum() throws Exception {
+		MockHttpServletRequest request = get();
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		ResponseEntity<StreamingResponseBody> response = download(request);
+
+		assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertArrayEquals(content, body(response));
+	}
+
+	private static MockHttpServletRequest get() {
+		return new MockHttpServletRequest("GET", "/download");
+	}
+
+	private ResponseEntity<StreamingResponseBody> download(MockHttpServletRequest request) throws Exception {
+		return service.download(file, MediaType.TEXT_PLAIN, "attachment; filename=\"ACCT_1.csv\"", request);
+	}
+
+	private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		response.getBody().writeTo(out);
+		return out.toByteArray();
+	}
+
+	private static String httpDate(long millis) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+	}
+}
@@ -0,0 +1,287 @@
+package com.silverlakesymmetri.cbs.fileGenerator.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Segment digests are what a file is verified against once it has a manifest: they must match the bytes they
+ * cover, a damaged manifest must be ignored rather than trusted, and a file that changed length must not pass.
+ */
+public class FileHashServiceTest {
+	// The smallest segment size the service allows
+	private static final int SEGMENT = 1 << 20;
+	private static final String NAME = "ACCT_1.dat";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ThreadPoolTaskExecutor executor;
+	private FileHashService service;
+	private Path file;
+	private byte[] content;
+
+	@Before
+	public void setUp() throws Exception {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(3);
+		executor.setMaxPoolSize(3);
+		executor.initialize();
+		service = new FileHashService(executor);
+		// Raised to the minimum
+		ReflectionTestUtils.setField(service, "segmentSize", 1L);
+		content = new byte[2 * SEGMENT + SEGMENT / 2];
+		new Random(1).nextBytes(content);
+		file = folder.getRoot().toPath().resolve(NAME);
+		Files.write(file, content);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	/* ================= Segment hashing ================= */
+
+	@Test
+	public void hashesTheWholeFileAndEachSegment() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+
+		assertEquals(sha256(content, 0, content.length), hashes.getSha256());
+		assertEquals(content.length, hashes.getBytes());
+		assertEquals(SEGMENT, hashes.getSegmentSize());
+		assertEquals(Arrays.asList(sha256(content, 0, SEGMENT), sha256(content, SEGMENT, SEGMENT),
+				sha256(content, 2 * SEGMENT, SEGMENT / 2)), hashes.getSegmentSha256());
+		assertEquals(hashes.getSha256(), service.sha256(file));
+	}
+
+	@Test
+	public void hashesAFileOfExactlyOneSegment() throws Exception {
+		Files.write(file, Arrays.copyOf(content, SEGMENT));
+		FileHashService.FileHashes hashes = service.hash(file);
+
+		assertEquals(Collections.singletonList(sha256(content, 0, SEGMENT)), hashes.getSegmentSha256());
+		assertEquals(hashes.getSegmentSha256().get(0), hashes.getSha256());
+	}
+
+	@Test
+	public void hashesAnEmptyFileWithoutSegments() throws Exception {
+		Files.write(file, new byte[0]);
+		FileHashService.FileHashes hashes = service.hash(file);
+
+		assertEquals(sha256(new byte[0], 0, 0), hashes.getSha256());
+		assertEquals(Collections.emptyList(), hashes.getSegmentSha256());
+	}
+
+	/* ================= Manifest ================= */
+
+	@Test
+	public void readsBackTheManifestItWrote() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		service.writeSegmentManifest(file, hashes);
+		List<String> lines = Files.readAllLines(service.segmentManifestPath(file), StandardCharsets.US_ASCII);
+
+		assertEquals("SHA256(" + NAME + ")= " + hashes.getSha256(), lines.get(0));
+		assertEquals("SEGMENT_SIZE= " + SEGMENT, lines.get(1));
+		assertEquals("BYTES= " + content.length, lines.get(2));
+		assertEquals("SEGMENT(2)= " + hashes.getSegmentSha256().get(2), lines.get(5));
+		assertEquals("TOP_SHA256= " + hashes.getTopSha256(), lines.get(6));
+
+		FileHashService.FileHashes read = service.readSegmentManifest(file);
+		assertNotNull(read);
+		assertEquals(hashes.getSha256(), read.getSha256());
+		assertEquals(hashes.getBytes(), read.getBytes());
+		assertEquals(hashes.getSegmentSize(), read.getSegmentSize());
+		assertEquals(hashes.getSegmentSha256(), read.getSegmentSha256());
+	}
+
+	@Test
+	public void acceptsUpperCaseDigestsAndBlankLines() throws Exception {
+		List<String> lines = manifest();
+		for (int i = 0; i < lines.size(); i++) {
+			lines.set(i, lines.get(i).toUpperCase(Locale.ROOT).replace("SHA256(" + NAME.toUpperCase(Locale.ROOT), "SHA256(" + NAME));
+		}
+		lines.add("");
+
+		FileHashService.FileHashes read = FileHashService.FileHashes.parse(lines, NAME);
+		assertNotNull(read);
+		assertEquals(service.hash(file).getSegmentSha256(), read.getSegmentSha256());
+	}
+
+	@Test
+	public void ignoresAManifestOfAnotherFile() throws Exception {
+		assertNull(FileHashService.FileHashes.parse(manifest(), "ACCT_2.dat"));
+	}
+
+	@Test
+	public void ignoresAManifestWhoseTopDigestDoesNotMatch() throws Exception {
+		List<String> lines = manifest();
+		// Segment 1 replaced by segment 0's digest, top digest left as it was
+		lines.set(4, lines.get(4).replace(service.hash(file).getSegmentSha256().get(1),
+				service.hash(file).getSegmentSha256().get(0)));
+
+		assertNull(FileHashService.FileHashes.parse(lines, NAME));
+	}
+
+	@Test
+	public void ignoresAManifestMissingASegment() throws Exception {
+		List<String> lines = manifest();
+		lines.remove(5);
+
+		assertNull(FileHashService.FileHashes.parse(lines, NAME));
+	}
+
+	@Test
+	public void ignoresAManifestWithSegmentsOutOfOrder() throws Exception {
+		List<String> lines = manifest();
+		String first = lines.get(3);
+		lines.set(3, lines.get(4));
+		lines.set(4, first);
+
+		assertNull(FileHashService.FileHashes.parse(lines, NAME));
+	}
+
+	@Test
+	public void ignoresAManifestWhoseLengthNeedsOtherSegments() throws Exception {
+		List<String> lines = manifest();
+		lines.set(2, "BYTES= " + (3 * SEGMENT + 1));
+
+		assertNull(FileHashService.FileHashes.parse(lines, NAME));
+	}
+
+	@Test
+	public void ignoresAManifestWithUnknownLines() throws Exception {
+		List<String> lines = manifest();
+		lines.add(3, "COMMENT= none");
+
+		assertNull(FileHashService.FileHashes.parse(lines, NAME));
+	}
+
+	@Test
+	public void ignoresAManifestWithAnImpossibleSegmentSize() throws Exception {
+		List<String> lines = manifest();
+		lines.set(1, "SEGMENT_SIZE= 0");
+
+		assertNull(FileHashService.FileHashes.parse(lines, NAME));
+	}
+
+	@Test
+	public void readsNoManifestWhenThereIsNone() throws Exception {
+		assertNull(service.readSegmentManifest(file));
+	}
+
+	@Test
+	public void readsNoManifestFromAMalformedFile() throws Exception {
+		Files.write(service.segmentManifestPath(file), "SHA256(ACCT_1.dat)= abc\n".getBytes(StandardCharsets.US_ASCII));
+
+		assertNull(service.readSegmentManifest(file));
+	}
+
+	/* ================= Segment verification ================= */
+
+	@Test
+	public void verifiesAnUnchangedFile() throws Exception {
+		assertEquals(Collections.emptyList(), service.verifySegments(file, service.hash(file)));
+	}
+
+	@Test
+	public void listsTheSegmentWithAChangedByte() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		overwrite(SEGMENT + 12345, (byte) ~content[SEGMENT + 12345]);
+
+		assertEquals(Collections.singletonList(1), service.verifySegments(file, hashes));
+	}
+
+	@Test
+	public void listsEverySegmentFromWhereAGrownFileDiffers() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		// Past the end of the last segment, which is still shorter than a segment
+		resize(content.length + 10);
+
+		assertEquals(Collections.singletonList(2), service.verifySegments(file, hashes));
+	}
+
+	@Test
+	public void listsTheSegmentsAddedToAFile() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		resize(3 * SEGMENT + SEGMENT / 2);
+
+		assertEquals(Arrays.asList(2, 3), service.verifySegments(file, hashes));
+	}
+
+	@Test
+	public void listsTheSegmentsCutFromATruncatedFile() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		resize(SEGMENT + SEGMENT / 2);
+
+		assertEquals(Arrays.asList(1, 2), service.verifySegments(file, hashes));
+	}
+
+	@Test
+	public void listsTheSegmentsOfAFileTruncatedOnASegmentBoundary() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		// The first two segments are intact; the third is missing
+		resize(2 * SEGMENT);
+
+		assertEquals(Collections.singletonList(2), service.verifySegments(file, hashes));
+	}
+
+	@Test
+	public void listsChangedAndMissingSegmentsTogether() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		overwrite(7, (byte) ~content[7]);
+		resize(SEGMENT + 1);
+
+		assertEquals(Arrays.asList(0, 1, 2), service.verifySegments(file, hashes));
+	}
+
+	/* ================= Helpers ================= */
+
+	private List<String> manifest() throws Exception {
+		FileHashService.FileHashes hashes = service.hash(file);
+		return new ArrayList<>(Arrays.asList(hashes.toManifest(NAME).split("\n")));
+	}
+
+	private void overwrite(long position, byte value) throws Exception {
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.seek(position);
+			raf.write(value);
+		}
+	}
+
+	private void resize(long length) throws Exception {
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.setLength(length);
+		}
+	}
+
+	private static String sha256(byte[] bytes, int offset, int length) throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		digest.update(bytes, offset, length);
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+}
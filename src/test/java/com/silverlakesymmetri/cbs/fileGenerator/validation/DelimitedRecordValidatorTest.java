@@ -0,0 +1,149 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Quoting and field counts of delimited records, with the writer's quoting rules.
+ */
+public class DelimitedRecordValidatorTest {
+	private static final byte[] LF = {'\n'};
+	private static final byte[] CRLF = {'\r', '\n'};
+
+	@Test
+	public void acceptsQuotedDelimitersDoubledQuotesAndLineBreaks() {
+		DelimitedRecordValidator validator = validator(',', '"', LF, 3);
+		update(validator, "ID,NAME,NOTE\n1,\"Smith, J\",\"said \"\"hi\"\"\"\n2,,\"two\nlines\"\n");
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void acceptsRecordsSplitAcrossUpdates() {
+		DelimitedRecordValidator validator = validator(',', '"', CRLF, 2);
+		for (byte b : utf8("\"a\"\"\",b\r\nc\rd,e\r\n")) {
+			validator.update(new byte[]{b}, 0, 1);
+		}
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void takesTheFieldCountFromTheFirstRecord() {
+		DelimitedRecordValidator validator = validator(',', '"', LF, 0);
+		update(validator, "A,B\n1,2\n1,2,3\n1\n");
+
+		assertEquals(Arrays.asList(
+				"delimited: record 3: 3 fields, expected 2",
+				"delimited: record 4: 1 fields, expected 2"), validator.drainViolations());
+	}
+
+	@Test
+	public void countsEmptyFields() {
+		DelimitedRecordValidator validator = validator('|', '"', LF, 3);
+		update(validator, "||\n");
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void reportsQuoteInsideUnquotedField() {
+		DelimitedRecordValidator validator = validator(',', '"', LF, 2);
+		update(validator, "a,b\"c\n");
+
+		assertEquals(Collections.singletonList("delimited: record 1: quote character inside an unquoted field"),
+				validator.drainViolations());
+	}
+
+	@Test
+	public void reportsTextAfterClosingQuote() {
+		DelimitedRecordValidator validator = validator(',', '"', LF, 2);
+		update(validator, "\"a\"b,c\n");
+
+		assertEquals(Collections.singletonList("delimited: record 1: text after the closing quote of a field"),
+				validator.drainViolations());
+	}
+
+	@Test
+	public void readsDistinctEscapeCharacter() {
+		DelimitedRecordValidator validator = new DelimitedRecordValidator(',', '"', '\\', LF, 2, 1.0, 0);
+		update(validator, "\"a\\\"b\",c\n\"d\\\\\",e\n");
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void reportsUnterminatedQuoteAtTheEnd() {
+		DelimitedRecordValidator validator = validator(',', '"', LF, 2);
+		update(validator, "a,\"b\n");
+		validator.finish();
+
+		assertEquals(Collections.singletonList("delimited: record 1: unterminated quoted field at the end of the file"),
+				validator.drainViolations());
+	}
+
+	@Test
+	public void reportsMissingLastSeparator() {
+		DelimitedRecordValidator validator = validator(',', '"', LF, 2);
+		update(validator, "a,b\nc,d");
+		validator.finish();
+
+		assertEquals(Collections.singletonList("delimited: record 2: incomplete last record: no line separator"),
+				validator.drainViolations());
+	}
+
+	@Test
+	public void skipsContentChecksOfUnsampledRecords() {
+		// Record 1 always; then records 3 and 5
+		DelimitedRecordValidator validator = new DelimitedRecordValidator(',', '"', '"', LF, 2, 0.5, 1);
+		update(validator, "1\n2\n3\n4\n5\n");
+
+		assertEquals(Arrays.asList(
+				"delimited: record 1: 1 fields, expected 2",
+				"delimited: record 3: 1 fields, expected 2",
+				"delimited: record 5: 1 fields, expected 2"), validator.drainViolations());
+	}
+
+	@Test
+	public void forgetsAFieldCountSetByARolledBackRecord() {
+		DelimitedRecordValidator validator = validator(',', '"', LF, 0);
+		validator.mark();
+		update(validator, "A,B,C\n1,\"");
+		validator.reset();
+		update(validator, "A,B\n1,2\n");
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNonAsciiDelimiter() {
+		validator('\u00a7', '"', LF, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptySeparator() {
+		validator(',', '"', new byte[0], 0);
+	}
+
+	private static DelimitedRecordValidator validator(char delimiter, char quote, byte[] separator, int fieldCount) {
+		return new DelimitedRecordValidator(delimiter, quote, quote, separator, fieldCount, 1.0, 0);
+	}
+
+	private static void update(OutputValidator validator, String text) {
+		byte[] bytes = utf8(text);
+		validator.update(bytes, 0, bytes.length);
+	}
+
+	private static byte[] utf8(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,125 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NDJSON lines against a schema, fed the way a writer flushes them: in arbitrary slices, with a mark at
+ * every chunk boundary and a reset when a chunk is rolled back.
+ */
+public class JsonLineSchemaValidatorTest {
+	private static final JsonSchema SCHEMA = JsonSchemaTest.compile(
+			"{'type':'object','required':['ID'],'properties':{'ID':{'type':'integer','minimum':1}}}");
+
+	@Test
+	public void acceptsValidLinesSplitAnywhere() {
+		JsonLineSchemaValidator validator = validator(1.0, 0);
+		byte[] bytes = utf8("{\"ID\":1}\n{\"ID\":2}\r\n{\"ID\":3}\n");
+		for (byte b : bytes) {
+			validator.update(new byte[]{b}, 0, 1);
+		}
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void reportsSchemaViolationsWithTheirRecordNumber() {
+		JsonLineSchemaValidator validator = validator(1.0, 0);
+		update(validator, "{\"ID\":1}\n{\"ID\":0}\n{}\n");
+
+		assertEquals(Arrays.asList(
+				"json schema: record 2: $.ID: 0 is below the minimum 1",
+				"json schema: record 3: $: required property 'ID' is missing"), validator.drainViolations());
+	}
+
+	@Test
+	public void reportsLinesThatAreNotOneJsonValue() {
+		JsonLineSchemaValidator validator = validator(1.0, 0);
+		update(validator, "{\"ID\":1\n\n{\"ID\":1} {\"ID\":2}\n");
+
+		List<String> violations = validator.drainViolations();
+		assertEquals(3, violations.size());
+		assertTrue(violations.get(0), violations.get(0).startsWith("json schema: record 1: not valid JSON"));
+		assertEquals("json schema: record 2: empty line", violations.get(1));
+		assertEquals("json schema: record 3: more than one JSON value on the line", violations.get(2));
+	}
+
+	@Test
+	public void reportsUnterminatedLastLine() {
+		JsonLineSchemaValidator validator = validator(1.0, 0);
+		update(validator, "{\"ID\":1}\n{\"ID\":2}");
+		validator.finish();
+
+		assertEquals(Collections.singletonList("json schema: record 2: incomplete last line: no line feed"),
+				validator.drainViolations());
+	}
+
+	@Test
+	public void checksEveryRecordUpToSampleAfterRecordsThenAShare() {
+		// Records 1-2 always; then every other one: 4 and 6
+		JsonLineSchemaValidator validator = validator(0.5, 2);
+		for (int i = 0; i < 6; i++) {
+			update(validator, "{}\n");
+		}
+
+		List<String> violations = validator.drainViolations();
+		assertEquals(4, violations.size());
+		assertTrue(violations.get(0).startsWith("json schema: record 1:"));
+		assertTrue(violations.get(1).startsWith("json schema: record 2:"));
+		assertTrue(violations.get(2).startsWith("json schema: record 4:"));
+		assertTrue(violations.get(3).startsWith("json schema: record 6:"));
+	}
+
+	@Test
+	public void resumesFromTheMarkAfterARolledBackChunk() {
+		JsonLineSchemaValidator validator = validator(0.5, 2);
+		update(validator, "{\"ID\":1}\n{\"ID\":2}\n");
+		validator.mark();
+		// A chunk of two with a bad record, written halfway into the buffer when the chunk fails
+		update(validator, "{\"ID\":3}\n{\"ID\":0}\n{\"ID\"");
+		assertEquals(Collections.singletonList("json schema: record 4: $.ID: 0 is below the minimum 1"),
+				validator.drainViolations());
+
+		// The writer truncates to the mark and writes the chunk again without the bad record
+		validator.reset();
+		update(validator, "{\"ID\":3}\n{}\n");
+
+		// Same numbering and sampling as if the bad record had never been written: record 4 is checked
+		assertEquals(Collections.singletonList("json schema: record 4: $: required property 'ID' is missing"),
+				validator.drainViolations());
+		validator.finish();
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void resetDropsViolationsNotYetDrained() {
+		JsonLineSchemaValidator validator = validator(1.0, 0);
+		validator.mark();
+		update(validator, "{}\n");
+		validator.reset();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	private static JsonLineSchemaValidator validator(double sampleRate, long sampleAfterRecords) {
+		return new JsonLineSchemaValidator(new ObjectMapper(), SCHEMA, sampleRate, sampleAfterRecords);
+	}
+
+	private static void update(OutputValidator validator, String text) {
+		byte[] bytes = utf8(text);
+		validator.update(bytes, 0, bytes.length);
+	}
+
+	private static byte[] utf8(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
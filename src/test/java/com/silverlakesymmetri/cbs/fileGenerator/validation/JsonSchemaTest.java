@@ -0,0 +1,251 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Each supported keyword, and the schemas compile() must refuse rather than half-check.
+ * JSON is written with single quotes for readability.
+ */
+public class JsonSchemaTest {
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/* ================= Keywords ================= */
+
+	@Test
+	public void checksType() {
+		assertEquals(Collections.singletonList("$: expected string, found number"), validate("{'type':'string'}", "1"));
+		assertValid("{'type':['string','null']}", "null");
+		assertEquals(1, validate("{'type':['string','null']}", "true").size());
+	}
+
+	@Test
+	public void acceptsIntegralDecimalsAsInteger() {
+		assertValid("{'type':'integer'}", "2.0");
+		assertEquals(1, validate("{'type':'integer'}", "2.5").size());
+	}
+
+	@Test
+	public void checksEnumAndConst() {
+		assertValid("{'enum':['A','B']}", "'B'");
+		assertEquals(Collections.singletonList("$: \"C\" is not one of [\"A\", \"B\"]"), validate("{'enum':['A','B']}", "'C'"));
+		assertValid("{'const':0}", "0");
+		assertEquals(1, validate("{'const':0}", "1").size());
+	}
+
+	@Test
+	public void requiresBothEnumAndConst() {
+		assertEquals(1, validate("{'enum':['A','B'],'const':'C'}", "'C'").size());
+		assertValid("{'enum':['A','B'],'const':'B'}", "'B'");
+		assertEquals(1, validate("{'enum':['A','B'],'const':'B'}", "'A'").size());
+	}
+
+	@Test
+	public void checksRequiredAndNestedProperties() {
+		String schema = "{'required':['ID'],'properties':{'ID':{'type':'string'},'ADDR':{'properties':{'ZIP':{'maxLength':5}}}}}";
+
+		assertValid(schema, "{'ID':'1','ADDR':{'ZIP':'12345'}}");
+		assertEquals(Collections.singletonList("$: required property 'ID' is missing"), validate(schema, "{}"));
+		assertEquals(Collections.singletonList("$.ADDR.ZIP: 6 characters, maximum 5"),
+				validate(schema, "{'ID':'1','ADDR':{'ZIP':'123456'}}"));
+	}
+
+	@Test
+	public void checksAdditionalProperties() {
+		assertEquals(Collections.singletonList("$: property 'B' is not allowed"),
+				validate("{'properties':{'A':{}},'additionalProperties':false}", "{'A':1,'B':2}"));
+		assertEquals(Collections.singletonList("$.B: expected number, found string"),
+				validate("{'properties':{'A':{}},'additionalProperties':{'type':'number'}}", "{'A':'x','B':'y'}"));
+		assertValid("{'properties':{'A':{}}}", "{'A':1,'B':2}");
+	}
+
+	@Test
+	public void checksItemsAndTheirCount() {
+		String schema = "{'items':{'type':'integer'},'minItems':1,'maxItems':2}";
+
+		assertValid(schema, "[1,2]");
+		assertEquals(Collections.singletonList("$[1]: expected integer, found string"), validate(schema, "[1,'2']"));
+		assertEquals(Collections.singletonList("$: 0 items, minimum 1"), validate(schema, "[]"));
+		assertEquals(Collections.singletonList("$: 3 items, maximum 2"), validate(schema, "[1,2,3]"));
+	}
+
+	@Test
+	public void countsLengthInCodePoints() {
+		// One character outside the BMP is two UTF-16 chars
+		assertValid("{'minLength':2,'maxLength':2}", "'a\\ud83d\\ude00'");
+		assertEquals(Collections.singletonList("$: 1 characters, minimum 2"), validate("{'minLength':2}", "'a'"));
+	}
+
+	@Test
+	public void matchesPatternAnywhereInTheString() {
+		assertValid("{'pattern':'[0-9]{3}'}", "'AB123'");
+		assertEquals(Collections.singletonList("$: does not match ^[0-9]+$"), validate("{'pattern':'^[0-9]+$'}", "'12a'"));
+	}
+
+	@Test
+	public void checksInclusiveBounds() {
+		String schema = "{'minimum':0,'maximum':10.5}";
+
+		assertValid(schema, "0");
+		assertValid(schema, "10.50");
+		assertEquals(Collections.singletonList("$: -1 is below the minimum 0"), validate(schema, "-1"));
+		assertEquals(Collections.singletonList("$: 10.6 is above the maximum 10.5"), validate(schema, "10.6"));
+	}
+
+	@Test
+	public void checksNumericExclusiveBounds() {
+		String schema = "{'exclusiveMinimum':0,'exclusiveMaximum':10}";
+
+		assertValid(schema, "0.01");
+		assertEquals(Collections.singletonList("$: 0 is not above 0"), validate(schema, "0"));
+		assertEquals(Collections.singletonList("$: 10 is not below 10"), validate(schema, "10"));
+	}
+
+	@Test
+	public void readsDraft4BooleanExclusiveBounds() {
+		String schema = "{'minimum':0,'exclusiveMinimum':true,'maximum':10,'exclusiveMaximum':false}";
+
+		assertEquals(Collections.singletonList("$: 0 is not above 0"), validate(schema, "0"));
+		assertValid(schema, "10");
+		assertEquals(1, validate(schema, "10.1").size());
+	}
+
+	@Test
+	public void ignoresAnnotations() {
+		assertValid("{'$schema':'http://json-schema.org/draft-07/schema#','$id':'x','title':'T','description':'D'," +
+				"'default':1,'examples':[1],'$comment':'c','type':'integer'}", "1");
+	}
+
+	@Test
+	public void keepsCheckingAfterATypeMatch() {
+		List<String> errors = validate("{'properties':{'A':{'type':'string','maxLength':1},'B':{'minimum':5}}}",
+				"{'A':'xy','B':1}");
+
+		assertEquals(2, errors.size());
+	}
+
+	/* ================= Rejected schemas ================= */
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsRef() {
+		compile("{'properties':{'A':{'$ref':'#/definitions/a'}}}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsCombinators() {
+		compile("{'anyOf':[{'type':'string'},{'type':'null'}]}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsFormat() {
+		compile("{'type':'string','format':'date-time'}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMisspeltKeyword() {
+		compile("{'type':'string','maxLenght':5}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownType() {
+		compile("{'properties':{'A':{'type':'int'}}}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownTypeInArray() {
+		compile("{'type':['string','date']}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptyTypeArray() {
+		compile("{'type':[]}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDraft4ExclusiveBoundWithoutItsBound() {
+		compile("{'exclusiveMaximum':true}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsLengthGivenAsString() {
+		compile("{'maxLength':'5'}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeCount() {
+		compile("{'minItems':-1}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBoundGivenAsString() {
+		compile("{'minimum':'0'}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInvalidPattern() {
+		compile("{'pattern':'[0-9'}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEnumThatIsNotAnArray() {
+		compile("{'enum':'A'}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsRequiredNamesThatAreNotStrings() {
+		compile("{'required':[1]}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTupleItems() {
+		compile("{'items':[{'type':'string'}]}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBooleanSchema() {
+		compile("{'properties':{'A':true}}");
+	}
+
+	@Test
+	public void namesThePathOfARejectedKeyword() {
+		try {
+			compile("{'properties':{'A':{'items':{'oneOf':[]}}}}");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("'oneOf' at #/properties/A/items"));
+			return;
+		}
+		throw new AssertionError("oneOf was accepted");
+	}
+
+	/* ================= Helpers ================= */
+
+	static JsonSchema compile(String schema) {
+		try {
+			return JsonSchema.compile(MAPPER.readTree(schema.replace('\'', '"')));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static List<String> validate(String schema, String value) {
+		List<String> errors = new ArrayList<>();
+		try {
+			compile(schema).validate(MAPPER.readTree(value.replace('\'', '"')), errors);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return errors;
+	}
+
+	private static void assertValid(String schema, String value) {
+		assertEquals(Collections.emptyList(), validate(schema, value));
+	}
+}
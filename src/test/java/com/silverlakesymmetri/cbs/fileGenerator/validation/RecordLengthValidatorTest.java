@@ -0,0 +1,116 @@
+package com.silverlakesymmetri.cbs.fileGenerator.validation;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Fixed-length records, read by separator (text) and by position (records that may hold binary fields).
+ */
+public class RecordLengthValidatorTest {
+	private static final byte[] LF = {'\n'};
+	private static final byte[] CRLF = {'\r', '\n'};
+
+	@Test
+	public void measuresTextRecordsBySeparator() {
+		RecordLengthValidator validator = new RecordLengthValidator(4, LF, false, 1.0, 0);
+		update(validator, "abcd\nabc\nabcde\n");
+		validator.finish();
+
+		assertEquals(Arrays.asList(
+				"record length: record 2: 3 bytes, expected 4",
+				"record length: record 3: 5 bytes, expected 4"), validator.drainViolations());
+	}
+
+	@Test
+	public void countsPartialSeparatorAsData() {
+		RecordLengthValidator validator = new RecordLengthValidator(4, CRLF, false, 1.0, 0);
+		for (byte b : ascii("ab\rd\r\nwxyz\r\n")) {
+			validator.update(new byte[]{b}, 0, 1);
+		}
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void readsBinaryLineFeedsPositionally() {
+		RecordLengthValidator validator = new RecordLengthValidator(3, LF, true, 1.0, 0);
+		update(validator, "a\nc\n\n\n\n\n");
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test
+	public void getsBackInStepAfterALongRecord() {
+		RecordLengthValidator validator = new RecordLengthValidator(3, LF, true, 1.0, 0);
+		update(validator, "abcd\nabc\n");
+		validator.finish();
+
+		assertEquals(Collections.singletonList("record length: record 1: no line separator after 3 bytes " +
+				"(the record is longer, or one before it shorter)"), validator.drainViolations());
+	}
+
+	@Test
+	public void readsRecordsWithoutSeparator() {
+		RecordLengthValidator validator = new RecordLengthValidator(4, new byte[0], true, 1.0, 0);
+		update(validator, "abcdefghijk");
+		validator.finish();
+
+		assertEquals(Collections.singletonList("record length: record 3: incomplete last record: 3 bytes without a line separator"),
+				validator.drainViolations());
+	}
+
+	@Test
+	public void reportsMissingLastSeparator() {
+		RecordLengthValidator validator = new RecordLengthValidator(4, LF, false, 1.0, 0);
+		update(validator, "abcd\nabcd");
+		validator.finish();
+
+		assertEquals(Collections.singletonList("record length: record 2: incomplete last record: 4 bytes without a line separator"),
+				validator.drainViolations());
+	}
+
+	@Test
+	public void checksOnlySampledRecordsAfterTheFirst() {
+		// Record 1 always; then every other one: 3
+		RecordLengthValidator validator = new RecordLengthValidator(2, LF, false, 0.5, 1);
+		update(validator, "a\nb\nc\ndd\n");
+
+		assertEquals(Arrays.asList(
+				"record length: record 1: 1 bytes, expected 2",
+				"record length: record 3: 1 bytes, expected 2"), validator.drainViolations());
+	}
+
+	@Test
+	public void dropsThePartialRecordOnReset() {
+		RecordLengthValidator validator = new RecordLengthValidator(4, LF, true, 1.0, 0);
+		update(validator, "abcd\n");
+		validator.mark();
+		update(validator, "ab");
+		validator.reset();
+		update(validator, "wxyz\n");
+		validator.finish();
+
+		assertEquals(Collections.emptyList(), validator.drainViolations());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTextRecordsWithoutSeparator() {
+		new RecordLengthValidator(4, new byte[0], false, 1.0, 0);
+	}
+
+	private static void update(OutputValidator validator, String text) {
+		byte[] bytes = ascii(text);
+		validator.update(bytes, 0, bytes.length);
+	}
+
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}